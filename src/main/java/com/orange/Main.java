@@ -1,10 +1,25 @@
 package com.orange;
 
+import com.orange.cli.BatchJobs;
+import com.orange.cli.BuilderPools;
+import com.orange.cli.ReportDaemon;
+import com.orange.cli.ReportDaemonClient;
+import com.orange.cli.ShardedInventory;
+import com.orange.pdf.builder.data.BranchInventory;
 import com.orange.pdf.builder.data.LibraryPdfTableItem;
+import com.orange.pdf.cache.ReportCache;
+import com.orange.pdf.layout.LayoutProfile;
+import com.orange.pdf.memory.PdfMemoryPolicy;
+import com.orange.pdf.merge.MergeSource;
+import com.orange.pdf.merge.PdfMerger;
+import com.orange.pdf.metrics.ReportListener;
+import com.orange.pdf.metrics.ReportMetrics;
+import com.orange.pdf.output.PdfSaveOptions;
 import com.orange.pdf.overdue.data.OverduePdfTableItem;
 import com.orange.pdf.overdue.service.OverduePdfService;
 import com.orange.pdf.service.LibraryPdfService;
 
+import java.nio.file.Path;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -18,13 +33,167 @@ import java.util.*;
  */
 public class Main {
     public static void main(String[] args) {
+        if (args.length > 0 && (args[0].equals("--daemon") || args[0].equals("-dm"))) {
+            Path socket = args.length > 1 ? Path.of(args[1]) : ReportDaemon.DEFAULT_SOCKET;
+            try {
+                new ReportDaemon(socket, Runtime.getRuntime().availableProcessors()).run();
+            } catch (Exception e) {
+                System.err.println("Wystąpił błąd demona raportów: " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+        if (args.length > 0 && (args[0].equals("--client") || args[0].equals("-cl"))) {
+            if (args.length < 2) {
+                System.err.println("Błąd: Brak ścieżki gniazda dla parametru --client");
+                printHelp();
+                System.exit(1);
+            }
+            System.exit(ReportDaemonClient.submit(Path.of(args[1]), Arrays.copyOfRange(args, 2, args.length)));
+        }
+        if (args.length > 0 && (args[0].equals("--jobs") || args[0].equals("-jb"))) {
+            int exitCode = runJobs(args);
+            if (exitCode != 0) {
+                System.exit(exitCode);
+            }
+            return;
+        }
+        if (args.length > 0 && (args[0].equals("--merge") || args[0].equals("-mr"))) {
+            int exitCode = runMerge(args);
+            if (exitCode != 0) {
+                System.exit(exitCode);
+            }
+            return;
+        }
+        run(args, null);
+    }
+
+    /**
+     * Łączy raporty PDF podane po --merge w jeden dokument z pozycją konspektu dla każdego raportu
+     *
+     * @return kod wyjścia: 0 - raporty połączone, 1 - błąd
+     */
+    private static int runMerge(String[] args) {
+        if (args.length < 3) {
+            System.err.println("Błąd: Parametr --merge wymaga pliku wynikowego i co najmniej jednego raportu");
+            printHelp();
+            return 1;
+        }
+        PdfMerger merger = new PdfMerger();
+        PdfMemoryPolicy memoryPolicy = PdfMemoryPolicy.defaults();
+        String scratchDir = null;
+        List<MergeSource> sources = new ArrayList<>();
+        try {
+            for (int i = 2; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--memory", "-mm" -> {
+                        if (i + 1 >= args.length) {
+                            System.err.println("Błąd: Brak wartości dla parametru --memory");
+                            printHelp();
+                            return 1;
+                        }
+                        memoryPolicy = PdfMemoryPolicy.named(args[++i]);
+                    }
+                    case "--scratch-dir", "-sc" -> {
+                        if (i + 1 >= args.length) {
+                            System.err.println("Błąd: Brak wartości dla parametru --scratch-dir");
+                            printHelp();
+                            return 1;
+                        }
+                        scratchDir = args[++i];
+                    }
+                    case "--compression", "-cp" -> {
+                        if (i + 1 >= args.length) {
+                            System.err.println("Błąd: Brak wartości dla parametru --compression");
+                            printHelp();
+                            return 1;
+                        }
+                        merger.setSaveOptions(PdfSaveOptions.named(args[++i]));
+                    }
+                    default -> sources.add(MergeSource.of(args[i]));
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Błąd: " + e.getMessage());
+            printHelp();
+            return 1;
+        }
+        if (sources.isEmpty()) {
+            System.err.println("Błąd: Brak raportów do połączenia dla parametru --merge");
+            printHelp();
+            return 1;
+        }
+        if (scratchDir != null) {
+            memoryPolicy.setScratchDirectory(Path.of(scratchDir));
+        }
+
+        try {
+            merger.setMemoryPolicy(memoryPolicy).merge(sources, args[1]);
+        } catch (Exception e) {
+            System.err.println("Wystąpił błąd podczas łączenia raportów: " + e.getMessage());
+            return 1;
+        }
+        System.out.println("Połączono " + sources.size() + " raportów (" + merger.getPageCount() + " stron): " + args[1]);
+        System.out.println("Strumienie: " + merger.getStreamCount() + ", pominięte powtórzenia: "
+                + merger.getDuplicateStreamCount() + " (" + merger.getDuplicateStreamBytes() / 1024 + " KB)");
+        return 0;
+    }
+
+    /**
+     * Wykonuje zadania z pliku podanego po --jobs, z opcjonalną liczbą wątków po --parallel
+     *
+     * @return kod wyjścia: 0 - wszystkie zadania się powiodły, 1 - błąd
+     */
+    private static int runJobs(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Błąd: Brak ścieżki pliku dla parametru --jobs");
+            printHelp();
+            return 1;
+        }
+        Integer parallelism = null;
+        for (int i = 2; i < args.length; i++) {
+            if ((args[i].equals("--parallel") || args[i].equals("-pl")) && i + 1 < args.length) {
+                try {
+                    parallelism = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    System.err.println("Błąd: Liczba wątków musi być liczbą całkowitą");
+                    printHelp();
+                    return 1;
+                }
+            } else {
+                System.err.println("Błąd: Nieznany parametr dla --jobs: " + args[i]);
+                printHelp();
+                return 1;
+            }
+        }
+
+        try {
+            BatchJobs jobs = BatchJobs.load(Path.of(args[1]));
+            if (parallelism != null) {
+                jobs.setParallelism(parallelism);
+            }
+            return jobs.run();
+        } catch (Exception e) {
+            System.err.println("Wystąpił błąd podczas wykonywania zadań: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * Generuje raport dla podanych argumentów wiersza poleceń
+     *
+     * @param args argumenty wiersza poleceń (bez --daemon i --client)
+     * @param builderPools pule builderów demona lub null, aby tworzyć nowy builder dla każdego raportu
+     * @return kod wyjścia: 0 - raport wygenerowany lub wyświetlono pomoc, 1 - błąd
+     */
+    public static int run(String[] args, BuilderPools builderPools) {
         // Domyślne wartości
         String libraryName = "Biblioteka Miejska";
         String libraryDesc = "System Zarządzania Księgozbiorem";
         String address = "ul. Akademicka 16";
         String city = "44-100 Gliwice";
-        String reportNumber = "INV-" + LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd")) + "-001";
-        LocalDate reportDate = LocalDate.now();
+        String reportNumber = null; // numer raportu (domyślnie INV-<dzisiaj>-001, przy --previous numer poprzedniej wersji)
+        LocalDate reportDate = null; // data raportu (domyślnie dzisiejsza, przy --previous data poprzedniej wersji)
         String generatedBy = "Administrator";
         String outputPath = "library-report.pdf";
         String reportType = "inventory"; // domyślnie raport inwentaryzacyjny
@@ -33,9 +202,26 @@ public class Main {
         String publisher = null; // filtr wydawcy (domyślnie brak)
         LocalDate startDate = null; // data początkowa zakresu (domyślnie brak)
         LocalDate endDate = null;   // data końcowa zakresu (domyślnie brak)
+        PdfSaveOptions saveOptions = PdfSaveOptions.defaults(); // ustawienia kompresji
+        int saveThreads = 1;        // liczba wątków kompresji przy zapisie
+        String cacheDir = null;     // katalog pamięci podręcznej raportów (domyślnie brak)
+        String appendTo = null;     // poprzedni raport zalegających do uzupełnienia (domyślnie brak)
+        String previousReport = null; // poprzednia wersja raportu inwentaryzacyjnego (domyślnie brak)
+        boolean printMetrics = false; // wypisanie czasów faz generowania (domyślnie wyłączone)
+        PdfMemoryPolicy memoryPolicy = PdfMemoryPolicy.defaults(); // bufory dokumentu (domyślnie w pamięci)
+        String scratchDir = null;   // katalog plików tymczasowych buforów (domyślnie java.io.tmpdir)
+        String layoutName = null;   // profil układu stron (domyślnie standard)
+        String pageSize = null;     // rozmiar strony (domyślnie A4)
+        Float pageMargin = null;    // margines strony w punktach (domyślnie według profilu)
+        boolean wrapCells = false;  // zawijanie tekstu komórek tabel książek (domyślnie skracanie)
+        Integer shardCount = null;  // liczba procesów części raportu inwentaryzacyjnego (domyślnie jeden proces)
+        int[] shard = null;         // pierwszy wiersz i pierwsza strona części renderowanej przez proces roboczy
+        String noticeDir = null;    // katalog osobnych plików wezwań (domyślnie jeden dokument do druku)
+        int noticeThreads = 0;      // liczba wątków renderujących wezwania (domyślnie wszystkie rdzenie)
 
         List<LibraryPdfTableItem> books = new ArrayList<>();
         List<OverduePdfTableItem> overdueLoans = new ArrayList<>();
+        List<BranchInventory> branches = new ArrayList<>(); // filie raportu skonsolidowanego
         Map<String, Integer> statusCounts = new HashMap<>();
         Map<String, Integer> genreCounts = new HashMap<>();
         Map<String, Integer> publisherCounts = new HashMap<>();
@@ -125,7 +311,7 @@ public class Main {
                 // Sprawdzanie flag pomocy
                 if (args[0].equalsIgnoreCase("--help") || args[0].equalsIgnoreCase("-h")) {
                     printHelp();
-                    return;
+                    return 0;
                 }
 
                 // Parsowanie argumentów wiersza poleceń
@@ -136,7 +322,7 @@ public class Main {
                             else {
                                 System.err.println("Błąd: Brak wartości dla parametru --library");
                                 printHelp();
-                                return;
+                                return 1;
                             }
                         }
                         case "--desc", "-d" -> {
@@ -144,7 +330,7 @@ public class Main {
                             else {
                                 System.err.println("Błąd: Brak wartości dla parametru --desc");
                                 printHelp();
-                                return;
+                                return 1;
                             }
                         }
                         case "--address", "-a" -> {
@@ -152,7 +338,7 @@ public class Main {
                             else {
                                 System.err.println("Błąd: Brak wartości dla parametru --address");
                                 printHelp();
-                                return;
+                                return 1;
                             }
                         }
                         case "--city", "-c" -> {
@@ -160,7 +346,7 @@ public class Main {
                             else {
                                 System.err.println("Błąd: Brak wartości dla parametru --city");
                                 printHelp();
-                                return;
+                                return 1;
                             }
                         }
                         case "--report", "-r" -> {
@@ -168,7 +354,7 @@ public class Main {
                             else {
                                 System.err.println("Błąd: Brak wartości dla parametru --report");
                                 printHelp();
-                                return;
+                                return 1;
                             }
                         }
                         case "--date", "-dt" -> {
@@ -178,12 +364,12 @@ public class Main {
                                 } catch (DateTimeParseException e) {
                                     System.err.println("Błąd: Nieprawidłowy format daty. Użyj formatu: yyyy-MM-dd");
                                     printHelp();
-                                    return;
+                                    return 1;
                                 }
                             } else {
                                 System.err.println("Błąd: Brak wartości dla parametru --date");
                                 printHelp();
-                                return;
+                                return 1;
                             }
                         }
                         case "--by", "-b" -> {
@@ -191,7 +377,7 @@ public class Main {
                             else {
                                 System.err.println("Błąd: Brak wartości dla parametru --by");
                                 printHelp();
-                                return;
+                                return 1;
                             }
                         }
                         case "--output", "-o" -> {
@@ -199,7 +385,7 @@ public class Main {
                             else {
                                 System.err.println("Błąd: Brak wartości dla parametru --output");
                                 printHelp();
-                                return;
+                                return 1;
                             }
                         }
                         case "--type", "-t" -> {
@@ -207,15 +393,16 @@ public class Main {
                                 reportType = args[++i].toLowerCase();
                                 if (!reportType.equals("inventory") && !reportType.equals("borrowed") &&
                                         !reportType.equals("filtered") && !reportType.equals("popularity") &&
-                                        !reportType.equals("overdue")) {
+                                        !reportType.equals("overdue") && !reportType.equals("consolidated") &&
+                                        !reportType.equals("notices")) {
                                     System.err.println("Błąd: Nieznany typ raportu: " + reportType);
                                     printHelp();
-                                    return;
+                                    return 1;
                                 }
                             } else {
                                 System.err.println("Błąd: Brak wartości dla parametru --type");
                                 printHelp();
-                                return;
+                                return 1;
                             }
                         }
                         case "--genre", "-g" -> {
@@ -223,7 +410,7 @@ public class Main {
                             else {
                                 System.err.println("Błąd: Brak wartości dla parametru --genre");
                                 printHelp();
-                                return;
+                                return 1;
                             }
                         }
                         case "--status", "-st" -> {
@@ -231,7 +418,7 @@ public class Main {
                             else {
                                 System.err.println("Błąd: Brak wartości dla parametru --status");
                                 printHelp();
-                                return;
+                                return 1;
                             }
                         }
                         case "--publisher", "-p" -> {
@@ -239,7 +426,7 @@ public class Main {
                             else {
                                 System.err.println("Błąd: Brak wartości dla parametru --publisher");
                                 printHelp();
-                                return;
+                                return 1;
                             }
                         }
                         case "--start-date", "-sd" -> {
@@ -249,12 +436,12 @@ public class Main {
                                 } catch (DateTimeParseException e) {
                                     System.err.println("Błąd: Nieprawidłowy format daty początkowej. Użyj formatu: yyyy-MM-dd");
                                     printHelp();
-                                    return;
+                                    return 1;
                                 }
                             } else {
                                 System.err.println("Błąd: Brak wartości dla parametru --start-date");
                                 printHelp();
-                                return;
+                                return 1;
                             }
                         }
                         case "--end-date", "-ed" -> {
@@ -264,12 +451,200 @@ public class Main {
                                 } catch (DateTimeParseException e) {
                                     System.err.println("Błąd: Nieprawidłowy format daty końcowej. Użyj formatu: yyyy-MM-dd");
                                     printHelp();
-                                    return;
+                                    return 1;
                                 }
                             } else {
                                 System.err.println("Błąd: Brak wartości dla parametru --end-date");
                                 printHelp();
-                                return;
+                                return 1;
+                            }
+                        }
+                        case "--compression", "-cp" -> {
+                            if (i + 1 < args.length) {
+                                try {
+                                    saveOptions = PdfSaveOptions.named(args[++i]);
+                                } catch (IllegalArgumentException e) {
+                                    System.err.println("Błąd: " + e.getMessage());
+                                    printHelp();
+                                    return 1;
+                                }
+                            } else {
+                                System.err.println("Błąd: Brak wartości dla parametru --compression");
+                                printHelp();
+                                return 1;
+                            }
+                        }
+                        case "--save-threads", "-sth" -> {
+                            if (i + 1 < args.length) {
+                                try {
+                                    saveThreads = Integer.parseInt(args[++i]);
+                                } catch (NumberFormatException e) {
+                                    saveThreads = -1;
+                                }
+                                if (saveThreads < 0) {
+                                    System.err.println("Błąd: Nieprawidłowa liczba wątków kompresji: " + args[i]);
+                                    printHelp();
+                                    return 1;
+                                }
+                            } else {
+                                System.err.println("Błąd: Brak wartości dla parametru --save-threads");
+                                printHelp();
+                                return 1;
+                            }
+                        }
+                        case "--notice-dir", "-nd" -> {
+                            if (i + 1 < args.length) {
+                                noticeDir = args[++i];
+                            } else {
+                                System.err.println("Błąd: Brak wartości dla parametru --notice-dir");
+                                printHelp();
+                                return 1;
+                            }
+                        }
+                        case "--threads", "-th" -> {
+                            if (i + 1 < args.length) {
+                                try {
+                                    noticeThreads = Integer.parseInt(args[++i]);
+                                } catch (NumberFormatException e) {
+                                    noticeThreads = -1;
+                                }
+                                if (noticeThreads < 0) {
+                                    System.err.println("Błąd: Nieprawidłowa liczba wątków: " + args[i]);
+                                    printHelp();
+                                    return 1;
+                                }
+                            } else {
+                                System.err.println("Błąd: Brak wartości dla parametru --threads");
+                                printHelp();
+                                return 1;
+                            }
+                        }
+                        case "--cache-dir", "-cd" -> {
+                            if (i + 1 < args.length) {
+                                cacheDir = args[++i];
+                            } else {
+                                System.err.println("Błąd: Brak wartości dla parametru --cache-dir");
+                                printHelp();
+                                return 1;
+                            }
+                        }
+                        case "--append-to", "-ap" -> {
+                            if (i + 1 < args.length) {
+                                appendTo = args[++i];
+                            } else {
+                                System.err.println("Błąd: Brak wartości dla parametru --append-to");
+                                printHelp();
+                                return 1;
+                            }
+                        }
+                        case "--previous", "-pv" -> {
+                            if (i + 1 < args.length) {
+                                previousReport = args[++i];
+                            } else {
+                                System.err.println("Błąd: Brak wartości dla parametru --previous");
+                                printHelp();
+                                return 1;
+                            }
+                        }
+                        case "--metrics", "-mt" -> printMetrics = true;
+                        case "--wrap-cells", "-wc" -> wrapCells = true;
+                        case "--shards", "-sh" -> {
+                            if (i + 1 < args.length) {
+                                try {
+                                    shardCount = Integer.parseInt(args[++i]);
+                                } catch (NumberFormatException e) {
+                                    shardCount = 0;
+                                }
+                                if (shardCount < 1) {
+                                    System.err.println("Błąd: Nieprawidłowa liczba części raportu: " + args[i]);
+                                    printHelp();
+                                    return 1;
+                                }
+                            } else {
+                                System.err.println("Błąd: Brak wartości dla parametru --shards");
+                                printHelp();
+                                return 1;
+                            }
+                        }
+                        case "--shard" -> {
+                            if (i + 2 < args.length) {
+                                try {
+                                    shard = new int[]{Integer.parseInt(args[++i]), Integer.parseInt(args[++i])};
+                                } catch (NumberFormatException e) {
+                                    System.err.println("Błąd: Pierwszy wiersz i pierwsza strona części muszą być liczbami całkowitymi");
+                                    printHelp();
+                                    return 1;
+                                }
+                            } else {
+                                System.err.println("Błąd: Niewystarczająca liczba wartości dla parametru --shard");
+                                printHelp();
+                                return 1;
+                            }
+                        }
+                        case "--memory", "-mm" -> {
+                            if (i + 1 < args.length) {
+                                try {
+                                    memoryPolicy = PdfMemoryPolicy.named(args[++i]);
+                                } catch (IllegalArgumentException e) {
+                                    System.err.println("Błąd: " + e.getMessage());
+                                    printHelp();
+                                    return 1;
+                                }
+                            } else {
+                                System.err.println("Błąd: Brak wartości dla parametru --memory");
+                                printHelp();
+                                return 1;
+                            }
+                        }
+                        case "--scratch-dir", "-sc" -> {
+                            if (i + 1 < args.length) {
+                                scratchDir = args[++i];
+                            } else {
+                                System.err.println("Błąd: Brak wartości dla parametru --scratch-dir");
+                                printHelp();
+                                return 1;
+                            }
+                        }
+                        case "--layout", "-ly" -> {
+                            if (i + 1 < args.length) {
+                                layoutName = args[++i];
+                            } else {
+                                System.err.println("Błąd: Brak wartości dla parametru --layout");
+                                printHelp();
+                                return 1;
+                            }
+                        }
+                        case "--page-size", "-ps" -> {
+                            if (i + 1 < args.length) {
+                                pageSize = args[++i];
+                            } else {
+                                System.err.println("Błąd: Brak wartości dla parametru --page-size");
+                                printHelp();
+                                return 1;
+                            }
+                        }
+                        case "--margin", "-mg" -> {
+                            if (i + 1 < args.length) {
+                                try {
+                                    pageMargin = Float.parseFloat(args[++i]);
+                                } catch (NumberFormatException e) {
+                                    System.err.println("Błąd: Margines musi być liczbą punktów");
+                                    printHelp();
+                                    return 1;
+                                }
+                            } else {
+                                System.err.println("Błąd: Brak wartości dla parametru --margin");
+                                printHelp();
+                                return 1;
+                            }
+                        }
+                        case "--branch", "-br" -> {
+                            if (i + 3 < args.length) {
+                                branches.add(new BranchInventory(args[++i], args[++i], args[++i], new ArrayList<>()));
+                            } else {
+                                System.err.println("Błąd: Niewystarczająca liczba wartości dla parametru --branch");
+                                printHelp();
+                                return 1;
                             }
                         }
                         case "--book", "-bk" -> {
@@ -282,6 +657,13 @@ public class Main {
                                 String bookGenre = args[++i];
                                 String description = args[++i];
 
+                                // Książki podane po --branch należą do ostatnio dodanej filii
+                                if (!branches.isEmpty()) {
+                                    branches.get(branches.size() - 1).getBooks().add(new LibraryPdfTableItem(
+                                            bookId, title, authors, bookPublisher, bookStatus, bookGenre, description));
+                                    continue;
+                                }
+
                                 // Jeśli dodajemy pierwszą książkę za pomocą parametrów, wyczyść domyślne książki
                                 if (!books.isEmpty() && books.get(0).getBookId().equals("1001")) {
                                     books.clear();
@@ -304,7 +686,7 @@ public class Main {
                             } else {
                                 System.err.println("Błąd: Niewystarczająca liczba wartości dla parametru --book");
                                 printHelp();
-                                return;
+                                return 1;
                             }
                         }
                         case "--loan-count", "-lc" -> {
@@ -316,12 +698,12 @@ public class Main {
                                 } catch (NumberFormatException e) {
                                     System.err.println("Błąd: Liczba wypożyczeń musi być liczbą całkowitą");
                                     printHelp();
-                                    return;
+                                    return 1;
                                 }
                             } else {
                                 System.err.println("Błąd: Niewystarczająca liczba wartości dla parametru --loan-count");
                                 printHelp();
-                                return;
+                                return 1;
                             }
                         }
                         case "--loan", "-ln" -> {
@@ -355,18 +737,18 @@ public class Main {
                                 } catch (NumberFormatException e) {
                                     System.err.println("Błąd: Liczba dni zaległości musi być liczbą całkowitą");
                                     printHelp();
-                                    return;
+                                    return 1;
                                 }
                             } else {
                                 System.err.println("Błąd: Niewystarczająca liczba wartości dla parametru --loan");
                                 printHelp();
-                                return;
+                                return 1;
                             }
                         }
                         default -> {
                             System.err.println("Błąd: Nieznany parametr: " + args[i]);
                             printHelp();
-                            return;
+                            return 1;
                         }
                     }
                 }
@@ -374,41 +756,166 @@ public class Main {
             } catch (Exception e) {
                 System.err.println("Wystąpił błąd: " + e.getMessage());
                 printHelp();
-                return;
+                return 1;
             }
         } else {
             System.out.println("Używam domyślnych parametrów. Użyj --help aby zobaczyć dostępne opcje.");
         }
 
+        if ((shardCount != null || shard != null) && (!reportType.equals("inventory") || previousReport != null)) {
+            System.err.println("Błąd: Parametry --shards i --shard dotyczą raportu inwentaryzacyjnego bez --previous");
+            printHelp();
+            return 1;
+        }
+
+        // Przy ponownym generowaniu numer i data niepodane jawnie są przejmowane z poprzedniej wersji raportu,
+        // aby niezmienione strony mogły zostać przeniesione
+        if (previousReport == null || !reportType.equals("inventory")) {
+            if (reportNumber == null) {
+                reportNumber = "INV-" + LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd")) + "-001";
+            }
+            if (reportDate == null) {
+                reportDate = LocalDate.now();
+            }
+        }
+
+        if (!branches.isEmpty() && !reportType.equals("consolidated")) {
+            System.err.println("Błąd: Parametr --branch dotyczy raportu skonsolidowanego (typ 'consolidated')");
+            printHelp();
+            return 1;
+        }
+
+        if (noticeDir != null && !reportType.equals("notices")) {
+            System.err.println("Błąd: Parametr --notice-dir dotyczy wezwań do zwrotu (typ 'notices')");
+            printHelp();
+            return 1;
+        }
+
+        saveOptions.setCompressionParallelism(saveThreads);
+        boolean defaultLayout = layoutName == null && pageSize == null && pageMargin == null && !wrapCells;
+        LayoutProfile layoutProfile = LayoutProfile.standard();
+        if (!defaultLayout) {
+            try {
+                layoutProfile = LayoutProfile.named(layoutName != null ? layoutName : "standard", pageSize);
+                if (pageMargin != null) {
+                    layoutProfile.setMargin(pageMargin);
+                }
+                layoutProfile.setWrapCells(wrapCells);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Błąd: " + e.getMessage());
+                printHelp();
+                return 1;
+            }
+        }
+        if (scratchDir != null) {
+            memoryPolicy.setScratchDirectory(Path.of(scratchDir));
+        }
+        ReportCache reportCache = cacheDir != null
+                ? new ReportCache().setDiskTier(Path.of(cacheDir), ReportCache.DEFAULT_MAX_DISK_ENTRIES)
+                : null;
+        // Buildery z puli demona mają domyślną politykę pamięci i układ stron,
+        // więc inna polityka lub inny układ wymaga nowego buildera
+        boolean pooled = builderPools != null && memoryPolicy.getMode() == PdfMemoryPolicy.Mode.MAIN_MEMORY_ONLY
+                && scratchDir == null && defaultLayout;
+        ReportMetrics reportMetrics = new ReportMetrics();
+        ReportListener reportListener = printMetrics ? reportMetrics : ReportListener.NONE;
+
         // Tworzenie dokumentu
         try {
             System.out.println("Generowanie raportu bibliotecznego PDF...");
 
             if (reportType.equals("inventory")) {
-                LibraryPdfService pdfService = new LibraryPdfService();
-                pdfService.generateInventoryReport(
+                LibraryPdfService pdfService = new LibraryPdfService().setSaveOptions(saveOptions).setReportCache(reportCache)
+                        .setReportListener(reportListener).setMemoryPolicy(memoryPolicy).setLayoutProfile(layoutProfile);
+                if (pooled) {
+                    builderPools.applyTo(pdfService);
+                }
+                if (shard != null) {
+                    pdfService.generateInventoryShard(
+                            libraryName,
+                            libraryDesc,
+                            address,
+                            city,
+                            reportNumber,
+                            reportDate,
+                            books,
+                            shard[0],
+                            shard[1],
+                            outputPath
+                    );
+                } else if (shardCount != null) {
+                    new ShardedInventory(pdfService, shardCount)
+                            .generate(args, books, reportNumber, reportDate, generatedBy, outputPath);
+                } else if (previousReport != null) {
+                    pdfService.regenerateInventoryReport(
+                            previousReport,
+                            libraryName,
+                            libraryDesc,
+                            address,
+                            city,
+                            reportNumber,
+                            reportDate,
+                            books,
+                            statusCounts,
+                            genreCounts,
+                            publisherCounts,
+                            outputPath,
+                            generatedBy
+                    );
+                } else {
+                    pdfService.generateInventoryReport(
+                            libraryName,
+                            libraryDesc,
+                            address,
+                            city,
+                            reportNumber,
+                            reportDate,
+                            books,
+                            statusCounts,
+                            genreCounts,
+                            publisherCounts,
+                            outputPath,
+                            generatedBy
+                    );
+                }
+            } else if (reportType.equals("consolidated")) {
+                LibraryPdfService pdfService = new LibraryPdfService().setSaveOptions(saveOptions).setReportCache(reportCache)
+                        .setReportListener(reportListener).setMemoryPolicy(memoryPolicy).setLayoutProfile(layoutProfile);
+                if (pooled) {
+                    builderPools.applyTo(pdfService);
+                }
+                if (branches.isEmpty()) {
+                    // Bez --branch raport ma jedną filię z danymi biblioteki i podanymi książkami
+                    branches.add(new BranchInventory(libraryName, address, city, books));
+                }
+                pdfService.generateConsolidatedInventoryReport(
                         libraryName,
                         libraryDesc,
                         address,
                         city,
                         reportNumber,
                         reportDate,
-                        books,
-                        statusCounts,
-                        genreCounts,
-                        publisherCounts,
+                        branches,
                         outputPath,
                         generatedBy
                 );
             } else if (reportType.equals("borrowed")) {
-                LibraryPdfService pdfService = new LibraryPdfService();
+                LibraryPdfService pdfService = new LibraryPdfService().setSaveOptions(saveOptions).setReportCache(reportCache)
+                        .setReportListener(reportListener).setMemoryPolicy(memoryPolicy).setLayoutProfile(layoutProfile);
+                if (pooled) {
+                    builderPools.applyTo(pdfService);
+                }
                 pdfService.generateBorrowedBooksReport(
                         books,
                         outputPath,
                         generatedBy
                 );
             } else if (reportType.equals("filtered")) {
-                LibraryPdfService pdfService = new LibraryPdfService();
+                LibraryPdfService pdfService = new LibraryPdfService().setSaveOptions(saveOptions).setReportCache(reportCache)
+                        .setReportListener(reportListener).setMemoryPolicy(memoryPolicy).setLayoutProfile(layoutProfile);
+                if (pooled) {
+                    builderPools.applyTo(pdfService);
+                }
                 pdfService.generateFilteredReport(
                         books,
                         genre,
@@ -418,7 +925,11 @@ public class Main {
                         generatedBy
                 );
             } else if (reportType.equals("popularity")) {
-                LibraryPdfService pdfService = new LibraryPdfService();
+                LibraryPdfService pdfService = new LibraryPdfService().setSaveOptions(saveOptions).setReportCache(reportCache)
+                        .setReportListener(reportListener).setMemoryPolicy(memoryPolicy).setLayoutProfile(layoutProfile);
+                if (pooled) {
+                    builderPools.applyTo(pdfService);
+                }
                 pdfService.generatePopularityReport(
                         books,
                         loanCounts,
@@ -430,23 +941,49 @@ public class Main {
                         generatedBy
                 );
             } else if (reportType.equals("overdue")) {
-                OverduePdfService overdueService = new OverduePdfService();
-                overdueService.generateOverdueReport(
-                        overdueLoans,
-                        startDate,
-                        endDate,
-                        genre,
-                        publisher,
-                        outputPath,
-                        generatedBy
-                );
+                OverduePdfService overdueService = new OverduePdfService().setSaveOptions(saveOptions).setReportCache(reportCache)
+                        .setReportListener(reportListener).setMemoryPolicy(memoryPolicy).setLayoutProfile(layoutProfile);
+                if (pooled) {
+                    builderPools.applyTo(overdueService);
+                }
+                if (appendTo != null) {
+                    overdueService.appendOverdueReport(appendTo, overdueLoans, outputPath, generatedBy);
+                } else {
+                    overdueService.generateOverdueReport(
+                            overdueLoans,
+                            startDate,
+                            endDate,
+                            genre,
+                            publisher,
+                            outputPath,
+                            generatedBy
+                    );
+                }
+            } else if (reportType.equals("notices")) {
+                OverduePdfService overdueService = new OverduePdfService().setSaveOptions(saveOptions)
+                        .setReportListener(reportListener).setMemoryPolicy(memoryPolicy).setLayoutProfile(layoutProfile)
+                        .setNoticeParallelism(noticeThreads);
+                if (noticeDir != null) {
+                    overdueService.generateOverdueNoticeFiles(overdueLoans, noticeDir, generatedBy);
+                } else {
+                    overdueService.generateOverdueNotices(overdueLoans, outputPath, generatedBy);
+                }
             }
 
-            System.out.println("Raport biblioteczny został pomyślnie wygenerowany: " + outputPath);
+            System.out.println("Raport biblioteczny został pomyślnie wygenerowany: " + (noticeDir != null ? noticeDir : outputPath));
+            if (reportCache != null) {
+                System.out.println("Pamięć podręczna raportów: trafienia " + (reportCache.getHitCount() + reportCache.getDiskHitCount())
+                        + ", chybienia " + reportCache.getMissCount());
+            }
+            if (printMetrics) {
+                System.out.print("Statystyki generowania:\n" + reportMetrics);
+            }
         } catch (Exception e) {
             System.err.println("Wystąpił błąd podczas generowania raportu: " + e.getMessage());
             e.printStackTrace();
+            return 1;
         }
+        return 0;
     }
 
     /**
@@ -463,18 +1000,47 @@ public class Main {
         System.out.println("  --desc, -d <tekst>        Opis biblioteki");
         System.out.println("  --address, -a <tekst>     Adres - ulica");
         System.out.println("  --city, -c <tekst>        Miasto i kod pocztowy");
-        System.out.println("  --report, -r <tekst>      Numer raportu");
-        System.out.println("  --date, -dt <data>        Data raportu w formacie yyyy-MM-dd");
+        System.out.println("  --report, -r <tekst>      Numer raportu (przy --previous domyślnie numer poprzedniej wersji)");
+        System.out.println("  --date, -dt <data>        Data raportu w formacie yyyy-MM-dd (przy --previous domyślnie data poprzedniej wersji)");
         System.out.println("  --by, -b <tekst>          Osoba generująca raport");
         System.out.println("  --output, -o <ścieżka>    Ścieżka wyjściowa pliku PDF");
-        System.out.println("  --type, -t <typ>          Typ raportu: 'inventory', 'borrowed', 'filtered', 'popularity' lub 'overdue'");
+        System.out.println("  --type, -t <typ>          Typ raportu: 'inventory', 'borrowed', 'filtered', 'popularity', 'overdue'");
+        System.out.println("                            lub 'consolidated' (raport inwentaryzacyjny sieci z sekcją dla każdej filii)");
+        System.out.println("                            lub 'notices' (wezwania do zwrotu dla każdego zalegającego użytkownika)");
         System.out.println("  --genre, -g <tekst>       Filtr gatunku (dla typu filtered/popularity/overdue)");
         System.out.println("  --status, -st <tekst>     Filtr statusu (dla typu filtered)");
         System.out.println("  --publisher, -p <tekst>   Filtr wydawcy (dla typu filtered/popularity/overdue)");
         System.out.println("  --start-date, -sd <data>  Data początkowa zakresu w formacie yyyy-MM-dd (dla typu popularity/overdue)");
         System.out.println("  --end-date, -ed <data>    Data końcowa zakresu w formacie yyyy-MM-dd (dla typu popularity/overdue)");
+        System.out.println("  --compression, -cp <tryb> Kompresja pliku: 'default', 'archive' (najmniejszy), 'fast' (najszybszy) lub 'none'");
+        System.out.println("  --save-threads, -sth <n>  Liczba wątków kompresji przy zapisie (1 - sekwencyjnie, 0 - wszystkie rdzenie)");
+        System.out.println("  --cache-dir, -cd <katalog> Katalog pamięci podręcznej raportów o identycznych danych");
+        System.out.println("  --append-to, -ap <plik>   Dopisuje zaległości do istniejącego raportu (typ 'overdue', zapis przyrostowy)");
+        System.out.println("  --notice-dir, -nd <katalog> Zapisuje wezwania (typ 'notices') w osobnych plikach zamiast jednego dokumentu");
+        System.out.println("  --threads, -th <n>        Liczba wątków renderujących wezwania (typ 'notices'; 0 - wszystkie rdzenie)");
+        System.out.println("  --metrics, -mt            Wypisuje czasy faz generowania i liczniki raportu");
+        System.out.println("  --previous, -pv <plik>    Poprzednia wersja raportu; renderowane są tylko zmienione strony (typ 'inventory')");
+        System.out.println("  --memory, -mm <polityka>  Bufory dokumentu: 'memory', 'file' lub 'mixed:<limit>' (np. mixed:64m)");
+        System.out.println("  --scratch-dir, -sc <katalog> Katalog plików tymczasowych buforów (dla 'file' i 'mixed')");
+        System.out.println("  --layout, -ly <profil>    Układ stron: 'standard' lub 'dense' (mniejsze marginesy, wiersze dopasowane do fontu)");
+        System.out.println("  --page-size, -ps <rozmiar> Rozmiar strony: 'A4', 'A5' lub <szerokość>x<wysokość> w mm (np. 148x210)");
+        System.out.println("  --margin, -mg <pt>        Margines strony w punktach (domyślnie według profilu układu)");
+        System.out.println("  --wrap-cells, -wc         Zawija tytuły, autorów i wydawców w wiele linii i pokazuje opisy książek");
+        System.out.println("  --shards, -sh <n>         Generuje raport 'inventory' w n częściach w osobnych procesach i łączy je;");
+        System.out.println("                            wiersze są uporządkowane według ID książki");
+        System.out.println("  --daemon, -dm [gniazdo]   Uruchamia demona raportów nasłuchującego na gnieździe Unix (tylko jako pierwszy parametr)");
+        System.out.println("  --client, -cl <gniazdo> [opcje]");
+        System.out.println("                            Przekazuje pozostałe opcje do demona i zwraca jego wynik (tylko jako pierwszy parametr)");
+        System.out.println("  --jobs, -jb <plik> [--parallel, -pl <n>]");
+        System.out.println("                            Generuje raporty z pliku zadań JSON w jednym procesie (tylko jako pierwszy parametr);");
+        System.out.println("                            n - liczba równoległych zadań (0 - wszystkie rdzenie)");
+        System.out.println("  --merge, -mr <wynik> <raport>... [--memory <polityka>] [--scratch-dir <katalog>] [--compression <tryb>]");
+        System.out.println("                            Łączy raporty PDF w jeden dokument z pozycją konspektu dla każdego raportu");
+        System.out.println("                            (tylko jako pierwszy parametr); identyczne fonty i obrazy są zapisywane raz");
         System.out.println("  --book, -bk <id> <tytuł> <autor> <wydawca> <status> <gatunek> <opis>");
         System.out.println("                            Dodaje książkę do raportu. Można użyć wielokrotnie.");
+        System.out.println("  --branch, -br <nazwa> <adres> <miasto>");
+        System.out.println("                            Dodaje filię do raportu 'consolidated'; kolejne --book należą do tej filii.");
         System.out.println("  --loan-count, -lc <id> <liczba>");
         System.out.println("                            Określa liczbę wypożyczeń dla książki (dla typu popularity).");
         System.out.println("  --loan, -ln <id_wyp> <id_książki> <tytuł> <autor> <wydawca> <gatunek> <id_użytkownika> <nazwa_użytkownika> <email> <telefon> <dni_zaległości>");
@@ -487,12 +1053,25 @@ public class Main {
         System.out.println("  java -jar pdfjava-generator.jar -t popularity -g Fantasy -sd 2023-01-01 -ed 2023-12-31 -o popularity_report.pdf");
         System.out.println("  java -jar pdfjava-generator.jar -t overdue -g Fantasy -sd 2024-01-01 -ed 2024-06-30 -o overdue_report.pdf");
         System.out.println("  java -jar pdfjava-generator.jar -t overdue -o overdue_all.pdf");
+        System.out.println("  java -jar pdfjava-generator.jar -t notices -o wezwania.pdf --threads 8");
+        System.out.println("  java -jar pdfjava-generator.jar -t notices --notice-dir wezwania/");
         System.out.println("  java -jar pdfjava-generator.jar -ln \"L100\" \"1001\" \"Test Book\" \"Test Author\" \"Test Publisher\" \"Fantasy\" \"U100\" \"Test User\" \"test@email.com\" \"+48123456789\" \"15\"");
+        System.out.println("  java -jar pdfjava-generator.jar -t inventory --layout dense --page-size A5 -o inwentarz_a5.pdf");
+        System.out.println("  java -jar pdfjava-generator.jar -t consolidated -l \"Sieć Bibliotek\" -br \"Filia nr 1\" \"ul. Długa 1\" \"44-100 Gliwice\" -bk ... -br \"Filia nr 2\" ... -o siec.pdf");
+        System.out.println("  java -Xmx2g -jar pdfjava-generator.jar -t inventory --shards 8 -o katalog.pdf");
+        System.out.println("  java -jar pdfjava-generator.jar --jobs filie.json --parallel 4");
+        System.out.println("  java -jar pdfjava-generator.jar --merge region.pdf filia_*.pdf --memory file");
+        System.out.println("  java -jar pdfjava-generator.jar --daemon /tmp/raporty.sock");
+        System.out.println("  java -jar pdfjava-generator.jar --client /tmp/raporty.sock -t overdue -o overdue_all.pdf");
         System.out.println();
         System.out.println("Uwagi:");
         System.out.println("- Jeśli nie podano argumentów, użyte zostaną wartości domyślne");
         System.out.println("- Aby użyć wartości z spacjami, należy je ująć w cudzysłowy");
         System.out.println("- Raport zalegających (overdue) pokazuje użytkowników z przeterminowanymi wypożyczeniami");
         System.out.println("- Filtry czasowe w raporcie zalegających dotyczą daty wypożyczenia, nie daty zaległości");
+        System.out.println("- Demon przyjmuje zadania JSON w osobnych wierszach, np. {\"args\": [\"-t\", \"overdue\"], \"cwd\": \"/home/raporty\"}");
+        System.out.println("  lub {\"type\": \"overdue\", \"output\": \"overdue.pdf\"}; względne ścieżki są liczone od cwd");
+        System.out.println("- Plik zadań zawiera listę takich zadań lub obiekt {\"parallelism\": n, \"defaults\": {...}, \"jobs\": [...]};");
+        System.out.println("  wartość {\"file\": \"dane.json\"} jest zastępowana zawartością pliku, a ścieżki są liczone od katalogu pliku zadań");
     }
 }
\ No newline at end of file
@@ -0,0 +1,252 @@
+package com.orange.cli;
+
+import com.orange.Main;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plik zadań wsadowych: wiele raportów generowanych w jednym procesie przez pulę wątków,
+ * ze wspólnymi pulami builderów i jednokrotnie wczytanymi plikami danych.
+ * <p>
+ * Plik JSON zawiera listę zadań albo obiekt:
+ * <pre>
+ * {
+ *   "parallelism": 4,
+ *   "defaults": {"library": "Biblioteka Miejska", "by": "Administrator"},
+ *   "jobs": [
+ *     {"type": "inventory", "library": "Filia nr 1", "book": {"file": "ksiazki.json"}, "output": "filia1.pdf"},
+ *     {"type": "overdue", "genre": "Fantasy", "output": "zalegle.pdf"}
+ *   ]
+ * }
+ * </pre>
+ * Pola zadania mają format {@link JobArguments} i są uzupełniane wartościami z "defaults".
+ * Wartość {@code {"file": "ścieżka"}} jest zastępowana zawartością wskazanego pliku JSON,
+ * wczytanego raz dla wszystkich zadań. Względne ścieżki są liczone od katalogu pliku zadań.
+ */
+public class BatchJobs {
+
+    public static final String JOBS = "jobs";
+    public static final String DEFAULTS = "defaults";
+    public static final String PARALLELISM = "parallelism";
+    public static final String FILE = "file";
+
+    private final Path directory;
+    private final List<Map<String, Object>> jobs;
+    private int parallelism;
+
+    private BatchJobs(Path directory, List<Map<String, Object>> jobs, int parallelism) {
+        this.directory = directory;
+        this.jobs = jobs;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Wczytuje plik zadań i pliki danych, do których odwołują się zadania
+     *
+     * @throws IOException jeśli nie udało się odczytać pliku zadań lub danych
+     * @throws IllegalArgumentException jeśli plik ma nieprawidłową strukturę
+     */
+    public static BatchJobs load(Path jobFile) throws IOException {
+        Path directory = jobFile.toAbsolutePath().getParent();
+        Object content = Json.parse(Files.readString(jobFile, StandardCharsets.UTF_8));
+
+        Object jobList = content;
+        Map<?, ?> defaults = Map.of();
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        if (content instanceof Map<?, ?> root) {
+            jobList = root.get(JOBS);
+            if (root.get(DEFAULTS) instanceof Map<?, ?> rootDefaults) {
+                defaults = rootDefaults;
+            }
+            if (root.get(PARALLELISM) instanceof BigDecimal rootParallelism) {
+                parallelism = rootParallelism.intValue();
+            }
+        }
+        if (!(jobList instanceof List<?> list)) {
+            throw new IllegalArgumentException("Plik zadań musi zawierać listę zadań lub pole \"" + JOBS + "\"");
+        }
+
+        Map<Path, Object> datasets = new HashMap<>();
+        List<Map<String, Object>> jobs = new ArrayList<>();
+        for (Object item : list) {
+            if (!(item instanceof Map<?, ?> fields)) {
+                throw new IllegalArgumentException("Zadanie nr " + (jobs.size() + 1) + " musi być obiektem JSON");
+            }
+            Map<String, Object> job = new LinkedHashMap<>();
+            job.put(JobArguments.CWD, directory.toString());
+            for (Map<?, ?> source : List.of(defaults, fields)) {
+                for (Map.Entry<?, ?> field : source.entrySet()) {
+                    job.put(String.valueOf(field.getKey()), resolveDataset(field.getValue(), directory, datasets));
+                }
+            }
+            jobs.add(job);
+        }
+        return new BatchJobs(directory, jobs, parallelism);
+    }
+
+    private static Object resolveDataset(Object value, Path directory, Map<Path, Object> datasets) throws IOException {
+        if (!(value instanceof Map<?, ?> reference) || reference.size() != 1 || !(reference.get(FILE) instanceof String file)) {
+            return value;
+        }
+        Path path = directory.resolve(file).normalize();
+        Object dataset = datasets.get(path);
+        if (dataset == null) {
+            dataset = Json.parse(Files.readString(path, StandardCharsets.UTF_8));
+            datasets.put(path, dataset);
+        }
+        return dataset;
+    }
+
+    /**
+     * Ustawia liczbę zadań wykonywanych równolegle
+     *
+     * @param parallelism liczba wątków; 0 oznacza liczbę dostępnych procesorów
+     * @return te same zadania
+     */
+    public BatchJobs setParallelism(int parallelism) {
+        if (parallelism < 0) {
+            throw new IllegalArgumentException("Liczba wątków nie może być ujemna: " + parallelism);
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public int getJobCount() {
+        return jobs.size();
+    }
+
+    /**
+     * Wykonuje wszystkie zadania i wypisuje podsumowanie
+     *
+     * @return 0, jeśli wszystkie zadania się powiodły, w przeciwnym razie 1
+     */
+    public int run() throws InterruptedException {
+        int threads = parallelism == 0 ? Runtime.getRuntime().availableProcessors() : Math.max(1, parallelism);
+        PrintStream console = JobOutput.install();
+        BuilderPools builderPools = new BuilderPools(threads);
+        builderPools.warmUp();
+
+        console.println("Zadania: " + jobs.size() + " z katalogu " + directory + " (wątki: " + threads + ")");
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<JobResult> results = new ArrayList<>();
+        try {
+            List<Future<JobResult>> futures = new ArrayList<>();
+            for (int i = 0; i < jobs.size(); i++) {
+                int number = i + 1;
+                Map<String, Object> job = jobs.get(i);
+                futures.add(executor.submit(() -> execute(number, job, builderPools)));
+            }
+            for (Future<JobResult> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Nieoczekiwany błąd zadania", e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            builderPools.clear();
+        }
+        long totalNanos = System.nanoTime() - start;
+
+        printSummary(console, results, threads, totalNanos);
+        return results.stream().allMatch(result -> result.exitCode == 0) ? 0 : 1;
+    }
+
+    private static JobResult execute(int number, Map<String, Object> job, BuilderPools builderPools) {
+        String[] args;
+        try {
+            args = JobArguments.toArguments(job);
+        } catch (IllegalArgumentException e) {
+            return new JobResult(number, null, 1, 0, "Błąd: " + e.getMessage());
+        }
+        String output = JobArguments.outputPath(args);
+        if (output == null) {
+            return new JobResult(number, null, 1, 0, "Błąd: Zadanie nie ma pola \"output\"");
+        }
+
+        long start = System.nanoTime();
+        JobOutput result = JobOutput.capture(() -> Main.run(args, builderPools));
+        JobResult jobResult = new JobResult(number, output, result.getExitCode(), System.nanoTime() - start, result.getError());
+        if (jobResult.exitCode == 0) {
+            Path file = Path.of(output);
+            try (PDDocument document = Loader.loadPDF(file.toFile())) {
+                jobResult.bytes = Files.size(file);
+                jobResult.pages = document.getNumberOfPages();
+            } catch (IOException e) {
+                jobResult.exitCode = 1;
+                jobResult.error = "Błąd: Nie udało się odczytać wygenerowanego raportu: " + e.getMessage();
+            }
+        }
+        return jobResult;
+    }
+
+    private static void printSummary(PrintStream console, List<JobResult> results, int threads, long totalNanos) {
+        int failed = 0;
+        long pages = 0;
+        long bytes = 0;
+        double jobMillis = 0;
+        console.println();
+        console.println("Podsumowanie zadań:");
+        console.println(String.format("  %4s  %10s  %6s  %12s  %-5s  %s", "Nr", "Czas [ms]", "Strony", "Rozmiar [B]", "Wynik", "Plik"));
+        for (JobResult result : results) {
+            boolean ok = result.exitCode == 0;
+            console.println(String.format("  %4d  %10.1f  %6s  %12s  %-5s  %s", result.number, result.nanos / 1_000_000.0,
+                    ok ? result.pages : "-", ok ? result.bytes : "-", ok ? "OK" : "BŁĄD",
+                    result.output != null ? result.output : "-"));
+            if (ok) {
+                pages += result.pages;
+                bytes += result.bytes;
+            } else {
+                failed++;
+            }
+            jobMillis += result.nanos / 1_000_000.0;
+        }
+        console.println(String.format("Zadania: %d (błędy: %d), strony: %d, bajty: %d, czas: %.1f ms (suma czasów zadań: %.1f ms, wątki: %d)",
+                results.size(), failed, pages, bytes, totalNanos / 1_000_000.0, jobMillis, threads));
+
+        for (JobResult result : results) {
+            if (result.exitCode != 0 && !result.error.isBlank()) {
+                console.println();
+                console.println("Zadanie nr " + result.number + ":");
+                console.print(result.error.endsWith("\n") ? result.error : result.error + "\n");
+            }
+        }
+    }
+
+    private static class JobResult {
+
+        private final int number;
+        private final String output;
+        private int exitCode;
+        private final long nanos;
+        private String error;
+        private int pages;
+        private long bytes;
+
+        JobResult(int number, String output, int exitCode, long nanos, String error) {
+            this.number = number;
+            this.output = output;
+            this.exitCode = exitCode;
+            this.nanos = nanos;
+            this.error = error;
+        }
+    }
+}
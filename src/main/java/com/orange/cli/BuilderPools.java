@@ -0,0 +1,65 @@
+package com.orange.cli;
+
+import com.orange.pdf.builder.LibraryPdfBuilder;
+import com.orange.pdf.builder.PdfBuilderPool;
+import com.orange.pdf.enums.PdfLibraryReportType;
+import com.orange.pdf.memory.PdfMemoryPolicy;
+import com.orange.pdf.overdue.builder.OverduePdfBuilder;
+import com.orange.pdf.overdue.service.OverduePdfService;
+import com.orange.pdf.service.LibraryPdfService;
+import lombok.Getter;
+
+/**
+ * Pule builderów współdzielone przez zadania demona raportów.
+ * Buildery mają domyślną politykę pamięci ({@link PdfMemoryPolicy#defaults()}).
+ */
+@Getter
+public class BuilderPools {
+
+    private final PdfBuilderPool<LibraryPdfBuilder> inventory;
+    private final PdfBuilderPool<LibraryPdfBuilder> popularity;
+    private final PdfBuilderPool<OverduePdfBuilder> overdue;
+
+    /**
+     * @param maxIdle maksymalna liczba bezczynnych builderów każdego typu
+     */
+    public BuilderPools(int maxIdle) {
+        this.inventory = new PdfBuilderPool<>(
+                () -> LibraryPdfBuilder.createLibraryReport(PdfLibraryReportType.INVENTORY, PdfMemoryPolicy.defaults()),
+                maxIdle, PdfBuilderPool.DEFAULT_IDLE_TIMEOUT);
+        this.popularity = new PdfBuilderPool<>(
+                () -> LibraryPdfBuilder.createLibraryReport(PdfLibraryReportType.POPULARITY, PdfMemoryPolicy.defaults()),
+                maxIdle, PdfBuilderPool.DEFAULT_IDLE_TIMEOUT);
+        this.overdue = new PdfBuilderPool<>(
+                () -> OverduePdfBuilder.createOverdueReport(PdfMemoryPolicy.defaults()),
+                maxIdle, PdfBuilderPool.DEFAULT_IDLE_TIMEOUT);
+    }
+
+    /**
+     * Tworzy po jednym builderze każdego typu i zwraca go do puli, aby pierwsze zadanie
+     * nie płaciło za wczytanie fontów i klas
+     */
+    public void warmUp() {
+        inventory.release(inventory.acquire());
+        popularity.release(popularity.acquire());
+        overdue.release(overdue.acquire());
+    }
+
+    public LibraryPdfService applyTo(LibraryPdfService service) {
+        return service.setBuilderPool(PdfLibraryReportType.INVENTORY, inventory)
+                .setBuilderPool(PdfLibraryReportType.POPULARITY, popularity);
+    }
+
+    public OverduePdfService applyTo(OverduePdfService service) {
+        return service.setBuilderPool(overdue);
+    }
+
+    /**
+     * Zamyka wszystkie bezczynne buildery
+     */
+    public void clear() {
+        inventory.clear();
+        popularity.clear();
+        overdue.clear();
+    }
+}
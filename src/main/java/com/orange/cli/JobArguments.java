@@ -0,0 +1,113 @@
+package com.orange.cli;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Zamienia zadanie JSON na argumenty wiersza poleceń {@link com.orange.Main}.
+ * Zadanie zawiera listę "args" z gotowymi argumentami albo pola odpowiadające długim nazwom parametrów:
+ * {@code {"type": "overdue", "output": "raport.pdf", "metrics": true, "book": [["1001", "Tytuł", ...]]}}.
+ * Wartość true oznacza flagę bez wartości, lista wartości prostych - kolejne wartości jednego parametru,
+ * a lista list - parametr powtórzony dla każdej listy. Pole "cwd" wskazuje katalog,
+ * względem którego liczone są względne ścieżki plików.
+ */
+public final class JobArguments {
+
+    public static final String ARGS = "args";
+    public static final String CWD = "cwd";
+
+    // Parametry, których wartością jest ścieżka pliku lub katalogu
+    private static final Set<String> PATH_OPTIONS = Set.of(
+            "--output", "-o", "--append-to", "-ap", "--previous", "-pv",
+            "--cache-dir", "-cd", "--scratch-dir", "-sc");
+
+    private JobArguments() {
+    }
+
+    /**
+     * Zwraca argumenty wiersza poleceń zadania ze ścieżkami rozwiązanymi względem pola "cwd"
+     *
+     * @throws IllegalArgumentException jeśli zadanie ma nieprawidłową strukturę
+     */
+    public static String[] toArguments(Map<String, Object> job) {
+        List<String> arguments = new ArrayList<>();
+        Object explicit = job.get(ARGS);
+        if (explicit != null) {
+            if (!(explicit instanceof List<?> list)) {
+                throw new IllegalArgumentException("Pole \"" + ARGS + "\" musi być listą");
+            }
+            for (Object value : list) {
+                arguments.add(scalar(ARGS, value));
+            }
+        } else {
+            for (Map.Entry<String, Object> entry : job.entrySet()) {
+                if (!entry.getKey().equals(CWD)) {
+                    addOption(arguments, "--" + entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        Object cwd = job.get(CWD);
+        if (cwd != null) {
+            resolvePaths(arguments, Path.of(scalar(CWD, cwd)));
+        }
+        return arguments.toArray(new String[0]);
+    }
+
+    /**
+     * Zwraca wartość parametru --output z argumentów lub null, jeśli go nie podano
+     */
+    public static String outputPath(String[] arguments) {
+        String output = null;
+        for (int i = 0; i + 1 < arguments.length; i++) {
+            if (arguments[i].equals("--output") || arguments[i].equals("-o")) {
+                output = arguments[++i];
+            }
+        }
+        return output;
+    }
+
+    private static void addOption(List<String> arguments, String option, Object value) {
+        if (value == null || Boolean.FALSE.equals(value)) {
+            return;
+        }
+        if (Boolean.TRUE.equals(value)) {
+            arguments.add(option);
+        } else if (value instanceof List<?> list) {
+            if (!list.isEmpty() && list.get(0) instanceof List<?>) {
+                for (Object repeated : list) {
+                    addOption(arguments, option, repeated);
+                }
+            } else {
+                arguments.add(option);
+                for (Object item : list) {
+                    arguments.add(scalar(option, item));
+                }
+            }
+        } else {
+            arguments.add(option);
+            arguments.add(scalar(option, value));
+        }
+    }
+
+    private static String scalar(String option, Object value) {
+        if (value instanceof Map<?, ?> || value instanceof List<?> || value == null) {
+            throw new IllegalArgumentException("Nieprawidłowa wartość parametru " + option + ": " + value);
+        }
+        // BigDecimal bez wykładnika, aby 15 nie stało się 1.5E+1
+        return value instanceof BigDecimal number ? number.toPlainString() : value.toString();
+    }
+
+    private static void resolvePaths(List<String> arguments, Path cwd) {
+        for (int i = 0; i + 1 < arguments.size(); i++) {
+            if (PATH_OPTIONS.contains(arguments.get(i))) {
+                arguments.set(i + 1, cwd.resolve(arguments.get(i + 1)).toString());
+                i++;
+            }
+        }
+    }
+}
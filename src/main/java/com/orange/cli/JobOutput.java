@@ -0,0 +1,107 @@
+package com.orange.cli;
+
+import lombok.Getter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.IntSupplier;
+
+/**
+ * Przechwytywanie standardowego wyjścia i wyjścia błędów zadań wykonywanych równolegle w jednym procesie.
+ * Po {@link #install()} System.out i System.err kierują zapis do bufora zadania bieżącego wątku,
+ * a poza zadaniem - na konsolę.
+ */
+public final class JobOutput {
+
+    private static final ThreadLocal<OutputStream> CAPTURED_OUT = new ThreadLocal<>();
+    private static final ThreadLocal<OutputStream> CAPTURED_ERR = new ThreadLocal<>();
+    private static PrintStream console;
+
+    @Getter
+    private final int exitCode;
+    @Getter
+    private final String output;
+    @Getter
+    private final String error;
+
+    private JobOutput(int exitCode, String output, String error) {
+        this.exitCode = exitCode;
+        this.output = output;
+        this.error = error;
+    }
+
+    /**
+     * Podmienia System.out i System.err na strumienie rozdzielające zapis między zadania; kolejne wywołania nic nie robią
+     *
+     * @return pierwotne standardowe wyjście
+     */
+    public static synchronized PrintStream install() {
+        if (console == null) {
+            console = System.out;
+            System.setOut(new PrintStream(new RoutingOutputStream(System.out, CAPTURED_OUT), true, StandardCharsets.UTF_8));
+            System.setErr(new PrintStream(new RoutingOutputStream(System.err, CAPTURED_ERR), true, StandardCharsets.UTF_8));
+        }
+        return console;
+    }
+
+    /**
+     * Wykonuje zadanie w bieżącym wątku, zbierając wszystko, co wypisze na standardowe wyjście i wyjście błędów.
+     * Wyjątek zadania jest wypisywany jako błąd i daje kod wyjścia 1.
+     *
+     * @param job zadanie zwracające kod wyjścia
+     */
+    public static JobOutput capture(IntSupplier job) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        int exitCode;
+        CAPTURED_OUT.set(out);
+        CAPTURED_ERR.set(err);
+        try {
+            exitCode = job.getAsInt();
+        } catch (RuntimeException e) {
+            System.err.println("Błąd: " + e.getMessage());
+            exitCode = 1;
+        } finally {
+            CAPTURED_OUT.remove();
+            CAPTURED_ERR.remove();
+        }
+        return new JobOutput(exitCode, out.toString(StandardCharsets.UTF_8), err.toString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Strumień kierujący zapis do bufora zadania bieżącego wątku, a poza zadaniem - na konsolę
+     */
+    private static class RoutingOutputStream extends OutputStream {
+
+        private final OutputStream console;
+        private final ThreadLocal<OutputStream> captured;
+
+        RoutingOutputStream(OutputStream console, ThreadLocal<OutputStream> captured) {
+            this.console = console;
+            this.captured = captured;
+        }
+
+        private OutputStream target() {
+            OutputStream target = captured.get();
+            return target != null ? target : console;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            target().write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            target().write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target().flush();
+        }
+    }
+}
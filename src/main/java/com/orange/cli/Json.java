@@ -0,0 +1,256 @@
+package com.orange.cli;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimalny parser i zapis JSON dla zadań przekazywanych do demona i plików zadań.
+ * Obiekty są odczytywane jako {@link Map} (z zachowaniem kolejności kluczy), tablice jako {@link List},
+ * liczby jako {@link BigDecimal}, a wartości logiczne i null jako {@link Boolean} i null.
+ */
+public final class Json {
+
+    private final String text;
+    private int position;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Parsuje pojedynczą wartość JSON
+     *
+     * @throws IllegalArgumentException jeśli tekst nie jest poprawnym JSON
+     */
+    public static Object parse(String text) {
+        Json parser = new Json(text);
+        parser.skipWhitespace();
+        Object value = parser.readValue();
+        parser.skipWhitespace();
+        if (parser.position < text.length()) {
+            throw parser.error("Nadmiarowe znaki za wartością");
+        }
+        return value;
+    }
+
+    /**
+     * Zapisuje wartość (Map, List, String, Number, Boolean lub null) jako JSON w jednym wierszu
+     */
+    public static String write(Object value) {
+        StringBuilder json = new StringBuilder();
+        writeValue(json, value);
+        return json.toString();
+    }
+
+    private Object readValue() {
+        if (position >= text.length()) {
+            throw error("Nieoczekiwany koniec danych");
+        }
+        char c = text.charAt(position);
+        return switch (c) {
+            case '{' -> readObject();
+            case '[' -> readArray();
+            case '"' -> readString();
+            case 't' -> readLiteral("true", Boolean.TRUE);
+            case 'f' -> readLiteral("false", Boolean.FALSE);
+            case 'n' -> readLiteral("null", null);
+            default -> {
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    yield readNumber();
+                }
+                throw error("Nieoczekiwany znak '" + c + "'");
+            }
+        };
+    }
+
+    private Map<String, Object> readObject() {
+        Map<String, Object> object = new LinkedHashMap<>();
+        position++;
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+            return object;
+        }
+        while (true) {
+            skipWhitespace();
+            if (peek() != '"') {
+                throw error("Oczekiwano nazwy pola");
+            }
+            String key = readString();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            object.put(key, readValue());
+            skipWhitespace();
+            if (peek() == ',') {
+                position++;
+            } else {
+                expect('}');
+                return object;
+            }
+        }
+    }
+
+    private List<Object> readArray() {
+        List<Object> array = new ArrayList<>();
+        position++;
+        skipWhitespace();
+        if (peek() == ']') {
+            position++;
+            return array;
+        }
+        while (true) {
+            skipWhitespace();
+            array.add(readValue());
+            skipWhitespace();
+            if (peek() == ',') {
+                position++;
+            } else {
+                expect(']');
+                return array;
+            }
+        }
+    }
+
+    private String readString() {
+        position++;
+        StringBuilder value = new StringBuilder();
+        while (true) {
+            if (position >= text.length()) {
+                throw error("Niezakończony tekst");
+            }
+            char c = text.charAt(position++);
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if (position >= text.length()) {
+                throw error("Niezakończony tekst");
+            }
+            char escaped = text.charAt(position++);
+            switch (escaped) {
+                case '"', '\\', '/' -> value.append(escaped);
+                case 'b' -> value.append('\b');
+                case 'f' -> value.append('\f');
+                case 'n' -> value.append('\n');
+                case 'r' -> value.append('\r');
+                case 't' -> value.append('\t');
+                case 'u' -> {
+                    if (position + 4 > text.length()) {
+                        throw error("Niepełna sekwencja \\u");
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("Nieprawidłowa sekwencja \\u");
+                    }
+                    position += 4;
+                }
+                default -> throw error("Nieprawidłowa sekwencja ucieczki \\" + escaped);
+            }
+        }
+    }
+
+    private BigDecimal readNumber() {
+        int start = position;
+        while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+            position++;
+        }
+        try {
+            return new BigDecimal(text.substring(start, position));
+        } catch (NumberFormatException e) {
+            throw error("Nieprawidłowa liczba");
+        }
+    }
+
+    private Object readLiteral(String literal, Object value) {
+        if (!text.startsWith(literal, position)) {
+            throw error("Nieprawidłowa wartość");
+        }
+        position += literal.length();
+        return value;
+    }
+
+    private void skipWhitespace() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private char peek() {
+        return position < text.length() ? text.charAt(position) : '\0';
+    }
+
+    private void expect(char expected) {
+        if (peek() != expected) {
+            throw error("Oczekiwano '" + expected + "'");
+        }
+        position++;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Nieprawidłowy JSON (pozycja " + position + "): " + message);
+    }
+
+    private static void writeValue(StringBuilder json, Object value) {
+        if (value == null) {
+            json.append("null");
+        } else if (value instanceof String string) {
+            writeString(json, string);
+        } else if (value instanceof Number || value instanceof Boolean) {
+            json.append(value);
+        } else if (value instanceof Map<?, ?> map) {
+            json.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (!first) {
+                    json.append(',');
+                }
+                first = false;
+                writeString(json, String.valueOf(entry.getKey()));
+                json.append(':');
+                writeValue(json, entry.getValue());
+            }
+            json.append('}');
+        } else if (value instanceof List<?> list) {
+            json.append('[');
+            for (int i = 0; i < list.size(); i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                writeValue(json, list.get(i));
+            }
+            json.append(']');
+        } else {
+            writeString(json, value.toString());
+        }
+    }
+
+    private static void writeString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+}
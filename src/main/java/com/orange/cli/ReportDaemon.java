@@ -0,0 +1,126 @@
+package com.orange.cli;
+
+import com.orange.Main;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Demon raportów nasłuchujący na gnieździe Unix. Każde połączenie przesyła zadania JSON
+ * (po jednym w wierszu, zob. {@link JobArguments}), a demon odpowiada dla każdego z nich wierszem
+ * {@code {"exitCode": 0, "output": "...", "error": "..."}} z kodem wyjścia oraz tekstem wypisanym
+ * przez zadanie na standardowe wyjście i wyjście błędów.
+ * Zadania działają w jednej, rozgrzanej maszynie wirtualnej i korzystają ze wspólnych pul builderów.
+ */
+public class ReportDaemon {
+
+    public static final Path DEFAULT_SOCKET = Path.of(System.getProperty("java.io.tmpdir"), "orange-pdf.sock");
+
+    private final Path socket;
+    private final int workers;
+    private final BuilderPools builderPools;
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    /**
+     * @param socket ścieżka gniazda Unix
+     * @param workers liczba zadań wykonywanych równolegle
+     */
+    public ReportDaemon(Path socket, int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Liczba wątków demona musi być dodatnia: " + workers);
+        }
+        this.socket = socket;
+        this.workers = workers;
+        this.builderPools = new BuilderPools(workers);
+    }
+
+    /**
+     * Przyjmuje połączenia do czasu zakończenia procesu. Gniazdo jest usuwane przy zamknięciu maszyny wirtualnej.
+     */
+    public void run() throws IOException {
+        PrintStream console = JobOutput.install();
+
+        builderPools.warmUp();
+
+        // Pozostałość po poprzednim demonie blokowałaby bind
+        Files.deleteIfExists(socket);
+        ExecutorService executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "report-daemon-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(socket));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    Files.deleteIfExists(socket);
+                } catch (IOException e) {
+                    // Proces i tak się kończy
+                }
+            }));
+            console.println("Demon raportów nasłuchuje na gnieździe: " + socket + " (wątki: " + workers + ")");
+
+            while (true) {
+                SocketChannel connection = server.accept();
+                executor.execute(() -> serve(connection));
+            }
+        } finally {
+            executor.shutdownNow();
+            builderPools.clear();
+            Files.deleteIfExists(socket);
+        }
+    }
+
+    private void serve(SocketChannel connection) {
+        try (connection;
+             BufferedReader reader = new BufferedReader(
+                     new InputStreamReader(Channels.newInputStream(connection), StandardCharsets.UTF_8));
+             Writer writer = new OutputStreamWriter(Channels.newOutputStream(connection), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                writer.write(Json.write(execute(line)));
+                writer.write('\n');
+                writer.flush();
+            }
+        } catch (IOException e) {
+            // Klient zamknął połączenie przed odebraniem odpowiedzi
+        }
+    }
+
+    private Map<String, Object> execute(String line) {
+        JobOutput result = JobOutput.capture(() -> {
+            if (!(Json.parse(line) instanceof Map<?, ?> job)) {
+                throw new IllegalArgumentException("Zadanie musi być obiektem JSON");
+            }
+            @SuppressWarnings("unchecked")
+            String[] args = JobArguments.toArguments((Map<String, Object>) job);
+            return Main.run(args, builderPools);
+        });
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("exitCode", result.getExitCode());
+        response.put("output", result.getOutput());
+        response.put("error", result.getError());
+        return response;
+    }
+}
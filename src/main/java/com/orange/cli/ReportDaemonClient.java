@@ -0,0 +1,68 @@
+package com.orange.cli;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Klient przekazujący argumenty wiersza poleceń do {@link ReportDaemon} i wypisujący jego odpowiedź
+ */
+public final class ReportDaemonClient {
+
+    private ReportDaemonClient() {
+    }
+
+    /**
+     * Wysyła zadanie z podanymi argumentami, ze ścieżkami liczonymi względem bieżącego katalogu klienta
+     *
+     * @return kod wyjścia zadania lub 1, jeśli nie udało się połączyć z demonem
+     */
+    public static int submit(Path socket, String[] args) {
+        Map<String, Object> job = new LinkedHashMap<>();
+        job.put(JobArguments.ARGS, Arrays.asList(args));
+        job.put(JobArguments.CWD, Path.of("").toAbsolutePath().toString());
+
+        try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.connect(UnixDomainSocketAddress.of(socket));
+            Writer writer = new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8);
+            writer.write(Json.write(job));
+            writer.write('\n');
+            writer.flush();
+            channel.shutdownOutput();
+
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+            String line = reader.readLine();
+            if (line == null) {
+                System.err.println("Błąd: Demon zamknął połączenie bez odpowiedzi");
+                return 1;
+            }
+            if (!(Json.parse(line) instanceof Map<?, ?> response)) {
+                System.err.println("Błąd: Nieprawidłowa odpowiedź demona");
+                return 1;
+            }
+            if (response.get("output") instanceof String output) {
+                System.out.print(output);
+            }
+            if (response.get("error") instanceof String error) {
+                System.err.print(error);
+            }
+            return response.get("exitCode") instanceof BigDecimal exitCode ? exitCode.intValue() : 1;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Błąd: Nie udało się wykonać zadania przez demona " + socket + ": " + e.getMessage());
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.orange.cli;
+
+import com.orange.Main;
+import com.orange.pdf.builder.data.LibraryPdfTableItem;
+import com.orange.pdf.layout.TableShard;
+import com.orange.pdf.service.LibraryPdfService;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Raport inwentaryzacyjny generowany w częściach przez osobne procesy robocze na tym samym komputerze.
+ * Książki są sortowane według ID i dzielone na zakresy ID o zbliżonej liczbie wierszy, z granicami
+ * na granicach stron. Każdy proces renderuje strony tabeli swojej części z numeracją wierszy i stron
+ * całego raportu i zapisuje w pliku części liczebności statusów, gatunków i wydawców. Na końcu strony
+ * części są łączone w jeden dokument, a podsumowania całego raportu powstają z sum liczebności części.
+ * Sterta każdego procesu mieści więc dokument jednej części, a nie całego katalogu.
+ */
+public class ShardedInventory {
+
+    // Kolejność ID: najpierw ID liczbowe według wartości, potem pozostałe alfabetycznie
+    public static final Comparator<LibraryPdfTableItem> BOOK_ID_ORDER =
+            Comparator.comparing(LibraryPdfTableItem::getBookId, Comparator.nullsFirst(ShardedInventory::compareBookIds));
+
+    // Liczba wartości parametrów wiersza poleceń innych niż jedna
+    private static final Map<String, Integer> OPTION_VALUES = Map.ofEntries(
+            Map.entry("--metrics", 0), Map.entry("-mt", 0),
+            Map.entry("--wrap-cells", 0), Map.entry("-wc", 0),
+            Map.entry("--book", 7), Map.entry("-bk", 7),
+            Map.entry("--loan", 11), Map.entry("-ln", 11),
+            Map.entry("--loan-count", 2), Map.entry("-lc", 2),
+            Map.entry("--shard", 2));
+
+    // Parametry, których procesy części nie dostają: dane i wynik części ustawia koordynator,
+    // a pamięć podręczna, poprzednia wersja i statystyki dotyczą całego raportu
+    private static final Set<String> COORDINATOR_OPTIONS = Set.of(
+            "--book", "-bk", "--loan", "-ln", "--loan-count", "-lc", "--output", "-o", "--type", "-t",
+            "--report", "-r", "--date", "-dt", "--shards", "-sh", "--shard", "--previous", "-pv",
+            "--cache-dir", "-cd", "--append-to", "-ap", "--metrics", "-mt");
+
+    // Parametry JVM przekazywane procesom części (limity sterty)
+    private static final List<String> JVM_OPTION_PREFIXES = List.of("-Xmx", "-Xms", "-XX:MaxRAM");
+
+    private final LibraryPdfService pdfService;
+    private final int shardCount;
+
+    /**
+     * @param pdfService serwis z ustawieniami zapisu, pamięci i układu, używany do podziału i łączenia części
+     * @param shardCount żądana liczba części (procesów roboczych)
+     */
+    public ShardedInventory(LibraryPdfService pdfService, int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Liczba części musi być dodatnia: " + shardCount);
+        }
+        this.pdfService = pdfService;
+        this.shardCount = shardCount;
+    }
+
+    /**
+     * Generuje raport w częściach i łączy je w plik wynikowy. Pliki części powstają w katalogu
+     * roboczym obok pliku wynikowego, usuwanym po połączeniu; po błędzie procesu katalog zostaje
+     * z dziennikiem procesu.
+     *
+     * @param args argumenty wiersza poleceń raportu; procesy części dostają je bez danych i wyniku
+     * @param books wszystkie książki raportu
+     * @param outputPath ścieżka pliku połączonego raportu
+     * @throws IOException gdy nie udało się zapisać plików części lub uruchomić procesu
+     * @throws IllegalStateException gdy proces części zakończył się błędem
+     */
+    public void generate(String[] args, List<LibraryPdfTableItem> books, String reportNumber, LocalDate reportDate,
+                         String generatedBy, String outputPath) throws IOException, InterruptedException {
+        List<LibraryPdfTableItem> sorted = new ArrayList<>(books);
+        sorted.sort(BOOK_ID_ORDER);
+        List<TableShard> shards = pdfService.planInventoryShards(sorted, shardCount);
+
+        Path output = Path.of(outputPath).toAbsolutePath();
+        Path workDirectory = Files.createTempDirectory(output.getParent(), output.getFileName() + ".shards-");
+        List<String> commonArguments = workerArguments(args);
+        commonArguments.addAll(List.of("--type", "inventory", "--report", reportNumber, "--date", reportDate.toString()));
+
+        List<Process> processes = new ArrayList<>();
+        List<String> shardPaths = new ArrayList<>();
+        try {
+            for (TableShard shard : shards) {
+                Path shardPath = workDirectory.resolve("shard-" + shard.getIndex() + ".pdf");
+                Path jobFile = writeJobFile(workDirectory, shard, commonArguments, shardPath,
+                        sorted.subList(shard.getFirstRow(), shard.getEndRow()));
+                processes.add(startWorker(jobFile, workDirectory.resolve("shard-" + shard.getIndex() + ".log")));
+                shardPaths.add(shardPath.toString());
+            }
+            System.out.println("Generowanie " + shards.size() + " części raportu (" + sorted.size() + " książek) w "
+                    + workDirectory);
+
+            for (int i = 0; i < processes.size(); i++) {
+                int exitCode = processes.get(i).waitFor();
+                if (exitCode != 0) {
+                    throw new IllegalStateException("Część " + i + " raportu zakończyła się błędem (kod " + exitCode
+                            + "), szczegóły w " + workDirectory.resolve("shard-" + i + ".log"));
+                }
+            }
+        } finally {
+            // Po błędzie jednej części pozostałe procesy nie są już potrzebne
+            for (Process process : processes) {
+                process.destroy();
+            }
+        }
+
+        pdfService.mergeInventoryShards(shardPaths, outputPath, generatedBy, reportDate);
+        deleteDirectory(workDirectory);
+    }
+
+    /**
+     * Porównuje ID książek: ID złożone z samych cyfr według wartości liczbowej i przed pozostałymi,
+     * a pozostałe alfabetycznie
+     */
+    private static int compareBookIds(String first, String second) {
+        boolean firstNumeric = isNumeric(first);
+        boolean secondNumeric = isNumeric(second);
+        if (firstNumeric != secondNumeric) {
+            return firstNumeric ? -1 : 1;
+        }
+        if (!firstNumeric) {
+            return first.compareTo(second);
+        }
+        String firstDigits = stripLeadingZeros(first);
+        String secondDigits = stripLeadingZeros(second);
+        if (firstDigits.length() != secondDigits.length()) {
+            return Integer.compare(firstDigits.length(), secondDigits.length());
+        }
+        return firstDigits.compareTo(secondDigits);
+    }
+
+    private static boolean isNumeric(String id) {
+        return !id.isEmpty() && id.chars().allMatch(c -> c >= '0' && c <= '9');
+    }
+
+    private static String stripLeadingZeros(String digits) {
+        int start = 0;
+        while (start < digits.length() - 1 && digits.charAt(start) == '0') {
+            start++;
+        }
+        return digits.substring(start);
+    }
+
+    /**
+     * Zwraca argumenty wspólne dla procesów części: argumenty raportu bez parametrów ustawianych przez koordynatora
+     */
+    private static List<String> workerArguments(String[] args) {
+        List<String> arguments = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            int values = OPTION_VALUES.getOrDefault(args[i], 1);
+            int end = Math.min(args.length, i + 1 + values);
+            if (!COORDINATOR_OPTIONS.contains(args[i])) {
+                arguments.addAll(List.of(args).subList(i, end));
+            }
+            i = end - 1;
+        }
+        return arguments;
+    }
+
+    /**
+     * Zapisuje plik zadań procesu części; książki trafiają do pliku, a nie do wiersza poleceń,
+     * którego długość jest ograniczona
+     */
+    private static Path writeJobFile(Path workDirectory, TableShard shard, List<String> commonArguments,
+                                     Path shardPath, List<LibraryPdfTableItem> books) throws IOException {
+        List<Object> arguments = new ArrayList<>(commonArguments);
+        arguments.addAll(List.of("--shard", String.valueOf(shard.getFirstRow()), String.valueOf(shard.getFirstPage()),
+                "--output", shardPath.toString()));
+        for (LibraryPdfTableItem book : books) {
+            arguments.addAll(List.of("--book", text(book.getBookId()), text(book.getTitle()), text(book.getAuthors()),
+                    text(book.getPublisher()), text(book.getStatus()), text(book.getGenre()), text(book.getDescription())));
+        }
+
+        Map<String, Object> job = new LinkedHashMap<>();
+        job.put(JobArguments.ARGS, arguments);
+        // Względne ścieżki argumentów są liczone od katalogu roboczego koordynatora
+        job.put(JobArguments.CWD, Path.of("").toAbsolutePath().toString());
+        Path jobFile = workDirectory.resolve("shard-" + shard.getIndex() + ".json");
+        Files.writeString(jobFile, Json.write(List.of(job)), StandardCharsets.UTF_8);
+        return jobFile;
+    }
+
+    private static String text(String value) {
+        return value != null ? value : "";
+    }
+
+    /**
+     * Uruchamia proces części z tą samą maszyną Java, ścieżką klas i limitami sterty co koordynator
+     */
+    private static Process startWorker(Path jobFile, Path logFile) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        for (String option : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (JVM_OPTION_PREFIXES.stream().anyMatch(option::startsWith)) {
+                command.add(option);
+            }
+        }
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), Main.class.getName(),
+                "--jobs", jobFile.toString(), "--parallel", "1"));
+
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(logFile.toFile())
+                .start();
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.orange.pdf.builder;
+
+import lombok.Getter;
+import org.apache.pdfbox.pdfwriter.COSWriter;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Pamięć tekstów zakodowanych do kodów glifów fontu, razem z ich szerokością.
+ * Statusy, gatunki, wydawcy i etykiety nagłówków powtarzają się w tysiącach komórek, a {@code showText}
+ * koduje tekst od nowa przy każdym wywołaniu. Tu tekst jest kodowany raz dla danego fontu, a do strumienia
+ * treści trafia gotowy operator {@code Tj}. Fonty są rozróżniane po tożsamości obiektu, bo każdy dokument
+ * osadza własne egzemplarze fontów - pamięć dotyczy jednego dokumentu i jest czyszczona przy kolejnym.
+ * Obiekt nie jest bezpieczny dla wielu wątków - każdy builder ma własny.
+ */
+class EncodedTextCache {
+
+    // Limit zapamiętanych tekstów, po którym pamięć jest czyszczona
+    private static final int MAX_CACHED_TEXTS = 50_000;
+    private static final byte[] SHOW_TEXT_OPERATOR = " Tj\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final Map<PDFont, Map<String, EncodedText>> cache = new IdentityHashMap<>();
+    private int cachedTexts;
+
+    /**
+     * Zwraca tekst zakodowany w podanym foncie. Przy pierwszym użyciu tekstu jego znaki są dodawane
+     * do podzbioru osadzanego fontu, tak jak robi to {@code showText}.
+     *
+     * @param font font osadzony w bieżącym dokumencie
+     * @param text tekst do wypisania
+     * @throws IOException jeśli font nie zawiera glifu któregoś znaku
+     */
+    EncodedText encode(PDFont font, String text) throws IOException {
+        Map<String, EncodedText> texts = cache.computeIfAbsent(font, f -> new HashMap<>());
+        EncodedText encoded = texts.get(text);
+        if (encoded != null) {
+            return encoded;
+        }
+
+        if (font.willBeSubset()) {
+            text.codePoints().forEach(font::addToSubset);
+        }
+        ByteArrayOutputStream operator = new ByteArrayOutputStream(text.length() * 4 + 8);
+        COSWriter.writeString(font.encode(text), operator);
+        operator.write(SHOW_TEXT_OPERATOR);
+        encoded = new EncodedText(operator.toByteArray(), font.getStringWidth(text));
+
+        if (cachedTexts >= MAX_CACHED_TEXTS) {
+            clear();
+            texts = cache.computeIfAbsent(font, f -> new HashMap<>());
+        }
+        texts.put(text, encoded);
+        cachedTexts++;
+        return encoded;
+    }
+
+    /**
+     * Usuwa zapamiętane teksty, np. po osadzeniu fontów w nowym dokumencie
+     */
+    void clear() {
+        cache.clear();
+        cachedTexts = 0;
+    }
+
+    /**
+     * Zakodowany tekst: kompletny operator {@code Tj} gotowy do zapisania w strumieniu treści
+     * i szerokość tekstu w jednostkach fontu (1/1000 rozmiaru)
+     */
+    @Getter
+    static class EncodedText {
+
+        private final byte[] showTextOperator;
+        private final float width;
+
+        EncodedText(byte[] showTextOperator, float width) {
+            this.showTextOperator = showTextOperator;
+            this.width = width;
+        }
+
+        /**
+         * Zwraca szerokość tekstu w punktach dla podanego rozmiaru fontu
+         */
+        float width(float fontSize) {
+            return width / 1000f * fontSize;
+        }
+    }
+}
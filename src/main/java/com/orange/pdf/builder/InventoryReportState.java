@@ -0,0 +1,130 @@
+package com.orange.pdf.builder;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stan raportu inwentaryzacyjnego zapisany w słowniku katalogu dokumentu PDF.
+ * Przechowuje numer i datę raportu, skrót danych nagłówka i skróty wierszy tabeli każdej strony, dzięki czemu
+ * przy ponownym generowaniu raportu można ustalić, które strony się zmieniły.
+ */
+class InventoryReportState {
+
+    private static final COSName STATE_KEY = COSName.getPDFName("OrangeInventoryReport");
+    private static final COSName REPORT_NUMBER = COSName.getPDFName("ReportNumber");
+    private static final COSName REPORT_DATE = COSName.getPDFName("ReportDate");
+    private static final COSName HEADER_HASH = COSName.getPDFName("HeaderHash");
+    private static final COSName ROW_COUNT = COSName.getPDFName("RowCount");
+    private static final COSName PAGE_HASHES = COSName.getPDFName("PageHashes");
+    private static final COSName PAGE_COUNT_FORMS = COSName.getPDFName("PageCountForms");
+
+    private final String reportNumber;
+    // Data raportu; null dla raportów zapisanych bez niej
+    private final LocalDate reportDate;
+    private final String headerHash;
+    private final int rowCount;
+    private final List<String> pageHashes;
+    private final List<PDFormXObject> pageCountForms;
+
+    InventoryReportState(String reportNumber, LocalDate reportDate, String headerHash, int rowCount,
+                         List<String> pageHashes, List<PDFormXObject> pageCountForms) {
+        this.reportNumber = reportNumber;
+        this.reportDate = reportDate;
+        this.headerHash = headerHash;
+        this.rowCount = rowCount;
+        this.pageHashes = pageHashes;
+        this.pageCountForms = pageCountForms;
+    }
+
+    /**
+     * Odczytuje stan raportu z dokumentu
+     *
+     * @return stan raportu lub null, jeśli dokument go nie zawiera
+     */
+    static InventoryReportState read(PDDocument document) {
+        COSDictionary state = document.getDocumentCatalog().getCOSObject().getCOSDictionary(STATE_KEY);
+        if (state == null) {
+            return null;
+        }
+
+        List<String> pageHashes = new ArrayList<>();
+        if (state.getDictionaryObject(PAGE_HASHES) instanceof COSArray hashes) {
+            for (int i = 0; i < hashes.size(); i++) {
+                pageHashes.add(hashes.getString(i));
+            }
+        }
+
+        List<PDFormXObject> forms = new ArrayList<>();
+        if (state.getDictionaryObject(PAGE_COUNT_FORMS) instanceof COSArray formArray) {
+            for (int i = 0; i < formArray.size(); i++) {
+                COSBase form = formArray.getObject(i);
+                if (form instanceof COSStream stream) {
+                    forms.add(new PDFormXObject(stream));
+                }
+            }
+        }
+
+        String reportDate = state.getString(REPORT_DATE);
+        return new InventoryReportState(state.getString(REPORT_NUMBER), reportDate != null ? LocalDate.parse(reportDate) : null,
+                state.getString(HEADER_HASH), state.getInt(ROW_COUNT), pageHashes, forms);
+    }
+
+    /**
+     * Zapisuje stan raportu w katalogu dokumentu, zastępując poprzedni
+     */
+    void write(PDDocument document) {
+        COSDictionary state = new COSDictionary();
+        state.setString(REPORT_NUMBER, reportNumber);
+        state.setString(REPORT_DATE, reportDate != null ? reportDate.toString() : null);
+        state.setString(HEADER_HASH, headerHash);
+        state.setInt(ROW_COUNT, rowCount);
+
+        COSArray hashes = new COSArray();
+        for (String hash : pageHashes) {
+            hashes.add(new COSString(hash));
+        }
+        state.setItem(PAGE_HASHES, hashes);
+
+        COSArray forms = new COSArray();
+        for (PDFormXObject form : pageCountForms) {
+            forms.add(form);
+        }
+        state.setItem(PAGE_COUNT_FORMS, forms);
+
+        document.getDocumentCatalog().getCOSObject().setItem(STATE_KEY, state);
+    }
+
+    String getReportNumber() {
+        return reportNumber;
+    }
+
+    LocalDate getReportDate() {
+        return reportDate;
+    }
+
+    String getHeaderHash() {
+        return headerHash;
+    }
+
+    int getRowCount() {
+        return rowCount;
+    }
+
+    List<String> getPageHashes() {
+        return pageHashes;
+    }
+
+    List<PDFormXObject> getPageCountForms() {
+        return pageCountForms;
+    }
+}
@@ -0,0 +1,179 @@
+package com.orange.pdf.builder;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSFloat;
+import org.apache.pdfbox.cos.COSInteger;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Stan części raportu inwentaryzacyjnego zapisany w słowniku katalogu dokumentu PDF.
+ * Określa, które wiersze i strony raportu zawiera część, gdzie kończy się jej tabela, który form XObject
+ * przechowuje liczbę stron oraz liczebności statusów, gatunków i wydawców książek części,
+ * z których przy łączeniu części powstają podsumowania całego raportu.
+ */
+class InventoryShardState {
+
+    private static final COSName STATE_KEY = COSName.getPDFName("OrangeInventoryShard");
+    private static final COSName REPORT_NUMBER = COSName.getPDFName("ReportNumber");
+    private static final COSName FIRST_ROW = COSName.getPDFName("FirstRow");
+    private static final COSName ROW_COUNT = COSName.getPDFName("RowCount");
+    private static final COSName FIRST_PAGE = COSName.getPDFName("FirstPage");
+    private static final COSName TABLE_END_PAGE = COSName.getPDFName("TableEndPage");
+    private static final COSName TABLE_END_Y = COSName.getPDFName("TableEndY");
+    private static final COSName PAGE_COUNT_FORM = COSName.getPDFName("PageCountForm");
+    private static final COSName STATUSES = COSName.getPDFName("Statuses");
+    private static final COSName GENRES = COSName.getPDFName("Genres");
+    private static final COSName PUBLISHERS = COSName.getPDFName("Publishers");
+
+    private final String reportNumber;
+    private final int firstRow;
+    private final int rowCount;
+    private final int firstPage;
+    // Indeks ostatniej strony tabeli części w całym raporcie
+    private final int tableEndPage;
+    private final float tableEndY;
+    private final PDFormXObject pageCountForm;
+    private final Map<String, Integer> statusCounts;
+    private final Map<String, Integer> genreCounts;
+    private final Map<String, Integer> publisherCounts;
+
+    InventoryShardState(String reportNumber, int firstRow, int rowCount, int firstPage, int tableEndPage,
+                        float tableEndY, PDFormXObject pageCountForm, Map<String, Integer> statusCounts,
+                        Map<String, Integer> genreCounts, Map<String, Integer> publisherCounts) {
+        this.reportNumber = reportNumber;
+        this.firstRow = firstRow;
+        this.rowCount = rowCount;
+        this.firstPage = firstPage;
+        this.tableEndPage = tableEndPage;
+        this.tableEndY = tableEndY;
+        this.pageCountForm = pageCountForm;
+        this.statusCounts = statusCounts;
+        this.genreCounts = genreCounts;
+        this.publisherCounts = publisherCounts;
+    }
+
+    /**
+     * Odczytuje stan części raportu z dokumentu
+     *
+     * @return stan części lub null, jeśli dokument nie jest częścią raportu inwentaryzacyjnego
+     */
+    static InventoryShardState read(PDDocument document) {
+        COSDictionary state = document.getDocumentCatalog().getCOSObject().getCOSDictionary(STATE_KEY);
+        if (state == null) {
+            return null;
+        }
+
+        COSBase form = state.getDictionaryObject(PAGE_COUNT_FORM);
+        return new InventoryShardState(
+                state.getString(REPORT_NUMBER),
+                state.getInt(FIRST_ROW),
+                state.getInt(ROW_COUNT),
+                state.getInt(FIRST_PAGE),
+                state.getInt(TABLE_END_PAGE),
+                state.getFloat(TABLE_END_Y),
+                form instanceof COSStream stream ? new PDFormXObject(stream) : null,
+                readCounts(state, STATUSES),
+                readCounts(state, GENRES),
+                readCounts(state, PUBLISHERS));
+    }
+
+    /**
+     * Zapisuje stan części raportu w katalogu dokumentu, zastępując poprzedni
+     */
+    void write(PDDocument document) {
+        COSDictionary state = new COSDictionary();
+        state.setString(REPORT_NUMBER, reportNumber);
+        state.setInt(FIRST_ROW, firstRow);
+        state.setInt(ROW_COUNT, rowCount);
+        state.setInt(FIRST_PAGE, firstPage);
+        state.setInt(TABLE_END_PAGE, tableEndPage);
+        state.setItem(TABLE_END_Y, new COSFloat(tableEndY));
+        if (pageCountForm != null) {
+            state.setItem(PAGE_COUNT_FORM, pageCountForm);
+        }
+        state.setItem(STATUSES, countsArray(statusCounts));
+        state.setItem(GENRES, countsArray(genreCounts));
+        state.setItem(PUBLISHERS, countsArray(publisherCounts));
+
+        document.getDocumentCatalog().getCOSObject().setItem(STATE_KEY, state);
+    }
+
+    /**
+     * Usuwa stan części z dokumentu, np. po dołączeniu części do całego raportu
+     */
+    static void remove(PDDocument document) {
+        document.getDocumentCatalog().getCOSObject().removeItem(STATE_KEY);
+    }
+
+    private static COSArray countsArray(Map<String, Integer> counts) {
+        COSArray entries = new COSArray();
+        for (Map.Entry<String, Integer> count : counts.entrySet()) {
+            COSArray entry = new COSArray();
+            entry.add(new COSString(count.getKey() != null ? count.getKey() : ""));
+            entry.add(COSInteger.get(count.getValue()));
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private static Map<String, Integer> readCounts(COSDictionary state, COSName key) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        if (state.getDictionaryObject(key) instanceof COSArray array) {
+            for (int i = 0; i < array.size(); i++) {
+                if (array.getObject(i) instanceof COSArray entry) {
+                    counts.put(entry.getString(0), entry.getInt(1));
+                }
+            }
+        }
+        return counts;
+    }
+
+    String getReportNumber() {
+        return reportNumber;
+    }
+
+    int getFirstRow() {
+        return firstRow;
+    }
+
+    int getRowCount() {
+        return rowCount;
+    }
+
+    int getFirstPage() {
+        return firstPage;
+    }
+
+    int getTableEndPage() {
+        return tableEndPage;
+    }
+
+    float getTableEndY() {
+        return tableEndY;
+    }
+
+    PDFormXObject getPageCountForm() {
+        return pageCountForm;
+    }
+
+    Map<String, Integer> getStatusCounts() {
+        return statusCounts;
+    }
+
+    Map<String, Integer> getGenreCounts() {
+        return genreCounts;
+    }
+
+    Map<String, Integer> getPublisherCounts() {
+        return publisherCounts;
+    }
+}
@@ -1,23 +1,59 @@
 package com.orange.pdf.builder;
 
 import com.orange.pdf.builder.data.*;
+import com.orange.pdf.cache.ReportCacheKey;
 import com.orange.pdf.callback.PdfCallback;
 import com.orange.pdf.enums.PdfLibraryReportType;
 import com.orange.pdf.enums.PdfType;
 import com.orange.pdf.exception.PDPageContentStreamException;
+import com.orange.pdf.exception.ReportAppendException;
+import com.orange.pdf.exception.ReportMergeException;
+import com.orange.pdf.format.CellFormat;
+import com.orange.pdf.layout.GridSlice;
+import com.orange.pdf.layout.LayoutPlan;
+import com.orange.pdf.layout.LayoutPlanner;
+import com.orange.pdf.layout.LayoutProfile;
+import com.orange.pdf.layout.SectionPlacement;
+import com.orange.pdf.layout.TableShard;
+import com.orange.pdf.layout.TableSlice;
+import com.orange.pdf.memory.DocumentBufferUsage;
+import com.orange.pdf.memory.PdfMemoryPolicy;
+import com.orange.pdf.metrics.ReportPhase;
+import com.orange.pdf.table.TableColumn;
+import com.orange.pdf.table.TableLayout;
+import com.orange.pdf.table.TableSpec;
+import lombok.AccessLevel;
 import lombok.Getter;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSName;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.PageMode;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.destination.PDPageFitDestination;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDDocumentOutline;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem;
 
+import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
 
 /**
  * Builder do tworzenia raportów bibliotecznych PDF
@@ -27,11 +63,82 @@ public class LibraryPdfBuilder extends PdfBuilder {
 
     private static final String REPORT_TITLE = "Raport biblioteczny";
     private static final String REPORT_AUTHOR = "System zarządzania biblioteką";
-    private PdfLibraryReportType reportType;
 
-    private LibraryPdfBuilder(PdfType pdfType, PdfLibraryReportType reportType) {
-        super(pdfType, REPORT_TITLE, REPORT_AUTHOR);
+    // Geometria układu wspólna dla planera i rysowania
+    private static final float REPORT_HEADER_HEIGHT = 120f;
+    private static final float CONTINUATION_HEADER_HEIGHT = 50f;
+    private static final float MIN_BOTTOM_MARGIN = 50f;
+    private static final float SUMMARY_SPACING = 40f;
+    // Odległość nagłówka tabeli podsumowania od pozycji sekcji (tytuł sekcji rysowany jest nad nią)
+    private static final float SUMMARY_LEAD_HEIGHT = 15f;
+    private static final float SIGNATURE_SPACING = 80f;
+
+    // Tabela raportu inwentaryzacyjnego; szerokości i długości tekstu kolumn dobrane dla strony A4
+    private static final TableSpec<LibraryPdfTableItem> INVENTORY_TABLE = new TableSpec<LibraryPdfTableItem>("booksTable")
+            .column(TableColumn.of("Lp.", 30f, (book, row) -> CellFormat.number(row)))
+            .column(TableColumn.of("ID", 60f, (book, row) -> book.getBookId()))
+            .column(TableColumn.<LibraryPdfTableItem>of("Tytuł", 160f, (book, row) -> book.getTitle())
+                    .setMaxLength(30).setWrap(true).setDetail(LibraryPdfTableItem::getDescription))
+            .column(TableColumn.<LibraryPdfTableItem>of("Autor(zy)", 120f, (book, row) -> book.getAuthors())
+                    .setMaxLength(25).setWrap(true))
+            .column(TableColumn.<LibraryPdfTableItem>of("Wydawca", 90f, (book, row) -> book.getPublisher())
+                    .setMaxLength(20).setWrap(true))
+            .column(TableColumn.<LibraryPdfTableItem>fill("Status", (book, row) -> book.getStatus())
+                    .setWrap(true));
+
+    // Tabela raportu popularności z dodatkowymi kolumnami rankingu, gatunku i liczby wypożyczeń
+    private static final TableSpec<LibraryPdfTableItem> POPULARITY_TABLE = new TableSpec<LibraryPdfTableItem>("popularityTable")
+            .column(TableColumn.of("Lp.", 20f, (book, row) -> CellFormat.number(row)))
+            .column(TableColumn.of("Rank", 25f, (book, row) ->
+                    CellFormat.number(book instanceof PopularityPdfTableItem popular ? popular.getRank() : row)))
+            .column(TableColumn.of("ID", 50f, (book, row) -> book.getBookId()))
+            .column(TableColumn.<LibraryPdfTableItem>of("Tytuł", 140f, (book, row) -> book.getTitle())
+                    .setMaxLength(25).setWrap(true).setDetail(LibraryPdfTableItem::getDescription))
+            .column(TableColumn.<LibraryPdfTableItem>of("Autor(zy)", 110f, (book, row) -> book.getAuthors())
+                    .setMaxLength(20).setWrap(true))
+            .column(TableColumn.<LibraryPdfTableItem>of("Wydawca", 80f, (book, row) -> book.getPublisher())
+                    .setMaxLength(15).setWrap(true))
+            .column(TableColumn.<LibraryPdfTableItem>of("Gatunek", 50f, (book, row) -> book.getGenre())
+                    .setMaxLength(10).setWrap(true))
+            .column(TableColumn.fill("Wypożyczeń", (book, row) ->
+                    CellFormat.number(book instanceof PopularityPdfTableItem popular ? popular.getLoanCount() : 0)));
+
+    private static final String SECTION_HEADER = "header";
+    private static final String SECTION_TABLE = "table";
+    private static final String SECTION_STATUS_SUMMARY = "statusSummary";
+    private static final String SECTION_GENRE_SUMMARY = "genreSummary";
+    private static final String SECTION_PUBLISHER_SUMMARY = "publisherSummary";
+    private static final String SECTION_SIGNATURE = "signature";
+    private static final String SECTION_BRANCH_SUMMARY = "branchSummary";
+
+    private PdfLibraryReportType reportType;
+    private LayoutPlan layoutPlan;
+    // Stany łączonych części raportu, gdy builder został otwarty przez openShardsForMerge
+    @Getter(AccessLevel.NONE)
+    private List<InventoryShardState> shardStates;
+
+    private LibraryPdfBuilder(LayoutProfile layoutProfile, PdfLibraryReportType reportType, PdfMemoryPolicy memoryPolicy) {
+        super(layoutProfile, REPORT_TITLE, REPORT_AUTHOR, memoryPolicy);
+        setPageNumbering(true);
         this.reportType = reportType;
+        getStatistics().setReportType(reportType.name());
+    }
+
+    private LibraryPdfBuilder(PDDocument document, DocumentBufferUsage bufferUsage, LayoutProfile layoutProfile,
+                              List<InventoryShardState> shardStates) {
+        super(document, bufferUsage);
+        setPageNumbering(true);
+        this.reportType = PdfLibraryReportType.INVENTORY;
+        getStatistics().setReportType(reportType.name());
+        // Podsumowania mają geometrię wierszy, w której wyrenderowano części
+        applyLayoutProfile(layoutProfile);
+        this.shardStates = shardStates;
+    }
+
+    @Override
+    protected void reset() {
+        super.reset();
+        layoutPlan = null;
     }
 
     /**
@@ -41,7 +148,150 @@ public class LibraryPdfBuilder extends PdfBuilder {
      * @return nowa instancja LibraryPdfBuilder
      */
     public static LibraryPdfBuilder createLibraryReport(PdfLibraryReportType reportType) {
-        return new LibraryPdfBuilder(PdfType.A4, reportType);
+        return createLibraryReport(reportType, PdfMemoryPolicy.defaults());
+    }
+
+    /**
+     * Tworzy nową instancję buildera do raportu bibliotecznego z podaną polityką pamięci buforów
+     *
+     * @param reportType typ raportu bibliotecznego
+     * @param memoryPolicy polityka pamięci buforów dokumentu
+     * @return nowa instancja LibraryPdfBuilder
+     */
+    public static LibraryPdfBuilder createLibraryReport(PdfLibraryReportType reportType, PdfMemoryPolicy memoryPolicy) {
+        return createLibraryReport(reportType, memoryPolicy, LayoutProfile.standard(PdfType.A4));
+    }
+
+    /**
+     * Tworzy nową instancję buildera do raportu bibliotecznego z podaną polityką pamięci buforów i profilem układu
+     *
+     * @param reportType typ raportu bibliotecznego
+     * @param memoryPolicy polityka pamięci buforów dokumentu
+     * @param layoutProfile rozmiar strony, marginesy i geometria wierszy tabel
+     * @return nowa instancja LibraryPdfBuilder
+     */
+    public static LibraryPdfBuilder createLibraryReport(PdfLibraryReportType reportType, PdfMemoryPolicy memoryPolicy,
+                                                        LayoutProfile layoutProfile) {
+        return new LibraryPdfBuilder(layoutProfile, reportType, memoryPolicy);
+    }
+
+    /**
+     * Planuje układ raportu inwentaryzacyjnego bez jego renderowania
+     *
+     * @param bookCount liczba książek
+     * @param statusCount liczba pozycji podsumowania statusów
+     * @param genreCount liczba pozycji podsumowania gatunków
+     * @param publisherCount liczba pozycji podsumowania wydawców
+     * @return plan układu z podziałami stron i liczbą stron
+     */
+    public static LayoutPlan planInventoryLayout(int bookCount, int statusCount, int genreCount, int publisherCount) {
+        return planInventoryLayout(LayoutProfile.standard(), bookCount, statusCount, genreCount, publisherCount);
+    }
+
+    /**
+     * Planuje układ raportu inwentaryzacyjnego o podanym profilu układu bez jego renderowania.
+     * Przy zawijaniu komórek plan zakłada wiersze jednoliniowe, więc liczba stron jest szacunkiem dolnym;
+     * dokładny plan dla zawijanych komórek daje {@link #planInventoryReport(List, int, int, int)}.
+     *
+     * @see #planInventoryLayout(int, int, int, int)
+     */
+    public static LayoutPlan planInventoryLayout(LayoutProfile profile, int bookCount, int statusCount,
+                                                 int genreCount, int publisherCount) {
+        return planInventoryLayout(profile.startY(), profile.rowHeight(), profile.minBottomMargin(MIN_BOTTOM_MARGIN),
+                profile.summaryColumnGroups(), bookCount, null, statusCount, genreCount, publisherCount);
+    }
+
+    /**
+     * Planuje układ raportu popularności bez jego renderowania
+     *
+     * @param bookCount liczba książek
+     * @param genreCount liczba pozycji podsumowania gatunków
+     * @param publisherCount liczba pozycji podsumowania wydawców
+     * @return plan układu z podziałami stron i liczbą stron
+     */
+    public static LayoutPlan planPopularityLayout(int bookCount, int genreCount, int publisherCount) {
+        return planPopularityLayout(LayoutProfile.standard(), bookCount, genreCount, publisherCount);
+    }
+
+    /**
+     * Planuje układ raportu popularności o podanym profilu układu bez jego renderowania.
+     * Przy zawijaniu komórek plan zakłada wiersze jednoliniowe, więc liczba stron jest szacunkiem dolnym.
+     *
+     * @see #planPopularityLayout(int, int, int)
+     */
+    public static LayoutPlan planPopularityLayout(LayoutProfile profile, int bookCount, int genreCount, int publisherCount) {
+        return planPopularityLayout(profile.startY(), profile.rowHeight(), profile.minBottomMargin(MIN_BOTTOM_MARGIN),
+                profile.summaryColumnGroups(), bookCount, null, genreCount, publisherCount);
+    }
+
+    private static LayoutPlan planInventoryLayout(float startY, float rowHeight, float minBottomMargin, int summaryGroups,
+                                                  int bookCount, float[] rowHeights, int statusCount, int genreCount,
+                                                  int publisherCount) {
+        LayoutPlanner planner = planTable(startY, rowHeight, minBottomMargin, bookCount, rowHeights);
+        planSummary(planner, SECTION_STATUS_SUMMARY, statusCount, summaryGroups, rowHeight, minBottomMargin);
+        return planSummariesAndSignature(planner, rowHeight, minBottomMargin, summaryGroups, genreCount, publisherCount);
+    }
+
+    private static LayoutPlan planPopularityLayout(float startY, float rowHeight, float minBottomMargin, int summaryGroups,
+                                                   int bookCount, float[] rowHeights, int genreCount, int publisherCount) {
+        return planSummariesAndSignature(planTable(startY, rowHeight, minBottomMargin, bookCount, rowHeights),
+                rowHeight, minBottomMargin, summaryGroups, genreCount, publisherCount);
+    }
+
+    /**
+     * Planuje nagłówek i tabelę książek; wysokości wierszy podaje się przy zawijaniu komórek
+     *
+     * @param rowHeights wysokości kolejnych wierszy lub null dla wierszy o wysokości rowHeight
+     */
+    private static LayoutPlanner planTable(float startY, float rowHeight, float minBottomMargin, int bookCount,
+                                           float[] rowHeights) {
+        return planTable(startY, 0, rowHeight, minBottomMargin, bookCount, rowHeights);
+    }
+
+    /**
+     * Planuje nagłówek i tabelę książek zaczynające się na górze podanej strony
+     *
+     * @param firstPage indeks strony nagłówka
+     */
+    private static LayoutPlanner planTable(float startY, int firstPage, float rowHeight, float minBottomMargin,
+                                           int bookCount, float[] rowHeights) {
+        LayoutPlanner planner = new LayoutPlanner(startY, firstPage, startY)
+                .section(SECTION_HEADER, REPORT_HEADER_HEIGHT, 0f, 20f, minBottomMargin);
+        float continuationTopY = startY - CONTINUATION_HEADER_HEIGHT - 20f;
+        if (rowHeights != null) {
+            return planner.table(rowHeights, rowHeight, continuationTopY, minBottomMargin);
+        }
+        return planner.table(bookCount, rowHeight, rowHeight, continuationTopY, minBottomMargin);
+    }
+
+    private static LayoutPlan planSummariesAndSignature(LayoutPlanner planner, float rowHeight, float minBottomMargin,
+                                                        int summaryGroups, int genreCount, int publisherCount) {
+        planSummary(planner, SECTION_GENRE_SUMMARY, genreCount, summaryGroups, rowHeight, minBottomMargin);
+        planSummary(planner, SECTION_PUBLISHER_SUMMARY, publisherCount, summaryGroups, rowHeight, minBottomMargin);
+        return planner
+                .section(SECTION_SIGNATURE, 0f, SIGNATURE_SPACING, 0f, minBottomMargin)
+                .plan();
+    }
+
+    /**
+     * Planuje tabelę podsumowania: pozycje i wiersz sumy w grupach kolumn obok siebie
+     */
+    private static void planSummary(LayoutPlanner planner, String section, int itemCount, int summaryGroups,
+                                    float rowHeight, float minBottomMargin) {
+        int cells = itemCount == 0 ? 0 : itemCount + 1;
+        planner.grid(section, cells, summaryGroups, SUMMARY_LEAD_HEIGHT, rowHeight, rowHeight,
+                SUMMARY_SPACING, 0f, minBottomMargin);
+    }
+
+    /**
+     * Zwraca minimalny margines dolny treści według profilu układu
+     */
+    private float minBottomMargin() {
+        return getLayoutProfile().minBottomMargin(MIN_BOTTOM_MARGIN);
+    }
+
+    private static int sizeOf(List<?> items) {
+        return items == null ? 0 : items.size();
     }
 
     /**
@@ -73,77 +323,149 @@ public class LibraryPdfBuilder extends PdfBuilder {
             List<PublisherSummary> publisherSummaries,
             String generatedBy) {
 
+        return renderInventoryReport(libraryName, libraryDesc, address, city, reportNumber, reportDate,
+                books, statusSummaries, genreSummaries, publisherSummaries, generatedBy, null, null);
+    }
+
+    /**
+     * Buduje raport inwentaryzacyjny ponownie, przenosząc z poprzedniej wersji raportu strony tabeli,
+     * których wiersze się nie zmieniły. Renderowane są tylko strony ze zmienionymi wierszami, ostatnia
+     * strona tabeli oraz podsumowania i podpis. Gdy zmienił się nagłówek raportu lub liczba książek
+     * (a więc podział na strony), raport jest renderowany w całości.
+     *
+     * @param previousPdfPath ścieżka poprzedniej wersji raportu (może być ścieżką pliku wynikowego)
+     * @param reportNumber numer raportu; jeśli null, używany jest numer poprzedniej wersji raportu
+     * @param reportDate data raportu; jeśli null, używana jest data poprzedniej wersji raportu (lub dzisiejsza,
+     *                   gdy poprzednia wersja jej nie zapisała)
+     * @return builder z gotowym raportem
+     * @throws ReportAppendException gdy nie można wczytać pliku albo nie jest on raportem inwentaryzacyjnym
+     * @see #buildLibraryInventoryReport(String, String, String, String, String, LocalDate, List, List, List, List, String)
+     */
+    public LibraryPdfBuilder rebuildLibraryInventoryReport(
+            String previousPdfPath,
+            String libraryName,
+            String libraryDesc,
+            String address,
+            String city,
+            String reportNumber,
+            LocalDate reportDate,
+            List<LibraryPdfTableItem> books,
+            List<BookStatusSummary> statusSummaries,
+            List<GenreSummary> genreSummaries,
+            List<PublisherSummary> publisherSummaries,
+            String generatedBy) {
+
+        PDDocument previous;
+        try {
+            // Dokument wczytany z pamięci, dzięki czemu nowy raport może nadpisać plik źródłowy
+            previous = Loader.loadPDF(Files.readAllBytes(Path.of(previousPdfPath)), null, null, null, getBufferUsage());
+        } catch (IOException e) {
+            throw new ReportAppendException("Nie udało się wczytać raportu " + previousPdfPath + ": " + e.getMessage(), e);
+        }
+        InventoryReportState previousState = InventoryReportState.read(previous);
+        if (previousState == null) {
+            try {
+                previous.close();
+            } catch (IOException ignored) {
+                // Dokument i tak jest odrzucany
+            }
+            throw new ReportAppendException("Plik " + previousPdfPath + " nie jest raportem inwentaryzacyjnym");
+        }
+        // Przeniesione strony odwołują się do obiektów poprzedniego dokumentu aż do zapisu
+        addSourceDocument(previous);
+
+        String number = reportNumber != null ? reportNumber : previousState.getReportNumber();
+        LocalDate date = reportDate != null ? reportDate
+                : previousState.getReportDate() != null ? previousState.getReportDate() : LocalDate.now();
+        return renderInventoryReport(libraryName, libraryDesc, address, city, number, date,
+                books, statusSummaries, genreSummaries, publisherSummaries, generatedBy,
+                previous, previousState);
+    }
+
+    private LibraryPdfBuilder renderInventoryReport(
+            String libraryName,
+            String libraryDesc,
+            String address,
+            String city,
+            String reportNumber,
+            LocalDate reportDate,
+            List<LibraryPdfTableItem> books,
+            List<BookStatusSummary> statusSummaries,
+            List<GenreSummary> genreSummaries,
+            List<PublisherSummary> publisherSummaries,
+            String generatedBy,
+            PDDocument previous,
+            InventoryReportState previousState) {
+
         try {
             float tableWidth = getWidth();
             float headerHeight = 120f;
             float leftWidth = tableWidth * 0.5f;
             float rightWidth = tableWidth - leftWidth;
             float margin = getMargin();
-            float pageHeight = getHeight();
-            float minBottomMargin = 50f; // Minimalny margines dolny
 
-            float currentY = getStartY();
             float rightStartX = margin + leftWidth;
 
-            // Nagłówek dokumentu
-            drawReportHeader(libraryName, libraryDesc, address, city, reportNumber,
-                    reportDate, rightStartX, currentY, headerHeight, leftWidth, rightWidth);
+            // Faza planowania - podziały stron i położenie sekcji wyznaczone przed rysowaniem
+            long layoutStart = System.nanoTime();
+            TableLayout<LibraryPdfTableItem> table = layoutTable(INVENTORY_TABLE, tableWidth);
+            float[] rowHeights = tableRowHeights(table, books, 0);
+            layoutPlan = planInventoryLayout(getStartY(), tableRowHeight(), minBottomMargin(),
+                    LayoutProfile.summaryColumnGroups(getWidth()), books.size(), rowHeights, sizeOf(statusSummaries),
+                    sizeOf(genreSummaries), sizeOf(publisherSummaries));
+
+            // Strony tabeli, które można przenieść bez zmian z poprzedniej wersji raportu
+            String headerHash = inventoryHeaderHash(libraryName, libraryDesc, address, city, reportNumber, reportDate,
+                    getLayoutProfile());
+            List<String> pageHashes = inventoryPageHashes(books, layoutPlan.getTableSlices(),
+                    getLayoutProfile().isWrapCells());
+            Set<Integer> reusedPages = reusablePages(previousState, headerHash, books.size(), pageHashes);
+            long renderStart = System.nanoTime();
+            getStatistics().addPhaseNanos(ReportPhase.LAYOUT, renderStart - layoutStart).addRows(books.size());
 
-            currentY = currentY - headerHeight - 20;
+            // Nagłówek dokumentu
+            SectionPlacement headerPlacement = layoutPlan.getSection(SECTION_HEADER);
+            if (!reusedPages.contains(headerPlacement.getPageIndex())) {
+                traceSection(SECTION_HEADER, () -> drawReportHeader(libraryName, libraryDesc, address, city,
+                        reportNumber, reportDate, rightStartX, headerPlacement.getY(), headerHeight, leftWidth, rightWidth));
+            }
 
             // Rysowanie tabeli książek z obsługą wielu stron
-            currentY = drawBooksTableWithPaging(books, margin, currentY, tableWidth, pageHeight, minBottomMargin,
-                    libraryName, libraryDesc, address, city, reportNumber, reportDate);
-
-            // Sprawdź czy jest wystarczająco miejsca na podsumowanie statusów
-            float statusSummaryHeight = calculateStatusSummaryHeight(statusSummaries);
-            if (currentY - statusSummaryHeight - 40 < minBottomMargin) {
-                // Dodaj nową stronę
-                addNewPage();
-                currentY = getStartY();
+            traceSection(SECTION_TABLE, () -> drawTablePages(table, books, 0, rowHeights, margin,
+                    layoutPlan.getTableSlices(), slice -> {
+                        if (reusedPages.contains(slice.getPageIndex())) {
+                            // Strona zostanie przeniesiona z poprzedniej wersji raportu
+                            return false;
+                        }
+                        if (slice.isContinuation()) {
+                            drawSimpleHeader(libraryName, "Kontynuacja raportu - strona " + (slice.getPageIndex() + 1),
+                                    reportNumber, reportDate, margin, getStartY(), CONTINUATION_HEADER_HEIGHT, tableWidth);
+                        }
+                        return true;
+                    }));
+
+            drawInventoryTail(statusSummaries, genreSummaries, publisherSummaries, generatedBy, reportDate);
+
+            // Puste strony w miejscu niezmienionych stron tabeli zastępowane są stronami poprzedniego raportu
+            List<PDFormXObject> pageCountForms = new ArrayList<>();
+            if (getTotalPagesForm() != null) {
+                pageCountForms.add(getTotalPagesForm());
             }
-
-            // Sekcja podsumowania statusów
-            float statusSummaryY = currentY - 40;
-            drawStatusSummary(statusSummaries, margin, statusSummaryY, tableWidth);
-            currentY = statusSummaryY - statusSummaryHeight;
-
-            // Sprawdź czy jest wystarczająco miejsca na podsumowanie gatunków
-            float genreSummaryHeight = calculateGenreSummaryHeight(genreSummaries);
-            if (currentY - genreSummaryHeight - 40 < minBottomMargin) {
-                // Dodaj nową stronę
-                addNewPage();
-                currentY = getStartY();
+            for (int pageIndex : reusedPages) {
+                replacePage(pageIndex, previous.getPage(pageIndex));
             }
-
-            // Sekcja podsumowania gatunków
-            float genreSummaryY = currentY - 40;
-            drawGenreSummary(genreSummaries, margin, genreSummaryY, tableWidth);
-            currentY = genreSummaryY - genreSummaryHeight;
-
-            // Sprawdź czy jest wystarczająco miejsca na podsumowanie wydawców
-            float publisherSummaryHeight = calculatePublisherSummaryHeight(publisherSummaries);
-            if (currentY - publisherSummaryHeight - 40 < minBottomMargin) {
-                // Dodaj nową stronę
-                addNewPage();
-                currentY = getStartY();
+            if (!reusedPages.isEmpty()) {
+                for (PDFormXObject form : previousState.getPageCountForms()) {
+                    if (isUsedByPages(form, reusedPages)) {
+                        addImportedTotalPagesForm(form);
+                        pageCountForms.add(form);
+                    }
+                }
             }
 
-            // Sekcja podsumowania wydawców
-            float publisherSummaryY = currentY - 40;
-            drawPublisherSummary(publisherSummaries, margin, publisherSummaryY, tableWidth);
-            currentY = publisherSummaryY - publisherSummaryHeight;
-
-            // Sprawdź czy jest wystarczająco miejsca na sekcję podpisów
-            if (currentY - 80 < minBottomMargin) {
-                // Dodaj nową stronę
-                addNewPage();
-                currentY = getStartY();
-            }
-
-            // Sekcja podpisów
-            float signaturesY = currentY - 80;
-            drawSignatureSection(margin, signaturesY, tableWidth, generatedBy, reportDate);
+            new InventoryReportState(reportNumber, reportDate, headerHash, books.size(), pageHashes, pageCountForms)
+                    .write(getDocument());
+            getStatistics().addPhaseNanos(ReportPhase.RENDERING, System.nanoTime() - renderStart);
 
         } catch (IOException e) {
             safeEndText(getContentStream());
@@ -154,595 +476,752 @@ public class LibraryPdfBuilder extends PdfBuilder {
     }
 
     /**
-     * Buduje raport inwentaryzacyjny biblioteki
-     * Wersja zachowana dla kompatybilności wstecznej
-     *
-     * @param libraryName nazwa biblioteki
-     * @param libraryDesc opis biblioteki
-     * @param address adres biblioteki
-     * @param city miasto
-     * @param reportNumber numer raportu
-     * @param reportDate data raportu
-     * @param books lista książek
-     * @param statusSummaries lista podsumowań statusów
-     * @param generatedBy osoba generująca raport
-     * @return builder z gotowym raportem
+     * Rysuje podsumowania statusów, gatunków i wydawców oraz podpis w miejscach wyznaczonych przez plan układu
      */
-    public LibraryPdfBuilder buildLibraryInventoryReport(
-            String libraryName,
-            String libraryDesc,
-            String address,
-            String city,
-            String reportNumber,
-            LocalDate reportDate,
-            List<LibraryPdfTableItem> books,
-            List<BookStatusSummary> statusSummaries,
-            String generatedBy) {
-
-        // Tworzymy puste listy dla gatunków i wydawców
-        List<GenreSummary> emptyGenreSummaries = new ArrayList<>();
-        List<PublisherSummary> emptyPublisherSummaries = new ArrayList<>();
-
-        // Delegujemy wywołanie do pełnej wersji metody
-        return buildLibraryInventoryReport(
-                libraryName,
-                libraryDesc,
-                address,
-                city,
-                reportNumber,
-                reportDate,
-                books,
-                statusSummaries,
-                emptyGenreSummaries,
-                emptyPublisherSummaries,
-                generatedBy
-        );
+    private void drawInventoryTail(List<BookStatusSummary> statusSummaries, List<GenreSummary> genreSummaries,
+                                   List<PublisherSummary> publisherSummaries, String generatedBy,
+                                   LocalDate reportDate) throws IOException {
+        drawInventorySummaries(statusSummaries, genreSummaries, publisherSummaries);
+
+        // Sekcja podpisów
+        SectionPlacement signaturePlacement = layoutPlan.getSection(SECTION_SIGNATURE);
+        ensurePage(signaturePlacement.getPageIndex());
+        traceSection(SECTION_SIGNATURE,
+                () -> drawSignatureSection(getMargin(), signaturePlacement.getY(), getWidth(), generatedBy, reportDate));
     }
 
-
-
     /**
-     * Rysuje tabelę z książkami z obsługą wielu stron
-     *
-     * @return aktualna pozycja Y po narysowaniu tabeli
+     * Rysuje podsumowania statusów, gatunków i wydawców w miejscach wyznaczonych przez plan układu
      */
-    private float drawBooksTableWithPaging(List<LibraryPdfTableItem> books, float x, float y, float tableWidth,
-                                           float pageHeight, float minBottomMargin,
-                                           String libraryName, String libraryDesc, String address, String city,
-                                           String reportNumber, LocalDate reportDate) throws IOException {
-
-        float rowHeight = 25f;
-        float headerRowHeight = 25f;
+    private void drawInventorySummaries(List<BookStatusSummary> statusSummaries, List<GenreSummary> genreSummaries,
+                                        List<PublisherSummary> publisherSummaries) throws IOException {
         float margin = getMargin();
+        float tableWidth = getWidth();
 
-        // Definiuje szerokości kolumn
-        float col1Width = 30f;        // Lp.
-        float col2Width = 60f;        // ID
-        float col3Width = 160f;       // Tytuł
-        float col4Width = 120f;       // Autor(zy)
-        float col5Width = 90f;        // Wydawca
-        float col6Width = tableWidth - col1Width - col2Width - col3Width - col4Width - col5Width; // Status
-
-        float currentY = y;
-        int currentRowIndex = 0;
-
-        // Rysuj nagłówek tabeli na pierwszej stronie
-        drawTableHeader(x, currentY, tableWidth, headerRowHeight, col1Width, col2Width, col3Width, col4Width, col5Width);
-        currentY -= headerRowHeight;
-
-        // Przetwarzanie każdego wiersza z książkami
-        while (currentRowIndex < books.size()) {
-            // Sprawdź czy jest miejsce na kolejny wiersz
-            if (currentY - rowHeight < minBottomMargin) {
-                // Zakończ aktualną stronę i rozpocznij nową
-                addNewPage();
+        // Sekcja podsumowania statusów
+        ensurePage(layoutPlan.getSection(SECTION_STATUS_SUMMARY).getPageIndex());
+        traceSection(SECTION_STATUS_SUMMARY, () -> drawStatusSummary(statusSummaries, margin, tableWidth));
 
-                // Na nowej stronie dodaj krótki nagłówek
-                float headerHeight = 50f;
+        // Sekcja podsumowania gatunków
+        ensurePage(layoutPlan.getSection(SECTION_GENRE_SUMMARY).getPageIndex());
+        traceSection(SECTION_GENRE_SUMMARY, () -> drawGenreSummary(genreSummaries, margin, tableWidth));
 
-                currentY = getStartY();
-
-                // Nagłówek dokumentu - uproszczona wersja na kolejnych stronach
-                drawSimpleHeader(libraryName, "Kontynuacja raportu - strona " + getDocument().getNumberOfPages(),
-                        reportNumber, reportDate, margin, currentY, headerHeight, tableWidth);
+        // Sekcja podsumowania wydawców
+        ensurePage(layoutPlan.getSection(SECTION_PUBLISHER_SUMMARY).getPageIndex());
+        traceSection(SECTION_PUBLISHER_SUMMARY, () -> drawPublisherSummary(publisherSummaries, margin, tableWidth));
+    }
 
-                currentY = currentY - headerHeight - 20;
+    /**
+     * Wylicza skrót danych nagłówka raportu, widocznych na pierwszej stronie i w nagłówkach kontynuacji
+     */
+    private static String inventoryHeaderHash(String libraryName, String libraryDesc, String address,
+                                              String city, String reportNumber, LocalDate reportDate,
+                                              LayoutProfile layoutProfile) {
+        // Profil układu wyznacza podział wierszy na strony, więc strony innego układu nie są przenoszone
+        return ReportCacheKey.builder("inventoryHeader")
+                .add(layoutProfile.toString())
+                .add(libraryName)
+                .add(libraryDesc)
+                .add(address)
+                .add(city)
+                .add(reportNumber)
+                .add(reportDate)
+                .build()
+                .getHash();
+    }
 
-                // Rysuj nagłówek tabeli na nowej stronie
-                drawTableHeader(x, currentY, tableWidth, headerRowHeight, col1Width, col2Width, col3Width, col4Width, col5Width);
-                currentY -= headerRowHeight;
+    /**
+     * Wylicza skróty wyświetlanych pól wierszy tabeli osobno dla każdego fragmentu tabeli (strony).
+     * Skrót obejmuje wszystkie wartości rysowane przez kolumny {@link #INVENTORY_TABLE}, w tym opis książki
+     * wyświetlany pod tytułem przy zawijaniu komórek.
+     *
+     * @param wrapCells czy komórki są zawijane, a opisy książek wyświetlane
+     */
+    private static List<String> inventoryPageHashes(List<LibraryPdfTableItem> books, List<TableSlice> slices,
+                                                    boolean wrapCells) {
+        List<String> hashes = new ArrayList<>(slices.size());
+        for (TableSlice slice : slices) {
+            ReportCacheKey.Builder key = ReportCacheKey.builder("inventoryPage")
+                    .add(slice.getPageIndex())
+                    .add(slice.getFirstRow())
+                    .add(slice.getEndRow());
+            for (int rowIndex = slice.getFirstRow(); rowIndex < slice.getEndRow(); rowIndex++) {
+                LibraryPdfTableItem book = books.get(rowIndex);
+                key.add(book.getBookId())
+                        .add(book.getTitle())
+                        .add(book.getAuthors())
+                        .add(book.getPublisher())
+                        .add(book.getStatus());
+                if (wrapCells) {
+                    key.add(book.getDescription());
+                }
             }
-
-            // Rysuj wiersz z książką
-            LibraryPdfTableItem book = books.get(currentRowIndex);
-            drawBookRow(book, currentRowIndex + 1, x, currentY, tableWidth, rowHeight,
-                    col1Width, col2Width, col3Width, col4Width, col5Width);
-
-            currentY -= rowHeight;
-            currentRowIndex++;
+            hashes.add(key.build().getHash());
         }
-
-        return currentY;
+        return hashes;
     }
 
     /**
-     * Rysuje uproszczony nagłówek na kolejnych stronach raportu
+     * Wyznacza indeksy stron tabeli, których treść jest identyczna w poprzedniej wersji raportu.
+     * Ostatnia strona tabeli nigdy nie jest przenoszona, bo zaczynają się na niej podsumowania.
      */
-    private void drawSimpleHeader(String title, String subtitle, String reportNumber, LocalDate reportDate,
-                                  float x, float y, float headerHeight, float tableWidth) throws IOException {
-
-        PDPageContentStream contentStream = getContentStream();
-
-        // Ramka nagłówka
-        drawLine(x, y, x + tableWidth, y);
-        drawLine(x, y - headerHeight, x + tableWidth, y - headerHeight);
-        drawLine(x, y, x, y - headerHeight);
-        drawLine(x + tableWidth, y, x + tableWidth, y - headerHeight);
-
-        // Tytuł
-        contentStream.beginText();
-        contentStream.setFont(getBoldFont(), 10);
-        contentStream.newLineAtOffset(x + 10, y - 20);
-        contentStream.showText(title);
-        contentStream.endText();
-
-        // Podtytuł
-        contentStream.beginText();
-        contentStream.setFont(getRegularFont(), 9);
-        contentStream.newLineAtOffset(x + 10, y - 35);
-        contentStream.showText(subtitle);
-        contentStream.endText();
-
-        // Numer raportu
-        contentStream.beginText();
-        contentStream.setFont(getRegularFont(), 8);
-        contentStream.newLineAtOffset(x + tableWidth - 150, y - 20);
-        contentStream.showText("Nr raportu: " + reportNumber);
-        contentStream.endText();
+    private Set<Integer> reusablePages(InventoryReportState previousState, String headerHash,
+                                       int rowCount, List<String> pageHashes) {
+        Set<Integer> pages = new HashSet<>();
+        if (previousState == null
+                || !headerHash.equals(previousState.getHeaderHash())
+                || rowCount != previousState.getRowCount()
+                || pageHashes.size() != previousState.getPageHashes().size()) {
+            return pages;
+        }
 
-        // Data raportu
-        contentStream.beginText();
-        contentStream.setFont(getRegularFont(), 8);
-        contentStream.newLineAtOffset(x + tableWidth - 150, y - 35);
-        String formattedDate = reportDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-        contentStream.showText("Data: " + formattedDate);
-        contentStream.endText();
+        List<TableSlice> slices = layoutPlan.getTableSlices();
+        for (int i = 0; i < slices.size() - 1; i++) {
+            if (pageHashes.get(i).equals(previousState.getPageHashes().get(i))) {
+                pages.add(slices.get(i).getPageIndex());
+            }
+        }
+        return pages;
     }
 
-
-
     /**
-     * Rysuje tabelę z książkami
+     * Sprawdza, czy któraś z podanych stron dokumentu odwołuje się do form XObject
      */
-    private void drawBooksTable(List<LibraryPdfTableItem> books, float x, float y, float tableWidth) throws IOException {
-        PDPageContentStream contentStream = getContentStream();
-        float rowHeight = 25f;
-
-        // Definiuje szerokości kolumn
-        float col1Width = 30f;        // Lp.
-        float col2Width = 60f;        // ID
-        float col3Width = 160f;       // Tytuł
-        float col4Width = 120f;       // Autor(zy)
-        float col5Width = 90f;        // Wydawca
-        float col6Width = tableWidth - col1Width - col2Width - col3Width - col4Width - col5Width; // Status
-
-        float currentY = y;
-
-        // Nagłówek tabeli
-        drawTableHeader(x, currentY, tableWidth, rowHeight, col1Width, col2Width, col3Width, col4Width, col5Width);
-        currentY -= rowHeight;
-
-        // Zawartość tabeli
-        for (int i = 0; i < books.size(); i++) {
-            drawBookRow(books.get(i), i + 1, x, currentY, tableWidth, rowHeight,
-                    col1Width, col2Width, col3Width, col4Width, col5Width);
-            currentY -= rowHeight;
+    private boolean isUsedByPages(PDFormXObject form, Set<Integer> pageIndexes) throws IOException {
+        for (int pageIndex : pageIndexes) {
+            PDResources resources = getDocument().getPage(pageIndex).getResources();
+            for (COSName name : resources.getXObjectNames()) {
+                if (resources.getXObject(name) instanceof PDFormXObject pageForm
+                        && pageForm.getCOSObject() == form.getCOSObject()) {
+                    return true;
+                }
+            }
         }
+        return false;
     }
 
     /**
-     * Rysuje nagłówek tabeli książek
+     * Dzieli tabelę raportu inwentaryzacyjnego na części o zbliżonej liczbie wierszy, renderowane osobno
+     * przez {@link #buildInventoryShard} i łączone przez {@link #openShardsForMerge}. Granice części
+     * leżą na granicach stron, więc połączone części mają ten sam podział stron co raport narysowany w całości.
+     *
+     * @param books wszystkie książki raportu, w kolejności wierszy tabeli
+     * @param shardCount żądana liczba części; krótki raport jest dzielony na mniej części
+     * @return kolejne części tabeli
      */
-    private void drawTableHeader(float x, float y, float tableWidth, float rowHeight,
-                                 float col1Width, float col2Width, float col3Width,
-                                 float col4Width, float col5Width) throws IOException {
-
-        PDPageContentStream contentStream = getContentStream();
-
-        // Linie nagłówka
-        drawLine(x, y, x + tableWidth, y);
-        drawLine(x, y - rowHeight, x + tableWidth, y - rowHeight);
-        drawLine(x, y, x, y - rowHeight);
-
-        float nextX = x;
-
-        nextX += col1Width;
-        drawLine(nextX, y, nextX, y - rowHeight);
-
-        nextX += col2Width;
-        drawLine(nextX, y, nextX, y - rowHeight);
-
-        nextX += col3Width;
-        drawLine(nextX, y, nextX, y - rowHeight);
-
-        nextX += col4Width;
-        drawLine(nextX, y, nextX, y - rowHeight);
-
-        nextX += col5Width;
-        drawLine(nextX, y, nextX, y - rowHeight);
+    public List<TableShard> planInventoryShards(List<LibraryPdfTableItem> books, int shardCount) {
+        try {
+            TableLayout<LibraryPdfTableItem> table = layoutTable(INVENTORY_TABLE, getWidth());
+            float[] rowHeights = tableRowHeights(table, books, 0);
+            LayoutPlan plan = planTable(getStartY(), tableRowHeight(), minBottomMargin(), books.size(), rowHeights)
+                    .plan();
+            return TableShard.split(plan.getTableSlices(), shardCount);
+        } catch (IOException e) {
+            throw new PDPageContentStreamException("Nie udało się zaplanować części raportu: " + e.getMessage());
+        }
+    }
 
-        drawLine(x + tableWidth, y, x + tableWidth, y - rowHeight);
+    /**
+     * Planuje układ raportu inwentaryzacyjnego bez jego renderowania, z wysokościami wierszy wyznaczonymi
+     * tak jak przy rysowaniu - z zawiniętym tekstem i opisami książek, jeśli profil układu zawija komórki
+     *
+     * @param books wszystkie książki raportu, w kolejności wierszy tabeli
+     * @param statusCount liczba pozycji podsumowania statusów
+     * @param genreCount liczba pozycji podsumowania gatunków
+     * @param publisherCount liczba pozycji podsumowania wydawców
+     * @return plan układu z podziałami stron i liczbą stron
+     */
+    public LayoutPlan planInventoryReport(List<LibraryPdfTableItem> books, int statusCount, int genreCount,
+                                          int publisherCount) {
+        try {
+            TableLayout<LibraryPdfTableItem> table = layoutTable(INVENTORY_TABLE, getWidth());
+            float[] rowHeights = tableRowHeights(table, books, 0);
+            return planInventoryLayout(getStartY(), tableRowHeight(), minBottomMargin(),
+                    LayoutProfile.summaryColumnGroups(getWidth()), books.size(), rowHeights, statusCount,
+                    genreCount, publisherCount);
+        } catch (IOException e) {
+            throw new PDPageContentStreamException("Nie udało się zaplanować raportu inwentaryzacyjnego: " + e.getMessage());
+        }
+    }
 
-        // Etykiety kolumn
-        contentStream.beginText();
-        contentStream.setFont(getBoldFont(), 8);
-        contentStream.newLineAtOffset(x + 5, y - 15);
-        contentStream.showText("Lp.");
-        contentStream.endText();
+    /**
+     * Buduje część raportu inwentaryzacyjnego: strony tabeli z wierszami części, z numeracją wierszy i stron
+     * całego raportu. Nagłówek raportu ma tylko pierwsza część, a podsumowania i podpis dodaje dopiero
+     * {@link #buildMergedInventoryReport} z liczebności zapisanych w każdej części.
+     *
+     * @param books książki części
+     * @param firstRow indeks pierwszego wiersza części w całym raporcie
+     * @param firstPage indeks pierwszej strony części w całym raporcie
+     * @param statusCounts liczebności statusów książek części
+     * @param genreCounts liczebności gatunków książek części
+     * @param publisherCounts liczebności wydawców książek części
+     * @return builder z gotową częścią raportu
+     * @see #planInventoryShards(List, int)
+     */
+    public LibraryPdfBuilder buildInventoryShard(
+            String libraryName,
+            String libraryDesc,
+            String address,
+            String city,
+            String reportNumber,
+            LocalDate reportDate,
+            List<LibraryPdfTableItem> books,
+            int firstRow,
+            int firstPage,
+            Map<String, Integer> statusCounts,
+            Map<String, Integer> genreCounts,
+            Map<String, Integer> publisherCounts) {
 
-        contentStream.beginText();
-        contentStream.setFont(getBoldFont(), 8);
-        contentStream.newLineAtOffset(x + col1Width + 5, y - 15);
-        contentStream.showText("ID");
-        contentStream.endText();
+        try {
+            float tableWidth = getWidth();
+            float leftWidth = tableWidth * 0.5f;
+            float rightWidth = tableWidth - leftWidth;
+            float margin = getMargin();
+            float startY = getStartY();
+            float rowHeight = tableRowHeight();
+
+            long layoutStart = System.nanoTime();
+            setPageOffset(firstPage);
+            TableLayout<LibraryPdfTableItem> table = layoutTable(INVENTORY_TABLE, tableWidth);
+            float[] rowHeights = tableRowHeights(table, books, firstRow);
+            if (firstRow == 0) {
+                layoutPlan = planTable(startY, rowHeight, minBottomMargin(), books.size(), rowHeights).plan();
+            } else {
+                // Część zaczyna się na stronie kontynuacji tabeli, tak jak w raporcie narysowanym w całości
+                layoutPlan = new LayoutPlanner(startY, firstPage, startY)
+                        .continuationTable(books.size(), rowHeights, rowHeight, rowHeight,
+                                startY - CONTINUATION_HEADER_HEIGHT - 20f, minBottomMargin())
+                        .plan();
+            }
+            long renderStart = System.nanoTime();
+            getStatistics().addPhaseNanos(ReportPhase.LAYOUT, renderStart - layoutStart).addRows(books.size());
 
-        contentStream.beginText();
-        contentStream.setFont(getBoldFont(), 8);
-        contentStream.newLineAtOffset(x + col1Width + col2Width + 5, y - 15);
-        contentStream.showText("Tytuł");
-        contentStream.endText();
+            if (firstRow == 0) {
+                traceSection(SECTION_HEADER, () -> drawReportHeader(libraryName, libraryDesc, address, city,
+                        reportNumber, reportDate, margin + leftWidth, layoutPlan.getSection(SECTION_HEADER).getY(),
+                        REPORT_HEADER_HEIGHT, leftWidth, rightWidth));
+            }
 
-        contentStream.beginText();
-        contentStream.setFont(getBoldFont(), 8);
-        contentStream.newLineAtOffset(x + col1Width + col2Width + col3Width + 5, y - 15);
-        contentStream.showText("Autor(zy)");
-        contentStream.endText();
+            traceSection(SECTION_TABLE, () -> drawTablePages(table, books, firstRow, rowHeights, margin,
+                    layoutPlan.getTableSlices(), slice -> {
+                        if (slice.isContinuation()) {
+                            drawSimpleHeader(libraryName, "Kontynuacja raportu - strona " + (slice.getPageIndex() + 1),
+                                    reportNumber, reportDate, margin, startY, CONTINUATION_HEADER_HEIGHT, tableWidth);
+                        }
+                        return true;
+                    }));
+
+            // Stopka ostatniej strony trafia do osobnego strumienia, odłączanego, gdy część jest ostatnią
+            startTailContent();
+
+            List<TableSlice> slices = layoutPlan.getTableSlices();
+            TableSlice lastSlice = slices.get(slices.size() - 1);
+            new InventoryShardState(reportNumber, firstRow, books.size(), firstPage, lastSlice.getPageIndex(),
+                    tableEndY(lastSlice, rowHeights), getTotalPagesForm(), statusCounts, genreCounts, publisherCounts)
+                    .write(getDocument());
+            getStatistics().addPhaseNanos(ReportPhase.RENDERING, System.nanoTime() - renderStart);
 
-        contentStream.beginText();
-        contentStream.setFont(getBoldFont(), 8);
-        contentStream.newLineAtOffset(x + col1Width + col2Width + col3Width + col4Width + 5, y - 15);
-        contentStream.showText("Wydawca");
-        contentStream.endText();
+        } catch (IOException e) {
+            safeEndText(getContentStream());
+            throw new PDPageContentStreamException("Nie udało się zbudować części raportu bibliotecznego: " + e.getMessage());
+        }
 
-        contentStream.beginText();
-        contentStream.setFont(getBoldFont(), 8);
-        contentStream.newLineAtOffset(x + col1Width + col2Width + col3Width + col4Width + col5Width + 5, y - 15);
-        contentStream.showText("Status");
-        contentStream.endText();
+        return this;
     }
 
     /**
-     * Rysuje wiersz tabeli książek
+     * Wyznacza pozycję Y końca ostatniego fragmentu tabeli
+     *
+     * @param rowHeights wysokości wierszy lub null dla wierszy jednoliniowych
      */
-    private void drawBookRow(LibraryPdfTableItem book, int rowNum, float x, float y, float tableWidth,
-                             float rowHeight, float col1Width, float col2Width, float col3Width,
-                             float col4Width, float col5Width) throws IOException {
-
-        PDPageContentStream contentStream = getContentStream();
+    private float tableEndY(TableSlice lastSlice, float[] rowHeights) {
+        if (rowHeights == null) {
+            return lastSlice.getFirstRowY() - lastSlice.getRowCount() * tableRowHeight();
+        }
+        float tableEndY = lastSlice.getFirstRowY();
+        for (int row = lastSlice.getFirstRow(); row < lastSlice.getEndRow(); row++) {
+            tableEndY -= rowHeights[row];
+        }
+        return tableEndY;
+    }
 
-        // Linie wiersza
-        drawLine(x, y - rowHeight, x + tableWidth, y - rowHeight);
-        drawLine(x, y, x, y - rowHeight);
+    /**
+     * Otwiera części raportu inwentaryzacyjnego zbudowane przez {@link #buildInventoryShard} i łączy ich strony
+     * w jeden dokument. Części są czytane z plików na bieżąco i zamykane dopiero po zapisie połączonego raportu.
+     * Stopka ostatniej strony ostatniej części jest odłączana, bo za tabelą zaczynają się podsumowania.
+     *
+     * @param shardPaths ścieżki części w kolejności wierszy raportu
+     * @param memoryPolicy polityka pamięci buforów dokumentu
+     * @param layoutProfile profil układu, w którym zbudowano części
+     * @return builder gotowy do {@link #buildMergedInventoryReport}
+     * @throws ReportMergeException gdy nie można wczytać części albo części nie są kolejnymi częściami jednego raportu
+     */
+    public static LibraryPdfBuilder openShardsForMerge(List<String> shardPaths, PdfMemoryPolicy memoryPolicy,
+                                                       LayoutProfile layoutProfile) {
+        if (shardPaths.isEmpty()) {
+            throw new ReportMergeException("Brak części raportu do połączenia");
+        }
+        DocumentBufferUsage bufferUsage = memoryPolicy.newBufferUsage();
+        List<PDDocument> documents = new ArrayList<>();
+        try {
+            List<InventoryShardState> states = new ArrayList<>();
+            for (String shardPath : shardPaths) {
+                PDDocument document;
+                try {
+                    document = Loader.loadPDF(new File(shardPath), null, null, null, bufferUsage);
+                } catch (IOException e) {
+                    throw new ReportMergeException("Nie udało się wczytać części raportu " + shardPath + ": " + e.getMessage(), e);
+                }
+                documents.add(document);
+
+                InventoryShardState state = InventoryShardState.read(document);
+                if (state == null) {
+                    throw new ReportMergeException("Plik " + shardPath + " nie jest częścią raportu inwentaryzacyjnego");
+                }
+                InventoryShardState previous = states.isEmpty() ? null : states.get(states.size() - 1);
+                int expectedRow = previous == null ? 0 : previous.getFirstRow() + previous.getRowCount();
+                int expectedPage = previous == null ? 0 : previous.getTableEndPage() + 1;
+                if (state.getFirstRow() != expectedRow || state.getFirstPage() != expectedPage
+                        || document.getNumberOfPages() != state.getTableEndPage() - state.getFirstPage() + 1
+                        || previous != null && !previous.getReportNumber().equals(state.getReportNumber())) {
+                    throw new ReportMergeException("Część " + shardPath + " nie jest kolejną częścią raportu "
+                            + states.get(0).getReportNumber());
+                }
+                states.add(state);
+            }
 
-        float nextX = x;
+            // Ostatnia część jest dokumentem wynikowym, a strony poprzednich części są wstawiane przed jej stronami
+            PDDocument merged = documents.get(documents.size() - 1);
+            removeTailContent(merged, merged.getNumberOfPages() - 1);
+            InventoryShardState.remove(merged);
+            PDPage firstMergedPage = merged.getPage(0);
+            for (PDDocument document : documents.subList(0, documents.size() - 1)) {
+                List<PDPage> pages = new ArrayList<>();
+                document.getPages().forEach(pages::add);
+                for (PDPage page : pages) {
+                    merged.getPages().insertBefore(page, firstMergedPage);
+                }
+            }
 
-        nextX += col1Width;
-        drawLine(nextX, y, nextX, y - rowHeight);
+            LibraryPdfBuilder builder = new LibraryPdfBuilder(merged, bufferUsage, layoutProfile, states);
+            InventoryShardState last = states.get(states.size() - 1);
+            if (last.getPageCountForm() != null) {
+                builder.reuseTotalPagesForm(last.getPageCountForm());
+            }
+            for (int i = 0; i < documents.size() - 1; i++) {
+                // Przeniesione strony odwołują się do obiektów części aż do zapisu
+                builder.addSourceDocument(documents.get(i));
+                if (states.get(i).getPageCountForm() != null) {
+                    builder.addImportedTotalPagesForm(states.get(i).getPageCountForm());
+                }
+            }
+            return builder;
+
+        } catch (RuntimeException e) {
+            for (PDDocument document : documents) {
+                try {
+                    document.close();
+                } catch (IOException ignored) {
+                    // Dokumenty i tak są odrzucane
+                }
+            }
+            throw e;
+        }
+    }
 
-        nextX += col2Width;
-        drawLine(nextX, y, nextX, y - rowHeight);
+    /**
+     * Dodaje do połączonych części raportu podsumowania statusów, gatunków i wydawców, policzone
+     * z liczebności zapisanych w częściach, oraz podpis - za ostatnim wierszem tabeli, tak jak w raporcie
+     * narysowanym w całości
+     *
+     * @param generatedBy osoba generująca raport
+     * @param reportDate data raportu, wyświetlana przy podpisie
+     * @return ten sam builder
+     * @throws ReportMergeException jeśli builder nie został otwarty przez {@link #openShardsForMerge}
+     */
+    public LibraryPdfBuilder buildMergedInventoryReport(String generatedBy, LocalDate reportDate) {
+        if (shardStates == null) {
+            throw new ReportMergeException("Builder nie został otwarty przez openShardsForMerge");
+        }
 
-        nextX += col3Width;
-        drawLine(nextX, y, nextX, y - rowHeight);
+        try {
+            long aggregationStart = System.nanoTime();
+            Map<String, Integer> statusCounts = new HashMap<>();
+            Map<String, Integer> genreCounts = new HashMap<>();
+            Map<String, Integer> publisherCounts = new HashMap<>();
+            int rowCount = 0;
+            for (InventoryShardState state : shardStates) {
+                state.getStatusCounts().forEach((status, count) -> statusCounts.merge(status, count, Integer::sum));
+                state.getGenreCounts().forEach((genre, count) -> genreCounts.merge(genre, count, Integer::sum));
+                state.getPublisherCounts().forEach((publisher, count) -> publisherCounts.merge(publisher, count, Integer::sum));
+                rowCount += state.getRowCount();
+            }
+            List<BookStatusSummary> statusSummaries = new ArrayList<>();
+            statusCounts.forEach((status, count) -> statusSummaries.add(new BookStatusSummary(status, count)));
+            List<GenreSummary> genreSummaries = new ArrayList<>();
+            genreCounts.forEach((genre, count) -> genreSummaries.add(new GenreSummary(genre, count)));
+            List<PublisherSummary> publisherSummaries = new ArrayList<>();
+            publisherCounts.forEach((publisher, count) -> publisherSummaries.add(new PublisherSummary(publisher, count)));
+            long layoutStart = System.nanoTime();
+            getStatistics().addPhaseNanos(ReportPhase.AGGREGATION, layoutStart - aggregationStart);
+
+            InventoryShardState last = shardStates.get(shardStates.size() - 1);
+            float rowHeight = tableRowHeight();
+            int summaryGroups = LayoutProfile.summaryColumnGroups(getWidth());
+            LayoutPlanner planner = new LayoutPlanner(getStartY(), last.getTableEndPage(), last.getTableEndY());
+            planSummary(planner, SECTION_STATUS_SUMMARY, statusSummaries.size(), summaryGroups, rowHeight, minBottomMargin());
+            layoutPlan = planSummariesAndSignature(planner, rowHeight, minBottomMargin(), summaryGroups,
+                    genreSummaries.size(), publisherSummaries.size());
+            long renderStart = System.nanoTime();
+            getStatistics().addPhaseNanos(ReportPhase.LAYOUT, renderStart - layoutStart).addRows(rowCount);
+
+            drawInventoryTail(statusSummaries, genreSummaries, publisherSummaries, generatedBy, reportDate);
+            getStatistics().addPhaseNanos(ReportPhase.RENDERING, System.nanoTime() - renderStart);
 
-        nextX += col4Width;
-        drawLine(nextX, y, nextX, y - rowHeight);
+        } catch (IOException e) {
+            safeEndText(getContentStream());
+            throw new PDPageContentStreamException("Nie udało się połączyć części raportu bibliotecznego: " + e.getMessage());
+        }
 
-        nextX += col5Width;
-        drawLine(nextX, y, nextX, y - rowHeight);
+        return this;
+    }
 
-        drawLine(x + tableWidth, y, x + tableWidth, y - rowHeight);
+    /**
+     * Buduje skonsolidowany raport inwentaryzacyjny sieci bibliotek. Każda filia ma sekcję od nowej strony
+     * z własnym nagłówkiem, tabelą książek numerowaną od 1 i podsumowaniami filii; wiersze są rysowane
+     * z listy książek filii, bez łączenia list wszystkich filii. Na końcu raportu jest podsumowanie sieci:
+     * liczby książek filii, podsumowania statusów, gatunków i wydawców całej sieci oraz podpis.
+     * Sekcje filii i podsumowanie sieci mają pozycje w konspekcie dokumentu.
+     *
+     * @param networkName nazwa sieci bibliotek
+     * @param networkDesc opis sieci bibliotek
+     * @param address adres sieci - ulica
+     * @param city miasto i kod pocztowy sieci
+     * @param reportNumber numer raportu, wspólny dla wszystkich sekcji
+     * @param reportDate data raportu
+     * @param branches dane filii w kolejności sekcji
+     * @param branchSummaries podsumowania filii w tej samej kolejności
+     * @param networkSummary podsumowanie całej sieci
+     * @param generatedBy osoba generująca raport
+     * @return builder z gotowym raportem
+     */
+    public LibraryPdfBuilder buildConsolidatedInventoryReport(
+            String networkName,
+            String networkDesc,
+            String address,
+            String city,
+            String reportNumber,
+            LocalDate reportDate,
+            List<BranchInventory> branches,
+            List<BranchInventorySummary> branchSummaries,
+            BranchInventorySummary networkSummary,
+            String generatedBy) {
 
-        // Zawartość wiersza
-        contentStream.beginText();
-        contentStream.setFont(getRegularFont(), 8);
-        contentStream.newLineAtOffset(x + 5, y - 15);
-        contentStream.showText(String.valueOf(rowNum));
-        contentStream.endText();
+        if (branches.size() != branchSummaries.size()) {
+            throw new IllegalArgumentException("Liczba podsumowań filii (" + branchSummaries.size()
+                    + ") różni się od liczby filii (" + branches.size() + ")");
+        }
 
-        contentStream.beginText();
-        contentStream.setFont(getRegularFont(), 8);
-        contentStream.newLineAtOffset(x + col1Width + 5, y - 15);
-        contentStream.showText(book.getBookId());
-        contentStream.endText();
+        try {
+            float tableWidth = getWidth();
+            float leftWidth = tableWidth * 0.5f;
+            float rightWidth = tableWidth - leftWidth;
+            float margin = getMargin();
+            float startY = getStartY();
+            float rowHeight = tableRowHeight();
+            int summaryGroups = LayoutProfile.summaryColumnGroups(tableWidth);
+            TableLayout<LibraryPdfTableItem> table = layoutTable(INVENTORY_TABLE, tableWidth);
+            List<Integer> sectionPages = new ArrayList<>();
+            int firstPage = 0;
+
+            for (int i = 0; i < branches.size(); i++) {
+                BranchInventory branch = branches.get(i);
+                List<LibraryPdfTableItem> books = branch.getBooks();
+                List<BookStatusSummary> statusSummaries = summaryItems(branchSummaries.get(i).getStatusCounts(),
+                        BookStatusSummary::new);
+                List<GenreSummary> genreSummaries = summaryItems(branchSummaries.get(i).getGenreCounts(),
+                        GenreSummary::new);
+                List<PublisherSummary> publisherSummaries = summaryItems(branchSummaries.get(i).getPublisherCounts(),
+                        PublisherSummary::new);
+
+                // Sekcja filii zaczyna się na nowej stronie, za podsumowaniami poprzedniej filii
+                long layoutStart = System.nanoTime();
+                float[] rowHeights = tableRowHeights(table, books, 0);
+                LayoutPlanner planner = planTable(startY, firstPage, rowHeight, minBottomMargin(), books.size(), rowHeights);
+                planSummary(planner, SECTION_STATUS_SUMMARY, statusSummaries.size(), summaryGroups, rowHeight, minBottomMargin());
+                planSummary(planner, SECTION_GENRE_SUMMARY, genreSummaries.size(), summaryGroups, rowHeight, minBottomMargin());
+                planSummary(planner, SECTION_PUBLISHER_SUMMARY, publisherSummaries.size(), summaryGroups, rowHeight,
+                        minBottomMargin());
+                layoutPlan = planner.plan();
+                long renderStart = System.nanoTime();
+                getStatistics().addPhaseNanos(ReportPhase.LAYOUT, renderStart - layoutStart).addRows(books.size());
+
+                SectionPlacement headerPlacement = layoutPlan.getSection(SECTION_HEADER);
+                ensurePage(headerPlacement.getPageIndex());
+                sectionPages.add(headerPlacement.getPageIndex());
+                traceSection(SECTION_HEADER, () -> drawReportHeader(branch.getBranchName(), networkName,
+                        branch.getAddress(), branch.getCity(), reportNumber, reportDate, margin + leftWidth,
+                        headerPlacement.getY(), REPORT_HEADER_HEIGHT, leftWidth, rightWidth));
+
+                traceSection(SECTION_TABLE, () -> drawTablePages(table, books, 0, rowHeights, margin,
+                        layoutPlan.getTableSlices(), slice -> {
+                            if (slice.isContinuation()) {
+                                drawSimpleHeader(branch.getBranchName(), "Kontynuacja raportu filii - strona "
+                                                + (slice.getPageIndex() + 1), reportNumber, reportDate, margin, startY,
+                                        CONTINUATION_HEADER_HEIGHT, tableWidth);
+                            }
+                            return true;
+                        }));
+
+                drawInventorySummaries(statusSummaries, genreSummaries, publisherSummaries);
+                getStatistics().addPhaseNanos(ReportPhase.RENDERING, System.nanoTime() - renderStart);
+                firstPage = layoutPlan.getTotalPages();
+            }
 
-        contentStream.beginText();
-        contentStream.setFont(getRegularFont(), 8);
-        contentStream.newLineAtOffset(x + col1Width + col2Width + 5, y - 15);
-        contentStream.showText(truncateText(book.getTitle(), 30));
-        contentStream.endText();
+            // Podsumowanie sieci od nowej strony
+            List<BookStatusSummary> statusSummaries = summaryItems(networkSummary.getStatusCounts(), BookStatusSummary::new);
+            List<GenreSummary> genreSummaries = summaryItems(networkSummary.getGenreCounts(), GenreSummary::new);
+            List<PublisherSummary> publisherSummaries = summaryItems(networkSummary.getPublisherCounts(),
+                    PublisherSummary::new);
+            long layoutStart = System.nanoTime();
+            LayoutPlanner planner = new LayoutPlanner(startY, firstPage, startY)
+                    .section(SECTION_HEADER, REPORT_HEADER_HEIGHT, 0f, 20f, minBottomMargin());
+            planSummary(planner, SECTION_BRANCH_SUMMARY, branchSummaries.size(), summaryGroups, rowHeight, minBottomMargin());
+            planSummary(planner, SECTION_STATUS_SUMMARY, statusSummaries.size(), summaryGroups, rowHeight, minBottomMargin());
+            layoutPlan = planSummariesAndSignature(planner, rowHeight, minBottomMargin(), summaryGroups,
+                    genreSummaries.size(), publisherSummaries.size());
+            long renderStart = System.nanoTime();
+            getStatistics().addPhaseNanos(ReportPhase.LAYOUT, renderStart - layoutStart);
+
+            SectionPlacement headerPlacement = layoutPlan.getSection(SECTION_HEADER);
+            ensurePage(headerPlacement.getPageIndex());
+            sectionPages.add(headerPlacement.getPageIndex());
+            traceSection(SECTION_HEADER, () -> drawReportHeader(networkName, networkDesc, address, city,
+                    reportNumber, reportDate, margin + leftWidth, headerPlacement.getY(), REPORT_HEADER_HEIGHT,
+                    leftWidth, rightWidth));
+
+            ensurePage(layoutPlan.getSection(SECTION_BRANCH_SUMMARY).getPageIndex());
+            traceSection(SECTION_BRANCH_SUMMARY, () -> drawBranchSummary(branchSummaries, margin, tableWidth));
+
+            drawInventoryTail(statusSummaries, genreSummaries, publisherSummaries, generatedBy, reportDate);
+
+            List<String> sectionTitles = new ArrayList<>();
+            branches.forEach(branch -> sectionTitles.add(branch.getBranchName()));
+            sectionTitles.add("Podsumowanie sieci");
+            addSectionOutline(sectionTitles, sectionPages);
+            getStatistics().addPhaseNanos(ReportPhase.RENDERING, System.nanoTime() - renderStart);
 
-        contentStream.beginText();
-        contentStream.setFont(getRegularFont(), 8);
-        contentStream.newLineAtOffset(x + col1Width + col2Width + col3Width + 5, y - 15);
-        contentStream.showText(truncateText(book.getAuthors(), 25));
-        contentStream.endText();
+        } catch (IOException e) {
+            safeEndText(getContentStream());
+            throw new PDPageContentStreamException("Nie udało się zbudować skonsolidowanego raportu bibliotecznego: "
+                    + e.getMessage());
+        }
 
-        contentStream.beginText();
-        contentStream.setFont(getRegularFont(), 8);
-        contentStream.newLineAtOffset(x + col1Width + col2Width + col3Width + col4Width + 5, y - 15);
-        contentStream.showText(truncateText(book.getPublisher(), 20));
-        contentStream.endText();
+        return this;
+    }
 
-        contentStream.beginText();
-        contentStream.setFont(getRegularFont(), 8);
-        contentStream.newLineAtOffset(x + col1Width + col2Width + col3Width + col4Width + col5Width + 5, y - 15);
-        contentStream.showText(book.getStatus());
-        contentStream.endText();
+    /**
+     * Zamienia liczebności na pozycje podsumowania w kolejności mapy
+     */
+    private static <T> List<T> summaryItems(Map<String, Integer> counts, BiFunction<String, Integer, T> item) {
+        List<T> items = new ArrayList<>(counts.size());
+        counts.forEach((name, count) -> items.add(item.apply(name, count)));
+        return items;
     }
 
     /**
-     * Rysuje sekcję z podsumowaniem statusów książek
+     * Dodaje do dokumentu konspekt z pozycją dla każdej sekcji raportu
+     *
+     * @param titles tytuły sekcji
+     * @param pageIndexes indeksy pierwszych stron sekcji
      */
-    private void drawStatusSummary(List<BookStatusSummary> summaries, float x, float y, float tableWidth) throws IOException {
-        if (summaries == null || summaries.isEmpty()) {
-            return;
+    private void addSectionOutline(List<String> titles, List<Integer> pageIndexes) {
+        PDDocumentOutline outline = new PDDocumentOutline();
+        for (int i = 0; i < titles.size(); i++) {
+            PDPageFitDestination destination = new PDPageFitDestination();
+            destination.setPage(getDocument().getPage(pageIndexes.get(i)));
+            PDOutlineItem item = new PDOutlineItem();
+            item.setTitle(titles.get(i));
+            item.setDestination(destination);
+            outline.addLast(item);
         }
+        getDocument().getDocumentCatalog().setDocumentOutline(outline);
+        getDocument().getDocumentCatalog().setPageMode(PageMode.USE_OUTLINES);
+    }
 
-        PDPageContentStream contentStream = getContentStream();
-        float rowHeight = 25f;
-
-        // Nagłówek sekcji
-        contentStream.beginText();
-        contentStream.setFont(getBoldFont(), 10);
-        contentStream.newLineAtOffset(x, y + 15);
-        contentStream.showText("Podsumowanie statusów książek:");
-        contentStream.endText();
-
-        // Definiuje szerokości kolumn
-        float col1Width = 200f;       // Status
-        float col2Width = tableWidth - col1Width;  // Ilość
-
-        float currentY = y - 15;
-
-        // Nagłówek tabeli statusów
-        drawLine(x, currentY, x + tableWidth, currentY);
-        drawLine(x, currentY - rowHeight, x + tableWidth, currentY - rowHeight);
-        drawLine(x, currentY, x, currentY - rowHeight);
-        drawLine(x + col1Width, currentY, x + col1Width, currentY - rowHeight);
-        drawLine(x + tableWidth, currentY, x + tableWidth, currentY - rowHeight);
-
-        contentStream.beginText();
-        contentStream.setFont(getBoldFont(), 8);
-        contentStream.newLineAtOffset(x + 5, currentY - 15);
-        contentStream.showText("Status");
-        contentStream.endText();
-
-        contentStream.beginText();
-        contentStream.setFont(getBoldFont(), 8);
-        contentStream.newLineAtOffset(x + col1Width + 5, currentY - 15);
-        contentStream.showText("Ilość");
-        contentStream.endText();
-
-        currentY -= rowHeight;
+    /**
+     * Buduje raport inwentaryzacyjny biblioteki
+     * Wersja zachowana dla kompatybilności wstecznej
+     *
+     * @param libraryName nazwa biblioteki
+     * @param libraryDesc opis biblioteki
+     * @param address adres biblioteki
+     * @param city miasto
+     * @param reportNumber numer raportu
+     * @param reportDate data raportu
+     * @param books lista książek
+     * @param statusSummaries lista podsumowań statusów
+     * @param generatedBy osoba generująca raport
+     * @return builder z gotowym raportem
+     */
+    public LibraryPdfBuilder buildLibraryInventoryReport(
+            String libraryName,
+            String libraryDesc,
+            String address,
+            String city,
+            String reportNumber,
+            LocalDate reportDate,
+            List<LibraryPdfTableItem> books,
+            List<BookStatusSummary> statusSummaries,
+            String generatedBy) {
 
-        // Wiersze statusów
-        for (BookStatusSummary summary : summaries) {
-            drawLine(x, currentY - rowHeight, x + tableWidth, currentY - rowHeight);
-            drawLine(x, currentY, x, currentY - rowHeight);
-            drawLine(x + col1Width, currentY, x + col1Width, currentY - rowHeight);
-            drawLine(x + tableWidth, currentY, x + tableWidth, currentY - rowHeight);
+        // Tworzymy puste listy dla gatunków i wydawców
+        List<GenreSummary> emptyGenreSummaries = new ArrayList<>();
+        List<PublisherSummary> emptyPublisherSummaries = new ArrayList<>();
 
-            contentStream.beginText();
-            contentStream.setFont(getRegularFont(), 8);
-            contentStream.newLineAtOffset(x + 5, currentY - 15);
-            contentStream.showText(summary.getStatus());
-            contentStream.endText();
+        // Delegujemy wywołanie do pełnej wersji metody
+        return buildLibraryInventoryReport(
+                libraryName,
+                libraryDesc,
+                address,
+                city,
+                reportNumber,
+                reportDate,
+                books,
+                statusSummaries,
+                emptyGenreSummaries,
+                emptyPublisherSummaries,
+                generatedBy
+        );
+    }
 
-            contentStream.beginText();
-            contentStream.setFont(getRegularFont(), 8);
-            contentStream.newLineAtOffset(x + col1Width + 5, currentY - 15);
-            contentStream.showText(String.valueOf(summary.getCount()));
-            contentStream.endText();
 
-            currentY -= rowHeight;
-        }
 
-        // Wiersz z sumą książek
-        int totalBooks = summaries.stream().mapToInt(BookStatusSummary::getCount).sum();
+    /**
+     * Rysuje uproszczony nagłówek na kolejnych stronach raportu
+     */
+    private void drawSimpleHeader(String title, String subtitle, String reportNumber, LocalDate reportDate,
+                                  float x, float y, float headerHeight, float tableWidth) throws IOException {
 
-        drawLine(x, currentY - rowHeight, x + tableWidth, currentY - rowHeight);
-        drawLine(x, currentY, x, currentY - rowHeight);
-        drawLine(x + col1Width, currentY, x + col1Width, currentY - rowHeight);
-        drawLine(x + tableWidth, currentY, x + tableWidth, currentY - rowHeight);
+        // Niezmienna część nagłówka nagrywana raz i umieszczana przez odwołanie
+        drawFurniture("simpleHeader:" + title + ":" + reportNumber, x, y, tableWidth, headerHeight,
+                () -> drawSimpleHeaderFrame(title, reportNumber, reportDate, 0, 0, headerHeight, tableWidth));
 
-        contentStream.beginText();
-        contentStream.setFont(getBoldFont(), 8);
-        contentStream.newLineAtOffset(x + 5, currentY - 15);
-        contentStream.showText("RAZEM");
-        contentStream.endText();
+        PDPageContentStream contentStream = getContentStream();
 
+        // Podtytuł
         contentStream.beginText();
-        contentStream.setFont(getBoldFont(), 8);
-        contentStream.newLineAtOffset(x + col1Width + 5, currentY - 15);
-        contentStream.showText(String.valueOf(totalBooks));
+        contentStream.setFont(getRegularFont(), 9);
+        contentStream.newLineAtOffset(x + 10, y - 35);
+        showText(getRegularFont(), subtitle);
         contentStream.endText();
     }
 
     /**
-     * Rysuje sekcję z podsumowaniem gatunków książek
+     * Rysuje niezmienną część uproszczonego nagłówka: ramkę, tytuł, numer i datę raportu
      */
-    private void drawGenreSummary(List<GenreSummary> summaries, float x, float y, float tableWidth) throws IOException {
-        if (summaries == null || summaries.isEmpty()) {
-            return;
-        }
+    private void drawSimpleHeaderFrame(String title, String reportNumber, LocalDate reportDate,
+                                       float x, float y, float headerHeight, float tableWidth) throws IOException {
 
         PDPageContentStream contentStream = getContentStream();
-        float rowHeight = 25f;
 
-        // Nagłówek sekcji
+        // Ramka nagłówka
+        drawLine(x, y, x + tableWidth, y);
+        drawLine(x, y - headerHeight, x + tableWidth, y - headerHeight);
+        drawLine(x, y, x, y - headerHeight);
+        drawLine(x + tableWidth, y, x + tableWidth, y - headerHeight);
+
+        // Tytuł
         contentStream.beginText();
         contentStream.setFont(getBoldFont(), 10);
-        contentStream.newLineAtOffset(x, y + 15);
-        contentStream.showText("Podsumowanie gatunków książek:");
+        contentStream.newLineAtOffset(x + 10, y - 20);
+        showText(getBoldFont(), title);
         contentStream.endText();
 
-        // Definiuje szerokości kolumn
-        float col1Width = 200f;       // Gatunek
-        float col2Width = tableWidth - col1Width;  // Ilość
-
-        float currentY = y - 15;
-
-        // Nagłówek tabeli gatunków
-        drawLine(x, currentY, x + tableWidth, currentY);
-        drawLine(x, currentY - rowHeight, x + tableWidth, currentY - rowHeight);
-        drawLine(x, currentY, x, currentY - rowHeight);
-        drawLine(x + col1Width, currentY, x + col1Width, currentY - rowHeight);
-        drawLine(x + tableWidth, currentY, x + tableWidth, currentY - rowHeight);
-
+        // Numer raportu
         contentStream.beginText();
-        contentStream.setFont(getBoldFont(), 8);
-        contentStream.newLineAtOffset(x + 5, currentY - 15);
-        contentStream.showText("Gatunek");
+        contentStream.setFont(getRegularFont(), 8);
+        contentStream.newLineAtOffset(x + tableWidth - 150, y - 20);
+        showText(getRegularFont(), "Nr raportu: " + reportNumber);
         contentStream.endText();
 
-        // POPRAWKA: Usunięcie dodatkowego beginText przed showText("Ilość")
+        // Data raportu
         contentStream.beginText();
-        contentStream.setFont(getBoldFont(), 8);
-        contentStream.newLineAtOffset(x + col1Width + 5, currentY - 15);
-        contentStream.showText("Ilość");
+        contentStream.setFont(getRegularFont(), 8);
+        contentStream.newLineAtOffset(x + tableWidth - 150, y - 35);
+        String formattedDate = reportDate.format(CellFormat.DATE);
+        showText(getRegularFont(), "Data: " + formattedDate);
         contentStream.endText();
+    }
 
-        currentY -= rowHeight;
-
-        // Wiersze gatunków
-        for (GenreSummary summary : summaries) {
-            drawLine(x, currentY - rowHeight, x + tableWidth, currentY - rowHeight);
-            drawLine(x, currentY, x, currentY - rowHeight);
-            drawLine(x + col1Width, currentY, x + col1Width, currentY - rowHeight);
-            drawLine(x + tableWidth, currentY, x + tableWidth, currentY - rowHeight);
-
-            contentStream.beginText();
-            contentStream.setFont(getRegularFont(), 8);
-            contentStream.newLineAtOffset(x + 5, currentY - 15);
-            contentStream.showText(summary.getGenre());
-            contentStream.endText();
-
-            contentStream.beginText();
-            contentStream.setFont(getRegularFont(), 8);
-            contentStream.newLineAtOffset(x + col1Width + 5, currentY - 15);
-            contentStream.showText(String.valueOf(summary.getCount()));
-            contentStream.endText();
 
-            currentY -= rowHeight;
-        }
 
-        // Wiersz z sumą książek
-        int totalBooks = summaries.stream().mapToInt(GenreSummary::getCount).sum();
+    /**
+     * Rysuje podsumowanie liczby książek filii
+     */
+    private void drawBranchSummary(List<BranchInventorySummary> summaries, float x, float tableWidth) throws IOException {
+        drawSummaryGrid(SECTION_BRANCH_SUMMARY, "Podsumowanie filii", "Filia", summaries,
+                BranchInventorySummary::getBranchName, BranchInventorySummary::getBookCount, x, tableWidth);
+    }
 
-        drawLine(x, currentY - rowHeight, x + tableWidth, currentY - rowHeight);
-        drawLine(x, currentY, x, currentY - rowHeight);
-        drawLine(x + col1Width, currentY, x + col1Width, currentY - rowHeight);
-        drawLine(x + tableWidth, currentY, x + tableWidth, currentY - rowHeight);
+    /**
+     * Rysuje podsumowanie statusów
+     */
+    private void drawStatusSummary(List<BookStatusSummary> summaries, float x, float tableWidth) throws IOException {
+        drawSummaryGrid(SECTION_STATUS_SUMMARY, "Podsumowanie statusów książek", "Status", summaries,
+                BookStatusSummary::getStatus, BookStatusSummary::getCount, x, tableWidth);
+    }
 
-        contentStream.beginText();
-        contentStream.setFont(getBoldFont(), 8);
-        contentStream.newLineAtOffset(x + 5, currentY - 15);
-        contentStream.showText("RAZEM");
-        contentStream.endText();
+    /**
+     * Rysuje podsumowanie gatunków
+     */
+    private void drawGenreSummary(List<GenreSummary> summaries, float x, float tableWidth) throws IOException {
+        drawSummaryGrid(SECTION_GENRE_SUMMARY, "Podsumowanie gatunków książek", "Gatunek", summaries,
+                GenreSummary::getGenre, GenreSummary::getCount, x, tableWidth);
+    }
 
-        contentStream.beginText();
-        contentStream.setFont(getBoldFont(), 8);
-        contentStream.newLineAtOffset(x + col1Width + 5, currentY - 15);
-        contentStream.showText(String.valueOf(totalBooks));
-        contentStream.endText();
+    /**
+     * Rysuje podsumowanie wydawców
+     */
+    private void drawPublisherSummary(List<PublisherSummary> summaries, float x, float tableWidth) throws IOException {
+        drawSummaryGrid(SECTION_PUBLISHER_SUMMARY, "Podsumowanie wydawców", "Wydawca", summaries,
+                PublisherSummary::getPublisher, PublisherSummary::getCount, x, tableWidth);
     }
 
     /**
-     * Rysuje sekcję z podsumowaniem wydawców książek
+     * Rysuje podsumowanie jako tabelę nazwa-ilość na fragmentach wyznaczonych przez plan układu.
+     * Pozycje wypełniają kolejno grupy kolumn ustawione obok siebie, a ostatnią pozycją jest wiersz sumy.
+     * Na stronach kontynuacji tytuł sekcji i nagłówki kolumn są powtarzane.
      */
-    private void drawPublisherSummary(List<PublisherSummary> summaries, float x, float y, float tableWidth) throws IOException {
+    private <T> void drawSummaryGrid(String section, String title, String nameHeader, List<T> summaries,
+                                     Function<T, String> nameExtractor, ToIntFunction<T> countExtractor,
+                                     float x, float tableWidth) throws IOException {
         if (summaries == null || summaries.isEmpty()) {
             return;
         }
 
-        PDPageContentStream contentStream = getContentStream();
-        float rowHeight = 25f;
-
-        // Nagłówek sekcji
-        contentStream.beginText();
-        contentStream.setFont(getBoldFont(), 10);
-        contentStream.newLineAtOffset(x, y + 15);
-        contentStream.showText("Podsumowanie wydawców:");
-        contentStream.endText();
-
-        // Definiuje szerokości kolumn
-        float col1Width = 200f;       // Wydawca
-        float col2Width = tableWidth - col1Width;  // Ilość
+        List<String[]> cells = summaryCells(summaries, nameExtractor, countExtractor);
 
-        float currentY = y - 15;
+        for (GridSlice slice : layoutPlan.getGridSlices(section)) {
+            ensurePage(slice.getPageIndex());
+            float y = slice.getY();
 
-        // Nagłówek tabeli wydawców
-        drawLine(x, currentY, x + tableWidth, currentY);
-        drawLine(x, currentY - rowHeight, x + tableWidth, currentY - rowHeight);
-        drawLine(x, currentY, x, currentY - rowHeight);
-        drawLine(x + col1Width, currentY, x + col1Width, currentY - rowHeight);
-        drawLine(x + tableWidth, currentY, x + tableWidth, currentY - rowHeight);
+            // Nagłówek sekcji
+            drawSummaryText(slice.isContinuation() ? title + " (cd.):" : title + ":", x, y + 15, getBoldFont(), 10);
 
-        contentStream.beginText();
-        contentStream.setFont(getBoldFont(), 8);
-        contentStream.newLineAtOffset(x + 5, currentY - 15);
-        contentStream.showText("Wydawca");
-        contentStream.endText();
-
-        contentStream.beginText();
-        contentStream.setFont(getBoldFont(), 8);
-        contentStream.newLineAtOffset(x + col1Width + 5, currentY - 15);
-        contentStream.showText("Ilość");
-        contentStream.endText();
-
-        currentY -= rowHeight;
-
-        // Wiersze wydawców
-        for (PublisherSummary summary : summaries) {
-            drawLine(x, currentY - rowHeight, x + tableWidth, currentY - rowHeight);
-            drawLine(x, currentY, x, currentY - rowHeight);
-            drawLine(x + col1Width, currentY, x + col1Width, currentY - rowHeight);
-            drawLine(x + tableWidth, currentY, x + tableWidth, currentY - rowHeight);
-
-            contentStream.beginText();
-            contentStream.setFont(getRegularFont(), 8);
-            contentStream.newLineAtOffset(x + 5, currentY - 15);
-            contentStream.showText(summary.getPublisher());
-            contentStream.endText();
-
-            contentStream.beginText();
-            contentStream.setFont(getRegularFont(), 8);
-            contentStream.newLineAtOffset(x + col1Width + 5, currentY - 15);
-            contentStream.showText(String.valueOf(summary.getCount()));
-            contentStream.endText();
-
-            currentY -= rowHeight;
+            int groups = slice.getGroups();
+            float groupWidth = (tableWidth - (groups - 1) * LayoutProfile.SUMMARY_GROUP_GAP) / groups;
+            drawTableGrid(layoutTable(summaryTable(nameHeader, groups), groupWidth), cells, summaries.size(), slice,
+                    x, y - SUMMARY_LEAD_HEIGHT, LayoutProfile.SUMMARY_GROUP_GAP);
         }
+    }
 
-        // Wiersz z sumą książek
-        int totalBooks = summaries.stream().mapToInt(PublisherSummary::getCount).sum();
-
-        drawLine(x, currentY - rowHeight, x + tableWidth, currentY - rowHeight);
-        drawLine(x, currentY, x, currentY - rowHeight);
-        drawLine(x + col1Width, currentY, x + col1Width, currentY - rowHeight);
-        drawLine(x + tableWidth, currentY, x + tableWidth, currentY - rowHeight);
-
-        contentStream.beginText();
-        contentStream.setFont(getBoldFont(), 8);
-        contentStream.newLineAtOffset(x + 5, currentY - 15);
-        contentStream.showText("RAZEM");
-        contentStream.endText();
-
+    private void drawSummaryText(String text, float x, float y, PDFont font, float fontSize) throws IOException {
+        PDPageContentStream contentStream = getContentStream();
         contentStream.beginText();
-        contentStream.setFont(getBoldFont(), 8);
-        contentStream.newLineAtOffset(x + col1Width + 5, currentY - 15);
-        contentStream.showText(String.valueOf(totalBooks));
+        contentStream.setFont(font, fontSize);
+        contentStream.newLineAtOffset(x, y);
+        showText(font, text);
         contentStream.endText();
     }
 
@@ -756,14 +1235,14 @@ public class LibraryPdfBuilder extends PdfBuilder {
         contentStream.beginText();
         contentStream.setFont(getBoldFont(), 8);
         contentStream.newLineAtOffset(x + tableWidth - signatureWidth/2 - 60, y + 40);
-        contentStream.showText(generatedBy);
+        showText(getBoldFont(), generatedBy);
         contentStream.endText();
 
         contentStream.beginText();
         contentStream.setFont(getRegularFont(), 8);
-        String formattedDate = date.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+        String formattedDate = date.format(CellFormat.DATE);
         contentStream.newLineAtOffset(x + tableWidth - signatureWidth/2 - 70, y + 25);
-        contentStream.showText("      Wygenerowano dnia " + formattedDate);
+        showText(getRegularFont(), "      Wygenerowano dnia " + formattedDate);
         contentStream.endText();
 
         // Podpisy linią przerywaną
@@ -773,7 +1252,7 @@ public class LibraryPdfBuilder extends PdfBuilder {
         contentStream.beginText();
         contentStream.setFont(getRegularFont(), 8);
         contentStream.newLineAtOffset(x + tableWidth - signatureWidth/2 - 15, y - 15);
-        contentStream.showText("podpis");
+        showText(getRegularFont(), "podpis");
         contentStream.endText();
     }
 
@@ -781,7 +1260,7 @@ public class LibraryPdfBuilder extends PdfBuilder {
      * Oblicza wysokość tabeli książek
      */
     private float calculateTableHeight(List<LibraryPdfTableItem> books) {
-        return (books.size() + 1) * 25f; // Wysokość wiersza (25f) * (liczba książek + nagłówek)
+        return (books.size() + 1) * tableRowHeight(); // Wysokość wiersza * (liczba książek + nagłówek)
     }
 
     /**
@@ -791,53 +1270,9 @@ public class LibraryPdfBuilder extends PdfBuilder {
         if (summaries == null || summaries.isEmpty()) {
             return 0f;
         }
-        return (summaries.size() + 2) * 25f; // Wysokość wiersza (25f) * (liczba statusów + nagłówek + suma)
-    }
-
-    /**
-     * Oblicza wysokość tabeli podsumowania statusów
-     */
-    private float calculateStatusSummaryHeight(List<BookStatusSummary> summaries) {
-        if (summaries == null || summaries.isEmpty()) {
-            return 0f;
-        }
-        return (summaries.size() + 2) * 25f; // Wysokość wiersza (25f) * (liczba statusów + nagłówek + suma)
-    }
-
-    /**
-     * Oblicza wysokość tabeli podsumowania gatunków
-     */
-    private float calculateGenreSummaryHeight(List<GenreSummary> summaries) {
-        if (summaries == null || summaries.isEmpty()) {
-            return 0f;
-        }
-        return (summaries.size() + 2) * 25f; // Wysokość wiersza (25f) * (liczba gatunków + nagłówek + suma)
-    }
-
-    /**
-     * Oblicza wysokość tabeli podsumowania wydawców
-     */
-    private float calculatePublisherSummaryHeight(List<PublisherSummary> summaries) {
-        if (summaries == null || summaries.isEmpty()) {
-            return 0f;
-        }
-        return (summaries.size() + 2) * 25f; // Wysokość wiersza (25f) * (liczba wydawców + nagłówek + suma)
+        return (summaries.size() + 2) * tableRowHeight(); // Wysokość wiersza * (liczba statusów + nagłówek + suma)
     }
 
-    /**
-     * Skraca tekst do określonej długości, dodając "..." na końcu jeśli został skrócony
-     */
-    private String truncateText(String text, int maxLength) {
-        if (text == null) {
-            return "";
-        }
-
-        if (text.length() <= maxLength) {
-            return text;
-        }
-
-        return text.substring(0, maxLength - 3) + "...";
-    }
     public LibraryPdfBuilder buildPopularityReport(
             String libraryName,
             String libraryDesc,
@@ -857,58 +1292,48 @@ public class LibraryPdfBuilder extends PdfBuilder {
             float leftWidth = tableWidth * 0.5f;
             float rightWidth = tableWidth - leftWidth;
             float margin = getMargin();
-            float pageHeight = getHeight();
-            float minBottomMargin = 50f; // Minimalny margines dolny
 
-            float currentY = getStartY();
             float rightStartX = margin + leftWidth;
 
-            // Nagłówek dokumentu
-            drawReportHeader(libraryName, libraryDesc, address, city, reportNumber,
-                    reportDate, rightStartX, currentY, headerHeight, leftWidth, rightWidth);
+            // Faza planowania - podziały stron i położenie sekcji wyznaczone przed rysowaniem
+            long layoutStart = System.nanoTime();
+            TableLayout<LibraryPdfTableItem> table = layoutTable(POPULARITY_TABLE, tableWidth);
+            float[] rowHeights = tableRowHeights(table, books, 0);
+            layoutPlan = planPopularityLayout(getStartY(), tableRowHeight(), minBottomMargin(),
+                    LayoutProfile.summaryColumnGroups(getWidth()), books.size(), rowHeights,
+                    sizeOf(genreSummaries), sizeOf(publisherSummaries));
+            long renderStart = System.nanoTime();
+            getStatistics().addPhaseNanos(ReportPhase.LAYOUT, renderStart - layoutStart).addRows(books.size());
 
-            currentY = currentY - headerHeight - 20;
+            // Nagłówek dokumentu
+            traceSection(SECTION_HEADER, () -> drawReportHeader(libraryName, libraryDesc, address, city,
+                    reportNumber, reportDate, rightStartX, layoutPlan.getSection(SECTION_HEADER).getY(),
+                    headerHeight, leftWidth, rightWidth));
 
             // Rysowanie tabeli książek z obsługą wielu stron i dodatkową kolumną popularności
-            currentY = drawPopularityBooksTableWithPaging(books, margin, currentY, tableWidth, pageHeight, minBottomMargin,
-                    libraryName, libraryDesc, address, city, reportNumber, reportDate);
-
-            // Sprawdź czy jest wystarczająco miejsca na podsumowanie gatunków
-            float genreSummaryHeight = calculateGenreSummaryHeight(genreSummaries);
-            if (currentY - genreSummaryHeight - 40 < minBottomMargin) {
-                // Dodaj nową stronę
-                addNewPage();
-                currentY = getStartY();
-            }
+            traceSection(SECTION_TABLE, () -> drawTablePages(table, books, 0, rowHeights, margin,
+                    layoutPlan.getTableSlices(), slice -> {
+                        if (slice.isContinuation()) {
+                            drawSimpleHeader(libraryName, "Kontynuacja raportu popularności - strona " + (slice.getPageIndex() + 1),
+                                    reportNumber, reportDate, margin, getStartY(), CONTINUATION_HEADER_HEIGHT, tableWidth);
+                        }
+                        return true;
+                    }));
 
             // Sekcja podsumowania gatunków (sortowana wg popularności)
-            float genreSummaryY = currentY - 40;
-            drawGenreSummary(genreSummaries, margin, genreSummaryY, tableWidth);
-            currentY = genreSummaryY - genreSummaryHeight;
-
-            // Sprawdź czy jest wystarczająco miejsca na podsumowanie wydawców
-            float publisherSummaryHeight = calculatePublisherSummaryHeight(publisherSummaries);
-            if (currentY - publisherSummaryHeight - 40 < minBottomMargin) {
-                // Dodaj nową stronę
-                addNewPage();
-                currentY = getStartY();
-            }
+            ensurePage(layoutPlan.getSection(SECTION_GENRE_SUMMARY).getPageIndex());
+            traceSection(SECTION_GENRE_SUMMARY, () -> drawGenreSummary(genreSummaries, margin, tableWidth));
 
             // Sekcja podsumowania wydawców (sortowana wg popularności)
-            float publisherSummaryY = currentY - 40;
-            drawPublisherSummary(publisherSummaries, margin, publisherSummaryY, tableWidth);
-            currentY = publisherSummaryY - publisherSummaryHeight;
-
-            // Sprawdź czy jest wystarczająco miejsca na sekcję podpisów
-            if (currentY - 80 < minBottomMargin) {
-                // Dodaj nową stronę
-                addNewPage();
-                currentY = getStartY();
-            }
+            ensurePage(layoutPlan.getSection(SECTION_PUBLISHER_SUMMARY).getPageIndex());
+            traceSection(SECTION_PUBLISHER_SUMMARY, () -> drawPublisherSummary(publisherSummaries, margin, tableWidth));
 
             // Sekcja podpisów
-            float signaturesY = currentY - 80;
-            drawSignatureSection(margin, signaturesY, tableWidth, generatedBy, reportDate);
+            SectionPlacement signaturePlacement = layoutPlan.getSection(SECTION_SIGNATURE);
+            ensurePage(signaturePlacement.getPageIndex());
+            traceSection(SECTION_SIGNATURE,
+                    () -> drawSignatureSection(margin, signaturePlacement.getY(), tableWidth, generatedBy, reportDate));
+            getStatistics().addPhaseNanos(ReportPhase.RENDERING, System.nanoTime() - renderStart);
 
         } catch (IOException e) {
             safeEndText(getContentStream());
@@ -918,259 +1343,6 @@ public class LibraryPdfBuilder extends PdfBuilder {
         return this;
     }
 
-    /**
-     * Rysuje tabelę książek z obsługą wielu stron i dodatkową kolumną popularności
-     *
-     * @return aktualna pozycja Y po narysowaniu tabeli
-     */
-    private float drawPopularityBooksTableWithPaging(List<LibraryPdfTableItem> books, float x, float y, float tableWidth,
-                                                     float pageHeight, float minBottomMargin,
-                                                     String libraryName, String libraryDesc, String address, String city,
-                                                     String reportNumber, LocalDate reportDate) throws IOException {
-
-        float rowHeight = 25f;
-        float headerRowHeight = 25f;
-        float margin = getMargin();
-
-        // Definiuje szerokości kolumn z uwzględnieniem dwóch dodatkowych kolumn (ranking i liczba wypożyczeń)
-        float col1Width = 20f;        // Lp.
-        float col2Width = 25f;        // Ranking
-        float col3Width = 50f;        // ID
-        float col4Width = 140f;       // Tytuł
-        float col5Width = 110f;       // Autor(zy)
-        float col6Width = 80f;        // Wydawca
-        float col7Width = 50f;        // Gatunek
-        float col8Width = tableWidth - col1Width - col2Width - col3Width - col4Width - col5Width - col6Width - col7Width; // Wypożyczenia
-
-        float currentY = y;
-        int currentRowIndex = 0;
-
-        // Rysuj nagłówek tabeli na pierwszej stronie
-        drawPopularityTableHeader(x, currentY, tableWidth, headerRowHeight, col1Width, col2Width, col3Width, col4Width, col5Width, col6Width, col7Width);
-        currentY -= headerRowHeight;
-
-        // Przetwarzanie każdego wiersza z książkami
-        while (currentRowIndex < books.size()) {
-            // Sprawdź czy jest miejsce na kolejny wiersz
-            if (currentY - rowHeight < minBottomMargin) {
-                // Zakończ aktualną stronę i rozpocznij nową
-                addNewPage();
-
-                // Na nowej stronie dodaj krótki nagłówek
-                float headerHeight = 50f;
-
-                currentY = getStartY();
-
-                // Nagłówek dokumentu - uproszczona wersja na kolejnych stronach
-                drawSimpleHeader(libraryName, "Kontynuacja raportu popularności - strona " + getDocument().getNumberOfPages(),
-                        reportNumber, reportDate, margin, currentY, headerHeight, tableWidth);
-
-                currentY = currentY - headerHeight - 20;
-
-                // Rysuj nagłówek tabeli na nowej stronie
-                drawPopularityTableHeader(x, currentY, tableWidth, headerRowHeight, col1Width, col2Width, col3Width, col4Width, col5Width, col6Width, col7Width);
-                currentY -= headerRowHeight;
-            }
-
-            // Rysuj wiersz z książką
-            LibraryPdfTableItem book = books.get(currentRowIndex);
-            // Sprawdź czy książka jest instancją PopularityPdfTableItem i pobierz dane o popularności
-            int rank = currentRowIndex + 1; // Domyślnie użyj indeksu jako rangi
-            int loanCount = 0;              // Domyślna liczba wypożyczeń
-
-            if (book instanceof PopularityPdfTableItem) {
-                PopularityPdfTableItem popularityBook = (PopularityPdfTableItem) book;
-                rank = popularityBook.getRank();
-                loanCount = popularityBook.getLoanCount();
-            }
-
-            drawPopularityBookRow(book, currentRowIndex + 1, rank, loanCount, x, currentY, tableWidth, rowHeight,
-                    col1Width, col2Width, col3Width, col4Width, col5Width, col6Width, col7Width);
-
-            currentY -= rowHeight;
-            currentRowIndex++;
-        }
-
-        return currentY;
-    }
-
-    /**
-     * Rysuje nagłówek tabeli książek dla raportu popularności
-     */
-    private void drawPopularityTableHeader(float x, float y, float tableWidth, float rowHeight,
-                                           float col1Width, float col2Width, float col3Width,
-                                           float col4Width, float col5Width, float col6Width, float col7Width) throws IOException {
-
-        PDPageContentStream contentStream = getContentStream();
-
-        // Linie nagłówka
-        drawLine(x, y, x + tableWidth, y);
-        drawLine(x, y - rowHeight, x + tableWidth, y - rowHeight);
-        drawLine(x, y, x, y - rowHeight);
-
-        float nextX = x;
-
-        nextX += col1Width;
-        drawLine(nextX, y, nextX, y - rowHeight);
-
-        nextX += col2Width;
-        drawLine(nextX, y, nextX, y - rowHeight);
-
-        nextX += col3Width;
-        drawLine(nextX, y, nextX, y - rowHeight);
-
-        nextX += col4Width;
-        drawLine(nextX, y, nextX, y - rowHeight);
-
-        nextX += col5Width;
-        drawLine(nextX, y, nextX, y - rowHeight);
-
-        nextX += col6Width;
-        drawLine(nextX, y, nextX, y - rowHeight);
-
-        nextX += col7Width;
-        drawLine(nextX, y, nextX, y - rowHeight);
-
-        drawLine(x + tableWidth, y, x + tableWidth, y - rowHeight);
-
-        // Etykiety kolumn
-        contentStream.beginText();
-        contentStream.setFont(getBoldFont(), 8);
-        contentStream.newLineAtOffset(x + 5, y - 15);
-        contentStream.showText("Lp.");
-        contentStream.endText();
-
-        contentStream.beginText();
-        contentStream.setFont(getBoldFont(), 8);
-        contentStream.newLineAtOffset(x + col1Width + 5, y - 15);
-        contentStream.showText("Rank");
-        contentStream.endText();
-
-        contentStream.beginText();
-        contentStream.setFont(getBoldFont(), 8);
-        contentStream.newLineAtOffset(x + col1Width + col2Width + 5, y - 15);
-        contentStream.showText("ID");
-        contentStream.endText();
-
-        contentStream.beginText();
-        contentStream.setFont(getBoldFont(), 8);
-        contentStream.newLineAtOffset(x + col1Width + col2Width + col3Width + 5, y - 15);
-        contentStream.showText("Tytuł");
-        contentStream.endText();
-
-        contentStream.beginText();
-        contentStream.setFont(getBoldFont(), 8);
-        contentStream.newLineAtOffset(x + col1Width + col2Width + col3Width + col4Width + 5, y - 15);
-        contentStream.showText("Autor(zy)");
-        contentStream.endText();
-
-        contentStream.beginText();
-        contentStream.setFont(getBoldFont(), 8);
-        contentStream.newLineAtOffset(x + col1Width + col2Width + col3Width + col4Width + col5Width + 5, y - 15);
-        contentStream.showText("Wydawca");
-        contentStream.endText();
-
-        contentStream.beginText();
-        contentStream.setFont(getBoldFont(), 8);
-        contentStream.newLineAtOffset(x + col1Width + col2Width + col3Width + col4Width + col5Width + col6Width + 5, y - 15);
-        contentStream.showText("Gatunek");
-        contentStream.endText();
-
-        contentStream.beginText();
-        contentStream.setFont(getBoldFont(), 8);
-        contentStream.newLineAtOffset(x + col1Width + col2Width + col3Width + col4Width + col5Width + col6Width + col7Width + 5, y - 15);
-        contentStream.showText("Wypożyczeń");
-        contentStream.endText();
-    }
-
-    /**
-     * Rysuje wiersz tabeli książek dla raportu popularności
-     */
-    private void drawPopularityBookRow(LibraryPdfTableItem book, int rowNum, int rank, int loanCount, float x, float y, float tableWidth,
-                                       float rowHeight, float col1Width, float col2Width, float col3Width,
-                                       float col4Width, float col5Width, float col6Width, float col7Width) throws IOException {
-
-        PDPageContentStream contentStream = getContentStream();
-
-        // Linie wiersza
-        drawLine(x, y - rowHeight, x + tableWidth, y - rowHeight);
-        drawLine(x, y, x, y - rowHeight);
-
-        float nextX = x;
-
-        nextX += col1Width;
-        drawLine(nextX, y, nextX, y - rowHeight);
-
-        nextX += col2Width;
-        drawLine(nextX, y, nextX, y - rowHeight);
-
-        nextX += col3Width;
-        drawLine(nextX, y, nextX, y - rowHeight);
-
-        nextX += col4Width;
-        drawLine(nextX, y, nextX, y - rowHeight);
-
-        nextX += col5Width;
-        drawLine(nextX, y, nextX, y - rowHeight);
-
-        nextX += col6Width;
-        drawLine(nextX, y, nextX, y - rowHeight);
-
-        nextX += col7Width;
-        drawLine(nextX, y, nextX, y - rowHeight);
-
-        drawLine(x + tableWidth, y, x + tableWidth, y - rowHeight);
-
-        // Zawartość wiersza
-        contentStream.beginText();
-        contentStream.setFont(getRegularFont(), 8);
-        contentStream.newLineAtOffset(x + 5, y - 15);
-        contentStream.showText(String.valueOf(rowNum));
-        contentStream.endText();
-
-        contentStream.beginText();
-        contentStream.setFont(getRegularFont(), 8);
-        contentStream.newLineAtOffset(x + col1Width + 5, y - 15);
-        contentStream.showText(String.valueOf(rank));
-        contentStream.endText();
-
-        contentStream.beginText();
-        contentStream.setFont(getRegularFont(), 8);
-        contentStream.newLineAtOffset(x + col1Width + col2Width + 5, y - 15);
-        contentStream.showText(book.getBookId());
-        contentStream.endText();
-
-        contentStream.beginText();
-        contentStream.setFont(getRegularFont(), 8);
-        contentStream.newLineAtOffset(x + col1Width + col2Width + col3Width + 5, y - 15);
-        contentStream.showText(truncateText(book.getTitle(), 25));
-        contentStream.endText();
-
-        contentStream.beginText();
-        contentStream.setFont(getRegularFont(), 8);
-        contentStream.newLineAtOffset(x + col1Width + col2Width + col3Width + col4Width + 5, y - 15);
-        contentStream.showText(truncateText(book.getAuthors(), 20));
-        contentStream.endText();
-
-        contentStream.beginText();
-        contentStream.setFont(getRegularFont(), 8);
-        contentStream.newLineAtOffset(x + col1Width + col2Width + col3Width + col4Width + col5Width + 5, y - 15);
-        contentStream.showText(truncateText(book.getPublisher(), 15));
-        contentStream.endText();
-
-        contentStream.beginText();
-        contentStream.setFont(getRegularFont(), 8);
-        contentStream.newLineAtOffset(x + col1Width + col2Width + col3Width + col4Width + col5Width + col6Width + 5, y - 15);
-        contentStream.showText(truncateText(book.getGenre(), 10));
-        contentStream.endText();
-
-        contentStream.beginText();
-        contentStream.setFont(getRegularFont(), 8);
-        contentStream.newLineAtOffset(x + col1Width + col2Width + col3Width + col4Width + col5Width + col6Width + col7Width + 5, y - 15);
-        contentStream.showText(String.valueOf(loanCount));
-        contentStream.endText();
-    }
-
 
 
 
@@ -3,58 +3,202 @@ package com.orange.pdf.builder;
 import com.orange.pdf.builder.data.PdfTableItem;
 import com.orange.pdf.callback.PdfCallback;
 import com.orange.pdf.enums.PdfType;
-import com.orange.pdf.exception.InvalidPdfTypeException;
 import com.orange.pdf.exception.PDPageContentStreamException;
+import com.orange.pdf.format.CellFormat;
+import com.orange.pdf.layout.GridSlice;
+import com.orange.pdf.layout.LayoutPlan;
+import com.orange.pdf.layout.LayoutPlanner;
+import com.orange.pdf.layout.LayoutProfile;
+import com.orange.pdf.layout.LineBreaker;
+import com.orange.pdf.layout.SectionPlacement;
+import com.orange.pdf.layout.TableSlice;
+import com.orange.pdf.memory.DocumentBufferUsage;
+import com.orange.pdf.memory.PdfMemoryPolicy;
+import com.orange.pdf.metrics.PageRenderedEvent;
+import com.orange.pdf.metrics.ReportListener;
+import com.orange.pdf.metrics.ReportPhase;
+import com.orange.pdf.metrics.ReportSaveEvent;
+import com.orange.pdf.metrics.ReportStatistics;
+import com.orange.pdf.metrics.SectionDrawnEvent;
+import com.orange.pdf.metrics.TextOperatorCounter;
+import com.orange.pdf.output.PageContentCompressor;
+import com.orange.pdf.output.PdfSaveOptions;
+import com.orange.pdf.table.CellAlignment;
+import com.orange.pdf.table.CellFont;
+import com.orange.pdf.table.TableColumn;
+import com.orange.pdf.table.TableLayout;
+import com.orange.pdf.table.TableSpec;
+import lombok.AccessLevel;
 import lombok.Getter;
+import org.apache.fontbox.ttf.TTFParser;
+import org.apache.fontbox.ttf.TrueTypeFont;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.cos.COSName;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.font.PDFont;
 import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAppearanceStream;
+import org.apache.pdfbox.util.Matrix;
 
+import java.io.Closeable;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
 
 @Getter
 public class PdfBuilder {
 
-    private final PDDocument document;
-    private final PDPageContentStream contentStream;
+    // Odstęp tekstu komórki od lewej i prawej krawędzi kolumny
+    protected static final float CELL_TEXT_INSET = 5f;
+    // Największa liczba linii zawiniętej komórki tabeli i tekstu dodatkowego pod nią
+    private static final int MAX_CELL_LINES = 4;
+    private static final int MAX_DETAIL_LINES = 3;
+    // Geometria dokumentu PZ
+    private static final float RECEIPT_HEADER_HEIGHT = 120f;
+    private static final float RECEIPT_CONTINUATION_HEADER_HEIGHT = 25f;
+    private static final float RECEIPT_MIN_BOTTOM_MARGIN = 50f;
+    private static final float RECEIPT_SIGNATURE_SPACING = 120f;
+    private static final String RECEIPT_SECTION_HEADER = "header";
+    private static final String RECEIPT_SECTION_SIGNATURE = "signature";
+    // Tabela pozycji dokumentu PZ; wiersze sum obejmują kolumny od ilości do wartości
+    private static final TableSpec<PdfTableItem> RECEIPT_TABLE = new TableSpec<PdfTableItem>("receiptTable")
+            .column(TableColumn.of("Lp.", 30f, (item, row) -> CellFormat.number(row)))
+            .column(TableColumn.of("Indeks", 100f, (item, row) -> item.getIndex()))
+            .column(TableColumn.<PdfTableItem>fill("Nazwa narzędzia, wymiar", (item, row) -> item.getName())
+                    .setTruncateToWidth(true))
+            .column(TableColumn.of("Ilość", 50f, (item, row) -> CellFormat.number(item.getQuantity())))
+            .column(TableColumn.of("jm", 50f, (item, row) -> item.getUnit()))
+            .column(TableColumn.of("Wartość ISO", 60f, (item, row) -> CellFormat.decimal(item.getValue(), 1)));
+    private static final int RECEIPT_QUANTITY_COLUMN = 3;
+    private static final int RECEIPT_VALUE_COLUMN = 5;
+    // Szerokość kolumny ilości w podsumowaniu podzielonym na grupy kolumn (dla strony A4)
+    private static final float SUMMARY_COUNT_WIDTH = 50f;
+    // Szerokość kolumny nazwy w podsumowaniu w jednej grupie kolumn (dla strony A4)
+    private static final float SUMMARY_NAME_WIDTH = 200f;
+
+    private PDDocument document;
+    private DocumentBufferUsage bufferUsage;
+    private PDPageContentStream contentStream;
     private PDFont regularFont;
     private PDFont boldFont;
     private PDFont italicFont;
     private float fontSize = 10;
-    private float margin = 30;
-    private final float width;
+    private float margin;
+    private float width;
     private float startY;
-    private final float tableStartY;
-    private final PDPage page;
+    private float tableStartY;
+    private LayoutProfile layoutProfile;
+    private PDPage page;
+    // Rozmiar strony, tytuł i autor dokumentu tworzonego od nowa; null dla dokumentu wczytanego
+    @Getter(AccessLevel.NONE)
+    private final PDRectangle pageSize;
+    @Getter(AccessLevel.NONE)
+    private final String title;
+    @Getter(AccessLevel.NONE)
+    private final String author;
+    // Przeanalizowane pliki fontów, osadzane ponownie w każdym kolejnym dokumencie buildera
+    @Getter(AccessLevel.NONE)
+    private TrueTypeFont regularTrueTypeFont;
+    @Getter(AccessLevel.NONE)
+    private TrueTypeFont boldTrueTypeFont;
+    @Getter(AccessLevel.NONE)
+    private TrueTypeFont italicTrueTypeFont;
+    // Czy fonty są osadzane jako podzbiory glifów użytych w dokumencie
+    private boolean fontSubsetting = true;
+    private boolean pageNumbering = false;
+    // Liczba stron raportu poprzedzających pierwszą stronę dokumentu, gdy dokument jest jego częścią
+    private int pageOffset = 0;
+    private TotalPagesPlaceholder totalPagesPlaceholder;
+    private final Map<String, PDFormXObject> furnitureForms = new HashMap<>();
+    // Podziały tekstu komórek na linie, zachowywane między kolejnymi dokumentami buildera
+    @Getter(AccessLevel.NONE)
+    private final LineBreaker lineBreaker = new LineBreaker();
+    // Teksty zakodowane w fontach bieżącego dokumentu
+    @Getter(AccessLevel.NONE)
+    private final EncodedTextCache encodedTexts = new EncodedTextCache();
+    private final List<TotalPagesPlaceholder> importedTotalPagesPlaceholders = new ArrayList<>();
+    private final List<Closeable> sourceDocuments = new ArrayList<>();
+    private ReportStatistics statistics = new ReportStatistics();
+    private ReportListener reportListener = ReportListener.NONE;
+    @Getter(AccessLevel.NONE)
+    private PageRenderedEvent pageEvent;
 
     public PdfBuilder(PdfType type, String title, String author) {
-        document = new PDDocument();
+        this(type, title, author, PdfMemoryPolicy.defaults());
+    }
+
+    /**
+     * @param memoryPolicy polityka pamięci buforów strumieni dokumentu
+     */
+    public PdfBuilder(PdfType type, String title, String author, PdfMemoryPolicy memoryPolicy) {
+        this(LayoutProfile.standard(type), title, author, memoryPolicy);
+    }
+
+    /**
+     * @param layoutProfile rozmiar strony, marginesy i geometria wierszy tabel
+     * @param memoryPolicy polityka pamięci buforów strumieni dokumentu
+     */
+    public PdfBuilder(LayoutProfile layoutProfile, String title, String author, PdfMemoryPolicy memoryPolicy) {
+        this.layoutProfile = layoutProfile;
+        this.pageSize = layoutProfile.getPageSize();
+        this.margin = layoutProfile.getMargin();
+        this.title = title;
+        this.author = author;
+        statistics.setReportType(title);
+
+        openDocument(memoryPolicy);
+        updateWorkArea();
+    }
+
+    /**
+     * Wyznacza szerokość i początek obszaru roboczego strony z jej rozmiaru i marginesu
+     */
+    private void updateWorkArea() {
+        this.width = page.getMediaBox().getWidth() - 2 * margin;
+        this.startY = page.getMediaBox().getHeight() - margin;
+        this.tableStartY = startY - 90;
+    }
+
+    /**
+     * Tworzy pusty dokument z pierwszą stroną, strumieniem treści i fontami
+     */
+    private void openDocument(PdfMemoryPolicy memoryPolicy) {
+        bufferUsage = memoryPolicy.newBufferUsage();
+        document = new PDDocument(bufferUsage);
 
         document.getDocumentInformation().setAuthor(author);
 
         document.getDocumentInformation().setTitle(title);
 
-        switch (type) {
-            case A4 -> page = new PDPage(PDRectangle.A4);
-            case A5 -> page = new PDPage(PDRectangle.A5);
-            default -> throw new InvalidPdfTypeException("Type of PdfFile cannot be found!");
-        }
+        page = new PDPage(pageSize);
         document.addPage(page);
 
         try {
-            contentStream = new PDPageContentStream(document, page);
+            contentStream = newPageContentStream(page);
+            beginPageEvent();
 
             try {
+                long fontStart = System.nanoTime();
                 loadFontsFromResources();
+                statistics.addPhaseNanos(ReportPhase.FONT_LOADING, System.nanoTime() - fontStart);
             } catch (IOException e) {
                 System.err.println("Nie udało się załadować fontów z resources: " + e.getMessage());
             }
@@ -62,13 +206,97 @@ public class PdfBuilder {
         } catch (IOException e) {
             throw new PDPageContentStreamException("Nie udało się utworzyć dokumentu PDF: " + e.getMessage());
         }
+    }
 
-        this.width = page.getMediaBox().getWidth() - 2 * margin;
-        this.startY = page.getMediaBox().getHeight() - margin;
-        this.tableStartY = startY - 90;
+    /**
+     * Przygotowuje builder do zbudowania kolejnego dokumentu: zamyka poprzedni dokument i tworzy nowy,
+     * pusty, z tą samą polityką pamięci, rozmiarem strony i ustawieniami. Fonty są osadzane ponownie
+     * z przeanalizowanych już plików TTF, więc nie są wczytywane ani parsowane drugi raz.
+     * Odbiorca statystyk jest odłączany, a statystyki zaczynają się od zera.
+     *
+     * @throws IllegalStateException jeśli builder został otwarty z istniejącego dokumentu
+     */
+    protected void reset() {
+        if (pageSize == null) {
+            throw new IllegalStateException("Buildera otwartego z istniejącego dokumentu nie można użyć ponownie");
+        }
+        try {
+            document.close();
+            closeSourceDocuments();
+        } catch (IOException e) {
+            System.err.println("Nie udało się zamknąć poprzedniego dokumentu: " + e.getMessage());
+        }
+        sourceDocuments.clear();
+
+        statistics = new ReportStatistics().setReportType(statistics.getReportType());
+        reportListener = ReportListener.NONE;
+        pageEvent = null;
+        totalPagesPlaceholder = null;
+        pageOffset = 0;
+        furnitureForms.clear();
+        importedTotalPagesPlaceholders.clear();
+
+        openDocument(bufferUsage.getPolicy());
+        startY = page.getMediaBox().getHeight() - margin;
+    }
+
+    /**
+     * Tworzy builder dopisujący treść do istniejącego dokumentu, zaczynając od jego ostatniej strony.
+     * Nowa treść trafia do osobnego strumienia dołączanego do strony, a fonty są osadzane ponownie.
+     *
+     * @param document wczytany dokument
+     * @param bufferUsage licznik buforów, z którym dokument został wczytany
+     */
+    protected PdfBuilder(PDDocument document, DocumentBufferUsage bufferUsage) {
+        this.document = document;
+        this.bufferUsage = bufferUsage;
+        this.pageSize = null;
+        this.title = null;
+        this.author = null;
+        this.margin = LayoutProfile.standard().getMargin();
+
+        page = document.getPage(0);
+        PDPage lastPage = document.getPage(document.getNumberOfPages() - 1);
+
+        try {
+            contentStream = new PDPageContentStream(document, lastPage, PDPageContentStream.AppendMode.APPEND, false);
+            beginPageEvent();
+
+            try {
+                long fontStart = System.nanoTime();
+                loadFontsFromResources();
+                statistics.addPhaseNanos(ReportPhase.FONT_LOADING, System.nanoTime() - fontStart);
+            } catch (IOException e) {
+                System.err.println("Nie udało się załadować fontów z resources: " + e.getMessage());
+            }
+
+        } catch (IOException e) {
+            throw new PDPageContentStreamException("Nie udało się otworzyć dokumentu PDF do dopisania: " + e.getMessage());
+        }
+
+        this.layoutProfile = LayoutProfile.custom(page.getMediaBox());
+        updateWorkArea();
+    }
+
+    /**
+     * Zwraca rozmiar strony dla podanego typu dokumentu
+     */
+    protected static PDRectangle pageSizeFor(PdfType type) {
+        return LayoutProfile.pageSizeFor(type);
+    }
+
+    /**
+     * Zwraca początkową pozycję Y obszaru roboczego strony bez tworzenia dokumentu
+     */
+    protected static float pageStartY(PdfType type) {
+        return LayoutProfile.standard(type).startY();
     }
 
     private void loadFontsFromResources() throws IOException {
+        if (regularTrueTypeFont != null) {
+            embedFonts();
+            return;
+        }
         try (
                 InputStream regularIs = getClass().getResourceAsStream("/fonts/LiberationSans-Regular.ttf");
                 InputStream boldIs = getClass().getResourceAsStream("/fonts/LiberationSans-Bold.ttf");
@@ -84,14 +312,33 @@ public class PdfBuilder {
                 throw new IOException("Nie znaleziono pliku fontu kursywy w zasobach");
             }
 
-            regularFont = PDType0Font.load(document, regularIs);
-            boldFont = PDType0Font.load(document, boldIs);
-            italicFont = PDType0Font.load(document, italicIs);
+            parseFonts(regularIs, boldIs, italicIs);
         }
+        embedFonts();
+    }
+
+    private void parseFonts(InputStream regularIs, InputStream boldIs, InputStream italicIs) throws IOException {
+        TTFParser parser = new TTFParser();
+        regularTrueTypeFont = parser.parse(new RandomAccessReadBuffer(regularIs));
+        boldTrueTypeFont = parser.parse(new RandomAccessReadBuffer(boldIs));
+        italicTrueTypeFont = parser.parse(new RandomAccessReadBuffer(italicIs));
+        lineBreaker.clear();
+    }
+
+    /**
+     * Osadza przeanalizowane fonty w bieżącym dokumencie (jako podzbiory, jak {@link PDType0Font#load},
+     * chyba że wyłączono osadzanie podzbiorów)
+     */
+    private void embedFonts() throws IOException {
+        encodedTexts.clear();
+        regularFont = PDType0Font.load(document, regularTrueTypeFont, fontSubsetting);
+        boldFont = PDType0Font.load(document, boldTrueTypeFont, fontSubsetting);
+        italicFont = PDType0Font.load(document, italicTrueTypeFont, fontSubsetting);
     }
 
     public PdfBuilder setRegularFont(PDFont font) {
         regularFont = font;
+        lineBreaker.clear();
         return this;
     }
 
@@ -102,6 +349,7 @@ public class PdfBuilder {
 
     public PdfBuilder setItalicFont(PDFont font) {
         italicFont = font;
+        lineBreaker.clear();
         return this;
     }
 
@@ -112,6 +360,131 @@ public class PdfBuilder {
 
     public PdfBuilder setMargin(float margin) {
         this.margin = margin;
+        updateWorkArea();
+        return this;
+    }
+
+    /**
+     * Ustawia profil układu dokumentu wczytanego z pliku, np. zapisany w dokumencie przy jego generowaniu.
+     * Rozmiar stron pozostaje rozmiarem stron dokumentu.
+     */
+    protected void applyLayoutProfile(LayoutProfile layoutProfile) {
+        this.layoutProfile = layoutProfile;
+        setMargin(layoutProfile.getMargin());
+    }
+
+    /**
+     * Zwraca wysokość wiersza tabeli według profilu układu i metryk fontu regularnego
+     */
+    protected float tableRowHeight() {
+        return layoutProfile.rowHeight(regularFont);
+    }
+
+    /**
+     * Zwraca odległość linii bazowej tekstu komórki od górnej krawędzi wiersza
+     */
+    protected float tableTextOffset() {
+        return layoutProfile.textOffset(regularFont);
+    }
+
+    /**
+     * Zwraca skalę szerokości kolumn dobranych dla tabeli na stronie A4 do szerokości bieżącej tabeli
+     */
+    protected float columnScale() {
+        return width / LayoutProfile.REFERENCE_TABLE_WIDTH;
+    }
+
+    /**
+     * Czy tekst komórek tabel jest zawijany w wiele linii zamiast skracany
+     */
+    protected boolean wrapCells() {
+        return layoutProfile.isWrapCells();
+    }
+
+    /**
+     * Dzieli tekst komórki tabeli na linie mieszczące się w kolumnie między odstępami od jej krawędzi
+     *
+     * @param text tekst komórki
+     * @param font font tekstu
+     * @param columnWidth szerokość kolumny
+     * @param maxLines największa liczba linii; dłuższy tekst kończy się "..."
+     */
+    protected List<String> wrapCellText(String text, PDFont font, float columnWidth, int maxLines) throws IOException {
+        return lineBreaker.breakLines(font, layoutProfile.getFontSize(), text, columnWidth - 2 * CELL_TEXT_INSET, maxLines);
+    }
+
+    /**
+     * Zwraca odstęp między liniami tekstu zawiniętej komórki tabeli
+     */
+    protected float tableLineHeight() {
+        return layoutProfile.lineHeight(regularFont);
+    }
+
+    /**
+     * Zwraca wysokość wiersza tabeli mieszczącego podaną liczbę linii tekstu
+     */
+    protected float tableRowHeight(int lines) {
+        return layoutProfile.rowHeight(regularFont, lines);
+    }
+
+    /**
+     * Rysuje linie tekstu komórki: pierwszą w miejscu tekstu jednowierszowego, kolejne niżej o wysokość linii
+     *
+     * @param y górna krawędź wiersza lub pozycja pod wcześniejszymi liniami tej samej komórki
+     */
+    protected void drawCellLines(List<String> lines, PDFont font, float x, float y) throws IOException {
+        if (lines.isEmpty()) {
+            return;
+        }
+        float lineHeight = tableLineHeight();
+        contentStream.beginText();
+        contentStream.setFont(font, layoutProfile.getFontSize());
+        contentStream.newLineAtOffset(x + CELL_TEXT_INSET, y - tableTextOffset());
+        for (int i = 0; i < lines.size(); i++) {
+            if (i > 0) {
+                contentStream.newLineAtOffset(0, -lineHeight);
+            }
+            showText(font, lines.get(i));
+        }
+        contentStream.endText();
+    }
+
+    /**
+     * Rejestruje odbiorcę czasów faz i liczników raportu; jest powiadamiany po zapisie dokumentu
+     */
+    public PdfBuilder setReportListener(ReportListener reportListener) {
+        this.reportListener = reportListener != null ? reportListener : ReportListener.NONE;
+        return this;
+    }
+
+    /**
+     * Włącza stopkę "Strona N z M" na każdej stronie dokumentu.
+     * Liczba stron M jest uzupełniana jednorazowo przy zapisie, bez ponownego renderowania.
+     */
+    public PdfBuilder setPageNumbering(boolean pageNumbering) {
+        this.pageNumbering = pageNumbering;
+        return this;
+    }
+
+    /**
+     * Ustawia, czy fonty są osadzane jako podzbiory glifów użytych w dokumencie (domyślnie tak).
+     * Pełne fonty mają te same dane w każdym dokumencie, więc przy łączeniu wielu dokumentów
+     * ({@link com.orange.pdf.merge.PdfMerger}) są zapisywane raz. Zmiana osadza fonty ponownie
+     * w bieżącym dokumencie, dlatego należy ją wykonać przed rysowaniem; obowiązuje też po {@link #reset()}.
+     */
+    public PdfBuilder setFontSubsetting(boolean fontSubsetting) {
+        if (this.fontSubsetting == fontSubsetting) {
+            return this;
+        }
+        this.fontSubsetting = fontSubsetting;
+        if (regularTrueTypeFont == null) {
+            return this;
+        }
+        try {
+            embedFonts();
+        } catch (IOException e) {
+            throw new PDPageContentStreamException("Nie udało się osadzić fontów: " + e.getMessage());
+        }
         return this;
     }
 
@@ -131,9 +504,8 @@ public class PdfBuilder {
                 throw new IOException("Nie znaleziono pliku: " + italicFontPath);
             }
 
-            regularFont = PDType0Font.load(document, regularIs);
-            boldFont = PDType0Font.load(document, boldIs);
-            italicFont = PDType0Font.load(document, italicIs);
+            parseFonts(regularIs, boldIs, italicIs);
+            embedFonts();
         } catch (IOException e) {
             throw new PDPageContentStreamException("Nie udało się załadować fontów z zasobów: " + e.getMessage());
         }
@@ -157,11 +529,18 @@ public class PdfBuilder {
                                             String recipient, List<PdfTableItem> items, String receivedBy) {
         try {
             float tableWidth = width;
-            float headerHeight = 120f;
+            float headerHeight = RECEIPT_HEADER_HEIGHT;
             float leftWidth = tableWidth * 0.5f;
             float rightWidth = tableWidth - leftWidth;
 
-            float currentY = startY;
+            // Faza planowania - podział pozycji na strony wyznaczony przed rysowaniem
+            long layoutStart = System.nanoTime();
+            LayoutPlan plan = planWarehouseReceipt(startY, tableRowHeight(),
+                    layoutProfile.minBottomMargin(RECEIPT_MIN_BOTTOM_MARGIN), items.size());
+            long renderStart = System.nanoTime();
+            statistics.addPhaseNanos(ReportPhase.LAYOUT, renderStart - layoutStart).addRows(items.size());
+
+            float currentY = plan.getSection(RECEIPT_SECTION_HEADER).getY();
             float rightStartX = margin + leftWidth;
 
             drawLine(margin, currentY, margin + tableWidth, currentY);
@@ -172,13 +551,13 @@ public class PdfBuilder {
             contentStream.beginText();
             contentStream.setFont(regularFont, 9);
             contentStream.newLineAtOffset(margin + 5, currentY - 15);
-            contentStream.showText(companyName);
+            showText(regularFont, companyName);
             contentStream.newLineAtOffset(0, -12);
-            contentStream.showText(address);
+            showText(regularFont, address);
             contentStream.newLineAtOffset(0, -12);
-            contentStream.showText(city);
+            showText(regularFont, city);
             contentStream.newLineAtOffset(0, -12);
-            contentStream.showText("NIP " + nip);
+            showText(regularFont, "NIP " + nip);
             contentStream.endText();
 
             drawLine(rightStartX, currentY, rightStartX, currentY - headerHeight);
@@ -194,19 +573,19 @@ public class PdfBuilder {
             contentStream.beginText();
             contentStream.setFont(regularFont, 8);
             contentStream.newLineAtOffset(rightStartX + 5, currentY - 15);
-            contentStream.showText("Nr. dokumentu:");
+            showText(regularFont, "Nr. dokumentu:");
             contentStream.endText();
 
             contentStream.beginText();
             contentStream.setFont(regularFont, 9);
             contentStream.newLineAtOffset(rightStartX + labelWidth + 5, currentY - 15);
-            contentStream.showText(documentNumber);
+            showText(regularFont, documentNumber);
             contentStream.endText();
 
             contentStream.beginText();
             contentStream.setFont(regularFont, 9);
             contentStream.newLineAtOffset(rightStartX + labelWidth + docNumWidth + 5, currentY - 15);
-            contentStream.showText(referenceNumber);
+            showText(regularFont, referenceNumber);
             contentStream.endText();
 
             float rowY1 = currentY - 30f;
@@ -218,13 +597,13 @@ public class PdfBuilder {
             contentStream.beginText();
             contentStream.setFont(boldFont, 14);
             contentStream.newLineAtOffset(rightStartX + pzColWidth/2 - 10, rowY1 - 20);
-            contentStream.showText("PZ");
+            showText(boldFont, "PZ");
             contentStream.endText();
 
             contentStream.beginText();
             contentStream.setFont(regularFont, 10);
             contentStream.newLineAtOffset(rightStartX + pzColWidth + 10, rowY1 - 20);
-            contentStream.showText("Przyjęcie na magazyn");
+            showText(regularFont, "Przyjęcie na magazyn");
             contentStream.endText();
 
             float rowY2 = rowY1 - 30f;
@@ -233,14 +612,14 @@ public class PdfBuilder {
             contentStream.beginText();
             contentStream.setFont(regularFont, 8);
             contentStream.newLineAtOffset(rightStartX + 5, rowY2 - 20);
-            contentStream.showText("Data:");
+            showText(regularFont, "Data:");
             contentStream.endText();
 
-            String formattedDate = documentDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+            String formattedDate = documentDate.format(CellFormat.DATE);
             contentStream.beginText();
             contentStream.setFont(regularFont, 9);
             contentStream.newLineAtOffset(rightStartX + 100, rowY2 - 20);
-            contentStream.showText(formattedDate);
+            showText(regularFont, formattedDate);
             contentStream.endText();
 
             float rowY3 = rowY2 - 30f;
@@ -249,26 +628,24 @@ public class PdfBuilder {
             contentStream.beginText();
             contentStream.setFont(regularFont, 8);
             contentStream.newLineAtOffset(rightStartX + 5, rowY3 - 20);
-            contentStream.showText("Nazwisko/Nazwa:");
+            showText(regularFont, "Nazwisko/Nazwa:");
             contentStream.endText();
 
             contentStream.beginText();
             contentStream.setFont(boldFont, 9);
             contentStream.newLineAtOffset(rightStartX + 100, rowY3 - 20);
-            contentStream.showText(recipient);
+            showText(boldFont, recipient);
             contentStream.endText();
 
-            currentY = currentY - headerHeight - 20;
-
-            drawItemsTable(items, margin, currentY, tableWidth);
+            // Pozycje dokumentu na stronach wyznaczonych przez plan, z sumami przenoszonymi między stronami
+            TableLayout<PdfTableItem> table = layoutTable(RECEIPT_TABLE, tableWidth);
+            drawReceiptItems(table, items, margin, plan.getTableSlices(), documentNumber);
 
-            float tableHeight = (items.size() + 1) * 25f; // Header + rows
-            float summaryRowHeight = 25f;
-
-            float signaturesY = currentY - tableHeight - summaryRowHeight - 120f;
-
-            drawSignatureSection(margin, signaturesY, tableWidth, receivedBy, documentDate);
-            startY = signaturesY - 50f;
+            SectionPlacement signature = plan.getSection(RECEIPT_SECTION_SIGNATURE);
+            ensurePage(signature.getPageIndex());
+            drawSignatureSection(margin, signature.getY(), tableWidth, receivedBy, documentDate);
+            startY = signature.getY() - 50f;
+            statistics.addPhaseNanos(ReportPhase.RENDERING, System.nanoTime() - renderStart);
 
         } catch (IOException e) {
             throw new PDPageContentStreamException("Failed to build document header: " + e.getMessage());
@@ -276,169 +653,90 @@ public class PdfBuilder {
         return this;
     }
 
-    private void drawItemsTable(List<PdfTableItem> items, float x, float y, float tableWidth) throws IOException {
-        float rowHeight = 25f;
-
-        float col1Width = 30f;  // Lp.
-        float col2Width = 100f; // Indeks
-        float col3Width = tableWidth - col1Width - col2Width - 150f; // Nazwa narzędzia, wymiar
-        float col4Width = 50f;  // Ilość
-        float col5Width = 50f;  // jm
-        float col6Width = 50f;  // Wartość ISO
-
-        float currentY = y;
-
-        contentStream.setFont(boldFont, 9);
-
-        drawLine(x, currentY, x + tableWidth, currentY);
-        drawLine(x, currentY - rowHeight, x + tableWidth, currentY - rowHeight);
-        drawLine(x, currentY, x, currentY - rowHeight);
-
-        float nextX = x;
-
-        nextX += col1Width;
-        drawLine(nextX, currentY, nextX, currentY - rowHeight);
-
-        nextX += col2Width;
-        drawLine(nextX, currentY, nextX, currentY - rowHeight);
-
-        nextX += col3Width;
-        drawLine(nextX, currentY, nextX, currentY - rowHeight);
-
-        nextX += col4Width;
-        drawLine(nextX, currentY, nextX, currentY - rowHeight);
-
-        nextX += col5Width;
-        drawLine(nextX, currentY, nextX, currentY - rowHeight);
-
-        drawLine(x + tableWidth, currentY, x + tableWidth, currentY - rowHeight);
-
-        contentStream.beginText();
-        contentStream.setFont(boldFont, 8);
-        contentStream.newLineAtOffset(x + 5, currentY - 15);
-        contentStream.showText("Lp.");
-        contentStream.endText();
-
-        contentStream.beginText();
-        contentStream.setFont(boldFont, 8);
-        contentStream.newLineAtOffset(x + col1Width + 5, currentY - 15);
-        contentStream.showText("Indeks");
-        contentStream.endText();
+    /**
+     * Planuje dokument PZ: nagłówek, tabelę pozycji i podpisy. Na każdej stronie tabeli zostaje miejsce
+     * na wiersz sumy (do przeniesienia albo sumy dokumentu), a strony kontynuacji mają pod nagłówkiem
+     * tabeli wiersz sumy z przeniesienia.
+     */
+    private static LayoutPlan planWarehouseReceipt(float startY, float rowHeight, float minBottomMargin, int itemCount) {
+        return new LayoutPlanner(startY)
+                .section(RECEIPT_SECTION_HEADER, RECEIPT_HEADER_HEIGHT, 0f, 20f, minBottomMargin)
+                .table(itemCount, rowHeight, 2 * rowHeight, rowHeight,
+                        startY - RECEIPT_CONTINUATION_HEADER_HEIGHT, minBottomMargin + rowHeight)
+                .section(RECEIPT_SECTION_SIGNATURE, 0f, rowHeight + RECEIPT_SIGNATURE_SPACING, 0f, minBottomMargin)
+                .plan();
+    }
 
-        contentStream.beginText();
-        contentStream.setFont(boldFont, 8);
-        contentStream.newLineAtOffset(x + col1Width + col2Width + 5, currentY - 15);
-        contentStream.showText("Nazwa narzędzia, wymiar");
-        contentStream.endText();
+    /**
+     * Rysuje pozycje dokumentu PZ. Suma wartości jest liczona narastająco w dokładnej arytmetyce dziesiętnej
+     * w jednym przejściu po pozycjach: pod pozycjami każdej strony rysowana jest suma do przeniesienia,
+     * na początku kolejnej strony - suma z przeniesienia, a na ostatniej stronie - suma dokumentu.
+     */
+    private void drawReceiptItems(TableLayout<PdfTableItem> table, List<PdfTableItem> items, float x,
+                                  List<TableSlice> slices, String documentNumber) throws IOException {
+        float rowHeight = tableRowHeight();
+        TableSlice lastSlice = slices.get(slices.size() - 1);
+        BigDecimal total = BigDecimal.ZERO;
+
+        for (TableSlice slice : slices) {
+            BigDecimal broughtForward = total;
+            drawTablePages(table, items, 0, null, x, List.of(slice), pageSlice -> {
+                if (pageSlice.isContinuation()) {
+                    drawReceiptContinuationHeader(documentNumber, pageSlice.getPageIndex(), x);
+                    drawReceiptTotalRow(table, "Z przeniesienia", broughtForward, x,
+                            pageSlice.getHeaderY() - rowHeight, true);
+                }
+                return true;
+            });
+
+            for (int row = slice.getFirstRow(); row < slice.getEndRow(); row++) {
+                total = total.add(items.get(row).getValue());
+            }
+            float endY = slice.getFirstRowY() - slice.getRowCount() * rowHeight;
+            drawReceiptTotalRow(table, slice == lastSlice ? "Razem dokument" : "Do przeniesienia", total, x, endY, false);
+        }
+    }
 
-        contentStream.beginText();
-        contentStream.setFont(boldFont, 8);
-        contentStream.newLineAtOffset(x + col1Width + col2Width + col3Width + 5, currentY - 15);
-        contentStream.showText("Ilość");
-        contentStream.endText();
+    /**
+     * Rysuje wiersz sumy w kolumnach ilości i wartości
+     *
+     * @param fullWidth czy wiersz obejmuje całą szerokość tabeli (wiersz z przeniesienia między nagłówkiem a pozycjami)
+     */
+    private void drawReceiptTotalRow(TableLayout<PdfTableItem> table, String label, BigDecimal amount, float x, float y,
+                                     boolean fullWidth) throws IOException {
+        float rowHeight = tableRowHeight();
+        float labelX = x + table.getOffsets()[RECEIPT_QUANTITY_COLUMN];
+        float valueX = x + table.getOffsets()[RECEIPT_VALUE_COLUMN];
+        float rightX = x + table.getWidth();
+        float startX = fullWidth ? x : labelX;
+        float bottomY = y - rowHeight;
+
+        drawLine(startX, bottomY, rightX, bottomY);
+        drawLine(startX, y, startX, bottomY);
+        if (fullWidth) {
+            drawLine(labelX, y, labelX, bottomY);
+        }
+        drawLine(valueX, y, valueX, bottomY);
+        drawLine(rightX, y, rightX, bottomY);
 
         contentStream.beginText();
         contentStream.setFont(boldFont, 8);
-        contentStream.newLineAtOffset(x + col1Width + col2Width + col3Width + col4Width + 5, currentY - 15);
-        contentStream.showText("jm");
-        contentStream.endText();
-
-        contentStream.beginText();
-        contentStream.setFont(boldFont, 7);
-        contentStream.newLineAtOffset(x + col1Width + col2Width + col3Width + col4Width + col5Width + 2, currentY - 15);
-        contentStream.showText("Wartość ISO");
+        contentStream.newLineAtOffset(labelX + CELL_TEXT_INSET, y - tableTextOffset());
+        showText(boldFont, label);
         contentStream.endText();
 
-        currentY -= rowHeight;
-
-        for (int i = 0; i < items.size(); i++) {
-            PdfTableItem item = items.get(i);
-
-            drawLine(x, currentY - rowHeight, x + tableWidth, currentY - rowHeight);
-            drawLine(x, currentY, x, currentY - rowHeight);
-
-            nextX = x;
-
-            nextX += col1Width;
-            drawLine(nextX, currentY, nextX, currentY - rowHeight);
-
-            nextX += col2Width;
-            drawLine(nextX, currentY, nextX, currentY - rowHeight);
-
-            nextX += col3Width;
-            drawLine(nextX, currentY, nextX, currentY - rowHeight);
-
-            nextX += col4Width;
-            drawLine(nextX, currentY, nextX, currentY - rowHeight);
-
-            nextX += col5Width;
-            drawLine(nextX, currentY, nextX, currentY - rowHeight);
-
-            drawLine(x + tableWidth, currentY, x + tableWidth, currentY - rowHeight);
-
-            // Row content
-            contentStream.beginText();
-            contentStream.setFont(regularFont, 8);
-            contentStream.newLineAtOffset(x + 5, currentY - 15);
-            contentStream.showText(String.valueOf(i + 1));
-            contentStream.endText();
-
-            contentStream.beginText();
-            contentStream.setFont(regularFont, 8);
-            contentStream.newLineAtOffset(x + col1Width + 5, currentY - 15);
-            contentStream.showText(item.getIndex());
-            contentStream.endText();
-
-            contentStream.beginText();
-            contentStream.setFont(regularFont, 8);
-            contentStream.newLineAtOffset(x + col1Width + col2Width + 5, currentY - 15);
-            contentStream.showText(item.getName());
-            contentStream.endText();
-
-            contentStream.beginText();
-            contentStream.setFont(regularFont, 8);
-            contentStream.newLineAtOffset(x + col1Width + col2Width + col3Width + 5, currentY - 15);
-            contentStream.showText(String.valueOf(item.getQuantity()));
-            contentStream.endText();
-
-            contentStream.beginText();
-            contentStream.setFont(regularFont, 8);
-            contentStream.newLineAtOffset(x + col1Width + col2Width + col3Width + col4Width + 5, currentY - 15);
-            contentStream.showText(item.getUnit());
-            contentStream.endText();
-
-            contentStream.beginText();
-            contentStream.setFont(regularFont, 8);
-            contentStream.newLineAtOffset(x + col1Width + col2Width + col3Width + col4Width + col5Width + 5, currentY - 15);
-            contentStream.showText(String.format(Locale.forLanguageTag("pl-PL"), "%.1f", item.getValue()));
-            contentStream.endText();
-
-            currentY -= rowHeight;
-        }
-
-        float total = 0;
-        for (PdfTableItem item : items) {
-            total += (float) item.getValue();
-        }
-
-        float totalStartX = x + col1Width + col2Width + col3Width;
-
-        drawLine(totalStartX, currentY, x + tableWidth, currentY);
-        drawLine(totalStartX, currentY - rowHeight, x + tableWidth, currentY - rowHeight);
-        drawLine(totalStartX, currentY, totalStartX, currentY - rowHeight);
-        drawLine(totalStartX + col4Width + col5Width, currentY, totalStartX + col4Width + col5Width, currentY - rowHeight);
-        drawLine(x + tableWidth, currentY, x + tableWidth, currentY - rowHeight);
-
         contentStream.beginText();
         contentStream.setFont(boldFont, 8);
-        contentStream.newLineAtOffset(totalStartX + 5, currentY - 15);
-        contentStream.showText("Razem dokument");
+        contentStream.newLineAtOffset(valueX + CELL_TEXT_INSET, y - tableTextOffset());
+        showText(boldFont, CellFormat.decimal(amount, 2));
         contentStream.endText();
+    }
 
+    private void drawReceiptContinuationHeader(String documentNumber, int pageIndex, float x) throws IOException {
         contentStream.beginText();
-        contentStream.setFont(boldFont, 8);
-        contentStream.newLineAtOffset(totalStartX + col4Width + col5Width + 5, currentY - 15);
-        contentStream.showText(String.format(Locale.forLanguageTag("pl-PL"), "%.2f", total));
+        contentStream.setFont(boldFont, 9);
+        contentStream.newLineAtOffset(x, startY - 12);
+        showText(boldFont, "PZ " + documentNumber + " - ciąg dalszy, strona " + (pageIndex + 1));
         contentStream.endText();
     }
 
@@ -448,14 +746,14 @@ public class PdfBuilder {
         contentStream.beginText();
         contentStream.setFont(boldFont, 8);
         contentStream.newLineAtOffset(x + tableWidth - signatureWidth/2 - 60, y + 40);
-        contentStream.showText(receivedBy);
+        showText(boldFont, receivedBy);
         contentStream.endText();
 
         contentStream.beginText();
         contentStream.setFont(regularFont, 8);
-        String formattedDate = documentDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+        String formattedDate = documentDate.format(CellFormat.DATE);
         contentStream.newLineAtOffset(x + tableWidth - signatureWidth/2 - 70, y + 25);
-        contentStream.showText("      Przyjął dnia " + formattedDate);
+        showText(regularFont, "      Przyjął dnia " + formattedDate);
         contentStream.endText();
 
         // Draw dotted signature lines
@@ -467,36 +765,126 @@ public class PdfBuilder {
         contentStream.beginText();
         contentStream.setFont(regularFont, 8);
         contentStream.newLineAtOffset(x + signatureWidth/2 - 15, y - 15);
-        contentStream.showText("Przyjął");
+        showText(regularFont, "Przyjął");
         contentStream.endText();
 
         contentStream.beginText();
         contentStream.setFont(regularFont, 8);
         contentStream.newLineAtOffset(x + tableWidth/2 - 15, y - 15);
-        contentStream.showText("podpis");
+        showText(regularFont, "podpis");
         contentStream.endText();
 
         contentStream.beginText();
         contentStream.setFont(regularFont, 8);
         contentStream.newLineAtOffset(x + tableWidth - signatureWidth/2 - 15, y - 15);
-        contentStream.showText("podpis*");
+        showText(regularFont, "podpis*");
         contentStream.endText();
     }
 
     public void save(String filePath, PdfCallback<PDDocument> callback) {
+        save(filePath, PdfSaveOptions.defaults(), callback);
+    }
+
+    /**
+     * Zapisuje dokument z podanymi ustawieniami kompresji
+     *
+     * @param filePath ścieżka pliku wynikowego
+     * @param options ustawienia zapisu
+     * @param callback callback wywoływany po zapisie
+     */
+    public void save(String filePath, PdfSaveOptions options, PdfCallback<PDDocument> callback) {
+        long saveStart = System.nanoTime();
+        ReportSaveEvent saveEvent = new ReportSaveEvent();
+        saveEvent.begin();
         try {
+            drawPageNumberFooter(contentStream);
             contentStream.close();
-            document.save(filePath);
+            commitPageEvent();
+            fillPageNumberPlaceholder();
+            collectStatistics();
+            PageContentCompressor.compress(document, options);
+            document.save(filePath, options.toCompressParameters());
             document.close();
+            closeSourceDocuments();
+            reportSaved(filePath, saveStart);
+            saveEvent.commit(statistics, false, true);
             callback.success(document);
 
         } catch (IOException e) {
 
+            reportFailed(saveStart, e);
+            saveEvent.commit(statistics, false, false);
             callback.error(document);
             throw new PDPageContentStreamException("Failed to save PDF: " + e.getMessage());
         }
     }
 
+    /**
+     * Zapisuje dokument przyrostowo: do pliku trafia oryginalna zawartość dokumentu wczytanego
+     * z tablicy bajtów i dopisana za nią aktualizacja zawierająca wyłącznie zmienione i nowe obiekty
+     *
+     * @param filePath ścieżka pliku wynikowego (może być ścieżką pliku źródłowego)
+     * @param options ustawienia zapisu; strumienie obiektów nie są używane w aktualizacji przyrostowej
+     * @param callback callback wywoływany po zapisie
+     */
+    public void saveIncremental(String filePath, PdfSaveOptions options, PdfCallback<PDDocument> callback) {
+        long saveStart = System.nanoTime();
+        ReportSaveEvent saveEvent = new ReportSaveEvent();
+        saveEvent.begin();
+        try {
+            drawPageNumberFooter(contentStream);
+            contentStream.close();
+            commitPageEvent();
+            fillPageNumberPlaceholder();
+            collectStatistics();
+            PageContentCompressor.compress(document, options);
+            try (OutputStream out = new FileOutputStream(filePath)) {
+                document.saveIncremental(out);
+            }
+            document.close();
+            closeSourceDocuments();
+            reportSaved(filePath, saveStart);
+            saveEvent.commit(statistics, true, true);
+            callback.success(document);
+
+        } catch (IOException e) {
+
+            reportFailed(saveStart, e);
+            saveEvent.commit(statistics, true, false);
+            callback.error(document);
+            throw new PDPageContentStreamException("Failed to save PDF incrementally: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Uzupełnia liczniki stron i operatorów tekstu przed kompresją treści stron.
+     * Operatory tekstu są zliczane tylko wtedy, gdy zarejestrowano odbiorcę statystyk.
+     */
+    private void collectStatistics() throws IOException {
+        statistics.setPages(document.getNumberOfPages());
+        if (reportListener != ReportListener.NONE) {
+            statistics.setTextOperations(TextOperatorCounter.count(document));
+        }
+    }
+
+    private void reportSaved(String filePath, long saveStart) throws IOException {
+        statistics.addPhaseNanos(ReportPhase.SAVING, System.nanoTime() - saveStart);
+        statistics.setOutputBytes(Files.size(Path.of(filePath)));
+        collectBufferUsage();
+        reportListener.reportCompleted(statistics);
+    }
+
+    private void reportFailed(long saveStart, IOException error) {
+        statistics.addPhaseNanos(ReportPhase.SAVING, System.nanoTime() - saveStart);
+        collectBufferUsage();
+        reportListener.reportFailed(statistics, error);
+    }
+
+    private void collectBufferUsage() {
+        statistics.setBufferedBytes(bufferUsage.getPeakBytes())
+                .setSpilledBytes(bufferUsage.getSpilledBytes());
+    }
+
     public static PdfBuilder createWarehouseReceipt() {
         return new PdfBuilder(PdfType.A4, "Warehouse receipt", "Orange");
     }
@@ -537,25 +925,25 @@ public class PdfBuilder {
         contentStream.beginText();
         contentStream.setFont(getBoldFont(), 9);
         contentStream.newLineAtOffset(margin + 5, currentY - 15);
-        contentStream.showText(libraryName);
+        showText(getBoldFont(), libraryName);
         contentStream.endText();
 
         contentStream.beginText();
         contentStream.setFont(getRegularFont(), 9);
         contentStream.newLineAtOffset(margin + 5, currentY - 27);
-        contentStream.showText(libraryDesc);
+        showText(getRegularFont(), libraryDesc);
         contentStream.endText();
 
         contentStream.beginText();
         contentStream.setFont(getRegularFont(), 9);
         contentStream.newLineAtOffset(margin + 5, currentY - 39);
-        contentStream.showText(address);
+        showText(getRegularFont(), address);
         contentStream.endText();
 
         contentStream.beginText();
         contentStream.setFont(getRegularFont(), 9);
         contentStream.newLineAtOffset(margin + 5, currentY - 51);
-        contentStream.showText(city);
+        showText(getRegularFont(), city);
         contentStream.endText();
 
         // Numer raportu i data po prawej stronie
@@ -564,13 +952,13 @@ public class PdfBuilder {
         contentStream.beginText();
         contentStream.setFont(getRegularFont(), 8);
         contentStream.newLineAtOffset(rightStartX + 5, currentY - 15);
-        contentStream.showText("Nr raportu:");
+        showText(getRegularFont(), "Nr raportu:");
         contentStream.endText();
 
         contentStream.beginText();
         contentStream.setFont(getRegularFont(), 9);
         contentStream.newLineAtOffset(rightStartX + labelWidth, currentY - 15);
-        contentStream.showText(reportNumber);
+        showText(getRegularFont(), reportNumber);
         contentStream.endText();
 
         // Tytuł raportu
@@ -580,7 +968,7 @@ public class PdfBuilder {
         contentStream.beginText();
         contentStream.setFont(getBoldFont(), 14);
         contentStream.newLineAtOffset(rightStartX + (rightWidth/2) - 60, rowY1 - 20);
-        contentStream.showText("RAPORT BIBLIOTECZNY");
+        showText(getBoldFont(), "RAPORT BIBLIOTECZNY");
         contentStream.endText();
 
         // Data raportu
@@ -590,23 +978,23 @@ public class PdfBuilder {
         contentStream.beginText();
         contentStream.setFont(getRegularFont(), 8);
         contentStream.newLineAtOffset(rightStartX + 5, rowY2 - 20);
-        contentStream.showText("Data raportu:");
+        showText(getRegularFont(), "Data raportu:");
         contentStream.endText();
 
-        String formattedDate = reportDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+        String formattedDate = reportDate.format(CellFormat.DATE);
         contentStream.beginText();
         contentStream.setFont(getRegularFont(), 9);
         contentStream.newLineAtOffset(rightStartX + labelWidth, rowY2 - 20);
-        contentStream.showText(formattedDate);
+        showText(getRegularFont(), formattedDate);
         contentStream.endText();
     }
 
     /**
-     * Zwraca wysokość strony A4 pomniejszoną o marginesy
+     * Zwraca wysokość strony pomniejszoną o marginesy
      * @return wysokość obszaru roboczego strony
      */
     protected float getHeight() {
-        return PDRectangle.A4.getHeight() - 2 * getMargin();
+        return page.getMediaBox().getHeight() - 2 * getMargin();
     }
 
     /**
@@ -618,7 +1006,9 @@ public class PdfBuilder {
         if (currentContentStream != null) {
             // Upewnij się, że wszystkie operacje tekstowe są zakończone
             safeEndText(currentContentStream);
+            drawPageNumberFooter(currentContentStream);
             currentContentStream.close();
+            commitPageEvent();
         }
 
         // Dodaj nową stronę do dokumentu
@@ -627,10 +1017,483 @@ public class PdfBuilder {
         document.addPage(newPage);
 
         // Utwórz nowy content stream dla nowej strony
-        PDPageContentStream newContentStream = new PDPageContentStream(document, newPage);
+        PDPageContentStream newContentStream = newPageContentStream(newPage);
 
         // Ustaw nowy content stream jako aktualny
         setContentStream(newContentStream);
+        beginPageEvent();
+    }
+
+    /**
+     * Ustawia liczbę stron raportu poprzedzających pierwszą stronę dokumentu, gdy dokument jest częścią
+     * raportu renderowaną osobno. Indeksy stron planu układu i numery stron w stopkach są wtedy
+     * indeksami i numerami w całym raporcie.
+     */
+    protected void setPageOffset(int pageOffset) {
+        this.pageOffset = pageOffset;
+    }
+
+    /**
+     * Dodaje strony do dokumentu, aż bieżącą stroną będzie strona o podanym indeksie
+     *
+     * @param pageIndex indeks strony w raporcie (od 0)
+     */
+    protected void ensurePage(int pageIndex) throws IOException {
+        while (pageOffset + getDocument().getNumberOfPages() - 1 < pageIndex) {
+            addNewPage();
+        }
+    }
+
+    /**
+     * Rysuje sekcję raportu, rejestrując jej czas jako zdarzenie JFR {@link SectionDrawnEvent}
+     *
+     * @param section nazwa sekcji
+     * @param drawing rysuje sekcję
+     */
+    protected void traceSection(String section, Drawing drawing) throws IOException {
+        SectionDrawnEvent event = new SectionDrawnEvent();
+        event.begin();
+        int pageNumber = document.getNumberOfPages();
+        drawing.draw();
+        event.commit(statistics.getReportType(), section, pageNumber);
+    }
+
+    private void beginPageEvent() {
+        pageEvent = new PageRenderedEvent();
+        pageEvent.begin();
+    }
+
+    private void commitPageEvent() {
+        if (pageEvent != null) {
+            pageEvent.commit(statistics.getReportType(), document.getNumberOfPages());
+            pageEvent = null;
+        }
+    }
+
+    /**
+     * Rozpoczyna na bieżącej (ostatniej) stronie osobny strumień treści dla końcowej części dokumentu,
+     * np. podsumowań i podpisu. Dzięki temu {@link #removeTailContent} może ją później odłączyć
+     * bez ponownego renderowania stron z tabelą.
+     */
+    protected void startTailContent() throws IOException {
+        safeEndText(contentStream);
+        contentStream.close();
+
+        PDPage currentPage = document.getPage(document.getNumberOfPages() - 1);
+        setContentStream(new PDPageContentStream(document, currentPage, PDPageContentStream.AppendMode.APPEND, false));
+    }
+
+    /**
+     * Odłącza końcową część dokumentu rozpoczętą przez {@link #startTailContent}:
+     * usuwa strony za stroną o podanym indeksie i ostatni strumień treści tej strony
+     *
+     * @param document dokument
+     * @param tailPageIndex indeks strony, na której rozpoczęto końcową część
+     */
+    protected static void removeTailContent(PDDocument document, int tailPageIndex) {
+        while (document.getNumberOfPages() - 1 > tailPageIndex) {
+            document.removePage(document.getNumberOfPages() - 1);
+        }
+
+        PDPage tailPage = document.getPage(tailPageIndex);
+        if (tailPage.getCOSObject().getDictionaryObject(COSName.CONTENTS) instanceof COSArray contents
+                && contents.size() > 1) {
+            contents.remove(contents.size() - 1);
+        }
+    }
+
+    /**
+     * Zastępuje stronę dokumentu stroną przeniesioną z innego dokumentu
+     *
+     * @param pageIndex indeks zastępowanej strony (od 0)
+     * @param replacement strona wstawiana w jej miejsce
+     */
+    protected void replacePage(int pageIndex, PDPage replacement) {
+        PDPage replaced = document.getPage(pageIndex);
+        document.getPages().insertBefore(replacement, replaced);
+        document.getPages().remove(replaced);
+    }
+
+    /**
+     * Rejestruje dokument źródłowy, z którego przeniesiono strony; zostanie zamknięty po zapisie,
+     * bo do tego czasu zapis odczytuje z niego treść przeniesionych stron
+     */
+    protected void addSourceDocument(PDDocument sourceDocument) {
+        sourceDocuments.add(sourceDocument);
+    }
+
+    /**
+     * Rejestruje znacznik liczby stron używany przez strony przeniesione z innego dokumentu;
+     * przy zapisie zostanie wypełniony liczbą stron tego dokumentu
+     */
+    protected void addImportedTotalPagesForm(PDFormXObject form) {
+        importedTotalPagesPlaceholders.add(new TotalPagesPlaceholder(form, regularFont, 8));
+    }
+
+    private void closeSourceDocuments() throws IOException {
+        for (Closeable sourceDocument : sourceDocuments) {
+            sourceDocument.close();
+        }
+        sourceDocuments.clear();
+    }
+
+    /**
+     * Zwraca form XObject ze wspólnym znacznikiem liczby stron lub null, jeśli numeracja stron nie jest włączona
+     */
+    protected PDFormXObject getTotalPagesForm() {
+        return pageNumbering ? totalPagesPlaceholder().getForm() : null;
+    }
+
+    /**
+     * Używa istniejącego znacznika liczby stron dokumentu, do którego dopisywana jest treść
+     */
+    protected void reuseTotalPagesForm(PDFormXObject form) {
+        totalPagesPlaceholder = new TotalPagesPlaceholder(form, regularFont, 8);
+    }
+
+    /**
+     * Rysuje powtarzalny element strony (ramkę nagłówka, nagłówek tabeli) jako form XObject.
+     * Element jest nagrywany raz dla danego klucza, a na kolejnych stronach umieszczany przez odwołanie.
+     *
+     * @param key klucz identyfikujący niezmienną treść elementu
+     * @param x pozycja X lewej krawędzi elementu
+     * @param y pozycja Y górnej krawędzi elementu
+     * @param width szerokość elementu
+     * @param height wysokość elementu
+     * @param drawer rysuje element względem punktu (0, 0) jako lewego górnego rogu
+     */
+    protected void drawFurniture(String key, float x, float y, float width, float height,
+                                 FurnitureDrawer drawer) throws IOException {
+        PDFormXObject form = furnitureForms.get(key);
+        if (form == null) {
+            form = recordFurniture(width, height, drawer);
+            furnitureForms.put(key, form);
+        }
+
+        contentStream.saveGraphicsState();
+        contentStream.transform(Matrix.getTranslateInstance(x, y));
+        contentStream.drawForm(form);
+        contentStream.restoreGraphicsState();
+    }
+
+    /**
+     * Nagrywa element strony do form XObject, tymczasowo przekierowując rysowanie do jego strumienia
+     */
+    private PDFormXObject recordFurniture(float width, float height, FurnitureDrawer drawer) throws IOException {
+        // PDAppearanceStream to form XObject, dla którego PDFBox udostępnia strumień z kontekstem dokumentu
+        PDAppearanceStream form = new PDAppearanceStream(document);
+        form.setResources(new PDResources());
+        form.setBBox(new PDRectangle(-1, -height - 1, width + 2, height + 2));
+
+        PDPageContentStream pageContentStream = contentStream;
+        try (PDPageContentStream formContentStream = new PDPageContentStream(document, form)) {
+            contentStream = formContentStream;
+            drawer.draw();
+        } finally {
+            contentStream = pageContentStream;
+        }
+        return form;
+    }
+
+    /**
+     * Wyznacza układ tabeli o podanej szerokości ze szerokościami kolumn przeskalowanymi do bieżącej strony
+     */
+    protected <T> TableLayout<T> layoutTable(TableSpec<T> spec, float tableWidth) {
+        return spec.layout(tableWidth, columnScale());
+    }
+
+    /**
+     * Zwraca opis tabeli podsumowania nazwa-ilość, której wiersze są parami tekstów z {@link #summaryCells}.
+     * Jedna grupa kolumn zachowuje dotychczasowe proporcje kolumn, w kilku grupach kolumna ilości ma stałą szerokość.
+     *
+     * @param nameHeader nagłówek kolumny nazwy
+     * @param groups liczba grup kolumn ustawionych obok siebie
+     */
+    protected static TableSpec<String[]> summaryTable(String nameHeader, int groups) {
+        TableColumn<String[]> name = groups == 1
+                ? TableColumn.of(nameHeader, SUMMARY_NAME_WIDTH, (cells, row) -> cells[0])
+                : TableColumn.fill(nameHeader, (cells, row) -> cells[0]);
+        TableColumn<String[]> count = groups == 1
+                ? TableColumn.fill("Ilość", (cells, row) -> cells[1])
+                : TableColumn.of("Ilość", SUMMARY_COUNT_WIDTH, (cells, row) -> cells[1]);
+        return new TableSpec<String[]>("summaryTable:" + nameHeader + ":" + groups)
+                .column(name.setTruncateToWidth(true))
+                .column(count);
+    }
+
+    /**
+     * Zamienia pozycje podsumowania na wiersze nazwa-ilość zakończone wierszem sumy "RAZEM"
+     */
+    protected static <T> List<String[]> summaryCells(List<T> summaries, Function<T, String> nameExtractor,
+                                                     ToIntFunction<T> countExtractor) {
+        List<String[]> cells = new ArrayList<>(summaries.size() + 1);
+        int total = 0;
+        for (T summary : summaries) {
+            int count = countExtractor.applyAsInt(summary);
+            cells.add(new String[]{nameExtractor.apply(summary), CellFormat.number(count)});
+            total += count;
+        }
+        cells.add(new String[]{"RAZEM", CellFormat.number(total)});
+        return cells;
+    }
+
+    /**
+     * Wylicza wysokości wierszy tabeli z zawiniętym tekstem komórek
+     *
+     * @param rowOffset liczba wierszy tabeli poprzedzających podane wiersze (dla numeracji)
+     * @return wysokości kolejnych wierszy lub null, jeśli profil układu nie zawija komórek
+     */
+    protected <T> float[] tableRowHeights(TableLayout<T> table, List<T> rows, int rowOffset) throws IOException {
+        if (!wrapCells()) {
+            return null;
+        }
+        List<TableColumn<T>> columns = table.getColumns();
+        float[] rowHeights = new float[rows.size()];
+        for (int row = 0; row < rowHeights.length; row++) {
+            T item = rows.get(row);
+            int lines = 1;
+            for (int i = 0; i < columns.size(); i++) {
+                TableColumn<T> column = columns.get(i);
+                if (column.isWrap()) {
+                    List<String> cellLines = cellLines(table, i, item, rowOffset + row + 1);
+                    lines = Math.max(lines, cellLines.size() + detailLines(table, i, item).size());
+                }
+            }
+            rowHeights[row] = tableRowHeight(lines);
+        }
+        return rowHeights;
+    }
+
+    /**
+     * Rysuje tabelę na stronach wyznaczonych przez plan układu: nagłówek tabeli na każdej stronie
+     * (poza fragmentem dopisanym pod istniejącymi wierszami) i kolejne wiersze danych
+     *
+     * @param rowOffset liczba wierszy tabeli poprzedzających podane wiersze (dla numeracji)
+     * @param rowHeights wysokości wierszy z {@link #tableRowHeights} lub null dla wierszy jednoliniowych
+     * @param pageStart przygotowanie strony każdego fragmentu
+     */
+    protected <T> void drawTablePages(TableLayout<T> table, List<T> rows, int rowOffset, float[] rowHeights,
+                                      float x, List<TableSlice> slices, TablePageStart pageStart) throws IOException {
+        float rowHeight = tableRowHeight();
+        for (TableSlice slice : slices) {
+            if (slice.isContinuation()) {
+                // Zakończ aktualną stronę i rozpocznij nową
+                ensurePage(slice.getPageIndex());
+            }
+            if (!pageStart.start(slice)) {
+                continue;
+            }
+            if (slice.getHeaderRowHeight() > 0) {
+                drawTableHeader(table, x, slice.getHeaderY());
+            }
+
+            float currentY = slice.getFirstRowY();
+            for (int rowIndex = slice.getFirstRow(); rowIndex < slice.getEndRow(); rowIndex++) {
+                float height = rowHeights != null ? rowHeights[rowIndex] : rowHeight;
+                drawTableRow(table, rows.get(rowIndex), rowOffset + rowIndex + 1, x, currentY, height, null);
+                currentY -= height;
+            }
+        }
+    }
+
+    /**
+     * Rysuje fragment tabeli wielokolumnowej: pozycje wypełniają kolejno grupy kolumn ustawione obok siebie,
+     * każda grupa z własnym nagłówkiem. Szerokość układu tabeli jest szerokością jednej grupy.
+     *
+     * @param cells wszystkie pozycje tabeli; fragment rysuje pozycje ze swojego zakresu
+     * @param emphasizedFrom indeks pierwszej pozycji rysowanej pogrubioną czcionką (np. wiersza sumy)
+     * @param y pozycja Y nagłówka tabeli
+     * @param gap odstęp między grupami kolumn
+     */
+    protected <T> void drawTableGrid(TableLayout<T> table, List<T> cells, int emphasizedFrom, GridSlice slice,
+                                     float x, float y, float gap) throws IOException {
+        float rowHeight = tableRowHeight();
+        for (int group = 0; group < slice.getGroups(); group++) {
+            float groupX = x + group * (table.getWidth() + gap);
+            float currentY = y;
+            drawTableHeader(table, groupX, currentY);
+            currentY -= rowHeight;
+
+            for (int cell = slice.getGroupStart(group); cell < slice.getGroupEnd(group); cell++) {
+                drawTableRow(table, cells.get(cell), cell + 1, groupX, currentY, rowHeight,
+                        cell >= emphasizedFrom ? CellFont.BOLD : null);
+                currentY -= rowHeight;
+            }
+        }
+    }
+
+    /**
+     * Rysuje nagłówek tabeli jako powtarzalny element strony, nagrywany raz dla nazwy i szerokości tabeli
+     *
+     * @param y górna krawędź nagłówka
+     */
+    protected <T> void drawTableHeader(TableLayout<T> table, float x, float y) throws IOException {
+        float rowHeight = tableRowHeight();
+        drawFurniture(table.getSpec().getName() + ":" + table.getWidth(), x, y, table.getWidth(), rowHeight,
+                () -> drawTableHeaderContent(table, 0, 0, rowHeight));
+    }
+
+    private <T> void drawTableHeaderContent(TableLayout<T> table, float x, float y, float rowHeight) throws IOException {
+        drawLine(x, y, x + table.getWidth(), y);
+        drawTableRowLines(table, x, y, rowHeight);
+
+        List<TableColumn<T>> columns = table.getColumns();
+        float[] offsets = table.getOffsets();
+        float[] widths = table.getWidths();
+        float baselineY = y - tableTextOffset();
+        for (int i = 0; i < offsets.length; i++) {
+            TableColumn<T> column = columns.get(i);
+            drawTableText(column.getHeader(), boldFont, column.getAlignment(), x + offsets[i], widths[i], baselineY);
+        }
+    }
+
+    /**
+     * Rysuje wiersz danych tabeli: dolną krawędź, linie kolumn i tekst komórek
+     *
+     * @param y górna krawędź wiersza
+     * @param rowFont font wszystkich komórek wiersza (np. pogrubiony wiersz sumy) lub null dla fontów kolumn
+     */
+    protected <T> void drawTableRow(TableLayout<T> table, T item, int rowNumber, float x, float y, float rowHeight,
+                                    CellFont rowFont) throws IOException {
+        drawTableRowLines(table, x, y, rowHeight);
+
+        List<TableColumn<T>> columns = table.getColumns();
+        float[] offsets = table.getOffsets();
+        float[] widths = table.getWidths();
+        float baselineY = y - tableTextOffset();
+        boolean wrap = wrapCells();
+        for (int i = 0; i < offsets.length; i++) {
+            TableColumn<T> column = columns.get(i);
+            PDFont font = cellFont(rowFont != null ? rowFont : column.getFontSelector().apply(item));
+            float cellX = x + offsets[i];
+            if (wrap && column.isWrap()) {
+                // Tekst zawinięty w wysokości wiersza, tekst dodatkowy kursywą pod nim
+                List<String> lines = cellLines(table, i, item, rowNumber);
+                drawCellLines(lines, font, cellX, y);
+                drawCellLines(detailLines(table, i, item), italicFont, cellX, y - lines.size() * tableLineHeight());
+            } else {
+                drawTableText(table.cellText(i, item, rowNumber), font, column.getAlignment(), cellX, widths[i], baselineY);
+            }
+        }
+    }
+
+    /**
+     * Rysuje dolną krawędź wiersza i linie oddzielające kolumny
+     */
+    private <T> void drawTableRowLines(TableLayout<T> table, float x, float y, float rowHeight) throws IOException {
+        float bottomY = y - rowHeight;
+        drawLine(x, bottomY, x + table.getWidth(), bottomY);
+        for (float offset : table.getOffsets()) {
+            drawLine(x + offset, y, x + offset, bottomY);
+        }
+        drawLine(x + table.getWidth(), y, x + table.getWidth(), bottomY);
+    }
+
+    /**
+     * Rysuje jednoliniowy tekst komórki wyrównany w kolumnie
+     */
+    private void drawTableText(String text, PDFont font, CellAlignment alignment, float cellX, float cellWidth,
+                               float baselineY) throws IOException {
+        float fontSize = layoutProfile.getFontSize();
+        float textX = cellX + CELL_TEXT_INSET;
+        if (alignment != CellAlignment.LEFT) {
+            float textWidth = textWidth(font, fontSize, text);
+            textX = alignment == CellAlignment.RIGHT
+                    ? cellX + cellWidth - CELL_TEXT_INSET - textWidth
+                    : cellX + (cellWidth - textWidth) / 2;
+        }
+        contentStream.beginText();
+        contentStream.setFont(font, fontSize);
+        contentStream.newLineAtOffset(textX, baselineY);
+        showText(font, text);
+        contentStream.endText();
+    }
+
+    /**
+     * Wypisuje tekst w bieżącym bloku tekstu (między beginText i endText), tak jak {@code showText},
+     * ale każdy tekst jest kodowany do glifów tylko raz w dokumencie
+     *
+     * @param font font ustawiony wcześniej w strumieniu przez setFont
+     */
+    protected void showText(PDFont font, String text) throws IOException {
+        showText(contentStream, font, text);
+    }
+
+    // PDFBox odradza surowe polecenia, ale zapisywany operator Tj jest kompletny i zakodowany ustawionym fontem
+    @SuppressWarnings("deprecation")
+    private void showText(PDPageContentStream stream, PDFont font, String text) throws IOException {
+        stream.appendRawCommands(encodedTexts.encode(font, text).getShowTextOperator());
+    }
+
+    /**
+     * Zwraca szerokość tekstu w punktach, wyznaczaną raz razem z jego zakodowaniem
+     */
+    protected float textWidth(PDFont font, float fontSize, String text) throws IOException {
+        return encodedTexts.encode(font, text).width(fontSize);
+    }
+
+    private <T> List<String> cellLines(TableLayout<T> table, int column, T item, int rowNumber) throws IOException {
+        TableColumn<T> tableColumn = table.getColumns().get(column);
+        return wrapCellText(tableColumn.getValue().get(item, rowNumber),
+                cellFont(tableColumn.getFontSelector().apply(item)), table.getWidths()[column], MAX_CELL_LINES);
+    }
+
+    private <T> List<String> detailLines(TableLayout<T> table, int column, T item) throws IOException {
+        TableColumn<T> tableColumn = table.getColumns().get(column);
+        String detail = tableColumn.getDetail() != null ? tableColumn.getDetail().apply(item) : null;
+        if (detail == null || detail.isBlank()) {
+            return List.of();
+        }
+        return wrapCellText(detail, italicFont, table.getWidths()[column], MAX_DETAIL_LINES);
+    }
+
+    private PDFont cellFont(CellFont font) {
+        return switch (font) {
+            case BOLD -> boldFont;
+            case ITALIC -> italicFont;
+            default -> regularFont;
+        };
+    }
+
+    /**
+     * Rysuje stopkę z numerem bieżącej strony i odwołaniem do wspólnego znacznika liczby stron
+     */
+    private void drawPageNumberFooter(PDPageContentStream stream) throws IOException {
+        if (!pageNumbering) {
+            return;
+        }
+        TotalPagesPlaceholder placeholder = totalPagesPlaceholder();
+
+        String text = "Strona " + (pageOffset + document.getNumberOfPages()) + " z ";
+        float x = margin + width - 80;
+        float y = margin / 2 + 5;
+
+        stream.beginText();
+        stream.setFont(regularFont, 8);
+        stream.newLineAtOffset(x, y);
+        showText(stream, regularFont, text);
+        stream.endText();
+
+        placeholder.drawAt(stream, x + textWidth(regularFont, 8, text), y);
+    }
+
+    private TotalPagesPlaceholder totalPagesPlaceholder() {
+        if (totalPagesPlaceholder == null) {
+            totalPagesPlaceholder = new TotalPagesPlaceholder(this, regularFont, 8);
+        }
+        return totalPagesPlaceholder;
+    }
+
+    /**
+     * Uzupełnia znacznik liczby stron, gdy wszystkie strony są już narysowane
+     */
+    private void fillPageNumberPlaceholder() throws IOException {
+        if (totalPagesPlaceholder != null) {
+            totalPagesPlaceholder.fill(document.getNumberOfPages());
+        }
+        for (TotalPagesPlaceholder placeholder : importedTotalPagesPlaceholders) {
+            placeholder.fill(document.getNumberOfPages());
+        }
     }
 
     /**
@@ -672,12 +1535,40 @@ public class PdfBuilder {
         }
     }
 
+    @FunctionalInterface
+    protected interface FurnitureDrawer {
+        void draw() throws IOException;
+    }
+
+    @FunctionalInterface
+    protected interface TablePageStart {
+        /**
+         * Przygotowuje stronę fragmentu tabeli, np. rysuje nagłówek strony kontynuacji
+         *
+         * @return false, jeśli fragmentu nie należy rysować (np. strona przenoszona z poprzedniej wersji)
+         */
+        boolean start(TableSlice slice) throws IOException;
+    }
+
+    @FunctionalInterface
+    protected interface Drawing {
+        void draw() throws IOException;
+    }
+
+    /**
+     * Tworzy strumień treści strony bez kompresji - kompresja odbywa się przy zapisie według ustawień zapisu
+     */
+    private PDPageContentStream newPageContentStream(PDPage page) throws IOException {
+        return new PDPageContentStream(document, page, PDPageContentStream.AppendMode.OVERWRITE, false);
+    }
+
     /**
-     * Tworzy nową stronę A4
+     * Tworzy nową stronę o rozmiarze stron dokumentu
      * @return utworzona strona PDF
      */
     private PDPage createPage() {
-        return new PDPage(PDRectangle.A4);
+        PDRectangle mediaBox = page.getMediaBox();
+        return new PDPage(pageSize != null ? pageSize : new PDRectangle(mediaBox.getWidth(), mediaBox.getHeight()));
     }
 
 
@@ -0,0 +1,155 @@
+package com.orange.pdf.builder;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.function.Supplier;
+
+/**
+ * Pula builderów gotowych do zbudowania kolejnego dokumentu - z przeanalizowanymi fontami i ustawieniami strony.
+ * Zwrócony builder jest resetowany ({@link PdfBuilder#reset()}) i trafia do puli, o ile nie przekroczono
+ * jej rozmiaru. Builder bezczynny dłużej niż podany czas jest usuwany przy najbliższym pobraniu lub zwrocie.
+ * Builder pobrany z puli może być używany tylko przez jeden wątek naraz.
+ *
+ * @param <B> typ buildera
+ */
+public class PdfBuilderPool<B extends PdfBuilder> {
+
+    public static final int DEFAULT_MAX_IDLE = 4;
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(5);
+
+    private final Supplier<B> factory;
+    private final int maxIdle;
+    private final long idleTimeoutNanos;
+    // Najpóźniej zwrócone buildery na początku kolejki, najdłużej bezczynne na końcu
+    private final ArrayDeque<IdleBuilder<B>> idle = new ArrayDeque<>();
+
+    private long createdCount;
+    private long reusedCount;
+    private long evictedCount;
+
+    /**
+     * Tworzy pulę z domyślnym rozmiarem i czasem bezczynności
+     *
+     * @param factory tworzy nowy builder, gdy pula jest pusta
+     */
+    public PdfBuilderPool(Supplier<B> factory) {
+        this(factory, DEFAULT_MAX_IDLE, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    /**
+     * @param factory tworzy nowy builder, gdy pula jest pusta
+     * @param maxIdle maksymalna liczba builderów oczekujących w puli
+     * @param idleTimeout czas bezczynności, po którym builder jest usuwany z puli
+     */
+    public PdfBuilderPool(Supplier<B> factory, int maxIdle, Duration idleTimeout) {
+        if (maxIdle < 0) {
+            throw new IllegalArgumentException("Rozmiar puli nie może być ujemny: " + maxIdle);
+        }
+        this.factory = factory;
+        this.maxIdle = maxIdle;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+    }
+
+    /**
+     * Pobiera builder z puli lub tworzy nowy, jeśli pula jest pusta
+     */
+    public B acquire() {
+        synchronized (this) {
+            evictIdle(System.nanoTime());
+            IdleBuilder<B> pooled = idle.pollFirst();
+            if (pooled != null) {
+                reusedCount++;
+                return pooled.builder;
+            }
+            createdCount++;
+        }
+        return factory.get();
+    }
+
+    /**
+     * Zwraca builder do puli po zapisie dokumentu (lub po błędzie). Builder jest resetowany;
+     * jeśli reset się nie powiedzie albo pula jest pełna, builder jest odrzucany.
+     */
+    public void release(B builder) {
+        try {
+            builder.reset();
+        } catch (RuntimeException e) {
+            System.err.println("Builder nie został zwrócony do puli: " + e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            long now = System.nanoTime();
+            evictIdle(now);
+            if (idle.size() < maxIdle) {
+                idle.addFirst(new IdleBuilder<>(builder, now));
+                return;
+            }
+            evictedCount++;
+        }
+        discard(builder);
+    }
+
+    private void evictIdle(long now) {
+        Iterator<IdleBuilder<B>> oldest = idle.descendingIterator();
+        while (oldest.hasNext()) {
+            IdleBuilder<B> pooled = oldest.next();
+            if (now - pooled.releasedAt <= idleTimeoutNanos) {
+                break;
+            }
+            oldest.remove();
+            evictedCount++;
+            discard(pooled.builder);
+        }
+    }
+
+    /**
+     * Zamyka pusty dokument przygotowany przez reset, zwalniając jego bufory i pliki tymczasowe
+     */
+    private static void discard(PdfBuilder builder) {
+        try {
+            builder.getDocument().close();
+        } catch (IOException e) {
+            System.err.println("Nie udało się zamknąć dokumentu usuwanego buildera: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Usuwa wszystkie bezczynne buildery z puli
+     */
+    public synchronized void clear() {
+        for (IdleBuilder<B> pooled : idle) {
+            discard(pooled.builder);
+        }
+        evictedCount += idle.size();
+        idle.clear();
+    }
+
+    public synchronized int getIdleCount() {
+        return idle.size();
+    }
+
+    public synchronized long getCreatedCount() {
+        return createdCount;
+    }
+
+    public synchronized long getReusedCount() {
+        return reusedCount;
+    }
+
+    public synchronized long getEvictedCount() {
+        return evictedCount;
+    }
+
+    private static class IdleBuilder<B> {
+
+        private final B builder;
+        private final long releasedAt;
+
+        IdleBuilder(B builder, long releasedAt) {
+            this.builder = builder;
+            this.releasedAt = releasedAt;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.orange.pdf.builder;
+
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.apache.pdfbox.util.Hex;
+import org.apache.pdfbox.util.Matrix;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Wspólny dla wszystkich stron znacznik całkowitej liczby stron.
+ * Każda strona odwołuje się do tego samego form XObject, którego treść jest wypełniana
+ * jednorazowo przy zapisie dokumentu, gdy liczba stron jest już znana.
+ */
+class TotalPagesPlaceholder {
+
+    private final PDFormXObject form;
+    private final PDFont font;
+    private final float fontSize;
+    private boolean filled;
+
+    TotalPagesPlaceholder(PdfBuilder builder, PDFont font, float fontSize) {
+        this.form = new PDFormXObject(builder.getDocument());
+        this.font = font;
+        this.fontSize = fontSize;
+
+        form.setResources(new PDResources());
+        form.setBBox(new PDRectangle(0, -fontSize / 2, fontSize * 6, fontSize * 2));
+    }
+
+    /**
+     * Odtwarza znacznik zapisany wcześniej w dokumencie; jego treść zostanie nadpisana przy wypełnieniu
+     */
+    TotalPagesPlaceholder(PDFormXObject form, PDFont font, float fontSize) {
+        this.form = form;
+        this.font = font;
+        this.fontSize = fontSize;
+    }
+
+    PDFormXObject getForm() {
+        return form;
+    }
+
+    /**
+     * Umieszcza odwołanie do znacznika na stronie w podanym punkcie linii bazowej tekstu
+     */
+    void drawAt(PDPageContentStream contentStream, float x, float y) throws IOException {
+        contentStream.saveGraphicsState();
+        contentStream.transform(Matrix.getTranslateInstance(x, y));
+        contentStream.drawForm(form);
+        contentStream.restoreGraphicsState();
+    }
+
+    /**
+     * Wypełnia znacznik całkowitą liczbą stron; wywoływane raz, przed zapisem dokumentu
+     */
+    void fill(int totalPages) throws IOException {
+        if (filled) {
+            return;
+        }
+
+        String text = String.valueOf(totalPages);
+        COSName fontName = form.getResources().add(font);
+
+        // Form XObject nie ma kontekstu dokumentu, więc glify trzeba dodać do podzbioru fontu ręcznie
+        if (font.willBeSubset()) {
+            text.codePoints().forEach(font::addToSubset);
+        }
+
+        String content = "BT /" + fontName.getName() + " " + fontSize + " Tf 0 0 Td <"
+                + Hex.getString(font.encode(text)) + "> Tj ET";
+        try (OutputStream out = form.getContentStream().createOutputStream(COSName.FLATE_DECODE)) {
+            out.write(content.getBytes(StandardCharsets.US_ASCII));
+        }
+        filled = true;
+    }
+}
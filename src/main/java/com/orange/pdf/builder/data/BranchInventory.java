@@ -0,0 +1,32 @@
+package com.orange.pdf.builder.data;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Dane inwentaryzacyjne jednej filii sieci bibliotek do raportu skonsolidowanego
+ */
+@Getter
+public class BranchInventory {
+
+    private String branchName;
+    private String address;
+    private String city;
+    private List<LibraryPdfTableItem> books;
+
+    /**
+     * Konstruktor danych filii
+     *
+     * @param branchName nazwa filii
+     * @param address adres filii - ulica
+     * @param city miasto i kod pocztowy filii
+     * @param books książki filii w kolejności wierszy jej tabeli
+     */
+    public BranchInventory(String branchName, String address, String city, List<LibraryPdfTableItem> books) {
+        this.branchName = branchName;
+        this.address = address;
+        this.city = city;
+        this.books = books;
+    }
+}
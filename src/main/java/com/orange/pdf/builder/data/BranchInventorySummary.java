@@ -0,0 +1,37 @@
+package com.orange.pdf.builder.data;
+
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * Podsumowanie inwentaryzacyjne filii albo całej sieci bibliotek: liczba książek
+ * oraz liczebności statusów, gatunków i wydawców
+ */
+@Getter
+public class BranchInventorySummary {
+
+    private String branchName;
+    private int bookCount;
+    private Map<String, Integer> statusCounts;
+    private Map<String, Integer> genreCounts;
+    private Map<String, Integer> publisherCounts;
+
+    /**
+     * Konstruktor podsumowania
+     *
+     * @param branchName nazwa filii (lub sieci dla podsumowania całej sieci)
+     * @param bookCount liczba książek
+     * @param statusCounts liczebności statusów książek
+     * @param genreCounts liczebności gatunków książek
+     * @param publisherCounts liczebności wydawców książek
+     */
+    public BranchInventorySummary(String branchName, int bookCount, Map<String, Integer> statusCounts,
+                                  Map<String, Integer> genreCounts, Map<String, Integer> publisherCounts) {
+        this.branchName = branchName;
+        this.bookCount = bookCount;
+        this.statusCounts = statusCounts;
+        this.genreCounts = genreCounts;
+        this.publisherCounts = publisherCounts;
+    }
+}
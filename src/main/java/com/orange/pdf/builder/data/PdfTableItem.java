@@ -2,6 +2,8 @@ package com.orange.pdf.builder.data;
 
 import lombok.Getter;
 
+import java.math.BigDecimal;
+
 @Getter
 
 public class PdfTableItem{
@@ -10,13 +12,22 @@ public class PdfTableItem{
     private String name;
     private int quantity;
     private String unit;
-    private double value;
+    // Wartość pozycji w dokładnej postaci dziesiętnej, sumowana bez błędów zaokrągleń
+    private BigDecimal value;
 
-    public PdfTableItem(String index, String name, int quantity, String unit, double value) {
+    public PdfTableItem(String index, String name, int quantity, String unit, BigDecimal value) {
         this.index = index;
         this.name = name;
         this.quantity = quantity;
         this.unit = unit;
-        this.value = value;
+        this.value = value != null ? value : BigDecimal.ZERO;
+    }
+
+    /**
+     * Tworzy pozycję z wartością podaną jako double; wartość jest zamieniana na liczbę dziesiętną
+     * o najkrótszym zapisie tej wartości (np. 0.1 daje dokładnie 0.1)
+     */
+    public PdfTableItem(String index, String name, int quantity, String unit, double value) {
+        this(index, name, quantity, unit, BigDecimal.valueOf(value));
     }
-}
\ No newline at end of file
+}
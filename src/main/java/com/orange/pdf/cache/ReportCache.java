@@ -0,0 +1,214 @@
+package com.orange.pdf.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Pamięć podręczna wygenerowanych raportów PDF, indeksowana skrótem danych wejściowych.
+ * Poziom w pamięci jest ograniczony liczbą wpisów i łącznym rozmiarem, z wypieraniem najdawniej używanych (LRU).
+ * Opcjonalny poziom dyskowy przechowuje raporty jako pliki {@code <skrót>.pdf} w podanym katalogu,
+ * również z ograniczeniem liczby plików i wypieraniem LRU.
+ */
+public class ReportCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 64;
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    public static final int DEFAULT_MAX_DISK_ENTRIES = 1024;
+
+    private static final String FILE_SUFFIX = ".pdf";
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+
+    private Path diskDirectory;
+    private int maxDiskEntries = DEFAULT_MAX_DISK_ENTRIES;
+    private final LinkedHashMap<String, Boolean> diskIndex = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long hitCount;
+    private long diskHitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * Tworzy pamięć podręczną z domyślnymi limitami
+     */
+    public ReportCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Tworzy pamięć podręczną o podanych limitach poziomu w pamięci
+     *
+     * @param maxEntries maksymalna liczba raportów w pamięci
+     * @param maxBytes maksymalny łączny rozmiar raportów w pamięci
+     */
+    public ReportCache(int maxEntries, long maxBytes) {
+        if (maxEntries < 0 || maxBytes < 0) {
+            throw new IllegalArgumentException("Limity pamięci podręcznej nie mogą być ujemne");
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Włącza poziom dyskowy w podanym katalogu; istniejące w nim raporty są dostępne od razu
+     *
+     * @param directory katalog na pliki raportów
+     * @param maxDiskEntries maksymalna liczba plików raportów
+     * @return ta sama pamięć podręczna
+     */
+    public synchronized ReportCache setDiskTier(Path directory, int maxDiskEntries) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Nie można utworzyć katalogu pamięci podręcznej: " + directory, e);
+        }
+        this.diskDirectory = directory;
+        this.maxDiskEntries = maxDiskEntries;
+
+        diskIndex.clear();
+        File[] files = directory.toFile().listFiles((dir, name) -> name.endsWith(FILE_SUFFIX));
+        if (files != null) {
+            Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+            for (File file : files) {
+                String name = file.getName();
+                diskIndex.put(name.substring(0, name.length() - FILE_SUFFIX.length()), Boolean.TRUE);
+            }
+        }
+        trimDisk();
+        return this;
+    }
+
+    /**
+     * Zwraca zapisany raport dla klucza lub null, jeśli raportu nie ma w żadnym z poziomów
+     *
+     * @param key klucz raportu
+     * @return zawartość pliku PDF lub null
+     */
+    public synchronized byte[] get(ReportCacheKey key) {
+        byte[] bytes = memory.get(key.getHash());
+        if (bytes != null) {
+            hitCount++;
+            return bytes;
+        }
+
+        if (diskDirectory != null && diskIndex.get(key.getHash()) != null) {
+            try {
+                bytes = Files.readAllBytes(diskFile(key.getHash()));
+                diskHitCount++;
+                putInMemory(key.getHash(), bytes);
+                return bytes;
+            } catch (IOException e) {
+                // Plik usunięty lub uszkodzony poza pamięcią podręczną - traktowany jak brak wpisu
+                diskIndex.remove(key.getHash());
+            }
+        }
+
+        missCount++;
+        return null;
+    }
+
+    /**
+     * Zapisuje raport w pamięci podręcznej
+     *
+     * @param key klucz raportu
+     * @param bytes zawartość pliku PDF
+     */
+    public synchronized void put(ReportCacheKey key, byte[] bytes) {
+        putInMemory(key.getHash(), bytes);
+
+        if (diskDirectory != null) {
+            try {
+                Path target = diskFile(key.getHash());
+                Path temp = Files.createTempFile(diskDirectory, key.getHash(), ".tmp");
+                Files.write(temp, bytes);
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                diskIndex.put(key.getHash(), Boolean.TRUE);
+                trimDisk();
+            } catch (IOException e) {
+                // Poziom dyskowy jest tylko optymalizacją - raport pozostaje w pamięci
+                System.err.println("Nie można zapisać raportu w pamięci podręcznej na dysku: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Usuwa wszystkie wpisy z poziomu w pamięci (pliki na dysku pozostają)
+     */
+    public synchronized void clear() {
+        memory.clear();
+        memoryBytes = 0;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getDiskHitCount() {
+        return diskHitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public synchronized int getSize() {
+        return memory.size();
+    }
+
+    public synchronized long getSizeInBytes() {
+        return memoryBytes;
+    }
+
+    private void putInMemory(String hash, byte[] bytes) {
+        if (bytes.length > maxBytes || maxEntries == 0) {
+            return;
+        }
+
+        byte[] previous = memory.put(hash, bytes);
+        if (previous != null) {
+            memoryBytes -= previous.length;
+        }
+        memoryBytes += bytes.length;
+
+        Iterator<Map.Entry<String, byte[]>> eldest = memory.entrySet().iterator();
+        while (memory.size() > maxEntries || memoryBytes > maxBytes) {
+            Map.Entry<String, byte[]> entry = eldest.next();
+            memoryBytes -= entry.getValue().length;
+            eldest.remove();
+            evictionCount++;
+        }
+    }
+
+    private void trimDisk() {
+        Iterator<String> eldest = diskIndex.keySet().iterator();
+        while (diskIndex.size() > maxDiskEntries) {
+            String hash = eldest.next();
+            eldest.remove();
+            try {
+                Files.deleteIfExists(diskFile(hash));
+            } catch (IOException e) {
+                System.err.println("Nie można usunąć pliku z pamięci podręcznej: " + e.getMessage());
+            }
+        }
+    }
+
+    private Path diskFile(String hash) {
+        return diskDirectory.resolve(hash + FILE_SUFFIX);
+    }
+}
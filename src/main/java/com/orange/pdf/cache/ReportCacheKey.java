@@ -0,0 +1,108 @@
+package com.orange.pdf.cache;
+
+import lombok.Getter;
+import org.apache.pdfbox.util.Hex;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Klucz pamięci podręcznej raportów - skrót SHA-256 wszystkich danych wejściowych raportu.
+ * Wartości są dopisywane z długością i znacznikiem null, więc różne dane nie dają tego samego ciągu bajtów.
+ */
+@Getter
+public final class ReportCacheKey {
+
+    private final String hash;
+
+    private ReportCacheKey(String hash) {
+        this.hash = hash;
+    }
+
+    /**
+     * Rozpoczyna budowanie klucza dla raportu danego typu
+     *
+     * @param reportType typ raportu (np. inventory, overdue)
+     * @return builder klucza
+     */
+    public static Builder builder(String reportType) {
+        return new Builder().add(reportType);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ReportCacheKey key && hash.equals(key.hash);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return hash;
+    }
+
+    /**
+     * Builder klucza dopisujący kolejne pola danych wejściowych do skrótu
+     */
+    public static class Builder {
+
+        private final MessageDigest digest;
+
+        private Builder() {
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("Brak algorytmu SHA-256", e);
+            }
+        }
+
+        public Builder add(String value) {
+            if (value == null) {
+                digest.update((byte) 0);
+                return this;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            digest.update((byte) 1);
+            digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+            digest.update(bytes);
+            return this;
+        }
+
+        public Builder add(long value) {
+            digest.update(ByteBuffer.allocate(Long.BYTES).putLong(value).array());
+            return this;
+        }
+
+        public Builder add(LocalDate value) {
+            return add(value != null ? value.toString() : null);
+        }
+
+        public Builder add(Instant value) {
+            return add(value != null ? value.toString() : null);
+        }
+
+        /**
+         * Dopisuje mapę w kolejności iteracji - tej samej, w której jej wpisy trafiają do raportu
+         */
+        public Builder add(Map<String, Integer> values) {
+            add(values.size());
+            for (Map.Entry<String, Integer> entry : values.entrySet()) {
+                add(entry.getKey());
+                add(entry.getValue() != null ? entry.getValue() : -1L);
+            }
+            return this;
+        }
+
+        public ReportCacheKey build() {
+            return new ReportCacheKey(Hex.getString(digest.digest()));
+        }
+    }
+}
@@ -22,6 +22,11 @@ public enum PdfLibraryReportType {
     /**
      * Raport zalegających użytkowników
      */
-    OVERDUE
+    OVERDUE,
+
+    /**
+     * Wezwania do zwrotu książek dla zalegających użytkowników
+     */
+    OVERDUE_NOTICE
 
 }
\ No newline at end of file
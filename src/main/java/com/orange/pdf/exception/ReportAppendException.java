@@ -0,0 +1,11 @@
+package com.orange.pdf.exception;
+
+public class ReportAppendException extends RuntimeException {
+    public ReportAppendException(String message) {
+        super(message);
+    }
+
+    public ReportAppendException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,11 @@
+package com.orange.pdf.exception;
+
+public class ReportMergeException extends RuntimeException {
+    public ReportMergeException(String message) {
+        super(message);
+    }
+
+    public ReportMergeException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
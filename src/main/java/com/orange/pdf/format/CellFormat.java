@@ -0,0 +1,127 @@
+package com.orange.pdf.format;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * Formatowanie liczb i dat w komórkach tabel raportów według polskich ustawień regionalnych.
+ * Zastępuje w pętlach wierszy {@code String.format} i {@code DateTimeFormatter.ofPattern}, które przy każdym
+ * wywołaniu analizują wzorzec i wyszukują ustawienia regionalne. Liczby i daty są zapisywane cyfra po cyfrze
+ * do bufora znaków wątku, a najczęstsze teksty (numery wierszy, dni roku) są zapamiętywane, więc wiersz
+ * tabeli nie tworzy dla nich nowych obiektów. Metody są bezpieczne dla wielu wątków.
+ */
+public final class CellFormat {
+
+    public static final Locale POLISH = Locale.forLanguageTag("pl-PL");
+    // Data w nagłówkach i podpisach raportów (np. 2026-10-19)
+    public static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd", POLISH);
+
+    private static final char DECIMAL_SEPARATOR = ',';
+    // Liczba zapamiętanych tekstów liczb (0 .. CACHED_NUMBERS - 1)
+    private static final int CACHED_NUMBERS = 10_000;
+    // Największa liczba cyfr wartości zapisywanej przez long bez przepełnienia
+    private static final int MAX_LONG_DIGITS = 18;
+    private static final int MAX_FRACTION_DIGITS = 9;
+
+    // Teksty tworzone przy pierwszym użyciu; wyścig wątków najwyżej tworzy ten sam niezmienny tekst dwa razy
+    private static final String[] NUMBERS = new String[CACHED_NUMBERS];
+    private static final String[] DAY_MONTHS = new String[12 * 31];
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[32]);
+
+    private CellFormat() {
+    }
+
+    /**
+     * Zwraca tekst liczby całkowitej; teksty małych nieujemnych liczb (np. numerów wierszy) są zapamiętywane
+     */
+    public static String number(long value) {
+        if (value < 0 || value >= CACHED_NUMBERS) {
+            return Long.toString(value);
+        }
+        String text = NUMBERS[(int) value];
+        if (text == null) {
+            text = Long.toString(value);
+            NUMBERS[(int) value] = text;
+        }
+        return text;
+    }
+
+    /**
+     * Zwraca liczbę dziesiętną z podaną liczbą cyfr po przecinku, zaokrągloną połówkowo w górę,
+     * bez separatora tysięcy - jak {@code String.format(POLISH, "%.2f", value)}
+     *
+     * @param value wartość
+     * @param fractionDigits liczba cyfr po przecinku
+     */
+    public static String decimal(BigDecimal value, int fractionDigits) {
+        BigDecimal rounded = value.setScale(fractionDigits, RoundingMode.HALF_UP);
+        if (rounded.precision() > MAX_LONG_DIGITS || fractionDigits > MAX_FRACTION_DIGITS) {
+            return rounded.toPlainString().replace('.', DECIMAL_SEPARATOR);
+        }
+
+        long unscaled = rounded.unscaledValue().longValue();
+        long rest = Math.abs(unscaled);
+        char[] buffer = BUFFER.get();
+        int position = buffer.length;
+        for (int digit = 0; digit < fractionDigits; digit++) {
+            buffer[--position] = (char) ('0' + rest % 10);
+            rest /= 10;
+        }
+        if (fractionDigits > 0) {
+            buffer[--position] = DECIMAL_SEPARATOR;
+        }
+        do {
+            buffer[--position] = (char) ('0' + rest % 10);
+            rest /= 10;
+        } while (rest > 0);
+        if (unscaled < 0) {
+            buffer[--position] = '-';
+        }
+        return new String(buffer, position, buffer.length - position);
+    }
+
+    /**
+     * Zwraca liczbę dziesiętną typu double z podaną liczbą cyfr po przecinku - jak
+     * {@code String.format(POLISH, "%.1f", value)} dla jednej cyfry
+     *
+     * @param value wartość skończona
+     * @param fractionDigits liczba cyfr po przecinku
+     */
+    public static String decimal(double value, int fractionDigits) {
+        return decimal(BigDecimal.valueOf(value), fractionDigits);
+    }
+
+    /**
+     * Zwraca miesiąc i dzień daty (np. 10-19); teksty wszystkich dni roku są zapamiętywane
+     */
+    public static String dayMonth(LocalDate date) {
+        int index = (date.getMonthValue() - 1) * 31 + date.getDayOfMonth() - 1;
+        String text = DAY_MONTHS[index];
+        if (text == null) {
+            char[] buffer = BUFFER.get();
+            writeTwoDigits(buffer, 0, date.getMonthValue());
+            buffer[2] = '-';
+            writeTwoDigits(buffer, 3, date.getDayOfMonth());
+            text = new String(buffer, 0, 5);
+            DAY_MONTHS[index] = text;
+        }
+        return text;
+    }
+
+    /**
+     * Zwraca miesiąc i dzień chwili w domyślnej strefie czasowej systemu
+     */
+    public static String dayMonth(Instant instant) {
+        return dayMonth(LocalDate.ofInstant(instant, ZoneId.systemDefault()));
+    }
+
+    private static void writeTwoDigits(char[] buffer, int position, int value) {
+        buffer[position] = (char) ('0' + value / 10);
+        buffer[position + 1] = (char) ('0' + value % 10);
+    }
+}
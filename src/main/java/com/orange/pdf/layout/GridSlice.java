@@ -0,0 +1,56 @@
+package com.orange.pdf.layout;
+
+import lombok.Getter;
+
+/**
+ * Fragment tabeli wielokolumnowej (podsumowania) mieszczący się na jednej stronie raportu.
+ * Pozycje wypełniają kolejne grupy kolumn ustawione obok siebie: najpierw pierwszą grupę z góry na dół,
+ * potem następną.
+ */
+@Getter
+public class GridSlice {
+
+    private final int pageIndex;
+    private final float y;
+    private final int firstCell;
+    private final int endCell;
+    private final int rowsPerGroup;
+    private final int groups;
+    private final boolean continuation;
+
+    /**
+     * Konstruktor fragmentu tabeli wielokolumnowej
+     *
+     * @param pageIndex indeks strony (od 0)
+     * @param y pozycja Y, od której rysowany jest fragment (jak w {@link SectionPlacement})
+     * @param firstCell indeks pierwszej pozycji na stronie
+     * @param endCell indeks pierwszej pozycji poza stroną (wyłącznie)
+     * @param rowsPerGroup liczba wierszy danych w grupie kolumn
+     * @param groups liczba grup kolumn obok siebie
+     * @param continuation czy fragment jest kontynuacją z poprzedniej strony
+     */
+    public GridSlice(int pageIndex, float y, int firstCell, int endCell, int rowsPerGroup, int groups,
+                     boolean continuation) {
+        this.pageIndex = pageIndex;
+        this.y = y;
+        this.firstCell = firstCell;
+        this.endCell = endCell;
+        this.rowsPerGroup = rowsPerGroup;
+        this.groups = groups;
+        this.continuation = continuation;
+    }
+
+    /**
+     * Zwraca indeks pierwszej pozycji grupy kolumn
+     */
+    public int getGroupStart(int group) {
+        return Math.min(firstCell + group * rowsPerGroup, endCell);
+    }
+
+    /**
+     * Zwraca indeks pierwszej pozycji poza grupą kolumn (wyłącznie)
+     */
+    public int getGroupEnd(int group) {
+        return Math.min(firstCell + (group + 1) * rowsPerGroup, endCell);
+    }
+}
@@ -0,0 +1,67 @@
+package com.orange.pdf.layout;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wynik planowania układu raportu: podziały stron, położenie sekcji i całkowita liczba stron
+ */
+@Getter
+public class LayoutPlan {
+
+    // Przybliżone koszty w bajtach, zmierzone na raportach generowanych przez buildery
+    private static final long DOCUMENT_OVERHEAD_BYTES = 26_000L;
+    private static final long PAGE_OVERHEAD_BYTES = 700L;
+    private static final long ROW_BYTES = 100L;
+
+    private final float startY;
+    private final int totalPages;
+    private final int rowCount;
+    private final float endY;
+    private final List<TableSlice> tableSlices;
+    private final Map<String, SectionPlacement> sections;
+    private final Map<String, List<GridSlice>> gridSlices;
+
+    LayoutPlan(float startY, int totalPages, int rowCount, float endY, List<TableSlice> tableSlices,
+               Map<String, SectionPlacement> sections, Map<String, List<GridSlice>> gridSlices) {
+        this.startY = startY;
+        this.totalPages = totalPages;
+        this.rowCount = rowCount;
+        this.endY = endY;
+        this.tableSlices = Collections.unmodifiableList(tableSlices);
+        this.sections = Collections.unmodifiableMap(sections);
+        this.gridSlices = Collections.unmodifiableMap(gridSlices);
+    }
+
+    /**
+     * Zwraca położenie sekcji o podanej nazwie
+     *
+     * @param name nazwa sekcji
+     * @return położenie sekcji lub null, jeśli sekcja nie została zaplanowana
+     */
+    public SectionPlacement getSection(String name) {
+        return sections.get(name);
+    }
+
+    /**
+     * Zwraca fragmenty tabeli wielokolumnowej sekcji o podanej nazwie
+     *
+     * @param name nazwa sekcji
+     * @return fragmenty na kolejnych stronach; pusta lista, jeśli sekcja nie jest tabelą wielokolumnową
+     */
+    public List<GridSlice> getGridSlices(String name) {
+        return gridSlices.getOrDefault(name, List.of());
+    }
+
+    /**
+     * Szacuje rozmiar wynikowego pliku PDF bez jego renderowania
+     *
+     * @return przybliżony rozmiar dokumentu w bajtach
+     */
+    public long estimateBytes() {
+        return DOCUMENT_OVERHEAD_BYTES + totalPages * PAGE_OVERHEAD_BYTES + rowCount * ROW_BYTES;
+    }
+}
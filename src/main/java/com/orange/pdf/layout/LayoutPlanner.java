@@ -0,0 +1,280 @@
+package com.orange.pdf.layout;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Planer układu stron raportu.
+ * Wyznacza podziały stron, położenie sekcji i liczbę stron wyłącznie na podstawie rozmiarów danych,
+ * bez rysowania czegokolwiek w dokumencie PDF.
+ */
+public class LayoutPlanner {
+
+    // Najmniejsza liczba wierszy grupy kolumn, poniżej której krótkie podsumowanie nie jest dzielone na grupy
+    private static final int MIN_ROWS_PER_GROUP = 10;
+    // Najmniejsza liczba wierszy fragmentu tabeli wielokolumnowej pozostawionego na dole strony
+    private static final int MIN_GRID_SPLIT_ROWS = 3;
+
+    private final float startY;
+    private final List<TableSlice> tableSlices = new ArrayList<>();
+    private final Map<String, List<GridSlice>> gridSlices = new LinkedHashMap<>();
+    private final Map<String, SectionPlacement> sections = new LinkedHashMap<>();
+    private int pageIndex = 0;
+    private int rowCount = 0;
+    private float currentY;
+
+    /**
+     * Tworzy planer dla stron o podanej początkowej pozycji Y
+     *
+     * @param startY pozycja Y górnej krawędzi obszaru roboczego strony
+     */
+    public LayoutPlanner(float startY) {
+        this.startY = startY;
+        this.currentY = startY;
+    }
+
+    /**
+     * Tworzy planer kontynuujący istniejący układ od podanej strony i pozycji Y
+     *
+     * @param startY pozycja Y górnej krawędzi obszaru roboczego strony
+     * @param pageIndex indeks strony, na której kontynuowany jest układ
+     * @param currentY bieżąca pozycja Y na tej stronie
+     */
+    public LayoutPlanner(float startY, int pageIndex, float currentY) {
+        this.startY = startY;
+        this.pageIndex = pageIndex;
+        this.currentY = currentY;
+    }
+
+    /**
+     * Umieszcza sekcję o stałej wysokości, przenosząc ją na nową stronę jeśli się nie mieści
+     *
+     * @param name nazwa sekcji
+     * @param height wysokość sekcji
+     * @param spaceBefore odstęp przed sekcją
+     * @param spaceAfter odstęp po sekcji
+     * @param minBottomMargin minimalny margines dolny
+     * @return ten sam planer
+     */
+    public LayoutPlanner section(String name, float height, float spaceBefore, float spaceAfter, float minBottomMargin) {
+        if (currentY - spaceBefore - height - spaceAfter < minBottomMargin && currentY < startY) {
+            newPage();
+        }
+
+        float y = currentY - spaceBefore;
+        sections.put(name, new SectionPlacement(name, pageIndex, y, height));
+        currentY = y - height - spaceAfter;
+        return this;
+    }
+
+    /**
+     * Przesuwa bieżącą pozycję w dół bez sprawdzania podziału strony
+     *
+     * @param amount wielkość odstępu
+     * @return ten sam planer
+     */
+    public LayoutPlanner space(float amount) {
+        currentY -= amount;
+        return this;
+    }
+
+    /**
+     * Umieszcza tabelę z nagłówkiem powtarzanym na każdej stronie kontynuacji
+     *
+     * @param rows liczba wierszy danych
+     * @param headerRowHeight wysokość wiersza nagłówka tabeli
+     * @param rowHeight wysokość wiersza danych
+     * @param continuationTopY pozycja Y nagłówka tabeli na stronach kontynuacji
+     * @param minBottomMargin minimalny margines dolny
+     * @return ten sam planer
+     */
+    public LayoutPlanner table(int rows, float headerRowHeight, float rowHeight,
+                               float continuationTopY, float minBottomMargin) {
+        return tableRows(rows, headerRowHeight, headerRowHeight, rowHeight, null, false, continuationTopY, minBottomMargin);
+    }
+
+    /**
+     * Umieszcza tabelę, której nagłówek na stronach kontynuacji ma inną wysokość niż na pierwszej stronie
+     * (np. z dodatkowym wierszem sumy przeniesionej z poprzedniej strony)
+     *
+     * @param firstHeaderRowHeight wysokość nagłówka tabeli na pierwszej stronie
+     * @param headerRowHeight wysokość nagłówka tabeli na stronach kontynuacji
+     * @see #table(int, float, float, float, float)
+     */
+    public LayoutPlanner table(int rows, float firstHeaderRowHeight, float headerRowHeight, float rowHeight,
+                               float continuationTopY, float minBottomMargin) {
+        return tableRows(rows, firstHeaderRowHeight, headerRowHeight, rowHeight, null, false,
+                continuationTopY, minBottomMargin);
+    }
+
+    /**
+     * Umieszcza tabelę o wierszach różnej wysokości (np. z zawiniętym tekstem komórek)
+     * z nagłówkiem powtarzanym na każdej stronie kontynuacji. Wiersz wyższy niż strona
+     * zajmuje osobną stronę i wychodzi poza margines dolny.
+     *
+     * @param rowHeights wysokości kolejnych wierszy danych
+     * @param headerRowHeight wysokość wiersza nagłówka tabeli
+     * @param continuationTopY pozycja Y nagłówka tabeli na stronach kontynuacji
+     * @param minBottomMargin minimalny margines dolny
+     * @return ten sam planer
+     */
+    public LayoutPlanner table(float[] rowHeights, float headerRowHeight, float continuationTopY, float minBottomMargin) {
+        return tableRows(rowHeights.length, headerRowHeight, headerRowHeight, 0f, rowHeights, false,
+                continuationTopY, minBottomMargin);
+    }
+
+    /**
+     * Umieszcza dalszą część tabeli zaczynającą się od bieżącej strony jako strony kontynuacji
+     * (z nagłówkiem na pozycji continuationTopY), np. część tabeli renderowaną osobno i dołączaną
+     * za stronami poprzedniej części. Podział stron jest taki sam jak w tabeli narysowanej w całości,
+     * jeśli poprzednia część kończy się na granicy strony.
+     *
+     * @param rows liczba wierszy części tabeli
+     * @param rowHeights wysokości kolejnych wierszy lub null dla wierszy o wysokości rowHeight
+     * @see #table(int, float, float, float, float)
+     */
+    public LayoutPlanner continuationTable(int rows, float[] rowHeights, float headerRowHeight, float rowHeight,
+                                           float continuationTopY, float minBottomMargin) {
+        return tableRows(rows, headerRowHeight, headerRowHeight, rowHeight, rowHeights, true,
+                continuationTopY, minBottomMargin);
+    }
+
+    /**
+     * Dopisuje wiersze do tabeli, która kończy się w bieżącej pozycji.
+     * Pierwszy fragment nie ma nagłówka (wysokość nagłówka 0), kolejne strony - tak jak w {@link #table}.
+     *
+     * @param rows liczba dopisywanych wierszy
+     * @param headerRowHeight wysokość wiersza nagłówka tabeli na stronach kontynuacji
+     * @param rowHeight wysokość wiersza danych
+     * @param continuationTopY pozycja Y nagłówka tabeli na stronach kontynuacji
+     * @param minBottomMargin minimalny margines dolny
+     * @return ten sam planer
+     */
+    public LayoutPlanner continueTable(int rows, float headerRowHeight, float rowHeight,
+                                       float continuationTopY, float minBottomMargin) {
+        return tableRows(rows, 0f, headerRowHeight, rowHeight, null, false, continuationTopY, minBottomMargin);
+    }
+
+    /**
+     * Dopisuje wiersze różnej wysokości do tabeli, która kończy się w bieżącej pozycji
+     *
+     * @param rowHeights wysokości kolejnych dopisywanych wierszy
+     * @see #continueTable(int, float, float, float, float)
+     */
+    public LayoutPlanner continueTable(float[] rowHeights, float headerRowHeight,
+                                       float continuationTopY, float minBottomMargin) {
+        return tableRows(rowHeights.length, 0f, headerRowHeight, 0f, rowHeights, false,
+                continuationTopY, minBottomMargin);
+    }
+
+    private LayoutPlanner tableRows(int rows, float firstHeaderRowHeight, float headerRowHeight, float rowHeight,
+                                    float[] rowHeights, boolean startsOnContinuation,
+                                    float continuationTopY, float minBottomMargin) {
+        float headerY = startsOnContinuation ? continuationTopY : currentY;
+        float sliceHeaderRowHeight = firstHeaderRowHeight;
+        int firstRow = 0;
+        boolean continuation = startsOnContinuation;
+
+        currentY = headerY - firstHeaderRowHeight;
+
+        for (int row = 0; row < rows; row++) {
+            float height = rowHeights != null ? rowHeights[row] : rowHeight;
+            // Wiersz nie mieszczący się nawet na pustej stronie kontynuacji nie przenosi się dalej
+            if (currentY - height < minBottomMargin && !(continuation && row == firstRow)) {
+                tableSlices.add(new TableSlice(pageIndex, firstRow, row, headerY, sliceHeaderRowHeight, continuation));
+                newPage();
+
+                headerY = continuationTopY;
+                sliceHeaderRowHeight = headerRowHeight;
+                currentY = headerY - headerRowHeight;
+                firstRow = row;
+                continuation = true;
+            }
+            currentY -= height;
+        }
+
+        tableSlices.add(new TableSlice(pageIndex, firstRow, rows, headerY, sliceHeaderRowHeight, continuation));
+        rowCount += rows;
+        return this;
+    }
+
+    /**
+     * Umieszcza tabelę wielokolumnową (np. podsumowanie), której pozycje wypełniają kolejno grupy kolumn
+     * ustawione obok siebie. Krótka tabela ma mniej grup, aby nie rozpraszać kilku pozycji po całej szerokości.
+     * Tabela mieszcząca się na pustej stronie jest w całości przenoszona na nową stronę, dłuższa - dzielona
+     * na fragmenty z nagłówkiem powtarzanym na każdej stronie. Położenie pierwszego fragmentu jest
+     * zapisywane także jako położenie sekcji.
+     *
+     * @param name nazwa sekcji
+     * @param cells liczba pozycji tabeli (z wierszem sumy)
+     * @param maxGroups największa liczba grup kolumn mieszcząca się w szerokości strony
+     * @param leadHeight odległość nagłówka tabeli od pozycji Y fragmentu (miejsce na tytuł sekcji)
+     * @param headerRowHeight wysokość wiersza nagłówka tabeli
+     * @param rowHeight wysokość wiersza danych
+     * @param spaceBefore odstęp przed każdym fragmentem
+     * @param spaceAfter odstęp po tabeli
+     * @param minBottomMargin minimalny margines dolny
+     * @return ten sam planer
+     */
+    public LayoutPlanner grid(String name, int cells, int maxGroups, float leadHeight, float headerRowHeight,
+                              float rowHeight, float spaceBefore, float spaceAfter, float minBottomMargin) {
+        if (cells == 0) {
+            return section(name, 0f, spaceBefore, spaceAfter, minBottomMargin);
+        }
+
+        int groups = Math.max(1, Math.min(maxGroups, ceilDiv(cells, MIN_ROWS_PER_GROUP)));
+        float fixedHeight = spaceBefore + leadHeight + headerRowHeight;
+        int pageRows = (int) ((startY - fixedHeight - minBottomMargin) / rowHeight);
+        List<GridSlice> slices = new ArrayList<>();
+        int placed = 0;
+
+        while (placed < cells) {
+            int remainingRows = ceilDiv(cells - placed, groups);
+            int rowsFit = (int) ((currentY - fixedHeight - minBottomMargin) / rowHeight);
+            boolean fitsOnNewPage = remainingRows <= pageRows;
+            if (currentY < startY && rowsFit < remainingRows && (fitsOnNewPage || rowsFit < MIN_GRID_SPLIT_ROWS)) {
+                newPage();
+                continue;
+            }
+
+            int rows = Math.max(1, Math.min(rowsFit, remainingRows));
+            int count = Math.min(cells - placed, rows * groups);
+            rows = ceilDiv(count, groups);
+            float y = currentY - spaceBefore;
+            GridSlice slice = new GridSlice(pageIndex, y, placed, placed + count, rows, groups, !slices.isEmpty());
+            if (slices.isEmpty()) {
+                sections.put(name, new SectionPlacement(name, pageIndex, y,
+                        leadHeight + headerRowHeight + rows * rowHeight));
+            }
+            slices.add(slice);
+            placed += count;
+            currentY = y - leadHeight - headerRowHeight - rows * rowHeight;
+            if (placed < cells) {
+                newPage();
+            }
+        }
+
+        currentY -= spaceAfter;
+        gridSlices.put(name, slices);
+        return this;
+    }
+
+    private static int ceilDiv(int value, int divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+
+    /**
+     * Zwraca gotowy plan układu
+     */
+    public LayoutPlan plan() {
+        return new LayoutPlan(startY, pageIndex + 1, rowCount, currentY,
+                new ArrayList<>(tableSlices), new LinkedHashMap<>(sections), new LinkedHashMap<>(gridSlices));
+    }
+
+    private void newPage() {
+        pageIndex++;
+        currentY = startY;
+    }
+}
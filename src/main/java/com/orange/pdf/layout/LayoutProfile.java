@@ -0,0 +1,300 @@
+package com.orange.pdf.layout;
+
+import com.orange.pdf.enums.PdfType;
+import com.orange.pdf.exception.InvalidPdfTypeException;
+import lombok.Getter;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDFontDescriptor;
+
+import java.util.Locale;
+
+/**
+ * Profil układu stron raportu: rozmiar strony, marginesy i geometria wierszy tabel.
+ * Profil standardowy odtwarza dotychczasowy układ (A4, margines 30 pt, wiersze 25 pt).
+ * Profil zwarty wylicza wysokość wiersza z metryk fontu tabeli: wysokość linii tekstu
+ * (wznoszenie i obniżenie fontu) plus odstęp nad i pod tekstem.
+ * Z włączonym zawijaniem komórek tekst dłuższy niż kolumna jest dzielony na linie,
+ * a wiersz tabeli jest wyższy o wysokość każdej kolejnej linii.
+ */
+@Getter
+public class LayoutProfile {
+
+    // Szerokość tabeli na stronie A4 z marginesem 30 pt, dla której dobrano szerokości kolumn
+    public static final float REFERENCE_TABLE_WIDTH = PDRectangle.A4.getWidth() - 60f;
+
+    private static final float DEFAULT_MARGIN = 30f;
+    private static final float DEFAULT_ROW_HEIGHT = 25f;
+    private static final float DEFAULT_TEXT_OFFSET = 15f;
+    private static final float DEFAULT_FONT_SIZE = 8f;
+    private static final float DENSE_MARGIN = 20f;
+    private static final float DENSE_CELL_PADDING = 2f;
+    // Wysokość stopki z numerem strony, rysowanej w połowie dolnego marginesu
+    private static final float FOOTER_HEIGHT = 12f;
+    // Najmniejsza szerokość grupy kolumn podsumowania (nazwa i liczba) oraz odstęp między grupami
+    public static final float SUMMARY_GROUP_MIN_WIDTH = 160f;
+    public static final float SUMMARY_GROUP_GAP = 10f;
+    // Metryki dołączonego fontu LiberationSans-Regular (w jednostkach 1/1000 em)
+    private static final float DEFAULT_ASCENT = 905f;
+    private static final float DEFAULT_DESCENT = -212f;
+
+    private final String name;
+    private final PDRectangle pageSize;
+    private float margin;
+    private float fontSize = DEFAULT_FONT_SIZE;
+    // Stała wysokość wiersza; 0 - wysokość wyliczana z metryk fontu i odstępu
+    private float rowHeight;
+    private float cellPadding;
+    private boolean dense;
+    private boolean wrapCells;
+
+    private LayoutProfile(String name, PDRectangle pageSize, float margin) {
+        this.name = name;
+        this.pageSize = pageSize;
+        this.margin = margin;
+    }
+
+    /**
+     * Dotychczasowy układ raportów dla podanego formatu strony
+     */
+    public static LayoutProfile standard(PdfType type) {
+        LayoutProfile profile = new LayoutProfile("standard", pageSizeFor(type), DEFAULT_MARGIN);
+        profile.rowHeight = DEFAULT_ROW_HEIGHT;
+        return profile;
+    }
+
+    public static LayoutProfile standard() {
+        return standard(PdfType.A4);
+    }
+
+    /**
+     * Układ zwarty: mniejsze marginesy i wiersze o wysokości wyliczonej z metryk fontu
+     */
+    public static LayoutProfile dense(PdfType type) {
+        return dense(pageSizeFor(type));
+    }
+
+    /**
+     * Układ zwarty dla strony o dowolnym rozmiarze
+     *
+     * @param pageSize rozmiar strony w punktach
+     */
+    public static LayoutProfile dense(PDRectangle pageSize) {
+        LayoutProfile profile = new LayoutProfile("dense", pageSize, DENSE_MARGIN);
+        profile.cellPadding = DENSE_CELL_PADDING;
+        profile.dense = true;
+        return profile;
+    }
+
+    /**
+     * Dotychczasowy układ dla strony o dowolnym rozmiarze
+     *
+     * @param pageSize rozmiar strony w punktach
+     */
+    public static LayoutProfile custom(PDRectangle pageSize) {
+        LayoutProfile profile = new LayoutProfile("standard", pageSize, DEFAULT_MARGIN);
+        profile.rowHeight = DEFAULT_ROW_HEIGHT;
+        return profile;
+    }
+
+    /**
+     * Zwraca profil o podanej nazwie ('standard' lub 'dense') dla strony o podanym rozmiarze
+     *
+     * @param name nazwa profilu
+     * @param pageSize rozmiar strony: A4, A5 albo &lt;szerokość&gt;x&lt;wysokość&gt; w milimetrach (np. 210x148)
+     */
+    public static LayoutProfile named(String name, String pageSize) {
+        PDRectangle size = parsePageSize(pageSize != null ? pageSize : "A4");
+        return switch (name.toLowerCase(Locale.ROOT)) {
+            case "standard" -> custom(size);
+            case "dense" -> dense(size);
+            default -> throw new IllegalArgumentException("Nieznany profil układu: " + name);
+        };
+    }
+
+    private static PDRectangle parsePageSize(String pageSize) {
+        String upper = pageSize.toUpperCase(Locale.ROOT);
+        if (upper.equals("A4")) {
+            return PDRectangle.A4;
+        }
+        if (upper.equals("A5")) {
+            return PDRectangle.A5;
+        }
+        String[] dimensions = upper.split("X");
+        try {
+            if (dimensions.length == 2) {
+                float width = Float.parseFloat(dimensions[0]) * 72f / 25.4f;
+                float height = Float.parseFloat(dimensions[1]) * 72f / 25.4f;
+                if (width > 0 && height > 0) {
+                    return new PDRectangle(width, height);
+                }
+            }
+        } catch (NumberFormatException e) {
+            // Zgłaszane poniżej
+        }
+        throw new IllegalArgumentException("Nieprawidłowy rozmiar strony: " + pageSize + " (użyj A4, A5 lub <szer>x<wys> w mm)");
+    }
+
+    /**
+     * Zwraca rozmiar strony dla podanego typu dokumentu
+     */
+    public static PDRectangle pageSizeFor(PdfType type) {
+        return switch (type) {
+            case A4 -> PDRectangle.A4;
+            case A5 -> PDRectangle.A5;
+            default -> throw new InvalidPdfTypeException("Type of PdfFile cannot be found!");
+        };
+    }
+
+    public LayoutProfile setMargin(float margin) {
+        if (margin < 0) {
+            throw new IllegalArgumentException("Margines nie może być ujemny: " + margin);
+        }
+        this.margin = margin;
+        return this;
+    }
+
+    public LayoutProfile setFontSize(float fontSize) {
+        this.fontSize = fontSize;
+        return this;
+    }
+
+    /**
+     * Ustawia stałą wysokość wiersza tabel
+     *
+     * @param rowHeight wysokość w punktach lub 0, aby wyliczać ją z metryk fontu
+     * @return ten sam profil
+     */
+    public LayoutProfile setRowHeight(float rowHeight) {
+        this.rowHeight = rowHeight;
+        return this;
+    }
+
+    public LayoutProfile setCellPadding(float cellPadding) {
+        this.cellPadding = cellPadding;
+        return this;
+    }
+
+    /**
+     * Włącza zawijanie tekstu komórek tabel zamiast jego skracania
+     *
+     * @param wrapCells czy dzielić tekst komórek na linie (wiersze o zmiennej wysokości)
+     * @return ten sam profil
+     */
+    public LayoutProfile setWrapCells(boolean wrapCells) {
+        this.wrapCells = wrapCells;
+        return this;
+    }
+
+    /**
+     * Zwraca wysokość wiersza tabeli dla metryk dołączonego fontu
+     */
+    public float rowHeight() {
+        return rowHeight(DEFAULT_ASCENT, DEFAULT_DESCENT);
+    }
+
+    /**
+     * Zwraca wysokość wiersza tabeli dla podanego fontu
+     */
+    public float rowHeight(PDFont font) {
+        return rowHeight(ascent(font), descent(font));
+    }
+
+    private float rowHeight(float ascent, float descent) {
+        if (rowHeight > 0) {
+            return rowHeight;
+        }
+        return (ascent - descent) / 1000f * fontSize + 2 * cellPadding;
+    }
+
+    /**
+     * Zwraca odstęp między liniami tekstu zawiniętej komórki dla podanego fontu
+     */
+    public float lineHeight(PDFont font) {
+        return (ascent(font) - descent(font)) / 1000f * fontSize;
+    }
+
+    /**
+     * Zwraca wysokość wiersza tabeli mieszczącego podaną liczbę linii tekstu
+     */
+    public float rowHeight(PDFont font, int lines) {
+        return rowHeight(font) + (Math.max(1, lines) - 1) * lineHeight(font);
+    }
+
+    /**
+     * Zwraca odległość linii bazowej tekstu od górnej krawędzi wiersza dla podanego fontu
+     */
+    public float textOffset(PDFont font) {
+        if (rowHeight > 0) {
+            // Tekst w stałym wierszu - położenie dotychczasowego układu przeskalowane do wysokości wiersza
+            return rowHeight * DEFAULT_TEXT_OFFSET / DEFAULT_ROW_HEIGHT;
+        }
+        return cellPadding + ascent(font) / 1000f * fontSize;
+    }
+
+    /**
+     * Zwraca minimalną odległość dolnej krawędzi treści od dołu strony
+     *
+     * @param standardBottomMargin odległość używana przez builder w układzie standardowym
+     */
+    public float minBottomMargin(float standardBottomMargin) {
+        return dense ? margin + FOOTER_HEIGHT : standardBottomMargin;
+    }
+
+    /**
+     * Zwraca szerokość tabeli mieszczącej się między marginesami
+     */
+    public float tableWidth() {
+        return pageSize.getWidth() - 2 * margin;
+    }
+
+    /**
+     * Zwraca skalę szerokości kolumn dobranych dla tabeli A4 ({@link #REFERENCE_TABLE_WIDTH})
+     */
+    public float columnScale() {
+        return tableWidth() / REFERENCE_TABLE_WIDTH;
+    }
+
+    /**
+     * Zwraca liczbę grup kolumn podsumowania mieszczących się obok siebie w szerokości tabeli
+     */
+    public int summaryColumnGroups() {
+        return summaryColumnGroups(tableWidth());
+    }
+
+    /**
+     * Zwraca liczbę grup kolumn podsumowania mieszczących się obok siebie w tabeli o podanej szerokości
+     */
+    public static int summaryColumnGroups(float tableWidth) {
+        return Math.max(1, (int) ((tableWidth + SUMMARY_GROUP_GAP) / (SUMMARY_GROUP_MIN_WIDTH + SUMMARY_GROUP_GAP)));
+    }
+
+    /**
+     * Zwraca początkową pozycję Y obszaru roboczego strony
+     */
+    public float startY() {
+        return pageSize.getHeight() - margin;
+    }
+
+    private static float ascent(PDFont font) {
+        PDFontDescriptor descriptor = font != null ? font.getFontDescriptor() : null;
+        return descriptor != null && descriptor.getAscent() > 0 ? descriptor.getAscent() : DEFAULT_ASCENT;
+    }
+
+    private static float descent(PDFont font) {
+        PDFontDescriptor descriptor = font != null ? font.getFontDescriptor() : null;
+        return descriptor != null && descriptor.getDescent() < 0 ? descriptor.getDescent() : DEFAULT_DESCENT;
+    }
+
+    /**
+     * Zwraca opis profilu zawierający wszystkie parametry wpływające na układ stron,
+     * np. do kluczy pamięci podręcznej raportów
+     */
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%s %.1fx%.1f pt, margines %.1f, font %.1f, wiersz %s, odstęp %.1f",
+                name, pageSize.getWidth(), pageSize.getHeight(), margin, fontSize,
+                rowHeight > 0 ? String.format(Locale.ROOT, "%.1f", rowHeight) : "auto", cellPadding)
+                + (wrapCells ? ", zawijanie komórek" : "");
+    }
+}
@@ -0,0 +1,133 @@
+package com.orange.pdf.layout;
+
+import org.apache.pdfbox.pdmodel.font.PDFont;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Podział tekstu komórek tabel na linie mieszczące się w szerokości kolumny, według szerokości glifów fontu.
+ * Wyniki są zapamiętywane dla kombinacji fontu, rozmiaru, szerokości i tekstu, bo te same nazwy autorów
+ * i wydawców powtarzają się w tysiącach wierszy. Pamięć jest czyszczona po przekroczeniu limitu pozycji.
+ * Obiekt nie jest bezpieczny dla wielu wątków - każdy builder ma własny.
+ */
+public class LineBreaker {
+
+    private static final String ELLIPSIS = "...";
+    // Limit zapamiętanych podziałów, po którym pamięć jest czyszczona
+    private static final int MAX_CACHED_TEXTS = 50_000;
+
+    // Klucz zewnętrzny: font, rozmiar, szerokość i limit linii; wewnętrzny: tekst
+    private final Map<String, Map<String, List<String>>> cache = new HashMap<>();
+    private int cachedTexts;
+
+    /**
+     * Dzieli tekst na linie nie szersze niż podana szerokość. Słowa dłuższe niż szerokość są dzielone
+     * między znakami. Jeśli tekst nie mieści się w limicie linii, ostatnia linia kończy się "...".
+     *
+     * @param font font tekstu
+     * @param fontSize rozmiar fontu
+     * @param text tekst komórki; null i pusty tekst dają jedną pustą linię
+     * @param width dostępna szerokość w punktach
+     * @param maxLines największa liczba linii
+     * @return niemodyfikowalna lista linii (co najmniej jedna)
+     * @throws IOException jeśli nie udało się odczytać szerokości glifów
+     */
+    public List<String> breakLines(PDFont font, float fontSize, String text, float width, int maxLines) throws IOException {
+        if (text == null || text.isEmpty()) {
+            return List.of("");
+        }
+
+        String key = font.getName() + '|' + fontSize + '|' + width + '|' + maxLines;
+        Map<String, List<String>> texts = cache.computeIfAbsent(key, k -> new HashMap<>());
+        List<String> lines = texts.get(text);
+        if (lines != null) {
+            return lines;
+        }
+
+        lines = Collections.unmodifiableList(split(font, fontSize, text, width, maxLines));
+        if (cachedTexts >= MAX_CACHED_TEXTS) {
+            clear();
+            texts = cache.computeIfAbsent(key, k -> new HashMap<>());
+        }
+        texts.put(text, lines);
+        cachedTexts++;
+        return lines;
+    }
+
+    /**
+     * Usuwa zapamiętane podziały, np. po zmianie plików fontów
+     */
+    public void clear() {
+        cache.clear();
+        cachedTexts = 0;
+    }
+
+    private static List<String> split(PDFont font, float fontSize, String text, float width, int maxLines) throws IOException {
+        List<String> lines = new ArrayList<>();
+        StringBuilder line = new StringBuilder();
+        float lineWidth = 0f;
+        float spaceWidth = textWidth(font, fontSize, " ");
+
+        for (String word : text.trim().split("\\s+")) {
+            float wordWidth = textWidth(font, fontSize, word);
+            if (line.length() > 0 && lineWidth + spaceWidth + wordWidth <= width) {
+                line.append(' ').append(word);
+                lineWidth += spaceWidth + wordWidth;
+                continue;
+            }
+            if (line.length() > 0) {
+                lines.add(line.toString());
+                line.setLength(0);
+            }
+            // Słowo szersze niż kolumna dzielone między znakami
+            while (wordWidth > width && word.length() > 1) {
+                int end = fittingLength(font, fontSize, word, width);
+                lines.add(word.substring(0, end));
+                word = word.substring(end);
+                wordWidth = textWidth(font, fontSize, word);
+            }
+            line.append(word);
+            lineWidth = wordWidth;
+        }
+        lines.add(line.toString());
+
+        if (lines.size() > maxLines) {
+            List<String> kept = new ArrayList<>(lines.subList(0, maxLines));
+            kept.set(maxLines - 1, ellipsize(font, fontSize, kept.get(maxLines - 1), width));
+            return kept;
+        }
+        return lines;
+    }
+
+    /**
+     * Zwraca długość najdłuższego początku słowa mieszczącego się w szerokości (co najmniej jeden znak)
+     */
+    private static int fittingLength(PDFont font, float fontSize, String word, float width) throws IOException {
+        int end = word.offsetByCodePoints(0, 1);
+        while (end < word.length()) {
+            int next = word.offsetByCodePoints(end, 1);
+            if (textWidth(font, fontSize, word.substring(0, next)) > width) {
+                break;
+            }
+            end = next;
+        }
+        return end;
+    }
+
+    private static String ellipsize(PDFont font, float fontSize, String line, float width) throws IOException {
+        String result = line;
+        while (!result.isEmpty() && textWidth(font, fontSize, result + ELLIPSIS) > width) {
+            result = result.substring(0, result.length() - 1);
+        }
+        return result.stripTrailing() + ELLIPSIS;
+    }
+
+    private static float textWidth(PDFont font, float fontSize, String text) throws IOException {
+        return font.getStringWidth(text) / 1000f * fontSize;
+    }
+}
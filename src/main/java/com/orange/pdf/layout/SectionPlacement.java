@@ -0,0 +1,30 @@
+package com.orange.pdf.layout;
+
+import lombok.Getter;
+
+/**
+ * Położenie sekcji raportu (nagłówka, podsumowania, podpisu) wyznaczone przez planer układu
+ */
+@Getter
+public class SectionPlacement {
+
+    private final String name;
+    private final int pageIndex;
+    private final float y;
+    private final float height;
+
+    /**
+     * Konstruktor położenia sekcji
+     *
+     * @param name nazwa sekcji
+     * @param pageIndex indeks strony (od 0)
+     * @param y pozycja Y, od której rysowana jest sekcja
+     * @param height wysokość sekcji
+     */
+    public SectionPlacement(String name, int pageIndex, float y, float height) {
+        this.name = name;
+        this.pageIndex = pageIndex;
+        this.y = y;
+        this.height = height;
+    }
+}
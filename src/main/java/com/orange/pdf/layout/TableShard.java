@@ -0,0 +1,81 @@
+package com.orange.pdf.layout;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Część tabeli renderowana osobno (np. w innym procesie) i dołączana do pozostałych części.
+ * Część zaczyna się i kończy na granicy strony, więc jej strony są takie same jak w tabeli
+ * narysowanej w całości.
+ */
+@Getter
+public class TableShard {
+
+    private final int index;
+    private final int firstRow;
+    private final int endRow;
+    private final int firstPage;
+    private final int endPage;
+
+    /**
+     * Konstruktor części tabeli
+     *
+     * @param index numer części (od 0)
+     * @param firstRow indeks pierwszego wiersza części
+     * @param endRow indeks pierwszego wiersza poza częścią (wyłącznie)
+     * @param firstPage indeks pierwszej strony części w całym raporcie
+     * @param endPage indeks pierwszej strony poza częścią (wyłącznie)
+     */
+    public TableShard(int index, int firstRow, int endRow, int firstPage, int endPage) {
+        this.index = index;
+        this.firstRow = firstRow;
+        this.endRow = endRow;
+        this.firstPage = firstPage;
+        this.endPage = endPage;
+    }
+
+    /**
+     * Zwraca liczbę wierszy części
+     */
+    public int getRowCount() {
+        return endRow - firstRow;
+    }
+
+    /**
+     * Dzieli tabelę na części o zbliżonej liczbie wierszy, z granicami na granicach stron planu układu.
+     * Tabela o mniejszej liczbie stron niż liczba części jest dzielona na mniej części.
+     *
+     * @param slices fragmenty tabeli na kolejnych stronach, z planu całej tabeli
+     * @param shardCount żądana liczba części
+     * @return kolejne części tabeli (co najmniej jedna)
+     */
+    public static List<TableShard> split(List<TableSlice> slices, int shardCount) {
+        List<TableShard> shards = new ArrayList<>();
+        if (slices.isEmpty()) {
+            return shards;
+        }
+        int rows = slices.get(slices.size() - 1).getEndRow();
+        int firstSlice = 0;
+        for (int shard = 0; shard < shardCount && firstSlice < slices.size(); shard++) {
+            // Ostatni fragment części to ten, po którym liczba wierszy najbliżej osiąga udział części
+            long targetRow = (long) rows * (shard + 1) / shardCount;
+            int lastSlice = firstSlice;
+            while (lastSlice + 1 < slices.size()
+                    && Math.abs(slices.get(lastSlice + 1).getEndRow() - targetRow)
+                    <= Math.abs(slices.get(lastSlice).getEndRow() - targetRow)) {
+                lastSlice++;
+            }
+            if (shard == shardCount - 1) {
+                lastSlice = slices.size() - 1;
+            }
+            TableSlice first = slices.get(firstSlice);
+            TableSlice last = slices.get(lastSlice);
+            shards.add(new TableShard(shards.size(), first.getFirstRow(), last.getEndRow(),
+                    first.getPageIndex(), last.getPageIndex() + 1));
+            firstSlice = lastSlice + 1;
+        }
+        return shards;
+    }
+}
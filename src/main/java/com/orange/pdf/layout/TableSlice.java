@@ -0,0 +1,50 @@
+package com.orange.pdf.layout;
+
+import lombok.Getter;
+
+/**
+ * Fragment tabeli mieszczący się na jednej stronie raportu
+ */
+@Getter
+public class TableSlice {
+
+    private final int pageIndex;
+    private final int firstRow;
+    private final int endRow;
+    private final float headerY;
+    private final float headerRowHeight;
+    private final boolean continuation;
+
+    /**
+     * Konstruktor fragmentu tabeli
+     *
+     * @param pageIndex indeks strony (od 0)
+     * @param firstRow indeks pierwszego wiersza na stronie
+     * @param endRow indeks pierwszego wiersza poza stroną (wyłącznie)
+     * @param headerY pozycja Y nagłówka tabeli
+     * @param headerRowHeight wysokość wiersza nagłówka
+     * @param continuation czy fragment jest kontynuacją z poprzedniej strony
+     */
+    public TableSlice(int pageIndex, int firstRow, int endRow, float headerY, float headerRowHeight, boolean continuation) {
+        this.pageIndex = pageIndex;
+        this.firstRow = firstRow;
+        this.endRow = endRow;
+        this.headerY = headerY;
+        this.headerRowHeight = headerRowHeight;
+        this.continuation = continuation;
+    }
+
+    /**
+     * Zwraca liczbę wierszy na stronie
+     */
+    public int getRowCount() {
+        return endRow - firstRow;
+    }
+
+    /**
+     * Zwraca pozycję Y pierwszego wiersza danych
+     */
+    public float getFirstRowY() {
+        return headerY - headerRowHeight;
+    }
+}
@@ -0,0 +1,169 @@
+package com.orange.pdf.memory;
+
+import org.apache.pdfbox.io.RandomAccess;
+import org.apache.pdfbox.io.RandomAccessReadView;
+import org.apache.pdfbox.io.RandomAccessStreamCache;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fabryka pamięci podręcznej strumieni jednego dokumentu zgodna z {@link PdfMemoryPolicy},
+ * śledząca bieżący i największy łączny rozmiar buforów strumieni.
+ * Na tej podstawie szacowana jest liczba bajtów, które trafiły do pliku tymczasowego:
+ * PDFBox zapełnia najpierw strony w pamięci, a dopiero po przekroczeniu limitu - strony pliku.
+ */
+public class DocumentBufferUsage implements RandomAccessStreamCache.StreamCacheCreateFunction {
+
+    private final PdfMemoryPolicy policy;
+    private final AtomicLong liveBytes = new AtomicLong();
+    private final AtomicLong peakBytes = new AtomicLong();
+
+    DocumentBufferUsage(PdfMemoryPolicy policy) {
+        this.policy = policy;
+    }
+
+    @Override
+    public RandomAccessStreamCache create() throws IOException {
+        return new TrackingStreamCache(policy.toMemoryUsageSetting().streamCache.create());
+    }
+
+    public PdfMemoryPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Zwraca największy łączny rozmiar buforów strumieni dokumentu w bajtach
+     */
+    public long getPeakBytes() {
+        return peakBytes.get();
+    }
+
+    /**
+     * Zwraca szacowaną liczbę bajtów buforów zapisanych w pliku tymczasowym
+     */
+    public long getSpilledBytes() {
+        return switch (policy.getMode()) {
+            case MAIN_MEMORY_ONLY -> 0;
+            case TEMP_FILE_ONLY -> peakBytes.get();
+            case MIXED -> Math.max(0, peakBytes.get() - policy.getMaxMainMemoryBytes());
+        };
+    }
+
+    private void grow(long bytes) {
+        if (bytes != 0) {
+            peakBytes.accumulateAndGet(liveBytes.addAndGet(bytes), Math::max);
+        }
+    }
+
+    private class TrackingStreamCache implements RandomAccessStreamCache {
+
+        private final RandomAccessStreamCache delegate;
+
+        TrackingStreamCache(RandomAccessStreamCache delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public RandomAccess createBuffer() throws IOException {
+            return new TrackingBuffer(delegate.createBuffer());
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+
+    /**
+     * Bufor przekazujący wszystkie operacje dalej i zgłaszający zmiany swojej długości
+     */
+    private class TrackingBuffer implements RandomAccess {
+
+        private final RandomAccess delegate;
+        private long length;
+
+        TrackingBuffer(RandomAccess delegate) {
+            this.delegate = delegate;
+        }
+
+        private void updateLength() throws IOException {
+            long current = delegate.length();
+            grow(current - length);
+            length = current;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            updateLength();
+        }
+
+        @Override
+        public void write(byte[] b) throws IOException {
+            delegate.write(b);
+            updateLength();
+        }
+
+        @Override
+        public void write(byte[] b, int offset, int length) throws IOException {
+            delegate.write(b, offset, length);
+            updateLength();
+        }
+
+        @Override
+        public void clear() throws IOException {
+            delegate.clear();
+            updateLength();
+        }
+
+        @Override
+        public int read() throws IOException {
+            return delegate.read();
+        }
+
+        @Override
+        public int read(byte[] b, int offset, int length) throws IOException {
+            return delegate.read(b, offset, length);
+        }
+
+        @Override
+        public long getPosition() throws IOException {
+            return delegate.getPosition();
+        }
+
+        @Override
+        public void seek(long position) throws IOException {
+            delegate.seek(position);
+        }
+
+        @Override
+        public long length() throws IOException {
+            return delegate.length();
+        }
+
+        @Override
+        public boolean isClosed() {
+            return delegate.isClosed();
+        }
+
+        @Override
+        public boolean isEOF() throws IOException {
+            return delegate.isEOF();
+        }
+
+        @Override
+        public RandomAccessReadView createView(long startPosition, long streamLength) throws IOException {
+            return delegate.createView(startPosition, streamLength);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!delegate.isClosed()) {
+                grow(-length);
+                length = 0;
+            }
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.orange.pdf.memory;
+
+import lombok.Getter;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Polityka pamięci buforów dokumentu PDF: strumienie tylko w pamięci, tylko w pliku tymczasowym
+ * albo w pamięci do podanego limitu, a powyżej niego w pliku tymczasowym w katalogu roboczym.
+ */
+@Getter
+public class PdfMemoryPolicy {
+
+    public enum Mode {
+        MAIN_MEMORY_ONLY,
+        TEMP_FILE_ONLY,
+        MIXED
+    }
+
+    private final Mode mode;
+    private final long maxMainMemoryBytes;
+    // Katalog plików tymczasowych; null - katalog java.io.tmpdir
+    private Path scratchDirectory;
+
+    private PdfMemoryPolicy(Mode mode, long maxMainMemoryBytes) {
+        this.mode = mode;
+        this.maxMainMemoryBytes = maxMainMemoryBytes;
+    }
+
+    /**
+     * Wszystkie bufory w pamięci - dotychczasowe zachowanie {@code new PDDocument()}
+     */
+    public static PdfMemoryPolicy mainMemoryOnly() {
+        return new PdfMemoryPolicy(Mode.MAIN_MEMORY_ONLY, -1);
+    }
+
+    /**
+     * Wszystkie bufory w pliku tymczasowym
+     */
+    public static PdfMemoryPolicy tempFileOnly() {
+        return new PdfMemoryPolicy(Mode.TEMP_FILE_ONLY, 0);
+    }
+
+    /**
+     * Bufory w pamięci do podanego limitu, powyżej niego w pliku tymczasowym
+     *
+     * @param maxMainMemoryBytes limit pamięci buforów jednego dokumentu w bajtach
+     */
+    public static PdfMemoryPolicy mixed(long maxMainMemoryBytes) {
+        if (maxMainMemoryBytes <= 0) {
+            throw new IllegalArgumentException("Limit pamięci musi być dodatni: " + maxMainMemoryBytes);
+        }
+        return new PdfMemoryPolicy(Mode.MIXED, maxMainMemoryBytes);
+    }
+
+    public static PdfMemoryPolicy defaults() {
+        return mainMemoryOnly();
+    }
+
+    /**
+     * Zwraca politykę o podanej nazwie: memory, file albo mixed:&lt;limit&gt;,
+     * gdzie limit to liczba bajtów z opcjonalnym przyrostkiem k, m lub g (np. mixed:64m)
+     */
+    public static PdfMemoryPolicy named(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        if (lower.startsWith("mixed:")) {
+            return mixed(parseBytes(lower.substring("mixed:".length())));
+        }
+        return switch (lower) {
+            case "memory" -> mainMemoryOnly();
+            case "file" -> tempFileOnly();
+            default -> throw new IllegalArgumentException("Nieznana polityka pamięci: " + name);
+        };
+    }
+
+    private static long parseBytes(String value) {
+        long multiplier = switch (value.isEmpty() ? ' ' : value.charAt(value.length() - 1)) {
+            case 'k' -> 1L << 10;
+            case 'm' -> 1L << 20;
+            case 'g' -> 1L << 30;
+            default -> 1;
+        };
+        String digits = multiplier == 1 ? value : value.substring(0, value.length() - 1);
+        try {
+            return Long.parseLong(digits) * multiplier;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Nieprawidłowy limit pamięci: " + value);
+        }
+    }
+
+    /**
+     * Ustawia katalog plików tymczasowych
+     *
+     * @param scratchDirectory katalog lub null, aby użyć java.io.tmpdir
+     * @return ta sama polityka
+     */
+    public PdfMemoryPolicy setScratchDirectory(Path scratchDirectory) {
+        this.scratchDirectory = scratchDirectory;
+        return this;
+    }
+
+    /**
+     * Tworzy licznik buforów nowego dokumentu, przekazywany do PDFBox jako fabryka pamięci podręcznej strumieni
+     */
+    public DocumentBufferUsage newBufferUsage() {
+        return new DocumentBufferUsage(this);
+    }
+
+    /**
+     * Zwraca ustawienia pamięci PDFBox odpowiadające polityce
+     */
+    public MemoryUsageSetting toMemoryUsageSetting() {
+        MemoryUsageSetting setting = switch (mode) {
+            case MAIN_MEMORY_ONLY -> MemoryUsageSetting.setupMainMemoryOnly();
+            case TEMP_FILE_ONLY -> MemoryUsageSetting.setupTempFileOnly();
+            case MIXED -> MemoryUsageSetting.setupMixed(maxMainMemoryBytes);
+        };
+        if (scratchDirectory != null) {
+            setting.setTempDir(scratchDirectory.toFile());
+        }
+        return setting;
+    }
+
+    @Override
+    public String toString() {
+        return switch (mode) {
+            case MAIN_MEMORY_ONLY -> "memory";
+            case TEMP_FILE_ONLY -> "file";
+            case MIXED -> "mixed:" + maxMainMemoryBytes;
+        };
+    }
+}
@@ -0,0 +1,51 @@
+package com.orange.pdf.merge;
+
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.multipdf.PDFCloneUtility;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Kopiuje obiekty jednego dokumentu źródłowego do dokumentu wynikowego łączenia, zastępując kopie strumieni
+ * identycznymi strumieniami skopiowanymi wcześniej (także z innych dokumentów źródłowych).
+ * PDFBox kopiuje zawartość słowników i tablic przez tę samą metodę, więc zastępowane są strumienie
+ * na każdym poziomie: pliki fontów, mapy ToUnicode, obrazy i form XObjecty.
+ * <p>
+ * Jedna instancja obsługuje jeden dokument źródłowy - mapa kopii PDFBox odwołuje się do obiektów źródła,
+ * więc po zamknięciu źródła instancja jest porzucana, a wspólny pozostaje tylko {@link StreamIndex}.
+ */
+class DeduplicatingCloner extends PDFCloneUtility {
+
+    private final StreamIndex streamIndex;
+    // Kopie strumieni zastąpione wcześniejszymi identycznymi kopiami; PDFBox zwraca je ponownie
+    // przy kolejnych odwołaniach do tego samego obiektu źródła
+    private final Map<COSStream, COSStream> replacedCopies = new IdentityHashMap<>();
+
+    DeduplicatingCloner(PDDocument destination, StreamIndex streamIndex) {
+        super(destination);
+        this.streamIndex = streamIndex;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends COSBase> T cloneForNewDocument(T base) throws IOException {
+        T copy = super.cloneForNewDocument(base);
+        if (!(copy instanceof COSStream stream)) {
+            return copy;
+        }
+        COSStream replacement = replacedCopies.get(stream);
+        if (replacement == null) {
+            replacement = streamIndex.canonical(stream);
+            if (replacement != stream) {
+                replacedCopies.put(stream, replacement);
+                // Dane zastąpionej kopii nie trafią do pliku - zwolnienie bufora
+                stream.close();
+            }
+        }
+        return (T) replacement;
+    }
+}
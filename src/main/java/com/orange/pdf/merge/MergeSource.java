@@ -0,0 +1,36 @@
+package com.orange.pdf.merge;
+
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Dokument źródłowy łączenia raportów: ścieżka pliku PDF i tytuł jego pozycji w konspekcie dokumentu wynikowego
+ */
+@Getter
+public class MergeSource {
+
+    private final String path;
+    private final String title;
+
+    /**
+     * @param path ścieżka pliku PDF
+     * @param title tytuł pozycji konspektu
+     */
+    public MergeSource(String path, String title) {
+        this.path = path;
+        this.title = title;
+    }
+
+    /**
+     * Tworzy źródło z tytułem pozycji konspektu równym nazwie pliku bez rozszerzenia .pdf
+     */
+    public static MergeSource of(String path) {
+        String fileName = Path.of(path).getFileName().toString();
+        if (fileName.toLowerCase(Locale.ROOT).endsWith(".pdf")) {
+            fileName = fileName.substring(0, fileName.length() - ".pdf".length());
+        }
+        return new MergeSource(path, fileName);
+    }
+}
@@ -0,0 +1,134 @@
+package com.orange.pdf.merge;
+
+import com.orange.pdf.exception.ReportMergeException;
+import com.orange.pdf.memory.PdfMemoryPolicy;
+import com.orange.pdf.output.PageContentCompressor;
+import com.orange.pdf.output.PdfSaveOptions;
+import lombok.Getter;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PageMode;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.destination.PDPageFitDestination;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDDocumentOutline;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Łączy raporty PDF (np. raporty inwentaryzacyjne filii) w jeden dokument z pozycją konspektu dla każdego raportu.
+ * <p>
+ * Dokumenty źródłowe są otwierane pojedynczo: strony źródła są kopiowane do dokumentu wynikowego,
+ * a źródło jest zamykane przed otwarciem następnego. Dane strumieni kopii trafiają do buforów dokumentu
+ * wynikowego zgodnych z polityką pamięci, więc przy polityce 'file' lub 'mixed' sterta nie rośnie
+ * z rozmiarem danych łączonych raportów. Identyczne strumienie (pliki fontów, obrazy, form XObjecty)
+ * z różnych źródeł są zapisywane raz.
+ */
+@Getter
+public class PdfMerger {
+
+    private PdfMemoryPolicy memoryPolicy = PdfMemoryPolicy.defaults();
+    private PdfSaveOptions saveOptions = PdfSaveOptions.defaults();
+
+    // Statystyki ostatniego łączenia
+    private int pageCount;
+    private int streamCount;
+    private int duplicateStreamCount;
+    private long duplicateStreamBytes;
+
+    public PdfMerger setMemoryPolicy(PdfMemoryPolicy memoryPolicy) {
+        this.memoryPolicy = memoryPolicy;
+        return this;
+    }
+
+    public PdfMerger setSaveOptions(PdfSaveOptions saveOptions) {
+        this.saveOptions = saveOptions;
+        return this;
+    }
+
+    /**
+     * Łączy dokumenty źródłowe w podanej kolejności i zapisuje wynik
+     *
+     * @param sources dokumenty źródłowe z tytułami pozycji konspektu
+     * @param outputPath ścieżka pliku wynikowego (inna niż ścieżki źródeł)
+     * @throws ReportMergeException gdy nie udało się wczytać źródła lub zapisać wyniku
+     */
+    public void merge(List<MergeSource> sources, String outputPath) {
+        if (sources.isEmpty()) {
+            throw new IllegalArgumentException("Brak dokumentów do połączenia");
+        }
+
+        StreamIndex streamIndex = new StreamIndex();
+        pageCount = 0;
+        try (PDDocument destination = new PDDocument(memoryPolicy.newBufferUsage())) {
+            PDDocumentOutline outline = new PDDocumentOutline();
+            for (MergeSource source : sources) {
+                appendSource(destination, source, streamIndex, outline);
+            }
+            destination.getDocumentCatalog().setDocumentOutline(outline);
+            destination.getDocumentCatalog().setPageMode(PageMode.USE_OUTLINES);
+
+            PageContentCompressor.compress(destination, saveOptions);
+            destination.save(outputPath, saveOptions.toCompressParameters());
+        } catch (IOException e) {
+            throw new ReportMergeException("Nie udało się zapisać połączonego raportu " + outputPath + ": " + e.getMessage(), e);
+        }
+
+        streamCount = streamIndex.getStreamCount();
+        duplicateStreamCount = streamIndex.getDuplicateCount();
+        duplicateStreamBytes = streamIndex.getDuplicateBytes();
+    }
+
+    /**
+     * Kopiuje strony jednego dokumentu źródłowego na koniec dokumentu wynikowego i dodaje pozycję konspektu
+     * wskazującą pierwszą z nich
+     */
+    private void appendSource(PDDocument destination, MergeSource source, StreamIndex streamIndex,
+                              PDDocumentOutline outline) {
+        try (PDDocument document = Loader.loadPDF(new File(source.getPath()), null, null, null,
+                memoryPolicy.newBufferUsage())) {
+            // Drzewo stron źródła nie jest kopiowane: atrybuty dziedziczone trafiają do stron,
+            // a odwołania do rodzica są usuwane, zanim kopiowanie zacznie podążać za odwołaniami
+            List<COSDictionary> pages = new ArrayList<>();
+            for (PDPage page : document.getPages()) {
+                page.setResources(page.getResources());
+                page.setMediaBox(page.getMediaBox());
+                page.setCropBox(page.getCropBox());
+                if (page.getRotation() != 0) {
+                    page.setRotation(page.getRotation());
+                }
+                pages.add(page.getCOSObject());
+            }
+            for (COSDictionary page : pages) {
+                page.removeItem(COSName.PARENT);
+            }
+
+            DeduplicatingCloner cloner = new DeduplicatingCloner(destination, streamIndex);
+            PDPage firstPage = null;
+            for (COSDictionary page : pages) {
+                PDPage copy = new PDPage(cloner.cloneForNewDocument(page));
+                destination.addPage(copy);
+                if (firstPage == null) {
+                    firstPage = copy;
+                }
+            }
+            pageCount += pages.size();
+
+            if (firstPage != null) {
+                PDPageFitDestination pageDestination = new PDPageFitDestination();
+                pageDestination.setPage(firstPage);
+                PDOutlineItem item = new PDOutlineItem();
+                item.setTitle(source.getTitle());
+                item.setDestination(pageDestination);
+                outline.addLast(item);
+            }
+        } catch (IOException e) {
+            throw new ReportMergeException("Nie udało się dołączyć raportu " + source.getPath() + ": " + e.getMessage(), e);
+        }
+    }
+}
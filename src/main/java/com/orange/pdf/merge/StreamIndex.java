@@ -0,0 +1,173 @@
+package com.orange.pdf.merge;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSNull;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.cos.COSString;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indeks strumieni skopiowanych do dokumentu wynikowego łączenia, wspólny dla wszystkich dokumentów źródłowych.
+ * Strumień jest identyfikowany przez skrót SHA-256 surowych (zakodowanych) danych i zawartość słownika;
+ * strumienie w słowniku są reprezentowane przez numer ich kopii w indeksie, więc fonty i form XObjecty
+ * z identycznymi danymi i zasobami są rozpoznawane jako ten sam strumień.
+ * Indeks przechowuje tylko skróty i odwołania do kopii, a nie dane strumieni.
+ */
+class StreamIndex {
+
+    // Głębokość zagnieżdżenia słowników, powyżej której strumień nie jest porównywany (np. przy cyklu odwołań)
+    private static final int MAX_DEPTH = 32;
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Map<String, COSStream> streamsByKey = new HashMap<>();
+    // Numery strumieni pozostawionych w dokumencie wynikowym
+    private final Map<COSStream, Integer> streamIds = new IdentityHashMap<>();
+    private final MessageDigest digest;
+
+    private int duplicateCount;
+    private long duplicateBytes;
+
+    StreamIndex() {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Brak algorytmu SHA-256", e);
+        }
+    }
+
+    /**
+     * Zwraca strumień, który ma zastąpić kopię w dokumencie wynikowym: wcześniejszą identyczną kopię
+     * albo samą kopię, która od tej chwili jest w indeksie
+     *
+     * @param copy kopia strumienia w dokumencie wynikowym, z kopiami strumieni słownika już zastąpionymi
+     */
+    COSStream canonical(COSStream copy) throws IOException {
+        if (streamIds.containsKey(copy)) {
+            return copy;
+        }
+        String key = key(copy);
+        if (key != null) {
+            COSStream existing = streamsByKey.get(key);
+            if (existing != null) {
+                duplicateCount++;
+                duplicateBytes += copy.getLength();
+                return existing;
+            }
+            streamsByKey.put(key, copy);
+        }
+        streamIds.put(copy, streamIds.size());
+        return copy;
+    }
+
+    /**
+     * Zwraca liczbę strumieni pozostawionych w dokumencie wynikowym
+     */
+    int getStreamCount() {
+        return streamIds.size();
+    }
+
+    /**
+     * Zwraca liczbę kopii strumieni zastąpionych wcześniejszymi identycznymi kopiami
+     */
+    int getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    /**
+     * Zwraca łączny rozmiar surowych danych zastąpionych kopii strumieni w bajtach
+     */
+    long getDuplicateBytes() {
+        return duplicateBytes;
+    }
+
+    /**
+     * Zwraca klucz strumienia lub null, jeśli strumienia nie da się porównać z innymi
+     */
+    private String key(COSStream stream) throws IOException {
+        StringBuilder key = new StringBuilder();
+        if (!appendDictionary(key, stream, 0)) {
+            return null;
+        }
+        digest.reset();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = stream.createRawInputStream()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return key.append('#').append(HexFormat.of().formatHex(digest.digest())).toString();
+    }
+
+    private boolean appendValue(StringBuilder key, COSBase value, int depth) {
+        if (depth > MAX_DEPTH) {
+            return false;
+        }
+        if (value instanceof COSObject object) {
+            return appendValue(key, object.getObject(), depth + 1);
+        }
+        if (value instanceof COSStream stream) {
+            // Strumień spoza indeksu to kopia w trakcie tworzenia (cykl odwołań) - bez porównywania
+            Integer id = streamIds.get(stream);
+            if (id == null) {
+                return false;
+            }
+            key.append('@').append(id);
+            return true;
+        }
+        if (value instanceof COSDictionary dictionary) {
+            return appendDictionary(key, dictionary, depth + 1);
+        }
+        if (value instanceof COSArray array) {
+            key.append('[');
+            for (COSBase item : array) {
+                if (!appendValue(key, item, depth + 1)) {
+                    return false;
+                }
+                key.append(' ');
+            }
+            key.append(']');
+            return true;
+        }
+        if (value instanceof COSName name) {
+            key.append('/').append(name.getName());
+        } else if (value instanceof COSString string) {
+            key.append('<').append(string.toHexString()).append('>');
+        } else if (value == null || value instanceof COSNull) {
+            key.append("null");
+        } else {
+            key.append(value);
+        }
+        return true;
+    }
+
+    private boolean appendDictionary(StringBuilder key, COSDictionary dictionary, int depth) {
+        // Kolejność kluczy słownika nie ma znaczenia
+        List<COSName> names = new ArrayList<>(dictionary.keySet());
+        names.sort(null);
+        key.append("<<");
+        for (COSName name : names) {
+            key.append('/').append(name.getName()).append(' ');
+            if (!appendValue(key, dictionary.getItem(name), depth)) {
+                return false;
+            }
+            key.append(' ');
+        }
+        key.append(">>");
+        return true;
+    }
+}
@@ -0,0 +1,34 @@
+package com.orange.pdf.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Zdarzenie JFR obejmujące rysowanie jednej strony - od utworzenia jej strumienia treści do jego zamknięcia
+ */
+@Name("com.orange.pdf.PageRendered")
+@Label("Page Rendered")
+@Category({"Orange PDF", "Report"})
+@Description("Rysowanie treści jednej strony raportu")
+public class PageRenderedEvent extends Event {
+
+    @Label("Report Type")
+    String reportType;
+
+    @Label("Page Number")
+    int pageNumber;
+
+    /**
+     * Kończy pomiar i zapisuje zdarzenie w nagraniu
+     */
+    public void commit(String reportType, int pageNumber) {
+        if (shouldCommit()) {
+            this.reportType = reportType;
+            this.pageNumber = pageNumber;
+            commit();
+        }
+    }
+}
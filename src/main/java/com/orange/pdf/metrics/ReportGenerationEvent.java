@@ -0,0 +1,61 @@
+package com.orange.pdf.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Zdarzenie JFR obejmujące całe generowanie raportu - od przygotowania danych do zapisu pliku.
+ * Gdy zdarzenie nie jest włączone w nagraniu, {@link #commit(ReportStatistics)} nie wykonuje żadnej pracy.
+ */
+@Name("com.orange.pdf.ReportGeneration")
+@Label("Report Generation")
+@Category({"Orange PDF", "Report"})
+@Description("Generowanie raportu PDF od przygotowania danych do zapisu")
+public class ReportGenerationEvent extends Event {
+
+    @Label("Report Type")
+    String reportType;
+
+    @Label("Rows")
+    long rows;
+
+    @Label("Pages")
+    int pages;
+
+    @Label("Output Size")
+    @DataAmount
+    long outputBytes;
+
+    @Label("From Cache")
+    @Description("Raport skopiowany z pamięci podręcznej zamiast renderowania")
+    boolean cached;
+
+    /**
+     * Uzupełnia pola zdarzenia statystykami raportu i zapisuje je w nagraniu
+     */
+    public void commit(ReportStatistics statistics) {
+        if (shouldCommit()) {
+            reportType = statistics.getReportType();
+            rows = statistics.getRows();
+            pages = statistics.getPages();
+            outputBytes = statistics.getOutputBytes();
+            commit();
+        }
+    }
+
+    /**
+     * Zapisuje zdarzenie raportu pobranego z pamięci podręcznej
+     */
+    public void commitCached(String reportType, long outputBytes) {
+        if (shouldCommit()) {
+            this.reportType = reportType;
+            this.outputBytes = outputBytes;
+            this.cached = true;
+            commit();
+        }
+    }
+}
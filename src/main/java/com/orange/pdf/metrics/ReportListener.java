@@ -0,0 +1,30 @@
+package com.orange.pdf.metrics;
+
+/**
+ * Odbiorca statystyk generowania raportów, rejestrowany w builderach i serwisach.
+ * Wywoływany raz na raport, po zapisie dokumentu, w wątku generującym raport.
+ */
+public interface ReportListener {
+
+    /**
+     * Odbiorca ignorujący statystyki; builder nie zlicza wtedy operatorów tekstu
+     */
+    ReportListener NONE = statistics -> {
+    };
+
+    /**
+     * Wywoływane po zapisaniu raportu
+     *
+     * @param statistics czasy faz i liczniki raportu
+     */
+    void reportCompleted(ReportStatistics statistics);
+
+    /**
+     * Wywoływane, gdy zapis raportu się nie powiódł
+     *
+     * @param statistics czasy faz i liczniki zebrane do chwili błędu
+     * @param error przyczyna błędu
+     */
+    default void reportFailed(ReportStatistics statistics, Exception error) {
+    }
+}
@@ -0,0 +1,145 @@
+package com.orange.pdf.metrics;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Domyślny odbiorca statystyk sumujący czasy faz i liczniki wszystkich raportów.
+ * Aktualizacja nie alokuje obiektów i nie blokuje wątków (liczniki {@link LongAdder}),
+ * więc może być włączony na stałe, także przy równoległym generowaniu raportów.
+ */
+public class ReportMetrics implements ReportListener {
+
+    private static final ReportPhase[] PHASES = ReportPhase.values();
+
+    private final LongAdder[] phaseNanos = new LongAdder[PHASES.length];
+    private final LongAdder reports = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder pages = new LongAdder();
+    private final LongAdder textOperations = new LongAdder();
+    private final LongAdder outputBytes = new LongAdder();
+    private final LongAdder spilledBytes = new LongAdder();
+    private final LongAdder spilledReports = new LongAdder();
+    private final LongAccumulator peakBufferedBytes = new LongAccumulator(Math::max, 0);
+
+    public ReportMetrics() {
+        for (int i = 0; i < phaseNanos.length; i++) {
+            phaseNanos[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void reportCompleted(ReportStatistics statistics) {
+        reports.increment();
+        record(statistics);
+    }
+
+    @Override
+    public void reportFailed(ReportStatistics statistics, Exception error) {
+        failures.increment();
+        record(statistics);
+    }
+
+    private void record(ReportStatistics statistics) {
+        for (int i = 0; i < phaseNanos.length; i++) {
+            phaseNanos[i].add(statistics.getPhaseNanos(PHASES[i]));
+        }
+        rows.add(statistics.getRows());
+        pages.add(statistics.getPages());
+        textOperations.add(statistics.getTextOperations());
+        outputBytes.add(statistics.getOutputBytes());
+        peakBufferedBytes.accumulate(statistics.getBufferedBytes());
+        if (statistics.getSpilledBytes() > 0) {
+            spilledBytes.add(statistics.getSpilledBytes());
+            spilledReports.increment();
+        }
+    }
+
+    public long getReportCount() {
+        return reports.sum();
+    }
+
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    /**
+     * Zwraca łączny czas fazy wszystkich raportów w nanosekundach
+     */
+    public long getPhaseNanos(ReportPhase phase) {
+        return phaseNanos[phase.ordinal()].sum();
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public long getPages() {
+        return pages.sum();
+    }
+
+    public long getTextOperations() {
+        return textOperations.sum();
+    }
+
+    public long getOutputBytes() {
+        return outputBytes.sum();
+    }
+
+    /**
+     * Zwraca łączną szacowaną liczbę bajtów buforów zapisanych w plikach tymczasowych
+     */
+    public long getSpilledBytes() {
+        return spilledBytes.sum();
+    }
+
+    /**
+     * Zwraca liczbę raportów, których bufory nie zmieściły się w pamięci
+     */
+    public long getSpilledReportCount() {
+        return spilledReports.sum();
+    }
+
+    /**
+     * Zwraca największy rozmiar buforów strumieni pojedynczego dokumentu
+     */
+    public long getPeakBufferedBytes() {
+        return peakBufferedBytes.get();
+    }
+
+    /**
+     * Zeruje wszystkie liczniki
+     */
+    public void reset() {
+        for (LongAdder adder : phaseNanos) {
+            adder.reset();
+        }
+        reports.reset();
+        failures.reset();
+        rows.reset();
+        pages.reset();
+        textOperations.reset();
+        outputBytes.reset();
+        spilledBytes.reset();
+        spilledReports.reset();
+        peakBufferedBytes.reset();
+    }
+
+    /**
+     * Zwraca podsumowanie liczników w czytelnej postaci, po jednej fazie w wierszu
+     */
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format(Locale.ROOT, "Raporty: %d (błędy: %d), wiersze: %d, strony: %d, operatory tekstu: %d, bajty: %d%n",
+                getReportCount(), getFailureCount(), getRows(), getPages(), getTextOperations(), getOutputBytes()));
+        summary.append(String.format(Locale.ROOT, "Bufory: największe %d B, w plikach tymczasowych %d B (raporty: %d)%n",
+                getPeakBufferedBytes(), getSpilledBytes(), getSpilledReportCount()));
+        for (ReportPhase phase : PHASES) {
+            summary.append(String.format(Locale.ROOT, "  %-16s %10.1f ms%n", phase, getPhaseNanos(phase) / 1_000_000.0));
+        }
+        return summary.toString();
+    }
+}
@@ -0,0 +1,36 @@
+package com.orange.pdf.metrics;
+
+/**
+ * Fazy generowania raportu, dla których mierzony jest czas
+ */
+public enum ReportPhase {
+    /**
+     * Filtrowanie, sortowanie i konwersja danych wejściowych
+     */
+    DATA_PREPARATION,
+
+    /**
+     * Wyliczanie podsumowań (statusów, gatunków, wydawców, kategorii)
+     */
+    AGGREGATION,
+
+    /**
+     * Wczytywanie i osadzanie fontów w dokumencie
+     */
+    FONT_LOADING,
+
+    /**
+     * Planowanie układu stron
+     */
+    LAYOUT,
+
+    /**
+     * Rysowanie treści stron
+     */
+    RENDERING,
+
+    /**
+     * Kompresja i zapis dokumentu do pliku
+     */
+    SAVING
+}
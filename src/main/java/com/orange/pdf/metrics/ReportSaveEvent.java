@@ -0,0 +1,48 @@
+package com.orange.pdf.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Zdarzenie JFR obejmujące zapis dokumentu - kompresję treści stron i zapis pliku
+ */
+@Name("com.orange.pdf.ReportSave")
+@Label("Report Save")
+@Category({"Orange PDF", "Report"})
+@Description("Kompresja i zapis dokumentu PDF do pliku")
+public class ReportSaveEvent extends Event {
+
+    @Label("Report Type")
+    String reportType;
+
+    @Label("Pages")
+    int pages;
+
+    @Label("Output Size")
+    @DataAmount
+    long outputBytes;
+
+    @Label("Incremental")
+    boolean incremental;
+
+    @Label("Succeeded")
+    boolean succeeded;
+
+    /**
+     * Kończy pomiar i zapisuje zdarzenie w nagraniu
+     */
+    public void commit(ReportStatistics statistics, boolean incremental, boolean succeeded) {
+        if (shouldCommit()) {
+            reportType = statistics.getReportType();
+            pages = statistics.getPages();
+            outputBytes = statistics.getOutputBytes();
+            this.incremental = incremental;
+            this.succeeded = succeeded;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.orange.pdf.metrics;
+
+import lombok.Getter;
+
+/**
+ * Czasy faz i liczniki jednego generowanego raportu.
+ * Obiekt jest wypełniany przez serwis i builder w trakcie generowania i przekazywany do {@link ReportListener}.
+ */
+@Getter
+public class ReportStatistics {
+
+    private static final ReportPhase[] PHASES = ReportPhase.values();
+
+    private String reportType;
+    private final long[] phaseNanos = new long[PHASES.length];
+    private long rows;
+    private int pages;
+    private long textOperations;
+    private long outputBytes;
+    // Największy łączny rozmiar buforów strumieni dokumentu i szacowana część zapisana w pliku tymczasowym
+    private long bufferedBytes;
+    private long spilledBytes;
+
+    public ReportStatistics setReportType(String reportType) {
+        this.reportType = reportType;
+        return this;
+    }
+
+    /**
+     * Dolicza czas fazy
+     *
+     * @param phase faza generowania
+     * @param nanos czas w nanosekundach
+     */
+    public ReportStatistics addPhaseNanos(ReportPhase phase, long nanos) {
+        phaseNanos[phase.ordinal()] += nanos;
+        return this;
+    }
+
+    public ReportStatistics addRows(long rows) {
+        this.rows += rows;
+        return this;
+    }
+
+    public ReportStatistics setPages(int pages) {
+        this.pages = pages;
+        return this;
+    }
+
+    public ReportStatistics setTextOperations(long textOperations) {
+        this.textOperations = textOperations;
+        return this;
+    }
+
+    public ReportStatistics setOutputBytes(long outputBytes) {
+        this.outputBytes = outputBytes;
+        return this;
+    }
+
+    public ReportStatistics setBufferedBytes(long bufferedBytes) {
+        this.bufferedBytes = bufferedBytes;
+        return this;
+    }
+
+    public ReportStatistics setSpilledBytes(long spilledBytes) {
+        this.spilledBytes = spilledBytes;
+        return this;
+    }
+
+    /**
+     * Dolicza czasy faz i liczbę wierszy zmierzone poza builderem, np. przez serwis przed jego utworzeniem
+     */
+    public ReportStatistics add(ReportStatistics other) {
+        for (int i = 0; i < phaseNanos.length; i++) {
+            phaseNanos[i] += other.phaseNanos[i];
+        }
+        rows += other.rows;
+        return this;
+    }
+
+    /**
+     * Zwraca czas fazy w nanosekundach
+     */
+    public long getPhaseNanos(ReportPhase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * Zwraca łączny czas wszystkich faz w nanosekundach
+     */
+    public long getTotalNanos() {
+        long total = 0;
+        for (long nanos : phaseNanos) {
+            total += nanos;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,39 @@
+package com.orange.pdf.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Zdarzenie JFR obejmujące rysowanie sekcji raportu (nagłówka, tabeli, podsumowania, podpisu)
+ */
+@Name("com.orange.pdf.SectionDrawn")
+@Label("Section Drawn")
+@Category({"Orange PDF", "Report"})
+@Description("Rysowanie jednej sekcji raportu")
+public class SectionDrawnEvent extends Event {
+
+    @Label("Report Type")
+    String reportType;
+
+    @Label("Section")
+    String section;
+
+    @Label("Page Number")
+    @Description("Numer strony, na której zaczyna się sekcja")
+    int pageNumber;
+
+    /**
+     * Kończy pomiar i zapisuje zdarzenie w nagraniu
+     */
+    public void commit(String reportType, String section, int pageNumber) {
+        if (shouldCommit()) {
+            this.reportType = reportType;
+            this.section = section;
+            this.pageNumber = pageNumber;
+            commit();
+        }
+    }
+}
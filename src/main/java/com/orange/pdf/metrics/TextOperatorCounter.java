@@ -0,0 +1,84 @@
+package com.orange.pdf.metrics;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Zlicza operatory wypisywania tekstu (Tj, TJ) w nieskompresowanych strumieniach treści stron,
+ * czyli w treści narysowanej przez builder przed zapisem. Strumienie są czytane jednym buforem,
+ * bez kopiowania ich treści.
+ */
+public class TextOperatorCounter {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private TextOperatorCounter() {
+    }
+
+    /**
+     * Zwraca liczbę operatorów tekstu w nieskompresowanej treści stron dokumentu
+     */
+    public static long count(PDDocument document) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long count = 0;
+        for (PDPage page : document.getPages()) {
+            COSBase contents = page.getCOSObject().getDictionaryObject(COSName.CONTENTS);
+            if (contents instanceof COSStream stream) {
+                count += count(stream, buffer);
+            } else if (contents instanceof COSArray array) {
+                for (int i = 0; i < array.size(); i++) {
+                    if (array.getObject(i) instanceof COSStream stream) {
+                        count += count(stream, buffer);
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private static long count(COSStream stream, byte[] buffer) throws IOException {
+        if (stream.getFilters() != null) {
+            return 0;
+        }
+
+        long count = 0;
+        // Trzy ostatnio przeczytane bajty; operator to "Tj" lub "TJ" otoczone separatorami
+        int third = ' ';
+        int second = ' ';
+        int first = ' ';
+        try (InputStream in = stream.createRawInputStream()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    int current = buffer[i];
+                    if ((first == 'j' || first == 'J') && second == 'T'
+                            && isSeparator(third) && isWhitespace(current)) {
+                        count++;
+                    }
+                    third = second;
+                    second = first;
+                    first = current;
+                }
+            }
+        }
+        if ((first == 'j' || first == 'J') && second == 'T' && isSeparator(third)) {
+            count++;
+        }
+        return count;
+    }
+
+    private static boolean isWhitespace(int b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f' || b == 0;
+    }
+
+    private static boolean isSeparator(int b) {
+        return isWhitespace(b) || b == '>' || b == ')' || b == ']';
+    }
+}
@@ -0,0 +1,157 @@
+package com.orange.pdf.output;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import java.util.zip.Deflater;
+
+/**
+ * Kompresuje strumienie treści stron przed zapisem dokumentu z poziomem Deflate z ustawień zapisu.
+ * Buildery zapisują treść stron bez kompresji, dzięki czemu koszt kompresji ponoszony jest raz, przy zapisie.
+ * <p>
+ * Przy kompresji równoległej odczyt i zapis strumieni odbywa się w wątku wywołującym, w kolejności stron;
+ * na puli ForkJoin wykonywana jest wyłącznie kompresja tablic bajtów, więc wynik jest taki sam jak sekwencyjnie.
+ */
+public class PageContentCompressor {
+
+    // Liczba stron kompresowanych w jednej partii - ogranicza pamięć zajmowaną przez kopie treści stron
+    private static final int BATCH_SIZE = 256;
+    private static final int BUFFER_SIZE = 8192;
+
+    private PageContentCompressor() {
+    }
+
+    /**
+     * Kompresuje nieskompresowane strumienie treści wszystkich stron dokumentu
+     *
+     * @param document dokument do kompresji
+     * @param options ustawienia zapisu
+     */
+    public static void compress(PDDocument document, PdfSaveOptions options) throws IOException {
+        if (!options.isCompressContentStreams()) {
+            return;
+        }
+
+        List<COSStream> streams = new ArrayList<>();
+        for (PDPage page : document.getPages()) {
+            collectUncompressedContents(page, streams);
+        }
+
+        int level = options.getDeflateLevel();
+        int parallelism = options.getCompressionParallelism();
+        if (parallelism == 1 || streams.size() < 2) {
+            for (COSStream stream : streams) {
+                writeDeflated(stream, deflate(readRaw(stream), level));
+            }
+            return;
+        }
+
+        ForkJoinPool pool = parallelism == 0 ? ForkJoinPool.commonPool() : new ForkJoinPool(parallelism);
+        try {
+            for (int from = 0; from < streams.size(); from += BATCH_SIZE) {
+                List<COSStream> batch = streams.subList(from, Math.min(from + BATCH_SIZE, streams.size()));
+                compressBatch(batch, level, pool);
+            }
+        } finally {
+            if (pool != ForkJoinPool.commonPool()) {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static void compressBatch(List<COSStream> batch, int level, ForkJoinPool pool) throws IOException {
+        byte[][] raw = new byte[batch.size()][];
+        for (int i = 0; i < raw.length; i++) {
+            raw[i] = readRaw(batch.get(i));
+        }
+
+        byte[][] deflated;
+        try {
+            deflated = pool.submit(() -> IntStream.range(0, raw.length)
+                    .parallel()
+                    .mapToObj(i -> deflate(raw[i], level))
+                    .toArray(byte[][]::new)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Przerwano kompresję strumieni treści stron", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Błąd kompresji strumieni treści stron", e.getCause());
+        }
+
+        for (int i = 0; i < deflated.length; i++) {
+            writeDeflated(batch.get(i), deflated[i]);
+        }
+    }
+
+    /**
+     * Dodaje do listy strumienie treści strony, które nie mają jeszcze filtra
+     */
+    static void collectUncompressedContents(PDPage page, List<COSStream> streams) {
+        COSBase contents = page.getCOSObject().getDictionaryObject(COSName.CONTENTS);
+        if (contents instanceof COSStream stream) {
+            addIfUncompressed(stream, streams);
+        } else if (contents instanceof COSArray array) {
+            for (int i = 0; i < array.size(); i++) {
+                addIfUncompressed(array.getObject(i), streams);
+            }
+        }
+    }
+
+    private static void addIfUncompressed(COSBase contents, List<COSStream> streams) {
+        if (contents instanceof COSStream stream && stream.getFilters() == null) {
+            streams.add(stream);
+        }
+    }
+
+    /**
+     * Odczytuje surową treść strumienia
+     */
+    static byte[] readRaw(COSStream stream) throws IOException {
+        try (InputStream in = stream.createRawInputStream()) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * Kompresuje dane algorytmem Deflate (format zlib, jak FlateDecode)
+     */
+    static byte[] deflate(byte[] data, int level) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(32, data.length / 4));
+        byte[] chunk = new byte[BUFFER_SIZE];
+        Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            while (!deflater.finished()) {
+                int count = deflater.deflate(chunk);
+                buffer.write(chunk, 0, count);
+            }
+        } finally {
+            deflater.end();
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Zastępuje treść strumienia danymi skompresowanymi i ustawia filtr FlateDecode
+     */
+    static void writeDeflated(COSStream stream, byte[] deflated) throws IOException {
+        try (OutputStream out = stream.createRawOutputStream()) {
+            out.write(deflated);
+        }
+        stream.setItem(COSName.FILTER, COSName.FLATE_DECODE);
+    }
+}
@@ -0,0 +1,125 @@
+package com.orange.pdf.output;
+
+import lombok.Getter;
+import org.apache.pdfbox.pdfwriter.compress.CompressParameters;
+
+import java.util.zip.Deflater;
+
+/**
+ * Ustawienia zapisu dokumentu PDF: kompresja strumieni treści stron,
+ * strumienie obiektów i xref oraz poziom kompresji Deflate
+ */
+@Getter
+public class PdfSaveOptions {
+
+    private boolean compressContentStreams = true;
+    private int deflateLevel = Deflater.DEFAULT_COMPRESSION;
+    private boolean objectStreams = true;
+    private int objectStreamSize = CompressParameters.DEFAULT_OBJECT_STREAM_SIZE;
+
+    // Liczba wątków kompresji strumieni treści: 1 - kompresja sekwencyjna, 0 - wspólna pula ForkJoin
+    private int compressionParallelism = 1;
+
+    /**
+     * Ustawienia domyślne, odpowiadające dotychczasowemu zachowaniu PDFBox
+     */
+    public static PdfSaveOptions defaults() {
+        return new PdfSaveOptions();
+    }
+
+    /**
+     * Ustawienia dla raportów archiwizowanych - najmniejszy rozmiar kosztem czasu zapisu
+     */
+    public static PdfSaveOptions archive() {
+        return new PdfSaveOptions()
+                .setDeflateLevel(Deflater.BEST_COMPRESSION);
+    }
+
+    /**
+     * Ustawienia dla pobierania interaktywnego - najkrótszy czas zapisu kosztem rozmiaru
+     */
+    public static PdfSaveOptions fast() {
+        return new PdfSaveOptions()
+                .setDeflateLevel(Deflater.BEST_SPEED)
+                .setObjectStreams(false);
+    }
+
+    /**
+     * Ustawienia bez jakiejkolwiek kompresji
+     */
+    public static PdfSaveOptions uncompressed() {
+        return new PdfSaveOptions()
+                .setCompressContentStreams(false)
+                .setObjectStreams(false);
+    }
+
+    /**
+     * Zwraca ustawienia o podanej nazwie: default, archive, fast lub none
+     */
+    public static PdfSaveOptions named(String name) {
+        return switch (name.toLowerCase()) {
+            case "default" -> defaults();
+            case "archive" -> archive();
+            case "fast" -> fast();
+            case "none" -> uncompressed();
+            default -> throw new IllegalArgumentException("Nieznane ustawienia kompresji: " + name);
+        };
+    }
+
+    public PdfSaveOptions setCompressContentStreams(boolean compressContentStreams) {
+        this.compressContentStreams = compressContentStreams;
+        return this;
+    }
+
+    public PdfSaveOptions setDeflateLevel(int deflateLevel) {
+        if (deflateLevel != Deflater.DEFAULT_COMPRESSION
+                && (deflateLevel < Deflater.NO_COMPRESSION || deflateLevel > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("Poziom kompresji Deflate musi być z zakresu 0-9: " + deflateLevel);
+        }
+        this.deflateLevel = deflateLevel;
+        return this;
+    }
+
+    public PdfSaveOptions setObjectStreams(boolean objectStreams) {
+        this.objectStreams = objectStreams;
+        return this;
+    }
+
+    public PdfSaveOptions setObjectStreamSize(int objectStreamSize) {
+        this.objectStreamSize = objectStreamSize;
+        return this;
+    }
+
+    /**
+     * Ustawia liczbę wątków kompresujących strumienie treści stron.
+     * Wynik zapisu jest identyczny bajt w bajt niezależnie od liczby wątków.
+     *
+     * @param compressionParallelism liczba wątków; 1 - sekwencyjnie, 0 - wspólna pula ForkJoin
+     * @return te same ustawienia
+     */
+    public PdfSaveOptions setCompressionParallelism(int compressionParallelism) {
+        if (compressionParallelism < 0) {
+            throw new IllegalArgumentException("Liczba wątków kompresji nie może być ujemna: " + compressionParallelism);
+        }
+        this.compressionParallelism = compressionParallelism;
+        return this;
+    }
+
+    /**
+     * Zwraca parametry zapisu strumieni obiektów i xref dla PDFBox
+     */
+    public CompressParameters toCompressParameters() {
+        return objectStreams ? new CompressParameters(objectStreamSize) : CompressParameters.NO_COMPRESSION;
+    }
+
+    /**
+     * Opis ustawień wpływających na bajty zapisanego pliku - używany m.in. w kluczu pamięci podręcznej raportów.
+     * Liczba wątków kompresji nie wchodzi do opisu, bo nie zmienia wyniku zapisu.
+     */
+    @Override
+    public String toString() {
+        return "kompresja treści " + (compressContentStreams ? "tak" : "nie")
+                + ", Deflate " + deflateLevel
+                + ", strumienie obiektów " + (objectStreams ? objectStreamSize : "nie");
+    }
+}
@@ -0,0 +1,135 @@
+package com.orange.pdf.output;
+
+import com.orange.pdf.builder.LibraryPdfBuilder;
+import com.orange.pdf.builder.PdfBuilder;
+import com.orange.pdf.builder.data.BookStatusSummary;
+import com.orange.pdf.builder.data.GenreSummary;
+import com.orange.pdf.builder.data.LibraryPdfTableItem;
+import com.orange.pdf.builder.data.PublisherSummary;
+import com.orange.pdf.callback.PdfCallback;
+import com.orange.pdf.enums.PdfLibraryReportType;
+import com.orange.pdf.overdue.builder.OverduePdfBuilder;
+import com.orange.pdf.overdue.data.OverdueCategorySummary;
+import com.orange.pdf.overdue.data.OverduePdfTableItem;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Porównanie rozmiaru pliku i czasu zapisu raportów dla poszczególnych ustawień kompresji.
+ * Uruchomienie: {@code java -cp <jar> com.orange.pdf.output.SaveOptionsBenchmark [liczba_wierszy]}
+ */
+public class SaveOptionsBenchmark {
+
+    private static final int DEFAULT_ROWS = 3000;
+    private static final int WARMUP_RUNS = 2;
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ROWS;
+
+        Map<String, PdfSaveOptions> presets = new LinkedHashMap<>();
+        presets.put("default", PdfSaveOptions.defaults());
+        presets.put("archive", PdfSaveOptions.archive());
+        presets.put("fast", PdfSaveOptions.fast());
+        presets.put("none", PdfSaveOptions.uncompressed());
+        presets.put("parallel", PdfSaveOptions.defaults().setCompressionParallelism(0));
+
+        List<LibraryPdfTableItem> books = createBooks(rows);
+        List<OverduePdfTableItem> loans = createLoans(rows);
+
+        Map<String, Supplier<PdfBuilder>> reports = new LinkedHashMap<>();
+        reports.put("inwentaryzacja", () -> buildInventory(books));
+        reports.put("przeterminowane", () -> buildOverdue(loans));
+
+        File outputDir = Files.createTempDirectory("pdf-save-benchmark").toFile();
+        System.out.printf("Liczba wierszy: %d%n", rows);
+        System.out.printf("%-16s %-8s %12s %10s%n", "Raport", "Tryb", "Rozmiar [B]", "Zapis [ms]");
+
+        for (Map.Entry<String, Supplier<PdfBuilder>> report : reports.entrySet()) {
+            for (Map.Entry<String, PdfSaveOptions> preset : presets.entrySet()) {
+                File output = new File(outputDir, report.getKey() + "-" + preset.getKey() + ".pdf");
+
+                for (int i = 0; i < WARMUP_RUNS; i++) {
+                    report.getValue().get().save(output.getAbsolutePath(), preset.getValue(), silentCallback());
+                    output.delete();
+                }
+
+                PdfBuilder builder = report.getValue().get();
+                long start = System.nanoTime();
+                builder.save(output.getAbsolutePath(), preset.getValue(), silentCallback());
+                long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+                System.out.printf("%-16s %-8s %12d %10d%n",
+                        report.getKey(), preset.getKey(), output.length(), elapsedMillis);
+                output.delete();
+            }
+        }
+        outputDir.delete();
+    }
+
+    private static PdfBuilder buildInventory(List<LibraryPdfTableItem> books) {
+        return LibraryPdfBuilder.createLibraryReport(PdfLibraryReportType.INVENTORY)
+                .buildLibraryInventoryReport("Biblioteka testowa", "Raport testowy", "ul. Testowa 1", "00-000 Test",
+                        "BENCH", LocalDate.now(),
+                        books,
+                        List.of(new BookStatusSummary("Dostępna", books.size())),
+                        List.of(new GenreSummary("Gatunek", books.size())),
+                        List.of(new PublisherSummary("Wydawca", books.size())),
+                        "Benchmark");
+    }
+
+    private static PdfBuilder buildOverdue(List<OverduePdfTableItem> loans) {
+        return OverduePdfBuilder.createOverdueReport()
+                .buildOverdueReport("Biblioteka testowa", "Raport testowy", "ul. Testowa 1", "00-000 Test",
+                        "BENCH", LocalDate.now(),
+                        loans,
+                        List.of(new OverdueCategorySummary("Powyżej 30 dni", loans.size(), 60)),
+                        List.of(new GenreSummary("Gatunek", loans.size())),
+                        List.of(new PublisherSummary("Wydawca", loans.size())),
+                        "Benchmark");
+    }
+
+    private static List<LibraryPdfTableItem> createBooks(int rows) {
+        List<LibraryPdfTableItem> books = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            books.add(new LibraryPdfTableItem(String.valueOf(i + 1), "Tytuł książki " + i, "Autor " + (i % 50),
+                    "Wydawca " + (i % 20), i % 3 == 0 ? "Wypożyczona" : "Dostępna", "Gatunek " + (i % 7), ""));
+        }
+        return books;
+    }
+
+    private static List<OverduePdfTableItem> createLoans(int rows) {
+        Instant now = Instant.now();
+        List<OverduePdfTableItem> loans = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            loans.add(new OverduePdfTableItem("L" + i, String.valueOf(i + 1), "Tytuł książki " + i,
+                    "Autor " + (i % 50), "Wydawca " + (i % 20), "Gatunek " + (i % 7), "U" + i,
+                    "Czytelnik " + i, "czytelnik" + i + "@example.com",
+                    now.minus(60, ChronoUnit.DAYS), now.minus(i % 60, ChronoUnit.DAYS), "BENCH"));
+        }
+        return loans;
+    }
+
+    private static PdfCallback<PDDocument> silentCallback() {
+        return new PdfCallback<>() {
+            @Override
+            public void success(PDDocument document) {
+            }
+
+            @Override
+            public void error(PDDocument document) {
+                System.err.println("Błąd zapisu dokumentu w benchmarku");
+            }
+        };
+    }
+}
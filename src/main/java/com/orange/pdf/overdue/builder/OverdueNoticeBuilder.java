@@ -0,0 +1,308 @@
+package com.orange.pdf.overdue.builder;
+
+import com.orange.pdf.builder.PdfBuilder;
+import com.orange.pdf.enums.PdfLibraryReportType;
+import com.orange.pdf.exception.PDPageContentStreamException;
+import com.orange.pdf.format.CellFormat;
+import com.orange.pdf.layout.LayoutPlan;
+import com.orange.pdf.layout.LayoutPlanner;
+import com.orange.pdf.layout.LayoutProfile;
+import com.orange.pdf.layout.SectionPlacement;
+import com.orange.pdf.memory.PdfMemoryPolicy;
+import com.orange.pdf.metrics.ReportPhase;
+import com.orange.pdf.overdue.data.OverdueNotice;
+import com.orange.pdf.overdue.data.OverduePdfTableItem;
+import com.orange.pdf.table.CellFont;
+import com.orange.pdf.table.TableColumn;
+import com.orange.pdf.table.TableLayout;
+import com.orange.pdf.table.TableSpec;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Builder wezwań do zwrotu książek: każde wezwanie zaczyna się na nowej stronie i zawiera dane adresata
+ * oraz tabelę jego zaległych wypożyczeń. Części wspólne wszystkich wezwań dokumentu (nagłówek biblioteki,
+ * tytuł i treść wezwania, zakończenie z podpisem) są nagrywane raz jako form XObjecty i umieszczane
+ * w kolejnych wezwaniach przez odwołanie, a fonty są osadzane w dokumencie raz dla wszystkich wezwań.
+ */
+public class OverdueNoticeBuilder extends PdfBuilder {
+
+    private static final String NOTICE_TITLE = "Wezwania do zwrotu książek";
+    private static final String NOTICE_AUTHOR = "System zarządzania biblioteką";
+
+    // Geometria wezwania wspólna dla planera i rysowania
+    private static final float LETTERHEAD_HEIGHT = 70f;
+    private static final float RECIPIENT_HEIGHT = 60f;
+    private static final float TITLE_HEIGHT = 40f;
+    private static final float LOAN_COUNT_HEIGHT = 15f;
+    private static final float CONTINUATION_HEADER_HEIGHT = 30f;
+    private static final float SIGNATURE_HEIGHT = 70f;
+    private static final float MIN_BOTTOM_MARGIN = 50f;
+    private static final float SECTION_SPACING = 20f;
+    private static final float PARAGRAPH_SPACING = 10f;
+    // Największa liczba linii akapitu stałej treści wezwania
+    private static final int MAX_PARAGRAPH_LINES = 8;
+
+    private static final String GREETING = "Szanowna Pani / Szanowny Panie,";
+    private static final String INTRO_TEXT = "Uprzejmie informujemy, że minął termin zwrotu wypożyczonych przez Panią/Pana"
+            + " książek wymienionych poniżej. Prosimy o ich niezwłoczny zwrot do biblioteki lub przedłużenie"
+            + " terminu wypożyczenia.";
+    private static final String CLOSING_TEXT = "Za każdy dzień zwłoki naliczana jest opłata zgodnie z regulaminem"
+            + " biblioteki. Jeśli książki zostały już zwrócone, prosimy uznać niniejsze wezwanie za nieaktualne.";
+
+    // Tabela zaległych wypożyczeń wezwania; szerokości kolumn dobrane dla strony A4
+    private static final TableSpec<OverduePdfTableItem> NOTICE_TABLE = new TableSpec<OverduePdfTableItem>("noticeTable")
+            .column(TableColumn.of("Lp.", 25f, (loan, row) -> CellFormat.number(row)))
+            .column(TableColumn.<OverduePdfTableItem>fill("Tytuł", (loan, row) -> loan.getTitle())
+                    .setTruncateToWidth(true).setWrap(true))
+            .column(TableColumn.<OverduePdfTableItem>of("Autor", 120f, (loan, row) -> loan.getAuthors())
+                    .setTruncateToWidth(true).setWrap(true))
+            .column(TableColumn.of("Wypożyczono", 70f, (loan, row) -> formatDate(loan.getBorrowedAt())))
+            .column(TableColumn.of("Termin zwrotu", 70f, (loan, row) -> formatDate(loan.getDueDate())))
+            // Wyróżnij duże zaległości
+            .column(TableColumn.<OverduePdfTableItem>of("Dni zaleg.", 55f, (loan, row) -> CellFormat.number(loan.getOverdueDays()))
+                    .setFont(loan -> loan.getOverdueDays() > 30 ? CellFont.BOLD : CellFont.REGULAR));
+
+    private static final String SECTION_LETTERHEAD = "letterhead";
+    private static final String SECTION_RECIPIENT = "recipient";
+    private static final String SECTION_INTRO = "intro";
+    private static final String SECTION_LOAN_COUNT = "loanCount";
+    private static final String SECTION_CLOSING = "closing";
+
+    private OverdueNoticeBuilder(LayoutProfile layoutProfile, PdfMemoryPolicy memoryPolicy) {
+        super(layoutProfile, NOTICE_TITLE, NOTICE_AUTHOR, memoryPolicy);
+        getStatistics().setReportType(PdfLibraryReportType.OVERDUE_NOTICE.name());
+    }
+
+    /**
+     * Tworzy nową instancję buildera wezwań z podaną polityką pamięci buforów i profilem układu
+     */
+    public static OverdueNoticeBuilder createOverdueNotices(PdfMemoryPolicy memoryPolicy, LayoutProfile layoutProfile) {
+        return new OverdueNoticeBuilder(layoutProfile, memoryPolicy);
+    }
+
+    /**
+     * Buduje wezwania do zwrotu książek, każde od nowej strony
+     *
+     * @param libraryName nazwa biblioteki
+     * @param libraryDesc opis biblioteki
+     * @param address adres biblioteki - ulica
+     * @param city miasto i kod pocztowy biblioteki
+     * @param noticeDate data wystawienia wezwań
+     * @param notices wezwania w kolejności stron dokumentu
+     * @param generatedBy osoba podpisująca wezwania
+     */
+    public OverdueNoticeBuilder buildOverdueNotices(
+            String libraryName,
+            String libraryDesc,
+            String address,
+            String city,
+            LocalDate noticeDate,
+            List<OverdueNotice> notices,
+            String generatedBy) {
+
+        try {
+            float width = getWidth();
+            TableLayout<OverduePdfTableItem> table = layoutTable(NOTICE_TABLE, width);
+            // Akapity stałej treści dzielone na linie raz dla całego dokumentu
+            List<String> introLines = wrapCellText(INTRO_TEXT, getRegularFont(), width, MAX_PARAGRAPH_LINES);
+            List<String> closingLines = wrapCellText(CLOSING_TEXT, getRegularFont(), width, MAX_PARAGRAPH_LINES);
+            // Zwrot grzecznościowy i pusta linia przed akapitem
+            float introHeight = TITLE_HEIGHT + paragraphHeight(introLines.size() + 2);
+            float closingHeight = paragraphHeight(closingLines.size()) + PARAGRAPH_SPACING + SIGNATURE_HEIGHT;
+
+            int rows = 0;
+            for (int i = 0; i < notices.size(); i++) {
+                OverdueNotice notice = notices.get(i);
+                // Każde wezwanie zaczyna się na nowej stronie; pierwsze na stronie utworzonej z dokumentem
+                int firstPage = i == 0 ? 0 : getDocument().getNumberOfPages();
+
+                long layoutStart = System.nanoTime();
+                float[] rowHeights = tableRowHeights(table, notice.getLoans(), 0);
+                LayoutPlan plan = planNotice(firstPage, notice.getLoans().size(), rowHeights, introHeight, closingHeight);
+                long renderStart = System.nanoTime();
+                getStatistics().addPhaseNanos(ReportPhase.LAYOUT, renderStart - layoutStart);
+
+                drawNotice(notice, plan, firstPage, table, rowHeights, introLines, closingLines, introHeight, closingHeight,
+                        libraryName, libraryDesc, address, city, noticeDate, generatedBy);
+                getStatistics().addPhaseNanos(ReportPhase.RENDERING, System.nanoTime() - renderStart);
+                rows += notice.getLoans().size();
+            }
+            getStatistics().addRows(rows);
+
+        } catch (IOException e) {
+            safeEndText(getContentStream());
+            throw new PDPageContentStreamException("Nie udało się zbudować wezwań do zwrotu: " + e.getMessage());
+        }
+
+        return this;
+    }
+
+    /**
+     * Planuje układ jednego wezwania zaczynającego się na podanej stronie dokumentu
+     *
+     * @param rowHeights wysokości wierszy z zawiniętym tekstem lub null dla wierszy jednoliniowych
+     */
+    private LayoutPlan planNotice(int firstPage, int loanCount, float[] rowHeights, float introHeight,
+                                  float closingHeight) {
+        float startY = getStartY();
+        float rowHeight = tableRowHeight();
+        float minBottomMargin = getLayoutProfile().minBottomMargin(MIN_BOTTOM_MARGIN);
+        float continuationTopY = startY - CONTINUATION_HEADER_HEIGHT - 10f;
+
+        LayoutPlanner planner = new LayoutPlanner(startY, firstPage, startY)
+                .section(SECTION_LETTERHEAD, LETTERHEAD_HEIGHT, 0f, SECTION_SPACING, minBottomMargin)
+                .section(SECTION_RECIPIENT, RECIPIENT_HEIGHT, 0f, SECTION_SPACING, minBottomMargin)
+                .section(SECTION_INTRO, introHeight, 0f, 0f, minBottomMargin)
+                .section(SECTION_LOAN_COUNT, LOAN_COUNT_HEIGHT, 0f, PARAGRAPH_SPACING, minBottomMargin);
+        if (rowHeights != null) {
+            planner.table(rowHeights, rowHeight, continuationTopY, minBottomMargin);
+        } else {
+            planner.table(loanCount, rowHeight, rowHeight, continuationTopY, minBottomMargin);
+        }
+        return planner
+                .space(SECTION_SPACING)
+                .section(SECTION_CLOSING, closingHeight, 0f, 0f, minBottomMargin)
+                .plan();
+    }
+
+    private void drawNotice(OverdueNotice notice, LayoutPlan plan, int firstPage, TableLayout<OverduePdfTableItem> table,
+                            float[] rowHeights, List<String> introLines, List<String> closingLines, float introHeight,
+                            float closingHeight, String libraryName, String libraryDesc, String address, String city,
+                            LocalDate noticeDate, String generatedBy) throws IOException {
+        float margin = getMargin();
+        float width = getWidth();
+        int noticePages = plan.getTotalPages() - firstPage;
+
+        ensurePage(firstPage);
+        drawFurniture("noticeLetterhead", margin, plan.getSection(SECTION_LETTERHEAD).getY(), width, LETTERHEAD_HEIGHT,
+                () -> drawLetterhead(libraryName, libraryDesc, address, city, noticeDate, 0, 0, width));
+        drawRecipient(notice, margin, plan.getSection(SECTION_RECIPIENT).getY(), width);
+        drawPlaced(plan.getSection(SECTION_INTRO), y -> drawFurniture("noticeIntro", margin, y, width, introHeight,
+                () -> drawIntro(introLines, 0, 0, width)));
+        drawPlaced(plan.getSection(SECTION_LOAN_COUNT), y -> drawText("Liczba zaległych książek: "
+                + notice.getLoans().size() + ", najdłuższa zaległość: " + notice.getMaxOverdueDays() + " dni",
+                margin, y - 10, getBoldFont(), 9));
+
+        drawTablePages(table, notice.getLoans(), 0, rowHeights, margin, plan.getTableSlices(), slice -> {
+            if (slice.isContinuation()) {
+                drawContinuationHeader(notice, slice.getPageIndex() - firstPage + 1, noticePages, margin,
+                        getStartY(), width);
+            }
+            return true;
+        });
+
+        drawPlaced(plan.getSection(SECTION_CLOSING), y -> drawFurniture("noticeClosing", margin, y, width, closingHeight,
+                () -> drawClosing(closingLines, libraryName, generatedBy, 0, 0, width)));
+    }
+
+    /**
+     * Rysuje sekcję na stronie i pozycji wyznaczonej przez plan układu
+     */
+    private void drawPlaced(SectionPlacement placement, SectionDrawer drawer) throws IOException {
+        ensurePage(placement.getPageIndex());
+        drawer.draw(placement.getY());
+    }
+
+    /**
+     * Rysuje nagłówek biblioteki z datą wystawienia - wspólny dla wszystkich wezwań dokumentu
+     */
+    private void drawLetterhead(String libraryName, String libraryDesc, String address, String city,
+                                LocalDate noticeDate, float x, float y, float width) throws IOException {
+        drawText(libraryName, x, y - 14, getBoldFont(), 14);
+        drawText(libraryDesc, x, y - 30, getRegularFont(), 9);
+        drawText(address, x, y - 42, getRegularFont(), 9);
+        drawText(city, x, y - 54, getRegularFont(), 9);
+
+        String date = "Data wystawienia: " + noticeDate.format(CellFormat.DATE);
+        drawText(date, x + width - textWidth(getRegularFont(), 9, date), y - 14, getRegularFont(), 9);
+
+        drawLine(x, y - LETTERHEAD_HEIGHT + 5, x + width, y - LETTERHEAD_HEIGHT + 5);
+    }
+
+    /**
+     * Rysuje numer wezwania i dane adresata
+     */
+    private void drawRecipient(OverdueNotice notice, float x, float y, float width) throws IOException {
+        drawText("Nr wezwania:", x, y - 12, getRegularFont(), 8);
+        drawText(notice.getNoticeNumber(), x, y - 24, getBoldFont(), 10);
+
+        float recipientX = x + width * 0.55f;
+        drawText("Adresat:", recipientX, y - 12, getRegularFont(), 8);
+        drawText(notice.getUserName(), recipientX, y - 26, getBoldFont(), 11);
+        drawText("Nr czytelnika: " + notice.getUserId(), recipientX, y - 40, getRegularFont(), 9);
+        if (notice.getUserEmail() != null && !notice.getUserEmail().isEmpty()) {
+            drawText(notice.getUserEmail(), recipientX, y - 52, getRegularFont(), 9);
+        }
+    }
+
+    /**
+     * Rysuje tytuł, zwrot grzecznościowy i akapit wezwania - wspólne dla wszystkich wezwań dokumentu
+     */
+    private void drawIntro(List<String> introLines, float x, float y, float width) throws IOException {
+        String title = "WEZWANIE DO ZWROTU KSIĄŻEK";
+        drawText(title, x + (width - textWidth(getBoldFont(), 14, title)) / 2, y - 20, getBoldFont(), 14);
+
+        float paragraphY = y - TITLE_HEIGHT;
+        drawCellLines(List.of(GREETING), getRegularFont(), x, paragraphY);
+        drawCellLines(introLines, getRegularFont(), x, paragraphY - 2 * tableLineHeight());
+    }
+
+    /**
+     * Rysuje akapit końcowy i podpis - wspólne dla wszystkich wezwań dokumentu
+     */
+    private void drawClosing(List<String> closingLines, String libraryName, String generatedBy,
+                             float x, float y, float width) throws IOException {
+        drawCellLines(closingLines, getRegularFont(), x, y);
+
+        float signatureX = x + width - 180;
+        float signatureY = y - paragraphHeight(closingLines.size()) - PARAGRAPH_SPACING;
+        drawText("Z poważaniem", signatureX, signatureY - 12, getRegularFont(), 9);
+        drawDottedLine(signatureX, signatureY - 40, signatureX + 150, signatureY - 40);
+        drawText(generatedBy, signatureX, signatureY - 52, getBoldFont(), 8);
+        drawText(libraryName, signatureX, signatureY - 63, getRegularFont(), 8);
+    }
+
+    /**
+     * Rysuje nagłówek kolejnej strony wezwania z numerem strony w obrębie wezwania
+     */
+    private void drawContinuationHeader(OverdueNotice notice, int page, int pages, float x, float y,
+                                        float width) throws IOException {
+        drawText("Wezwanie nr " + notice.getNoticeNumber() + " - " + notice.getUserName(), x, y - 12,
+                getBoldFont(), 9);
+        String pageText = "Strona " + page + " z " + pages;
+        drawText(pageText, x + width - textWidth(getRegularFont(), 8, pageText), y - 12, getRegularFont(), 8);
+        drawLine(x, y - CONTINUATION_HEADER_HEIGHT + 10, x + width, y - CONTINUATION_HEADER_HEIGHT + 10);
+    }
+
+    /**
+     * Zwraca wysokość akapitu o podanej liczbie linii rysowanego przez {@link #drawCellLines}
+     */
+    private float paragraphHeight(int lines) {
+        return tableTextOffset() + lines * tableLineHeight();
+    }
+
+    private void drawText(String text, float x, float y, PDFont font, float fontSize) throws IOException {
+        PDPageContentStream contentStream = getContentStream();
+        contentStream.beginText();
+        contentStream.setFont(font, fontSize);
+        contentStream.newLineAtOffset(x, y);
+        showText(font, text);
+        contentStream.endText();
+    }
+
+    private static String formatDate(Instant instant) {
+        return instant != null ? LocalDate.ofInstant(instant, ZoneId.systemDefault()).format(CellFormat.DATE) : "";
+    }
+
+    @FunctionalInterface
+    private interface SectionDrawer {
+        void draw(float y) throws IOException;
+    }
+}
@@ -3,17 +3,41 @@ package com.orange.pdf.overdue.builder;
 import com.orange.pdf.builder.PdfBuilder;
 import com.orange.pdf.builder.data.GenreSummary;
 import com.orange.pdf.builder.data.PublisherSummary;
+import com.orange.pdf.enums.PdfLibraryReportType;
 import com.orange.pdf.enums.PdfType;
 import com.orange.pdf.exception.PDPageContentStreamException;
+import com.orange.pdf.exception.ReportAppendException;
+import com.orange.pdf.format.CellFormat;
+import com.orange.pdf.layout.GridSlice;
+import com.orange.pdf.layout.LayoutPlan;
+import com.orange.pdf.layout.LayoutPlanner;
+import com.orange.pdf.layout.LayoutProfile;
+import com.orange.pdf.layout.SectionPlacement;
+import com.orange.pdf.layout.TableSlice;
+import com.orange.pdf.memory.DocumentBufferUsage;
+import com.orange.pdf.memory.PdfMemoryPolicy;
+import com.orange.pdf.metrics.ReportPhase;
 import com.orange.pdf.overdue.data.OverdueCategorySummary;
 import com.orange.pdf.overdue.data.OverduePdfTableItem;
+import com.orange.pdf.overdue.data.OverdueReportFilters;
+import com.orange.pdf.table.CellFont;
+import com.orange.pdf.table.TableColumn;
+import com.orange.pdf.table.TableLayout;
+import com.orange.pdf.table.TableSpec;
 import lombok.Getter;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
 
 /**
  * Builder do tworzenia raportów zalegających użytkowników PDF
@@ -26,15 +50,149 @@ public class OverduePdfBuilder extends PdfBuilder {
     private static final String REPORT_AUTHOR = "System zarządzania biblioteką";
     private static final float SECTION_SPACING = 25f; // Standardowy odstęp między sekcjami
 
-    private OverduePdfBuilder(PdfType pdfType) {
-        super(pdfType, REPORT_TITLE, REPORT_AUTHOR);
+    // Geometria układu wspólna dla planera i rysowania; wysokość wiersza tabel określa profil układu
+    private static final float REPORT_HEADER_HEIGHT = 120f;
+    private static final float CONTINUATION_HEADER_HEIGHT = 50f;
+    private static final float MIN_BOTTOM_MARGIN = 120f;
+    private static final float SIGNATURE_HEIGHT = 80f;
+    private static final float MIN_SPACE_FOR_SIGNATURE = 150f; // Większy margines dla podpisu
+    private static final float SUMMARY_TITLE_HEIGHT = 20f; // Odstęp tytułu sekcji podsumowania od tabeli
+
+    // Tabela zalegających; szerokości i długości tekstu kolumn dobrane dla strony A4
+    private static final TableSpec<OverduePdfTableItem> OVERDUE_TABLE = new TableSpec<OverduePdfTableItem>("overdueTable")
+            .column(TableColumn.of("Lp.", 20f, (loan, row) -> CellFormat.number(row)))
+            .column(TableColumn.of("ID wyp.", 45f, (loan, row) -> loan.getLoanId()))
+            .column(TableColumn.<OverduePdfTableItem>of("Tytuł", 100f, (loan, row) -> loan.getTitle())
+                    .setMaxLength(20).setWrap(true))
+            .column(TableColumn.<OverduePdfTableItem>of("Autor", 80f, (loan, row) -> loan.getAuthors())
+                    .setMaxLength(15).setWrap(true))
+            .column(TableColumn.<OverduePdfTableItem>of("Użytkownik", 70f, (loan, row) -> loan.getUserName())
+                    .setMaxLength(12).setWrap(true))
+            .column(TableColumn.<OverduePdfTableItem>of("Email", 120f, (loan, row) -> loan.getUserEmail())
+                    .setMaxLength(30).setWrap(true))
+            .column(TableColumn.of("Termin", 50f, (loan, row) -> CellFormat.dayMonth(loan.getDueDate())))
+            // Wyróżnij duże zaległości
+            .column(TableColumn.<OverduePdfTableItem>fill("Dni zaleg.", (loan, row) -> CellFormat.number(loan.getOverdueDays()))
+                    .setFont(loan -> loan.getOverdueDays() > 30 ? CellFont.BOLD : CellFont.REGULAR));
+
+    // Tabela podsumowania kategorii zaległości; wiersze są tekstami kolejnych kolumn
+    private static final TableSpec<String[]> CATEGORY_TABLE = new TableSpec<String[]>("categorySummaryTable")
+            .column(TableColumn.of("Kategoria", 120f, (cells, row) -> cells[0]))
+            .column(TableColumn.of("Liczba", 80f, (cells, row) -> cells[1]))
+            .column(TableColumn.of("Łączne dni", 100f, (cells, row) -> cells[2]))
+            .column(TableColumn.fill("Średnia", (cells, row) -> cells[3]));
+
+    private static final String SECTION_HEADER = "header";
+    private static final String SECTION_TABLE = "table";
+    private static final String SECTION_CATEGORY_SUMMARY = "categorySummary";
+    private static final String SECTION_GENRE_SUMMARY = "genreSummary";
+    private static final String SECTION_PUBLISHER_SUMMARY = "publisherSummary";
+    private static final String SECTION_SIGNATURE = "signature";
+
+    private LayoutPlan layoutPlan;
+    private OverdueReportState reportState;
+    private OverdueReportFilters reportFilters = OverdueReportFilters.none();
+
+    private OverduePdfBuilder(LayoutProfile layoutProfile, PdfMemoryPolicy memoryPolicy) {
+        super(layoutProfile, REPORT_TITLE, REPORT_AUTHOR, memoryPolicy);
+        setPageNumbering(true);
+        getStatistics().setReportType(PdfLibraryReportType.OVERDUE.name());
+    }
+
+    private OverduePdfBuilder(PDDocument document, DocumentBufferUsage bufferUsage, OverdueReportState reportState) {
+        super(document, bufferUsage);
+        setPageNumbering(true);
+        getStatistics().setReportType(PdfLibraryReportType.OVERDUE.name());
+        if (reportState.getPageCountForm() != null) {
+            reuseTotalPagesForm(reportState.getPageCountForm());
+        }
+        if (reportState.getLayoutProfile() != null) {
+            // Dopisane wiersze mają geometrię wierszy poprzedniej wersji raportu
+            applyLayoutProfile(reportState.getLayoutProfile());
+        }
+        this.reportState = reportState;
+        this.reportFilters = reportState.getFilters();
+    }
+
+    @Override
+    protected void reset() {
+        super.reset();
+        layoutPlan = null;
+        reportFilters = OverdueReportFilters.none();
+    }
+
+    /**
+     * Ustawia filtry, z którymi wybrano wypożyczenia raportu; są zapisywane w stanie raportu
+     * i stosowane do wierszy dopisywanych później przez {@link #appendOverdueRows}
+     *
+     * @param reportFilters filtry raportu
+     * @return ten sam builder
+     */
+    public OverduePdfBuilder setReportFilters(OverdueReportFilters reportFilters) {
+        this.reportFilters = reportFilters != null ? reportFilters : OverdueReportFilters.none();
+        return this;
     }
 
     /**
      * Tworzy nową instancję buildera do raportu zalegających użytkowników
      */
     public static OverduePdfBuilder createOverdueReport() {
-        return new OverduePdfBuilder(PdfType.A4);
+        return createOverdueReport(PdfMemoryPolicy.defaults());
+    }
+
+    /**
+     * Tworzy nową instancję buildera do raportu zalegających użytkowników z podaną polityką pamięci buforów
+     */
+    public static OverduePdfBuilder createOverdueReport(PdfMemoryPolicy memoryPolicy) {
+        return createOverdueReport(memoryPolicy, LayoutProfile.standard(PdfType.A4));
+    }
+
+    /**
+     * Tworzy nową instancję buildera do raportu zalegających użytkowników z podaną polityką pamięci buforów
+     * i profilem układu
+     */
+    public static OverduePdfBuilder createOverdueReport(PdfMemoryPolicy memoryPolicy, LayoutProfile layoutProfile) {
+        return new OverduePdfBuilder(layoutProfile, memoryPolicy);
+    }
+
+    /**
+     * Otwiera wygenerowany wcześniej raport zalegających do dopisania nowych wierszy.
+     * Podsumowania i podpis poprzedniej wersji są odłączane; strony z tabelą pozostają nietknięte.
+     *
+     * @param previousPdfPath ścieżka raportu wygenerowanego przez {@link #buildOverdueReport}
+     * @return builder gotowy do {@link #appendOverdueRows}
+     */
+    public static OverduePdfBuilder openForAppend(String previousPdfPath) {
+        return openForAppend(previousPdfPath, PdfMemoryPolicy.defaults());
+    }
+
+    /**
+     * Otwiera wygenerowany wcześniej raport zalegających do dopisania nowych wierszy z podaną polityką pamięci buforów
+     *
+     * @see #openForAppend(String)
+     */
+    public static OverduePdfBuilder openForAppend(String previousPdfPath, PdfMemoryPolicy memoryPolicy) {
+        DocumentBufferUsage bufferUsage = memoryPolicy.newBufferUsage();
+        PDDocument document;
+        try {
+            // Dokument wczytany z pamięci, dzięki czemu zapis przyrostowy może nadpisać plik źródłowy
+            document = Loader.loadPDF(Files.readAllBytes(Path.of(previousPdfPath)), null, null, null, bufferUsage);
+        } catch (IOException e) {
+            throw new ReportAppendException("Nie udało się wczytać raportu " + previousPdfPath + ": " + e.getMessage(), e);
+        }
+
+        OverdueReportState state = OverdueReportState.read(document);
+        if (state == null) {
+            try {
+                document.close();
+            } catch (IOException ignored) {
+                // Dokument i tak jest odrzucany
+            }
+            throw new ReportAppendException("Plik " + previousPdfPath + " nie jest raportem zalegających, do którego można dopisać wiersze");
+        }
+
+        removeTailContent(document, state.getTableEndPage());
+        return new OverduePdfBuilder(document, bufferUsage, state);
     }
 
     /**
@@ -55,133 +213,283 @@ public class OverduePdfBuilder extends PdfBuilder {
 
         try {
             float tableWidth = getWidth();
-            float headerHeight = 120f;
+            float headerHeight = REPORT_HEADER_HEIGHT;
             float leftWidth = tableWidth * 0.5f;
             float rightWidth = tableWidth - leftWidth;
             float margin = getMargin();
-            float pageHeight = getHeight();
-            float minBottomMargin = 120f;
 
-            float currentY = getStartY();
             float rightStartX = margin + leftWidth;
 
-            // Rysuj nagłówek używając metody z PdfBuilder
-            drawOverdueReportHeader(libraryName, libraryDesc, address, city, reportNumber,
-                    reportDate, rightStartX, currentY, headerHeight, leftWidth, rightWidth);
+            // Faza planowania - podziały stron i położenie sekcji wyznaczone przed rysowaniem
+            long layoutStart = System.nanoTime();
+            TableLayout<OverduePdfTableItem> table = layoutTable(OVERDUE_TABLE, tableWidth);
+            float[] rowHeights = tableRowHeights(table, overdueLoans, 0);
+            layoutPlan = planOverdueLayout(getStartY(), tableRowHeight(), minBottomMargin(),
+                    LayoutProfile.summaryColumnGroups(getWidth()), overdueLoans.size(), rowHeights, sizeOf(categorySummaries),
+                    sizeOf(genreSummaries), sizeOf(publisherSummaries));
+            long renderStart = System.nanoTime();
+            getStatistics().addPhaseNanos(ReportPhase.LAYOUT, renderStart - layoutStart).addRows(overdueLoans.size());
 
-            currentY = currentY - headerHeight - SECTION_SPACING;
+            // Rysuj nagłówek używając metody z PdfBuilder
+            traceSection(SECTION_HEADER, () -> drawOverdueReportHeader(libraryName, libraryDesc, address, city,
+                    reportNumber, reportDate, rightStartX, layoutPlan.getSection(SECTION_HEADER).getY(),
+                    headerHeight, leftWidth, rightWidth));
 
             // Tabela zalegających z wielostronicowością
-            currentY = drawOverdueTable(overdueLoans, margin, currentY, tableWidth, pageHeight,
-                    minBottomMargin, libraryName, reportNumber, reportDate);
-
-            // Standardowy odstęp po tabeli głównej
-            currentY -= SECTION_SPACING;
-
-            // Sekcje podsumowań ze standardowymi odstępami
-            if (categorySummaries != null && !categorySummaries.isEmpty()) {
-                final float finalCurrentY1 = currentY;
-                currentY = drawSectionIfNeeded(currentY, minBottomMargin,
-                        () -> drawOverdueCategorySummary(categorySummaries, margin, finalCurrentY1, tableWidth),
-                        () -> calculateSummaryHeight(categorySummaries.size()),
-                        true);
-            }
+            traceSection(SECTION_TABLE, () -> drawOverdueTable(table, overdueLoans, 0, rowHeights, margin,
+                    layoutPlan.getTableSlices(), libraryName, reportNumber, reportDate));
 
-            if (genreSummaries != null && !genreSummaries.isEmpty()) {
-                final float finalCurrentY2 = currentY;
-                currentY = drawSectionIfNeeded(currentY, minBottomMargin,
-                        () -> drawGenreSummarySection(genreSummaries, margin, finalCurrentY2, tableWidth),
-                        () -> calculateSummaryHeight(genreSummaries.size()),
-                        true);
-            }
+            drawTail(categorySummaries, genreSummaries, publisherSummaries, generatedBy, reportDate);
 
-            if (publisherSummaries != null && !publisherSummaries.isEmpty()) {
-                final float finalCurrentY3 = currentY;
-                currentY = drawSectionIfNeeded(currentY, minBottomMargin,
-                        () -> drawPublisherSummarySection(publisherSummaries, margin, finalCurrentY3, tableWidth),
-                        () -> calculateSummaryHeight(publisherSummaries.size()),
-                        true);
-            }
+            saveReportState(overdueLoans.size(), rowHeights, libraryName, reportNumber, reportDate,
+                    categorySummaries, genreSummaries, publisherSummaries, loanIds(Set.of(), overdueLoans));
+            getStatistics().addPhaseNanos(ReportPhase.RENDERING, System.nanoTime() - renderStart);
+
+        } catch (IOException e) {
+            safeEndText(getContentStream());
+            throw new PDPageContentStreamException("Nie udało się zbudować raportu zalegających: " + e.getMessage());
+        }
+
+        return this;
+    }
 
-            // Podpis na samym końcu z większym marginesem
-            float signatureHeight = 80f;
-            float minSpaceForSignature = 150f; // Większy margines dla podpisu
+    /**
+     * Dopisuje nowe wiersze za ostatnim wierszem tabeli otwartego raportu i rysuje aktualne podsumowania.
+     * Numeracja wierszy, nagłówki stron kontynuacji i numer raportu są kontynuowane z poprzedniej wersji.
+     *
+     * @param newLoans nowe zalegające wypożyczenia, nieobecne jeszcze w raporcie
+     * @param categorySummaries podsumowanie kategorii dla wszystkich wierszy raportu
+     * @param genreSummaries podsumowanie gatunków dla wszystkich wierszy raportu
+     * @param publisherSummaries podsumowanie wydawców dla wszystkich wierszy raportu
+     * @param generatedBy osoba/użytkownik generujący raport
+     * @param generatedDate data dopisania, wyświetlana przy podpisie
+     * @return ten sam builder
+     */
+    public OverduePdfBuilder appendOverdueRows(
+            List<OverduePdfTableItem> newLoans,
+            List<OverdueCategorySummary> categorySummaries,
+            List<GenreSummary> genreSummaries,
+            List<PublisherSummary> publisherSummaries,
+            String generatedBy,
+            LocalDate generatedDate) {
+
+        if (reportState == null) {
+            throw new ReportAppendException("Builder nie został otwarty przez openForAppend");
+        }
 
-            // Sprawdź czy jest wystarczająco miejsca na podpis
-            if (currentY - signatureHeight < minSpaceForSignature) {
-                addNewPage();
-                currentY = getStartY(); // Zacznij od samej góry nowej strony
+        try {
+            float tableWidth = getWidth();
+            float startY = getStartY();
+            float rowHeight = tableRowHeight();
+            float minBottomMargin = minBottomMargin();
+
+            long layoutStart = System.nanoTime();
+            TableLayout<OverduePdfTableItem> table = layoutTable(OVERDUE_TABLE, tableWidth);
+            float[] rowHeights = tableRowHeights(table, newLoans, reportState.getRowCount());
+            float continuationTopY = startY - CONTINUATION_HEADER_HEIGHT - 20f;
+            LayoutPlanner planner = new LayoutPlanner(startY, reportState.getTableEndPage(), reportState.getTableEndY());
+            if (rowHeights != null) {
+                planner.continueTable(rowHeights, rowHeight, continuationTopY, minBottomMargin);
+            } else {
+                planner.continueTable(newLoans.size(), rowHeight, rowHeight, continuationTopY, minBottomMargin);
             }
+            planner.space(SECTION_SPACING);
+            layoutPlan = planSummariesAndSignature(planner, rowHeight, minBottomMargin,
+                    LayoutProfile.summaryColumnGroups(tableWidth), sizeOf(categorySummaries),
+                    sizeOf(genreSummaries), sizeOf(publisherSummaries));
+            long renderStart = System.nanoTime();
+            getStatistics().addPhaseNanos(ReportPhase.LAYOUT, renderStart - layoutStart).addRows(newLoans.size());
+
+            traceSection(SECTION_TABLE, () -> drawOverdueTable(table, newLoans, reportState.getRowCount(), rowHeights,
+                    getMargin(), layoutPlan.getTableSlices(), reportState.getLibraryName(),
+                    reportState.getReportNumber(), reportState.getReportDate()));
 
-            // Rysuj podpis
-            drawOverdueSignatureSection(margin, currentY - signatureHeight, tableWidth, generatedBy, reportDate);
+            drawTail(categorySummaries, genreSummaries, publisherSummaries, generatedBy, generatedDate);
+
+            saveReportState(reportState.getRowCount() + newLoans.size(), rowHeights, reportState.getLibraryName(),
+                    reportState.getReportNumber(), reportState.getReportDate(),
+                    categorySummaries, genreSummaries, publisherSummaries,
+                    loanIds(reportState.getLoanIds(), newLoans));
+            getStatistics().addPhaseNanos(ReportPhase.RENDERING, System.nanoTime() - renderStart);
 
         } catch (IOException e) {
             safeEndText(getContentStream());
-            throw new PDPageContentStreamException("Nie udało się zbudować raportu zalegających: " + e.getMessage());
+            throw new PDPageContentStreamException("Nie udało się dopisać wierszy do raportu zalegających: " + e.getMessage());
         }
 
         return this;
     }
 
     /**
-     * Rysuje tabelę zalegających z obsługą wielu stron
+     * Rysuje podsumowania i podpis w osobnym strumieniu treści, który można odłączyć przy dopisywaniu wierszy
      */
-    private float drawOverdueTable(List<OverduePdfTableItem> loans, float x, float y, float tableWidth,
-                                   float pageHeight, float minBottomMargin, String libraryName,
-                                   String reportNumber, LocalDate reportDate) throws IOException {
+    private void drawTail(List<OverdueCategorySummary> categorySummaries, List<GenreSummary> genreSummaries,
+                          List<PublisherSummary> publisherSummaries, String generatedBy,
+                          LocalDate date) throws IOException {
+        float margin = getMargin();
+        float tableWidth = getWidth();
 
-        float rowHeight = 25f;
-        float currentY = y;
-        int rowIndex = 0;
+        startTailContent();
 
-        // Szerokości kolumn
-        float[] colWidths = {20f, 45f, 100f, 80f, 70f, 120f, 50f, 20f};
-        colWidths[7] = tableWidth - (colWidths[0] + colWidths[1] + colWidths[2] + colWidths[3] + colWidths[4] + colWidths[5] + colWidths[6]);
+        // Sekcje podsumowań w miejscach wyznaczonych przez plan
+        drawSection(SECTION_CATEGORY_SUMMARY,
+                y -> drawOverdueCategorySummary(categorySummaries, margin, y, tableWidth));
+        drawGridSection(SECTION_GENRE_SUMMARY,
+                slice -> drawGenreSummarySection(genreSummaries, margin, slice, tableWidth));
+        drawGridSection(SECTION_PUBLISHER_SUMMARY,
+                slice -> drawPublisherSummarySection(publisherSummaries, margin, slice, tableWidth));
 
-        // Nagłówek na pierwszej stronie
-        drawOverdueTableHeader(x, currentY, tableWidth, rowHeight, colWidths);
-        currentY -= rowHeight;
+        // Podpis na samym końcu z większym marginesem
+        drawSection(SECTION_SIGNATURE,
+                y -> drawOverdueSignatureSection(margin, y, tableWidth, generatedBy, date));
+    }
 
-        // Wiersze z danymi
-        while (rowIndex < loans.size()) {
-            if (currentY - rowHeight < minBottomMargin) {
-                addNewPage();
-                currentY = getStartY(); // Od samej góry nowej strony
-                drawSimpleOverdueHeader(libraryName, "Kontynuacja - strona " + getDocument().getNumberOfPages(),
-                        reportNumber, reportDate, getMargin(), currentY, 50f, tableWidth);
-                currentY -= 70f;
-                drawOverdueTableHeader(x, currentY, tableWidth, rowHeight, colWidths);
-                currentY -= rowHeight;
+    /**
+     * Zapisuje w dokumencie położenie końca tabeli i podsumowania, potrzebne do późniejszego dopisania wierszy
+     *
+     * @param rowHeights wysokości wierszy narysowanych w tym przebiegu lub null dla wierszy jednoliniowych
+     */
+    private void saveReportState(int rowCount, float[] rowHeights, String libraryName, String reportNumber, LocalDate reportDate,
+                                 List<OverdueCategorySummary> categorySummaries, List<GenreSummary> genreSummaries,
+                                 List<PublisherSummary> publisherSummaries, Set<String> loanIds) {
+        List<TableSlice> slices = layoutPlan.getTableSlices();
+        TableSlice lastSlice = slices.get(slices.size() - 1);
+        float tableEndY = lastSlice.getFirstRowY() - lastSlice.getRowCount() * tableRowHeight();
+        if (rowHeights != null) {
+            tableEndY = lastSlice.getFirstRowY();
+            for (int row = lastSlice.getFirstRow(); row < lastSlice.getEndRow(); row++) {
+                tableEndY -= rowHeights[row];
             }
+        }
 
-            drawOverdueRow(loans.get(rowIndex), rowIndex + 1, x, currentY, colWidths);
-            currentY -= rowHeight;
-            rowIndex++;
+        reportState = new OverdueReportState(rowCount, lastSlice.getPageIndex(), tableEndY, libraryName,
+                reportNumber, reportDate, getTotalPagesForm(), getLayoutProfile(),
+                categorySummaries, genreSummaries, publisherSummaries, loanIds, reportFilters);
+        reportState.write(getDocument());
+    }
+
+    private static Set<String> loanIds(Set<String> previousIds, List<OverduePdfTableItem> loans) {
+        Set<String> loanIds = new LinkedHashSet<>(previousIds);
+        for (OverduePdfTableItem loan : loans) {
+            if (loan.getLoanId() != null) {
+                loanIds.add(loan.getLoanId());
+            }
+        }
+        return loanIds;
+    }
+
+    /**
+     * Planuje układ raportu zalegających bez jego renderowania
+     *
+     * @param loanCount liczba zalegających wypożyczeń
+     * @param categoryCount liczba kategorii zaległości
+     * @param genreCount liczba pozycji podsumowania gatunków
+     * @param publisherCount liczba pozycji podsumowania wydawców
+     * @return plan układu z podziałami stron i liczbą stron
+     */
+    public static LayoutPlan planOverdueLayout(int loanCount, int categoryCount, int genreCount, int publisherCount) {
+        return planOverdueLayout(LayoutProfile.standard(), loanCount, categoryCount, genreCount, publisherCount);
+    }
+
+    /**
+     * Planuje układ raportu zalegających o podanym profilu układu bez jego renderowania
+     *
+     * @see #planOverdueLayout(int, int, int, int)
+     */
+    public static LayoutPlan planOverdueLayout(LayoutProfile profile, int loanCount, int categoryCount,
+                                               int genreCount, int publisherCount) {
+        return planOverdueLayout(profile.startY(), profile.rowHeight(), profile.minBottomMargin(MIN_BOTTOM_MARGIN),
+                profile.summaryColumnGroups(), loanCount, null, categoryCount, genreCount, publisherCount);
+    }
+
+    /**
+     * @param rowHeights wysokości wierszy z zawiniętym tekstem lub null dla wierszy o wysokości rowHeight
+     */
+    private static LayoutPlan planOverdueLayout(float startY, float rowHeight, float minBottomMargin, int summaryGroups,
+                                                int loanCount, float[] rowHeights, int categoryCount, int genreCount,
+                                                int publisherCount) {
+        LayoutPlanner planner = new LayoutPlanner(startY)
+                .section(SECTION_HEADER, REPORT_HEADER_HEIGHT, 0f, SECTION_SPACING, minBottomMargin);
+        float continuationTopY = startY - CONTINUATION_HEADER_HEIGHT - 20f;
+        if (rowHeights != null) {
+            planner.table(rowHeights, rowHeight, continuationTopY, minBottomMargin);
+        } else {
+            planner.table(loanCount, rowHeight, rowHeight, continuationTopY, minBottomMargin);
         }
+        planner.space(SECTION_SPACING); // Standardowy odstęp po tabeli głównej
 
-        return currentY;
+        return planSummariesAndSignature(planner, rowHeight, minBottomMargin, summaryGroups,
+                categoryCount, genreCount, publisherCount);
+    }
+
+    private static LayoutPlan planSummariesAndSignature(LayoutPlanner planner, float rowHeight, float minBottomMargin,
+                                                        int summaryGroups, int categoryCount, int genreCount,
+                                                        int publisherCount) {
+        // Puste sekcje podsumowań nie są rysowane i nie zajmują miejsca
+        if (categoryCount > 0) {
+            planner.section(SECTION_CATEGORY_SUMMARY, calculateSummaryHeight(categoryCount, rowHeight), 0f, SECTION_SPACING, minBottomMargin);
+        }
+        if (genreCount > 0) {
+            // Pozycje i wiersz sumy w grupach kolumn obok siebie
+            planner.grid(SECTION_GENRE_SUMMARY, genreCount + 1, summaryGroups, SUMMARY_TITLE_HEIGHT,
+                    rowHeight, rowHeight, 0f, SECTION_SPACING, minBottomMargin);
+        }
+        if (publisherCount > 0) {
+            planner.grid(SECTION_PUBLISHER_SUMMARY, publisherCount + 1, summaryGroups, SUMMARY_TITLE_HEIGHT,
+                    rowHeight, rowHeight, 0f, SECTION_SPACING, minBottomMargin);
+        }
+
+        return planner
+                .section(SECTION_SIGNATURE, 0f, SIGNATURE_HEIGHT, 0f, MIN_SPACE_FOR_SIGNATURE)
+                .plan();
     }
 
     /**
-     * Rysuje sekcję jeśli jest miejsce, inaczej dodaje nową stronę
+     * Rysuje tabelę zalegających na stronach wyznaczonych przez plan układu
+     *
+     * @param rowOffset liczba wierszy raportu poprzedzających rysowane wiersze (dla numeracji)
      */
-    private float drawSectionIfNeeded(float currentY, float minBottomMargin,
-                                      SectionDrawer drawer, HeightCalculator heightCalc, boolean hasData) throws IOException {
-        if (!hasData) {
-            return currentY; // Nie rysuj pustej sekcji
+    private void drawOverdueTable(TableLayout<OverduePdfTableItem> table, List<OverduePdfTableItem> loans, int rowOffset,
+                                  float[] rowHeights, float x, List<TableSlice> slices, String libraryName,
+                                  String reportNumber, LocalDate reportDate) throws IOException {
+        // Nagłówek tabeli rysowany na każdej stronie (fragment dopisany pod istniejącymi wierszami go nie ma)
+        drawTablePages(table, loans, rowOffset, rowHeights, x, slices, slice -> {
+            if (slice.isContinuation()) {
+                drawSimpleOverdueHeader(libraryName, "Kontynuacja - strona " + (slice.getPageIndex() + 1),
+                        reportNumber, reportDate, getMargin(), getStartY(), CONTINUATION_HEADER_HEIGHT, table.getWidth());
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Rysuje sekcję na stronie i pozycji wyznaczonej przez plan układu, jeśli została zaplanowana
+     */
+    private void drawSection(String name, SectionDrawer drawer) throws IOException {
+        SectionPlacement placement = layoutPlan.getSection(name);
+        if (placement == null) {
+            return; // Nie rysuj pustej sekcji
         }
 
-        float sectionHeight = heightCalc.calculate();
+        ensurePage(placement.getPageIndex());
+        traceSection(name, () -> drawer.draw(placement.getY()));
+    }
 
-        // Sprawdź czy jest miejsce
-        if (currentY - sectionHeight - SECTION_SPACING < minBottomMargin) {
-            addNewPage();
-            currentY = getStartY(); // Od samej góry nowej strony
+    /**
+     * Rysuje kolejne fragmenty tabeli wielokolumnowej na stronach wyznaczonych przez plan układu
+     */
+    private void drawGridSection(String name, GridSliceDrawer drawer) throws IOException {
+        List<GridSlice> slices = layoutPlan.getGridSlices(name);
+        if (slices.isEmpty()) {
+            return; // Nie rysuj pustej sekcji
         }
 
-        drawer.draw();
-        return currentY - sectionHeight - SECTION_SPACING; // Standardowy odstęp po sekcji
+        traceSection(name, () -> {
+            for (GridSlice slice : slices) {
+                ensurePage(slice.getPageIndex());
+                drawer.draw(slice);
+            }
+        });
     }
 
     /**
@@ -194,24 +502,23 @@ public class OverduePdfBuilder extends PdfBuilder {
         drawSectionHeader("Podsumowanie zaległości:", x, currentY);
         currentY -= 20f;
 
-        String[] headers = {"Kategoria", "Liczba", "Łączne dni", "Średnia"};
-        float[] colWidths = {120f, 80f, 100f, tableWidth - 300f};
+        TableLayout<String[]> table = layoutTable(CATEGORY_TABLE, tableWidth);
+        float rowHeight = tableRowHeight();
 
-        drawTableFrame(x, currentY, tableWidth, 25f, colWidths);
-        drawRowHeaders(headers, x, currentY, colWidths);
-        currentY -= 25f;
+        drawTableHeader(table, x, currentY);
+        currentY -= rowHeight;
 
         // Wiersze danych
+        int rowNumber = 1;
         for (OverdueCategorySummary summary : summaries) {
             String[] rowData = {
                     summary.getCategory(),
-                    String.valueOf(summary.getCount()),
-                    String.valueOf(summary.getTotalOverdueDays()),
-                    String.format("%.1f", summary.getAverageOverdueDays())
+                    CellFormat.number(summary.getCount()),
+                    CellFormat.number(summary.getTotalOverdueDays()),
+                    CellFormat.decimal(summary.getAverageOverdueDays(), 1)
             };
-            drawTableFrame(x, currentY, tableWidth, 25f, colWidths);
-            drawRowData(rowData, x, currentY, colWidths);
-            currentY -= 25f;
+            drawTableRow(table, rowData, rowNumber++, x, currentY, rowHeight, null);
+            currentY -= rowHeight;
         }
 
         // Wiersz podsumowania
@@ -219,97 +526,33 @@ public class OverduePdfBuilder extends PdfBuilder {
         long totalDays = summaries.stream().mapToLong(OverdueCategorySummary::getTotalOverdueDays).sum();
         double avgDays = totalCount > 0 ? (double) totalDays / totalCount : 0.0;
 
-        String[] totalRow = {"RAZEM", String.valueOf(totalCount), String.valueOf(totalDays), String.format("%.1f", avgDays)};
-        drawTableFrame(x, currentY, tableWidth, 25f, colWidths);
-        drawRowData(totalRow, x, currentY, colWidths, true);
+        String[] totalRow = {"RAZEM", CellFormat.number(totalCount), CellFormat.number(totalDays),
+                CellFormat.decimal(avgDays, 1)};
+        drawTableRow(table, totalRow, rowNumber, x, currentY, rowHeight, CellFont.BOLD);
     }
 
-    private void drawGenreSummarySection(List<GenreSummary> summaries, float x, float y, float tableWidth) throws IOException {
+    private void drawGenreSummarySection(List<GenreSummary> summaries, float x, GridSlice slice, float tableWidth) throws IOException {
         if (summaries == null || summaries.isEmpty()) return;
 
-        float currentY = y;
-        drawSectionHeader("Podsumowanie gatunków:", x, currentY);
-        currentY -= 20f;
+        float currentY = slice.getY();
+        drawSectionHeader(slice.isContinuation() ? "Podsumowanie gatunków (cd.):" : "Podsumowanie gatunków:", x, currentY);
+        currentY -= SUMMARY_TITLE_HEIGHT;
 
-        drawSimpleSummaryTable(summaries, x, currentY, tableWidth,
+        drawSimpleSummaryTable(summaries, slice, x, currentY, tableWidth,
                 s -> s.getGenre(), s -> s.getCount());
     }
 
-    private void drawPublisherSummarySection(List<PublisherSummary> summaries, float x, float y, float tableWidth) throws IOException {
+    private void drawPublisherSummarySection(List<PublisherSummary> summaries, float x, GridSlice slice, float tableWidth) throws IOException {
         if (summaries == null || summaries.isEmpty()) return;
 
-        float currentY = y;
-        drawSectionHeader("Podsumowanie wydawców:", x, currentY);
-        currentY -= 20f;
+        float currentY = slice.getY();
+        drawSectionHeader(slice.isContinuation() ? "Podsumowanie wydawców (cd.):" : "Podsumowanie wydawców:", x, currentY);
+        currentY -= SUMMARY_TITLE_HEIGHT;
 
-        drawSimpleSummaryTable(summaries, x, currentY, tableWidth,
+        drawSimpleSummaryTable(summaries, slice, x, currentY, tableWidth,
                 s -> s.getPublisher(), s -> s.getCount());
     }
 
-    /**
-     * Rysuje nagłówek tabeli zalegających
-     */
-    private void drawOverdueTableHeader(float x, float y, float tableWidth, float rowHeight, float[] colWidths) throws IOException {
-        String[] headers = {"Lp.", "ID wyp.", "Tytuł", "Autor", "Użytkownik", "Email", "Termin", "Dni zaleg."};
-
-        // Ramka nagłówka
-        drawTableFrame(x, y, tableWidth, rowHeight, colWidths);
-
-        // Teksty nagłówków
-        float currentX = x;
-        for (int i = 0; i < headers.length; i++) {
-            drawCellText(headers[i], currentX + 5, y - 15, getBoldFont(), 8);
-            currentX += colWidths[i];
-        }
-    }
-
-    /**
-     * Rysuje wiersz z danymi zalegającego
-     */
-    private void drawOverdueRow(OverduePdfTableItem loan, int rowNum, float x, float y, float[] colWidths) throws IOException {
-        // Ramka wiersza
-        drawTableFrame(x, y, getWidth(), 25f, colWidths);
-
-        // Dane wiersza
-        String[] rowData = {
-                String.valueOf(rowNum),
-                loan.getLoanId(),
-                truncateText(loan.getTitle(), 20),
-                truncateText(loan.getAuthors(), 15),
-                truncateText(loan.getUserName(), 12),
-                truncateText(loan.getUserEmail() != null ? loan.getUserEmail() : "", 30),
-                loan.getDueDate().atZone(java.time.ZoneId.systemDefault()).toLocalDate()
-                        .format(DateTimeFormatter.ofPattern("MM-dd")),
-                String.valueOf(loan.getOverdueDays())
-        };
-
-        float currentX = x;
-        for (int i = 0; i < rowData.length; i++) {
-            // Wyróżnij duże zaległości
-            boolean isBold = i == rowData.length - 1 && loan.getOverdueDays() > 30;
-            drawCellText(rowData[i], currentX + 5, y - 15,
-                    isBold ? getBoldFont() : getRegularFont(), 8);
-            currentX += colWidths[i];
-        }
-    }
-
-    /**
-     * Rysuje ramkę tabeli
-     */
-    private void drawTableFrame(float x, float y, float tableWidth, float rowHeight, float[] colWidths) throws IOException {
-        // Linie poziome
-        drawLine(x, y, x + tableWidth, y);
-        drawLine(x, y - rowHeight, x + tableWidth, y - rowHeight);
-
-        // Linie pionowe
-        float currentX = x;
-        drawLine(currentX, y, currentX, y - rowHeight);
-        for (float width : colWidths) {
-            currentX += width;
-            drawLine(currentX, y, currentX, y - rowHeight);
-        }
-    }
-
     /**
      * Rysuje tekst w komórce
      */
@@ -318,7 +561,7 @@ public class OverduePdfBuilder extends PdfBuilder {
         contentStream.beginText();
         contentStream.setFont(font, fontSize);
         contentStream.newLineAtOffset(x, y);
-        contentStream.showText(text);
+        showText(font, text);
         contentStream.endText();
     }
 
@@ -329,63 +572,34 @@ public class OverduePdfBuilder extends PdfBuilder {
         drawCellText(title, x, y, getBoldFont(), 10);
     }
 
-    private void drawRowHeaders(String[] headers, float x, float y, float[] colWidths) throws IOException {
-        float currentX = x;
-        for (int i = 0; i < headers.length; i++) {
-            drawCellText(headers[i], currentX + 5, y - 15, getBoldFont(), 8);
-            currentX += colWidths[i];
-        }
-    }
-
-    private void drawRowData(String[] data, float x, float y, float[] colWidths) throws IOException {
-        drawRowData(data, x, y, colWidths, false);
-    }
-
-    private void drawRowData(String[] data, float x, float y, float[] colWidths, boolean bold) throws IOException {
-        float currentX = x;
-        for (int i = 0; i < data.length; i++) {
-            drawCellText(data[i], currentX + 5, y - 15,
-                    bold ? getBoldFont() : getRegularFont(), 8);
-            currentX += colWidths[i];
-        }
-    }
-
-    private <T> void drawSimpleSummaryTable(List<T> summaries, float x, float y, float tableWidth,
-                                            java.util.function.Function<T, String> nameExtractor,
-                                            java.util.function.Function<T, Integer> countExtractor) throws IOException {
-        float[] colWidths = {200f, tableWidth - 200f};
-        String[] headers = {"Nazwa", "Ilość"};
-
-        float currentY = y;
-        drawTableFrame(x, currentY, tableWidth, 25f, colWidths);
-        drawRowHeaders(headers, x, currentY, colWidths);
-        currentY -= 25f;
-
-        for (T summary : summaries) {
-            String[] rowData = {nameExtractor.apply(summary), String.valueOf(countExtractor.apply(summary))};
-            drawTableFrame(x, currentY, tableWidth, 25f, colWidths);
-            drawRowData(rowData, x, currentY, colWidths);
-            currentY -= 25f;
-        }
-
-        // Suma
-        int total = summaries.stream().mapToInt(countExtractor::apply).sum();
-        String[] totalRow = {"RAZEM", String.valueOf(total)};
-        drawTableFrame(x, currentY, tableWidth, 25f, colWidths);
-        drawRowData(totalRow, x, currentY, colWidths, true);
+    /**
+     * Rysuje fragment tabeli podsumowania nazwa-ilość; pozycje wypełniają kolejno grupy kolumn
+     * ustawione obok siebie, a ostatnią pozycją jest wiersz sumy
+     */
+    private <T> void drawSimpleSummaryTable(List<T> summaries, GridSlice slice, float x, float y, float tableWidth,
+                                            Function<T, String> nameExtractor,
+                                            ToIntFunction<T> countExtractor) throws IOException {
+        int groups = slice.getGroups();
+        float groupWidth = (tableWidth - (groups - 1) * LayoutProfile.SUMMARY_GROUP_GAP) / groups;
+        drawTableGrid(layoutTable(summaryTable("Nazwa", groups), groupWidth),
+                summaryCells(summaries, nameExtractor, countExtractor), summaries.size(), slice,
+                x, y, LayoutProfile.SUMMARY_GROUP_GAP);
     }
 
     /**
      * Pomocnicze metody
      */
-    private float calculateSummaryHeight(int itemCount) {
+    private static float calculateSummaryHeight(int itemCount, float rowHeight) {
         if (itemCount == 0) return 0f;
-        return 20f + (itemCount + 2) * 25f; // nagłówek + elementy + suma + odstęp na nagłówek sekcji
+        return 20f + (itemCount + 2) * rowHeight; // nagłówek + elementy + suma + odstęp na nagłówek sekcji
     }
 
-    private String truncateText(String text, int maxLength) {
-        if (text == null || text.length() <= maxLength) return text != null ? text : "";
-        return text.substring(0, maxLength - 3) + "...";
+    private float minBottomMargin() {
+        return getLayoutProfile().minBottomMargin(MIN_BOTTOM_MARGIN);
+    }
+
+    private static int sizeOf(List<?> items) {
+        return items == null ? 0 : items.size();
     }
 
     private void drawOverdueReportHeader(String libraryName, String libraryDesc, String address, String city,
@@ -418,20 +632,28 @@ public class OverduePdfBuilder extends PdfBuilder {
 
         drawLine(rightStartX, currentY - 60f, margin + tableWidth, currentY - 60f);
         drawCellText("Data raportu:", rightStartX + 5, currentY - 80, getRegularFont(), 8);
-        drawCellText(reportDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")), rightStartX + 80, currentY - 80, getRegularFont(), 9);
+        drawCellText(reportDate.format(CellFormat.DATE), rightStartX + 80, currentY - 80, getRegularFont(), 9);
     }
 
     private void drawSimpleOverdueHeader(String title, String subtitle, String reportNumber, LocalDate reportDate,
                                          float x, float y, float headerHeight, float tableWidth) throws IOException {
+        // Niezmienna część nagłówka nagrywana raz i umieszczana przez odwołanie
+        drawFurniture("simpleOverdueHeader:" + title + ":" + reportNumber, x, y, tableWidth, headerHeight,
+                () -> drawSimpleOverdueHeaderFrame(title, reportNumber, reportDate, 0, 0, headerHeight, tableWidth));
+
+        drawCellText(subtitle, x + 10, y - 35, getRegularFont(), 9);
+    }
+
+    private void drawSimpleOverdueHeaderFrame(String title, String reportNumber, LocalDate reportDate,
+                                              float x, float y, float headerHeight, float tableWidth) throws IOException {
         drawLine(x, y, x + tableWidth, y);
         drawLine(x, y - headerHeight, x + tableWidth, y - headerHeight);
         drawLine(x, y, x, y - headerHeight);
         drawLine(x + tableWidth, y, x + tableWidth, y - headerHeight);
 
         drawCellText(title, x + 10, y - 20, getBoldFont(), 10);
-        drawCellText(subtitle, x + 10, y - 35, getRegularFont(), 9);
         drawCellText("Nr: " + reportNumber, x + tableWidth - 150, y - 20, getRegularFont(), 8);
-        drawCellText("Data: " + reportDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")),
+        drawCellText("Data: " + reportDate.format(CellFormat.DATE),
                 x + tableWidth - 150, y - 35, getRegularFont(), 8);
     }
 
@@ -439,7 +661,7 @@ public class OverduePdfBuilder extends PdfBuilder {
         float signatureWidth = tableWidth / 3;
 
         drawCellText(generatedBy, x + tableWidth - signatureWidth/2 - 60, y + 40, getBoldFont(), 8);
-        drawCellText("Wygenerowano dnia " + date.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")),
+        drawCellText("Wygenerowano dnia " + date.format(CellFormat.DATE),
                 x + tableWidth - signatureWidth/2 - 70, y + 25, getRegularFont(), 8);
 
         drawDottedLine(x + tableWidth - signatureWidth/2 - 50, y, x + tableWidth - signatureWidth/2 + 50, y);
@@ -449,11 +671,11 @@ public class OverduePdfBuilder extends PdfBuilder {
     // Interfejsy pomocnicze
     @FunctionalInterface
     private interface SectionDrawer {
-        void draw() throws IOException;
+        void draw(float y) throws IOException;
     }
 
     @FunctionalInterface
-    private interface HeightCalculator {
-        float calculate();
+    private interface GridSliceDrawer {
+        void draw(GridSlice slice) throws IOException;
     }
 }
\ No newline at end of file
@@ -0,0 +1,250 @@
+package com.orange.pdf.overdue.builder;
+
+import com.orange.pdf.builder.data.GenreSummary;
+import com.orange.pdf.builder.data.PublisherSummary;
+import com.orange.pdf.layout.LayoutProfile;
+import com.orange.pdf.overdue.data.OverdueCategorySummary;
+import com.orange.pdf.overdue.data.OverdueReportFilters;
+import lombok.Getter;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSFloat;
+import org.apache.pdfbox.cos.COSInteger;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Stan raportu zalegających zapisany w słowniku katalogu dokumentu PDF.
+ * Pozwala dopisać nowe wiersze do wygenerowanego wcześniej raportu: określa, gdzie kończy się tabela,
+ * ile ma wierszy, jakie są podsumowania, który form XObject przechowuje liczbę stron i jaki był profil układu.
+ * Zapamiętuje też identyfikatory wypożyczeń w tabeli i filtry raportu, aby dopisywane wiersze nie powtarzały
+ * wypożyczeń już obecnych i spełniały te same warunki co pierwotny raport.
+ */
+@Getter
+public class OverdueReportState {
+
+    private static final COSName STATE_KEY = COSName.getPDFName("OrangeOverdueReport");
+    private static final COSName ROW_COUNT = COSName.getPDFName("RowCount");
+    private static final COSName TABLE_END_PAGE = COSName.getPDFName("TableEndPage");
+    private static final COSName TABLE_END_Y = COSName.getPDFName("TableEndY");
+    private static final COSName LIBRARY_NAME = COSName.getPDFName("LibraryName");
+    private static final COSName REPORT_NUMBER = COSName.getPDFName("ReportNumber");
+    private static final COSName REPORT_DATE = COSName.getPDFName("ReportDate");
+    private static final COSName PAGE_COUNT_FORM = COSName.getPDFName("PageCountForm");
+    private static final COSName CATEGORIES = COSName.getPDFName("Categories");
+    private static final COSName GENRES = COSName.getPDFName("Genres");
+    private static final COSName PUBLISHERS = COSName.getPDFName("Publishers");
+    private static final COSName LAYOUT = COSName.getPDFName("Layout");
+    private static final COSName LAYOUT_NAME = COSName.getPDFName("Name");
+    private static final COSName MARGIN = COSName.getPDFName("Margin");
+    private static final COSName FONT_SIZE = COSName.getPDFName("FontSize");
+    private static final COSName ROW_HEIGHT = COSName.getPDFName("RowHeight");
+    private static final COSName CELL_PADDING = COSName.getPDFName("CellPadding");
+    private static final COSName WRAP_CELLS = COSName.getPDFName("WrapCells");
+    private static final COSName LOAN_IDS = COSName.getPDFName("LoanIds");
+    private static final COSName FILTERS = COSName.getPDFName("Filters");
+    private static final COSName START_DATE = COSName.getPDFName("StartDate");
+    private static final COSName END_DATE = COSName.getPDFName("EndDate");
+    private static final COSName GENRE = COSName.getPDFName("Genre");
+    private static final COSName PUBLISHER = COSName.getPDFName("Publisher");
+
+    private final int rowCount;
+    private final int tableEndPage;
+    private final float tableEndY;
+    private final String libraryName;
+    private final String reportNumber;
+    private final LocalDate reportDate;
+    private final PDFormXObject pageCountForm;
+    // Profil układu, w którym wygenerowano raport; null dla raportów zapisanych bez niego (układ standardowy)
+    private final LayoutProfile layoutProfile;
+    private final List<OverdueCategorySummary> categorySummaries;
+    private final List<GenreSummary> genreSummaries;
+    private final List<PublisherSummary> publisherSummaries;
+    // Identyfikatory wypożyczeń w tabeli; puste dla raportów zapisanych bez nich
+    private final Set<String> loanIds;
+    private final OverdueReportFilters filters;
+
+    OverdueReportState(int rowCount, int tableEndPage, float tableEndY, String libraryName,
+                       String reportNumber, LocalDate reportDate, PDFormXObject pageCountForm,
+                       LayoutProfile layoutProfile, List<OverdueCategorySummary> categorySummaries, List<GenreSummary> genreSummaries,
+                       List<PublisherSummary> publisherSummaries, Set<String> loanIds, OverdueReportFilters filters) {
+        this.rowCount = rowCount;
+        this.tableEndPage = tableEndPage;
+        this.tableEndY = tableEndY;
+        this.libraryName = libraryName;
+        this.reportNumber = reportNumber;
+        this.reportDate = reportDate;
+        this.pageCountForm = pageCountForm;
+        this.layoutProfile = layoutProfile;
+        this.categorySummaries = categorySummaries != null ? categorySummaries : List.of();
+        this.genreSummaries = genreSummaries != null ? genreSummaries : List.of();
+        this.publisherSummaries = publisherSummaries != null ? publisherSummaries : List.of();
+        this.loanIds = loanIds != null ? loanIds : Set.of();
+        this.filters = filters != null ? filters : OverdueReportFilters.none();
+    }
+
+    /**
+     * Odczytuje stan raportu z dokumentu
+     *
+     * @param document wczytany dokument
+     * @return stan raportu lub null, jeśli dokument nie jest raportem zalegających
+     */
+    static OverdueReportState read(PDDocument document) {
+        COSDictionary state = document.getDocumentCatalog().getCOSObject().getCOSDictionary(STATE_KEY);
+        if (state == null) {
+            return null;
+        }
+
+        COSBase form = state.getDictionaryObject(PAGE_COUNT_FORM);
+
+        List<OverdueCategorySummary> categories = new ArrayList<>();
+        for (COSArray entry : entries(state, CATEGORIES)) {
+            categories.add(new OverdueCategorySummary(entry.getString(0), entry.getInt(1),
+                    ((COSInteger) entry.getObject(2)).longValue()));
+        }
+        List<GenreSummary> genres = new ArrayList<>();
+        for (COSArray entry : entries(state, GENRES)) {
+            genres.add(new GenreSummary(entry.getString(0), entry.getInt(1)));
+        }
+        List<PublisherSummary> publishers = new ArrayList<>();
+        for (COSArray entry : entries(state, PUBLISHERS)) {
+            publishers.add(new PublisherSummary(entry.getString(0), entry.getInt(1)));
+        }
+        Set<String> loanIds = new LinkedHashSet<>();
+        if (state.getDictionaryObject(LOAN_IDS) instanceof COSArray ids) {
+            for (int i = 0; i < ids.size(); i++) {
+                loanIds.add(ids.getString(i));
+            }
+        }
+
+        return new OverdueReportState(
+                state.getInt(ROW_COUNT),
+                state.getInt(TABLE_END_PAGE),
+                state.getFloat(TABLE_END_Y),
+                state.getString(LIBRARY_NAME),
+                state.getString(REPORT_NUMBER),
+                LocalDate.parse(state.getString(REPORT_DATE)),
+                form instanceof COSStream stream ? new PDFormXObject(stream) : null,
+                readLayoutProfile(state, document),
+                categories, genres, publishers, loanIds, readFilters(state));
+    }
+
+    /**
+     * Zapisuje stan raportu w katalogu dokumentu, zastępując poprzedni
+     */
+    void write(PDDocument document) {
+        COSDictionary state = new COSDictionary();
+        state.setInt(ROW_COUNT, rowCount);
+        state.setInt(TABLE_END_PAGE, tableEndPage);
+        state.setItem(TABLE_END_Y, new COSFloat(tableEndY));
+        state.setString(LIBRARY_NAME, libraryName);
+        state.setString(REPORT_NUMBER, reportNumber);
+        state.setString(REPORT_DATE, reportDate.toString());
+        if (pageCountForm != null) {
+            state.setItem(PAGE_COUNT_FORM, pageCountForm);
+        }
+
+        if (layoutProfile != null) {
+            COSDictionary layout = new COSDictionary();
+            layout.setString(LAYOUT_NAME, layoutProfile.getName());
+            layout.setItem(MARGIN, new COSFloat(layoutProfile.getMargin()));
+            layout.setItem(FONT_SIZE, new COSFloat(layoutProfile.getFontSize()));
+            layout.setItem(ROW_HEIGHT, new COSFloat(layoutProfile.getRowHeight()));
+            layout.setItem(CELL_PADDING, new COSFloat(layoutProfile.getCellPadding()));
+            layout.setBoolean(WRAP_CELLS, layoutProfile.isWrapCells());
+            state.setItem(LAYOUT, layout);
+        }
+
+        COSArray categories = new COSArray();
+        for (OverdueCategorySummary summary : categorySummaries) {
+            categories.add(entry(summary.getCategory(), summary.getCount(), summary.getTotalOverdueDays()));
+        }
+        COSArray genres = new COSArray();
+        for (GenreSummary summary : genreSummaries) {
+            genres.add(entry(summary.getGenre(), summary.getCount()));
+        }
+        COSArray publishers = new COSArray();
+        for (PublisherSummary summary : publisherSummaries) {
+            publishers.add(entry(summary.getPublisher(), summary.getCount()));
+        }
+        state.setItem(CATEGORIES, categories);
+        state.setItem(GENRES, genres);
+        state.setItem(PUBLISHERS, publishers);
+
+        COSArray ids = new COSArray();
+        for (String loanId : loanIds) {
+            ids.add(new COSString(loanId));
+        }
+        state.setItem(LOAN_IDS, ids);
+
+        COSDictionary filterValues = new COSDictionary();
+        filterValues.setString(START_DATE, filters.getStartDate() != null ? filters.getStartDate().toString() : null);
+        filterValues.setString(END_DATE, filters.getEndDate() != null ? filters.getEndDate().toString() : null);
+        filterValues.setString(GENRE, filters.getGenre());
+        filterValues.setString(PUBLISHER, filters.getPublisher());
+        state.setItem(FILTERS, filterValues);
+
+        document.getDocumentCatalog().getCOSObject().setItem(STATE_KEY, state);
+    }
+
+    private static LayoutProfile readLayoutProfile(COSDictionary state, PDDocument document) {
+        COSDictionary layout = state.getCOSDictionary(LAYOUT);
+        if (layout == null) {
+            return null;
+        }
+        PDRectangle pageSize = document.getPage(0).getMediaBox();
+        LayoutProfile profile = "dense".equals(layout.getString(LAYOUT_NAME))
+                ? LayoutProfile.dense(pageSize) : LayoutProfile.custom(pageSize);
+        return profile.setMargin(layout.getFloat(MARGIN, profile.getMargin()))
+                .setFontSize(layout.getFloat(FONT_SIZE, profile.getFontSize()))
+                .setRowHeight(layout.getFloat(ROW_HEIGHT, profile.getRowHeight()))
+                .setCellPadding(layout.getFloat(CELL_PADDING, profile.getCellPadding()))
+                .setWrapCells(layout.getBoolean(WRAP_CELLS, false));
+    }
+
+    private static OverdueReportFilters readFilters(COSDictionary state) {
+        COSDictionary filterValues = state.getCOSDictionary(FILTERS);
+        if (filterValues == null) {
+            return OverdueReportFilters.none();
+        }
+        String startDate = filterValues.getString(START_DATE);
+        String endDate = filterValues.getString(END_DATE);
+        return new OverdueReportFilters(
+                startDate != null ? LocalDate.parse(startDate) : null,
+                endDate != null ? LocalDate.parse(endDate) : null,
+                filterValues.getString(GENRE),
+                filterValues.getString(PUBLISHER));
+    }
+
+    private static COSArray entry(String name, long... values) {
+        COSArray entry = new COSArray();
+        entry.add(new COSString(name != null ? name : ""));
+        for (long value : values) {
+            entry.add(COSInteger.get(value));
+        }
+        return entry;
+    }
+
+    private static List<COSArray> entries(COSDictionary state, COSName key) {
+        List<COSArray> entries = new ArrayList<>();
+        if (state.getDictionaryObject(key) instanceof COSArray array) {
+            for (int i = 0; i < array.size(); i++) {
+                if (array.getObject(i) instanceof COSArray entry) {
+                    entries.add(entry);
+                }
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,47 @@
+package com.orange.pdf.overdue.data;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Wezwanie do zwrotu książek dla jednego użytkownika: dane adresata i wszystkie jego zaległe wypożyczenia
+ */
+@Getter
+public class OverdueNotice {
+
+    private String noticeNumber;
+    private String userId;
+    private String userName;
+    private String userEmail;
+    private List<OverduePdfTableItem> loans;
+
+    /**
+     * Konstruktor wezwania
+     *
+     * @param noticeNumber numer wezwania
+     * @param userId identyfikator użytkownika
+     * @param userName imię i nazwisko użytkownika
+     * @param userEmail adres e-mail użytkownika
+     * @param loans zaległe wypożyczenia użytkownika w kolejności wierszy tabeli wezwania
+     */
+    public OverdueNotice(String noticeNumber, String userId, String userName, String userEmail,
+                         List<OverduePdfTableItem> loans) {
+        this.noticeNumber = noticeNumber;
+        this.userId = userId;
+        this.userName = userName;
+        this.userEmail = userEmail;
+        this.loans = loans;
+    }
+
+    /**
+     * Zwraca największą liczbę dni zaległości wśród wypożyczeń wezwania
+     */
+    public long getMaxOverdueDays() {
+        long max = 0;
+        for (OverduePdfTableItem loan : loans) {
+            max = Math.max(max, loan.getOverdueDays());
+        }
+        return max;
+    }
+}
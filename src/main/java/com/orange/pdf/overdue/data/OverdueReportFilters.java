@@ -0,0 +1,41 @@
+package com.orange.pdf.overdue.data;
+
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * Filtry, z którymi wygenerowano raport zalegających; null oznacza brak danego filtra
+ */
+@Getter
+public class OverdueReportFilters {
+
+    private static final OverdueReportFilters NONE = new OverdueReportFilters(null, null, null, null);
+
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private String genre;
+    private String publisher;
+
+    /**
+     * Konstruktor filtrów
+     *
+     * @param startDate najwcześniejsza data wypożyczenia
+     * @param endDate najpóźniejsza data wypożyczenia
+     * @param genre gatunek książki
+     * @param publisher wydawca książki
+     */
+    public OverdueReportFilters(LocalDate startDate, LocalDate endDate, String genre, String publisher) {
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.genre = genre;
+        this.publisher = publisher;
+    }
+
+    /**
+     * Zwraca filtry raportu bez żadnych ograniczeń
+     */
+    public static OverdueReportFilters none() {
+        return NONE;
+    }
+}
@@ -0,0 +1,364 @@
+package com.orange.pdf.overdue.report;
+
+import com.orange.pdf.builder.PdfBuilderPool;
+import com.orange.pdf.callback.PdfCallback;
+import com.orange.pdf.layout.LayoutProfile;
+import com.orange.pdf.memory.PdfMemoryPolicy;
+import com.orange.pdf.merge.MergeSource;
+import com.orange.pdf.merge.PdfMerger;
+import com.orange.pdf.metrics.ReportListener;
+import com.orange.pdf.output.PdfSaveOptions;
+import com.orange.pdf.overdue.builder.OverdueNoticeBuilder;
+import com.orange.pdf.overdue.data.OverdueNotice;
+import com.orange.pdf.overdue.data.OverduePdfTableItem;
+import lombok.Getter;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Generowanie wezwań do zwrotu książek dla zalegających użytkowników (korespondencja seryjna).
+ * <p>
+ * Zaległe wypożyczenia są grupowane według użytkownika - jedno wezwanie obejmuje wszystkie zaległe
+ * wypożyczenia użytkownika. Wezwania są renderowane równolegle przez buildery z puli, które analizują
+ * pliki fontów raz i używają ich w kolejnych dokumentach. Wynikiem są osobne pliki wezwań albo jeden
+ * dokument do druku: wezwania są wtedy renderowane w paczkach do plików tymczasowych, a paczki łączone
+ * przez {@link PdfMerger}. Paczki mają osadzone pełne fonty, więc połączony dokument zawiera jedną kopię
+ * fontów i wspólnych części wezwań (nagłówka, treści, zakończenia) zamiast kopii w każdej paczce.
+ */
+@Getter
+public class OverdueNoticeReport {
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private static final String DEFAULT_LIBRARY_NAME = "Biblioteka Miejska";
+    private static final String DEFAULT_LIBRARY_DESC = "System Zarządzania Księgozbiorem";
+    private static final String DEFAULT_ADDRESS = "ul. Akademicka 16";
+    private static final String DEFAULT_CITY = "44-100 Gliwice";
+    private static final String NOTICE_NUMBER_PREFIX = "WZW";
+
+    // Zapis pojedynczych wezwań nie jest wypisywany - podsumowanie jest wypisywane po zapisaniu wszystkich
+    private static final PdfCallback<PDDocument> SILENT = new PdfCallback<>() {
+        @Override
+        public void success(PDDocument document) {
+        }
+
+        @Override
+        public void error(PDDocument document) {
+            System.err.println("Błąd podczas zapisu wezwań do zwrotu!");
+        }
+    };
+
+    private final PdfSaveOptions saveOptions;
+    private ReportListener reportListener = ReportListener.NONE;
+    private PdfMemoryPolicy memoryPolicy = PdfMemoryPolicy.defaults();
+    private LayoutProfile layoutProfile = LayoutProfile.standard();
+    private int parallelism = 0;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    // Statystyki ostatniego generowania
+    private int noticeCount;
+    private int pageCount;
+    private int duplicateStreamCount;
+
+    public OverdueNoticeReport() {
+        this(PdfSaveOptions.defaults());
+    }
+
+    /**
+     * @param saveOptions ustawienia zapisu (kompresji) wezwań
+     */
+    public OverdueNoticeReport(PdfSaveOptions saveOptions) {
+        this.saveOptions = saveOptions;
+    }
+
+    /**
+     * Ustawia odbiorcę czasów faz i liczników; jest powiadamiany o każdym zapisanym pliku (wezwaniu lub paczce)
+     */
+    public OverdueNoticeReport setReportListener(ReportListener reportListener) {
+        this.reportListener = reportListener;
+        return this;
+    }
+
+    /**
+     * Ustawia politykę pamięci buforów generowanych dokumentów
+     */
+    public OverdueNoticeReport setMemoryPolicy(PdfMemoryPolicy memoryPolicy) {
+        this.memoryPolicy = memoryPolicy;
+        return this;
+    }
+
+    /**
+     * Ustawia profil układu stron wezwań
+     */
+    public OverdueNoticeReport setLayoutProfile(LayoutProfile layoutProfile) {
+        this.layoutProfile = layoutProfile;
+        return this;
+    }
+
+    /**
+     * Ustawia liczbę wątków renderujących wezwania
+     *
+     * @param parallelism liczba wątków; 0 - liczba rdzeni procesora
+     */
+    public OverdueNoticeReport setParallelism(int parallelism) {
+        if (parallelism < 0) {
+            throw new IllegalArgumentException("Liczba wątków nie może być ujemna: " + parallelism);
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Ustawia liczbę wezwań w paczce renderowanej przez jeden builder przy generowaniu jednego dokumentu
+     */
+    public OverdueNoticeReport setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Rozmiar paczki musi być dodatni: " + batchSize);
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Grupuje zaległe wypożyczenia w wezwania - jedno dla każdego użytkownika, w kolejności pierwszego
+     * wypożyczenia użytkownika na liście. Wypożyczenia wezwania są uporządkowane od największej zaległości,
+     * a wezwania numerowane kolejno.
+     *
+     * @param loans wypożyczenia (uwzględniane są tylko zalegające)
+     * @param noticeDate data wystawienia wezwań, wchodząca do ich numerów
+     */
+    public static List<OverdueNotice> groupNotices(List<OverduePdfTableItem> loans, LocalDate noticeDate) {
+        Map<String, List<OverduePdfTableItem>> loansByUser = new LinkedHashMap<>();
+        for (OverduePdfTableItem loan : loans) {
+            if (loan.isOverdue()) {
+                loansByUser.computeIfAbsent(loan.getUserId(), userId -> new ArrayList<>()).add(loan);
+            }
+        }
+
+        String numberPrefix = NOTICE_NUMBER_PREFIX + "-" + noticeDate.format(DateTimeFormatter.BASIC_ISO_DATE) + "-";
+        List<OverdueNotice> notices = new ArrayList<>(loansByUser.size());
+        for (List<OverduePdfTableItem> userLoans : loansByUser.values()) {
+            userLoans.sort(Comparator.comparingLong(OverduePdfTableItem::getOverdueDays).reversed());
+            OverduePdfTableItem first = userLoans.get(0);
+            notices.add(new OverdueNotice(numberPrefix + String.format(Locale.ROOT, "%05d", notices.size() + 1),
+                    first.getUserId(), first.getUserName(), first.getUserEmail(), userLoans));
+        }
+        return notices;
+    }
+
+    /**
+     * Generuje wezwania wszystkich zalegających użytkowników w jednym dokumencie do druku,
+     * każde wezwanie od nowej strony
+     *
+     * @param overdueLoans wypożyczenia (uwzględniane są tylko zalegające)
+     * @param outputPath ścieżka pliku wynikowego
+     * @param generatedBy osoba podpisująca wezwania
+     * @throws IllegalArgumentException gdy żadne wypożyczenie nie jest zaległe
+     */
+    public void generateNoticeDocument(List<OverduePdfTableItem> overdueLoans, String outputPath, String generatedBy) {
+        LocalDate noticeDate = LocalDate.now();
+        List<OverdueNotice> notices = notices(overdueLoans, noticeDate);
+        List<List<OverdueNotice>> batches = new ArrayList<>();
+        for (int from = 0; from < notices.size(); from += batchSize) {
+            batches.add(notices.subList(from, Math.min(from + batchSize, notices.size())));
+        }
+
+        int threads = Math.min(threadCount(), batches.size());
+        duplicateStreamCount = 0;
+        if (threads == 1) {
+            // Jeden builder - fonty osadzane jako podzbiory, bez łączenia
+            PdfBuilderPool<OverdueNoticeBuilder> builderPool = newBuilderPool(1, true);
+            try {
+                pageCount = renderNotices(builderPool, notices, outputPath, noticeDate, generatedBy);
+            } finally {
+                builderPool.clear();
+            }
+            System.out.println("Wygenerowano " + noticeCount + " wezwań do zwrotu (" + pageCount + " stron): " + outputPath);
+            return;
+        }
+
+        Path output = Path.of(outputPath).toAbsolutePath();
+        Path workDirectory;
+        try {
+            workDirectory = Files.createTempDirectory(output.getParent(), output.getFileName() + ".notices-");
+        } catch (IOException e) {
+            throw new RuntimeException("Nie można utworzyć katalogu paczek wezwań: " + e.getMessage(), e);
+        }
+        try {
+            List<MergeSource> sources = new ArrayList<>();
+            int first = 1;
+            for (int i = 0; i < batches.size(); i++) {
+                int last = first + batches.get(i).size() - 1;
+                sources.add(new MergeSource(workDirectory.resolve("notices-" + i + ".pdf").toString(),
+                        "Wezwania " + first + "-" + last));
+                first = last + 1;
+            }
+
+            // Pełne fonty mają w każdej paczce te same dane, więc po połączeniu zostaje jedna ich kopia
+            PdfBuilderPool<OverdueNoticeBuilder> builderPool = newBuilderPool(threads, false);
+            try {
+                runParallel(threads, batches.size(), i -> renderNotices(builderPool, batches.get(i),
+                        sources.get(i).getPath(), noticeDate, generatedBy));
+            } finally {
+                builderPool.clear();
+            }
+
+            PdfMerger merger = new PdfMerger().setMemoryPolicy(memoryPolicy).setSaveOptions(saveOptions);
+            merger.merge(sources, outputPath);
+            pageCount = merger.getPageCount();
+            duplicateStreamCount = merger.getDuplicateStreamCount();
+        } finally {
+            deleteDirectory(workDirectory);
+        }
+        System.out.println("Wygenerowano " + noticeCount + " wezwań do zwrotu (" + pageCount + " stron, "
+                + batches.size() + " paczek): " + outputPath);
+    }
+
+    /**
+     * Generuje wezwanie każdego zalegającego użytkownika w osobnym pliku o nazwie z numerem wezwania
+     * i identyfikatorem użytkownika
+     *
+     * @param overdueLoans wypożyczenia (uwzględniane są tylko zalegające)
+     * @param outputDirectory katalog plików wezwań; jest tworzony, jeśli nie istnieje
+     * @param generatedBy osoba podpisująca wezwania
+     * @return ścieżki plików wezwań w kolejności wezwań
+     * @throws IllegalArgumentException gdy żadne wypożyczenie nie jest zaległe
+     */
+    public List<String> generateNoticeFiles(List<OverduePdfTableItem> overdueLoans, String outputDirectory,
+                                            String generatedBy) {
+        LocalDate noticeDate = LocalDate.now();
+        List<OverdueNotice> notices = notices(overdueLoans, noticeDate);
+        Path directory = Path.of(outputDirectory);
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new RuntimeException("Nie można utworzyć katalogu wezwań " + outputDirectory + ": " + e.getMessage(), e);
+        }
+
+        List<String> paths = new ArrayList<>(notices.size());
+        for (OverdueNotice notice : notices) {
+            paths.add(directory.resolve(fileName(notice)).toString());
+        }
+
+        int threads = Math.min(threadCount(), notices.size());
+        int[] pages = new int[notices.size()];
+        PdfBuilderPool<OverdueNoticeBuilder> builderPool = newBuilderPool(threads, true);
+        try {
+            runParallel(threads, notices.size(), i -> pages[i] = renderNotices(builderPool, List.of(notices.get(i)),
+                    paths.get(i), noticeDate, generatedBy));
+        } finally {
+            builderPool.clear();
+        }
+
+        pageCount = IntStream.of(pages).sum();
+        duplicateStreamCount = 0;
+        System.out.println("Wygenerowano " + noticeCount + " plików wezwań do zwrotu (" + pageCount + " stron): " + outputDirectory);
+        return paths;
+    }
+
+    private List<OverdueNotice> notices(List<OverduePdfTableItem> overdueLoans, LocalDate noticeDate) {
+        List<OverdueNotice> notices = groupNotices(overdueLoans, noticeDate);
+        if (notices.isEmpty()) {
+            throw new IllegalArgumentException("Brak zaległych wypożyczeń - nie ma wezwań do wygenerowania");
+        }
+        noticeCount = notices.size();
+        return notices;
+    }
+
+    /**
+     * Renderuje wezwania builderem z puli i zapisuje je w jednym pliku
+     *
+     * @return liczba stron zapisanego dokumentu
+     */
+    private int renderNotices(PdfBuilderPool<OverdueNoticeBuilder> builderPool, List<OverdueNotice> notices,
+                              String outputPath, LocalDate noticeDate, String generatedBy) {
+        OverdueNoticeBuilder builder = builderPool.acquire();
+        try {
+            builder.setReportListener(reportListener);
+            builder.buildOverdueNotices(DEFAULT_LIBRARY_NAME, DEFAULT_LIBRARY_DESC, DEFAULT_ADDRESS, DEFAULT_CITY,
+                    noticeDate, notices, generatedBy);
+            int pages = builder.getDocument().getNumberOfPages();
+            builder.save(outputPath, saveOptions, SILENT);
+            return pages;
+        } finally {
+            builderPool.release(builder);
+        }
+    }
+
+    /**
+     * Tworzy pulę builderów dla wątków renderujących
+     *
+     * @param fontSubsetting czy fonty są osadzane jako podzbiory (false dla paczek łączonych w jeden dokument)
+     */
+    private PdfBuilderPool<OverdueNoticeBuilder> newBuilderPool(int threads, boolean fontSubsetting) {
+        return new PdfBuilderPool<>(() -> {
+            OverdueNoticeBuilder builder = OverdueNoticeBuilder.createOverdueNotices(memoryPolicy, layoutProfile);
+            builder.setFontSubsetting(fontSubsetting);
+            return builder;
+        }, threads, PdfBuilderPool.DEFAULT_IDLE_TIMEOUT);
+    }
+
+    /**
+     * Wykonuje zadania o indeksach 0..taskCount-1 w puli o podanej liczbie wątków
+     */
+    private static void runParallel(int threads, int taskCount, IntConsumer task) {
+        if (threads == 1) {
+            for (int i = 0; i < taskCount; i++) {
+                task.accept(i);
+            }
+            return;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.submit(() -> IntStream.range(0, taskCount).parallel().forEach(task)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Przerwano generowanie wezwań do zwrotu", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Błąd podczas generowania wezwań do zwrotu: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private int threadCount() {
+        return parallelism == 0 ? Runtime.getRuntime().availableProcessors() : parallelism;
+    }
+
+    /**
+     * Zwraca nazwę pliku wezwania; znaki identyfikatora użytkownika spoza liter, cyfr, '.', '-' i '_' są zastępowane '_'
+     */
+    private static String fileName(OverdueNotice notice) {
+        return notice.getNoticeNumber() + "_" + String.valueOf(notice.getUserId()).replaceAll("[^A-Za-z0-9._-]", "_") + ".pdf";
+    }
+
+    private static void deleteDirectory(Path directory) {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        } catch (IOException e) {
+            System.err.println("Nie udało się usunąć katalogu paczek wezwań " + directory + ": " + e.getMessage());
+        }
+    }
+}
@@ -1,13 +1,26 @@
 package com.orange.pdf.overdue.report;
 
+import com.orange.pdf.builder.PdfBuilderPool;
 import com.orange.pdf.builder.data.GenreSummary;
 import com.orange.pdf.builder.data.PublisherSummary;
 import com.orange.pdf.callback.PdfCallback;
+import com.orange.pdf.layout.LayoutPlan;
+import com.orange.pdf.layout.LayoutProfile;
+import com.orange.pdf.memory.PdfMemoryPolicy;
+import com.orange.pdf.metrics.ReportGenerationEvent;
+import com.orange.pdf.metrics.ReportListener;
+import com.orange.pdf.metrics.ReportPhase;
+import com.orange.pdf.metrics.ReportStatistics;
+import com.orange.pdf.output.PdfSaveOptions;
+import com.orange.pdf.exception.ReportAppendException;
 import com.orange.pdf.overdue.builder.OverduePdfBuilder;
+import com.orange.pdf.overdue.builder.OverdueReportState;
 import com.orange.pdf.overdue.data.OverdueCategorySummary;
 import com.orange.pdf.overdue.data.OverduePdfTableItem;
+import com.orange.pdf.overdue.data.OverdueReportFilters;
 import org.apache.pdfbox.pdmodel.PDDocument;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -23,6 +36,59 @@ public class OverduePdfReport {
     private static final String DEFAULT_ADDRESS = "ul. Akademicka 16";
     private static final String DEFAULT_CITY = "44-100 Gliwice";
 
+    private final PdfSaveOptions saveOptions;
+    private ReportListener reportListener = ReportListener.NONE;
+    private PdfMemoryPolicy memoryPolicy = PdfMemoryPolicy.defaults();
+    private LayoutProfile layoutProfile = LayoutProfile.standard();
+    private PdfBuilderPool<OverduePdfBuilder> builderPool;
+
+    public OverduePdfReport() {
+        this(PdfSaveOptions.defaults());
+    }
+
+    /**
+     * @param saveOptions ustawienia zapisu (kompresji) raportu
+     */
+    public OverduePdfReport(PdfSaveOptions saveOptions) {
+        this.saveOptions = saveOptions;
+    }
+
+    /**
+     * Ustawia odbiorcę czasów faz i liczników generowanych raportów
+     */
+    public OverduePdfReport setReportListener(ReportListener reportListener) {
+        this.reportListener = reportListener;
+        return this;
+    }
+
+    /**
+     * Ustawia politykę pamięci buforów generowanych dokumentów
+     */
+    public OverduePdfReport setMemoryPolicy(PdfMemoryPolicy memoryPolicy) {
+        this.memoryPolicy = memoryPolicy;
+        return this;
+    }
+
+    /**
+     * Ustawia profil układu stron nowych raportów; dopisywanie do raportu zachowuje układ zapisany w pliku
+     */
+    public OverduePdfReport setLayoutProfile(LayoutProfile layoutProfile) {
+        this.layoutProfile = layoutProfile;
+        return this;
+    }
+
+    /**
+     * Ustawia pulę builderów nowych raportów; builder jest z niej pobierany i zwracany po zapisie.
+     * Buildery z puli mają politykę pamięci i profil układu nadane przez fabrykę puli. Dopisywanie do raportu
+     * zawsze otwiera istniejący plik w nowym builderze.
+     *
+     * @param builderPool pula builderów lub null, aby tworzyć nowy builder dla każdego raportu
+     */
+    public OverduePdfReport setBuilderPool(PdfBuilderPool<OverduePdfBuilder> builderPool) {
+        this.builderPool = builderPool;
+        return this;
+    }
+
     /**
      * Generuje raport zalegających użytkowników
      */
@@ -35,28 +101,22 @@ public class OverduePdfReport {
             String outputPath,
             String generatedBy) {
 
+        ReportGenerationEvent event = new ReportGenerationEvent();
+        event.begin();
+        ReportStatistics statistics = new ReportStatistics();
+        long preparationStart = System.nanoTime();
+
         // Filtrowanie wypożyczeń według podanych parametrów
-        List<OverduePdfTableItem> filteredLoans = overdueLoans.stream()
-                .filter(loan -> loan.isOverdue()) // Tylko zalegające
-                .filter(loan -> (genre == null || genre.isEmpty() || loan.getGenre().equalsIgnoreCase(genre)))
-                .filter(loan -> (publisher == null || publisher.isEmpty() || loan.getPublisher().equalsIgnoreCase(publisher)))
-                .filter(loan -> {
-                    if (startDate == null) return true;
-                    LocalDate borrowedDate = loan.getBorrowedAt().atZone(java.time.ZoneId.systemDefault()).toLocalDate();
-                    return !borrowedDate.isBefore(startDate);
-                })
-                .filter(loan -> {
-                    if (endDate == null) return true;
-                    LocalDate borrowedDate = loan.getBorrowedAt().atZone(java.time.ZoneId.systemDefault()).toLocalDate();
-                    return !borrowedDate.isAfter(endDate);
-                })
-                .collect(Collectors.toList());
+        List<OverduePdfTableItem> filteredLoans = filterLoans(overdueLoans, startDate, endDate, genre, publisher);
 
         // Sortowanie według liczby dni zaległości (od największej do najmniejszej)
         filteredLoans.sort(Comparator.<OverduePdfTableItem, Long>comparing(
                 OverduePdfTableItem::getOverdueDays
         ).reversed());
 
+        long aggregationStart = System.nanoTime();
+        statistics.addPhaseNanos(ReportPhase.DATA_PREPARATION, aggregationStart - preparationStart);
+
         // Przygotowanie podsumowań dla kategorii zaległości
         Map<String, List<OverduePdfTableItem>> categoryGroups = filteredLoans.stream()
                 .collect(Collectors.groupingBy(OverduePdfTableItem::getOverdueCategory));
@@ -112,38 +172,220 @@ public class OverduePdfReport {
                 .sorted(Comparator.<PublisherSummary, Integer>comparing(PublisherSummary::getCount).reversed())
                 .collect(Collectors.toList());
 
+        statistics.addPhaseNanos(ReportPhase.AGGREGATION, System.nanoTime() - aggregationStart);
+
         // Generowanie raportu używając OverduePdfBuilder
+        OverduePdfBuilder builder = builderPool != null
+                ? builderPool.acquire()
+                : OverduePdfBuilder.createOverdueReport(memoryPolicy, layoutProfile);
+        try {
+            builder.setReportListener(reportListener);
+            builder.setReportFilters(new OverdueReportFilters(startDate, endDate, genre, publisher));
+            builder.getStatistics().add(statistics);
+            builder.buildOverdueReport(
+                    DEFAULT_LIBRARY_NAME,
+                    reportTitleBuilder.toString(),
+                    DEFAULT_ADDRESS,
+                    DEFAULT_CITY,
+                    generateReportNumber("OVR"),
+                    LocalDate.now(),
+                    filteredLoans,
+                    categorySummaries,
+                    genreSummaries,
+                    publisherSummaries,
+                    generatedBy
+                )
+                .save(outputPath, saveOptions, new PdfCallback<>() {
+                    @Override
+                    public void success(PDDocument document) {
+                        System.out.println("Raport zalegających użytkowników został wygenerowany pomyślnie: " + outputPath);
+                    }
+
+                    @Override
+                    public void error(PDDocument document) {
+                        System.err.println("Błąd podczas generowania raportu zalegających użytkowników!");
+                    }
+                });
+            event.commit(builder.getStatistics());
+        } catch (Exception e) {
+            throw new RuntimeException("Błąd podczas generowania raportu zalegających użytkowników: " + e.getMessage(), e);
+        } finally {
+            if (builderPool != null) {
+                builderPool.release(builder);
+            }
+        }
+    }
+
+    /**
+     * Dopisuje nowe zalegające wypożyczenia do wygenerowanego wcześniej raportu.
+     * Nowe wiersze trafiają za ostatni wiersz tabeli, podsumowania są przeliczane łącznie z poprzednimi,
+     * a plik jest zapisywany przyrostowo - dopisywane są tylko nowe i zmienione obiekty.
+     * Do nowych wypożyczeń stosowane są filtry poprzedniej wersji, a wypożyczenia już obecne w raporcie są pomijane.
+     *
+     * @param previousPdfPath ścieżka poprzedniej wersji raportu
+     * @param newLoans nowe wypożyczenia (uwzględniane są tylko zalegające i spełniające filtry raportu)
+     * @param outputPath ścieżka pliku wynikowego (może być równa previousPdfPath)
+     * @param generatedBy osoba/użytkownik generujący raport
+     */
+    public void appendOverdueReport(
+            String previousPdfPath,
+            List<OverduePdfTableItem> newLoans,
+            String outputPath,
+            String generatedBy) {
+
+        ReportGenerationEvent event = new ReportGenerationEvent();
+        event.begin();
+        ReportStatistics statistics = new ReportStatistics();
+
+        OverduePdfBuilder builder = null;
         try {
-            OverduePdfBuilder.createOverdueReport()
-                    .buildOverdueReport(
-                            DEFAULT_LIBRARY_NAME,
-                            reportTitleBuilder.toString(),
-                            DEFAULT_ADDRESS,
-                            DEFAULT_CITY,
-                            generateReportNumber("OVR"),
-                            LocalDate.now(),
-                            filteredLoans,
-                            categorySummaries,
-                            genreSummaries,
-                            publisherSummaries,
-                            generatedBy
-                    )
-                    .save(outputPath, new PdfCallback<>() {
+            builder = OverduePdfBuilder.openForAppend(previousPdfPath, memoryPolicy);
+            builder.setReportListener(reportListener);
+            OverdueReportState previous = builder.getReportState();
+
+            long preparationStart = System.nanoTime();
+
+            // Te same filtry co w poprzedniej wersji; wypożyczenia już obecne w tabeli nie są powtarzane
+            OverdueReportFilters filters = previous.getFilters();
+            Set<String> reportedLoanIds = new HashSet<>(previous.getLoanIds());
+            List<OverduePdfTableItem> loans = filterLoans(newLoans, filters.getStartDate(), filters.getEndDate(),
+                    filters.getGenre(), filters.getPublisher()).stream()
+                    .filter(loan -> loan.getLoanId() == null || reportedLoanIds.add(loan.getLoanId()))
+                    .sorted(Comparator.<OverduePdfTableItem, Long>comparing(
+                            OverduePdfTableItem::getOverdueDays
+                    ).reversed())
+                    .collect(Collectors.toList());
+
+            statistics.addPhaseNanos(ReportPhase.DATA_PREPARATION, System.nanoTime() - preparationStart);
+
+            long aggregationStart = System.nanoTime();
+
+            // Podsumowania poprzedniej wersji powiększone o nowe wiersze
+            Map<String, long[]> categoryTotals = new LinkedHashMap<>();
+            for (OverdueCategorySummary summary : previous.getCategorySummaries()) {
+                categoryTotals.put(summary.getCategory(), new long[]{summary.getCount(), summary.getTotalOverdueDays()});
+            }
+            Map<String, Integer> genreCounts = new LinkedHashMap<>();
+            for (GenreSummary summary : previous.getGenreSummaries()) {
+                genreCounts.put(summary.getGenre(), summary.getCount());
+            }
+            Map<String, Integer> publisherCounts = new LinkedHashMap<>();
+            for (PublisherSummary summary : previous.getPublisherSummaries()) {
+                publisherCounts.put(summary.getPublisher(), summary.getCount());
+            }
+
+            for (OverduePdfTableItem loan : loans) {
+                long[] totals = categoryTotals.computeIfAbsent(loan.getOverdueCategory(), category -> new long[2]);
+                totals[0]++;
+                totals[1] += loan.getOverdueDays();
+                genreCounts.merge(loan.getGenre() != null ? loan.getGenre() : "Nieznany", 1, Integer::sum);
+                publisherCounts.merge(loan.getPublisher() != null ? loan.getPublisher() : "Nieznany", 1, Integer::sum);
+            }
+
+            List<OverdueCategorySummary> categorySummaries = categoryTotals.entrySet().stream()
+                    .map(entry -> new OverdueCategorySummary(entry.getKey(), (int) entry.getValue()[0], entry.getValue()[1]))
+                    .sorted(Comparator.comparing(summary -> getCategoryOrder(summary.getCategory())))
+                    .collect(Collectors.toList());
+
+            List<GenreSummary> genreSummaries = genreCounts.entrySet().stream()
+                    .map(entry -> new GenreSummary(entry.getKey(), entry.getValue()))
+                    .sorted(Comparator.<GenreSummary, Integer>comparing(GenreSummary::getCount).reversed())
+                    .collect(Collectors.toList());
+
+            List<PublisherSummary> publisherSummaries = publisherCounts.entrySet().stream()
+                    .map(entry -> new PublisherSummary(entry.getKey(), entry.getValue()))
+                    .sorted(Comparator.<PublisherSummary, Integer>comparing(PublisherSummary::getCount).reversed())
+                    .collect(Collectors.toList());
+
+            statistics.addPhaseNanos(ReportPhase.AGGREGATION, System.nanoTime() - aggregationStart);
+            builder.getStatistics().add(statistics);
+
+            builder.appendOverdueRows(loans, categorySummaries, genreSummaries, publisherSummaries,
+                            generatedBy, LocalDate.now())
+                    .saveIncremental(outputPath, saveOptions, new PdfCallback<>() {
                         @Override
                         public void success(PDDocument document) {
-                            System.out.println("Raport zalegających użytkowników został wygenerowany pomyślnie: " + outputPath);
+                            System.out.println("Dopisano " + loans.size() + " wierszy do raportu zalegających: " + outputPath);
                         }
 
                         @Override
                         public void error(PDDocument document) {
-                            System.err.println("Błąd podczas generowania raportu zalegających użytkowników!");
+                            System.err.println("Błąd podczas dopisywania do raportu zalegających użytkowników!");
                         }
                     });
+            event.commit(builder.getStatistics());
+        } catch (ReportAppendException e) {
+            throw e;
         } catch (Exception e) {
-            throw new RuntimeException("Błąd podczas generowania raportu zalegających użytkowników: " + e.getMessage(), e);
+            throw new RuntimeException("Błąd podczas dopisywania do raportu zalegających użytkowników: " + e.getMessage(), e);
+        } finally {
+            if (builder != null) {
+                closeAppendedDocument(builder);
+            }
+        }
+    }
+
+    /**
+     * Zamyka wczytaną poprzednią wersję raportu; po udanym zapisie dokument jest już zamknięty
+     */
+    private static void closeAppendedDocument(OverduePdfBuilder builder) {
+        try {
+            builder.getDocument().close();
+        } catch (IOException e) {
+            System.err.println("Nie udało się zamknąć dopisywanego raportu: " + e.getMessage());
         }
     }
 
+    /**
+     * Planuje układ raportu zalegających użytkowników bez jego renderowania
+     *
+     * @return plan układu z liczbą stron i szacowanym rozmiarem dokumentu
+     */
+    public LayoutPlan planOverdueReport(
+            List<OverduePdfTableItem> overdueLoans,
+            LocalDate startDate,
+            LocalDate endDate,
+            String genre,
+            String publisher) {
+
+        List<OverduePdfTableItem> filteredLoans = filterLoans(overdueLoans, startDate, endDate, genre, publisher);
+
+        int categoryCount = (int) filteredLoans.stream().map(OverduePdfTableItem::getOverdueCategory).distinct().count();
+        int genreCount = (int) filteredLoans.stream()
+                .map(loan -> loan.getGenre() != null ? loan.getGenre() : "Nieznany").distinct().count();
+        int publisherCount = (int) filteredLoans.stream()
+                .map(loan -> loan.getPublisher() != null ? loan.getPublisher() : "Nieznany").distinct().count();
+
+        return OverduePdfBuilder.planOverdueLayout(layoutProfile, filteredLoans.size(), categoryCount, genreCount, publisherCount);
+    }
+
+    /**
+     * Filtruje wypożyczenia według podanych parametrów
+     */
+    private List<OverduePdfTableItem> filterLoans(
+            List<OverduePdfTableItem> overdueLoans,
+            LocalDate startDate,
+            LocalDate endDate,
+            String genre,
+            String publisher) {
+
+        return overdueLoans.stream()
+                .filter(loan -> loan.isOverdue()) // Tylko zalegające
+                .filter(loan -> (genre == null || genre.isEmpty() || loan.getGenre().equalsIgnoreCase(genre)))
+                .filter(loan -> (publisher == null || publisher.isEmpty() || loan.getPublisher().equalsIgnoreCase(publisher)))
+                .filter(loan -> {
+                    if (startDate == null) return true;
+                    LocalDate borrowedDate = loan.getBorrowedAt().atZone(java.time.ZoneId.systemDefault()).toLocalDate();
+                    return !borrowedDate.isBefore(startDate);
+                })
+                .filter(loan -> {
+                    if (endDate == null) return true;
+                    LocalDate borrowedDate = loan.getBorrowedAt().atZone(java.time.ZoneId.systemDefault()).toLocalDate();
+                    return !borrowedDate.isAfter(endDate);
+                })
+                .collect(Collectors.toList());
+    }
+
     /**
      * Określa kolejność kategorii zaległości do sortowania
      */
@@ -1,9 +1,26 @@
 package com.orange.pdf.overdue.service;
 
+import com.orange.pdf.builder.PdfBuilderPool;
+import com.orange.pdf.cache.ReportCache;
+import com.orange.pdf.cache.ReportCacheKey;
+import com.orange.pdf.enums.PdfLibraryReportType;
+import com.orange.pdf.layout.LayoutPlan;
+import com.orange.pdf.layout.LayoutProfile;
+import com.orange.pdf.memory.PdfMemoryPolicy;
+import com.orange.pdf.metrics.ReportGenerationEvent;
+import com.orange.pdf.metrics.ReportListener;
+import com.orange.pdf.output.PdfSaveOptions;
+import com.orange.pdf.overdue.builder.OverduePdfBuilder;
 import com.orange.pdf.overdue.data.OverduePdfTableItem;
+import com.orange.pdf.overdue.report.OverdueNoticeReport;
 import com.orange.pdf.overdue.report.OverduePdfReport;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.List;
 
 /**
@@ -11,6 +28,75 @@ import java.util.List;
  */
 public class OverduePdfService {
 
+    private PdfSaveOptions saveOptions = PdfSaveOptions.defaults();
+    private ReportCache reportCache;
+    private ReportListener reportListener = ReportListener.NONE;
+    private PdfMemoryPolicy memoryPolicy = PdfMemoryPolicy.defaults();
+    private LayoutProfile layoutProfile = LayoutProfile.standard();
+    private PdfBuilderPool<OverduePdfBuilder> builderPool;
+    private int noticeParallelism = 0;
+
+    /**
+     * Ustawia ustawienia zapisu (kompresji) dla generowanych raportów
+     */
+    public OverduePdfService setSaveOptions(PdfSaveOptions saveOptions) {
+        this.saveOptions = saveOptions;
+        return this;
+    }
+
+    /**
+     * Ustawia pamięć podręczną raportów; raporty o identycznych danych wejściowych
+     * są wtedy kopiowane z pamięci podręcznej zamiast ponownego renderowania
+     */
+    public OverduePdfService setReportCache(ReportCache reportCache) {
+        this.reportCache = reportCache;
+        return this;
+    }
+
+    /**
+     * Ustawia odbiorcę czasów faz i liczników generowanych raportów
+     */
+    public OverduePdfService setReportListener(ReportListener reportListener) {
+        this.reportListener = reportListener;
+        return this;
+    }
+
+    /**
+     * Ustawia politykę pamięci buforów generowanych dokumentów
+     */
+    public OverduePdfService setMemoryPolicy(PdfMemoryPolicy memoryPolicy) {
+        this.memoryPolicy = memoryPolicy;
+        return this;
+    }
+
+    /**
+     * Ustawia profil układu stron nowych raportów
+     */
+    public OverduePdfService setLayoutProfile(LayoutProfile layoutProfile) {
+        this.layoutProfile = layoutProfile;
+        return this;
+    }
+
+    /**
+     * Ustawia pulę builderów nowych raportów, np. przy generowaniu wielu raportów w jednym procesie
+     *
+     * @param builderPool pula builderów lub null, aby tworzyć nowy builder dla każdego raportu
+     */
+    public OverduePdfService setBuilderPool(PdfBuilderPool<OverduePdfBuilder> builderPool) {
+        this.builderPool = builderPool;
+        return this;
+    }
+
+    /**
+     * Ustawia liczbę wątków renderujących wezwania do zwrotu
+     *
+     * @param noticeParallelism liczba wątków; 0 - liczba rdzeni procesora
+     */
+    public OverduePdfService setNoticeParallelism(int noticeParallelism) {
+        this.noticeParallelism = noticeParallelism;
+        return this;
+    }
+
     /**
      * Generuje raport zalegających użytkowników z określonymi filtrami
      */
@@ -23,8 +109,30 @@ public class OverduePdfService {
             String outputPath,
             String generatedBy) {
 
+        ReportCacheKey cacheKey = null;
+        if (reportCache != null) {
+            ReportGenerationEvent event = new ReportGenerationEvent();
+            event.begin();
+            cacheKey = overdueCacheKey(overdueLoans, startDate, endDate, genre, publisher, generatedBy);
+            byte[] cached = reportCache.get(cacheKey);
+            if (cached != null) {
+                try {
+                    Files.write(Path.of(outputPath), cached);
+                } catch (IOException e) {
+                    throw new RuntimeException("Błąd podczas zapisu raportu z pamięci podręcznej: " + e.getMessage(), e);
+                }
+                event.commitCached(PdfLibraryReportType.OVERDUE.name(), cached.length);
+                System.out.println("Raport zalegających użytkowników został pobrany z pamięci podręcznej: " + outputPath);
+                return;
+            }
+        }
+
         // Użycie klasy OverduePdfReport do generowania raportu
-        OverduePdfReport overdueReport = new OverduePdfReport();
+        OverduePdfReport overdueReport = new OverduePdfReport(saveOptions)
+                .setReportListener(reportListener)
+                .setMemoryPolicy(memoryPolicy)
+                .setLayoutProfile(layoutProfile)
+                .setBuilderPool(builderPool);
         overdueReport.generateOverdueReport(
                 overdueLoans,
                 startDate,
@@ -34,6 +142,108 @@ public class OverduePdfService {
                 outputPath,
                 generatedBy
         );
+
+        if (cacheKey != null) {
+            try {
+                reportCache.put(cacheKey, Files.readAllBytes(Path.of(outputPath)));
+            } catch (IOException e) {
+                System.err.println("Nie można zapisać raportu w pamięci podręcznej: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Dopisuje nowe zalegające wypożyczenia do wygenerowanego wcześniej raportu (zapis przyrostowy)
+     */
+    public void appendOverdueReport(
+            String previousPdfPath,
+            List<OverduePdfTableItem> newLoans,
+            String outputPath,
+            String generatedBy) {
+
+        new OverduePdfReport(saveOptions)
+                .setReportListener(reportListener)
+                .setMemoryPolicy(memoryPolicy)
+                .appendOverdueReport(previousPdfPath, newLoans, outputPath, generatedBy);
+    }
+
+    /**
+     * Generuje wezwania do zwrotu książek - po jednym dla każdego zalegającego użytkownika,
+     * ze wszystkimi jego zaległymi wypożyczeniami - w jednym dokumencie do druku
+     */
+    public void generateOverdueNotices(
+            List<OverduePdfTableItem> overdueLoans,
+            String outputPath,
+            String generatedBy) {
+
+        newNoticeReport().generateNoticeDocument(overdueLoans, outputPath, generatedBy);
+    }
+
+    /**
+     * Generuje wezwania do zwrotu książek w osobnych plikach, po jednym dla każdego zalegającego użytkownika
+     *
+     * @return ścieżki plików wezwań
+     */
+    public List<String> generateOverdueNoticeFiles(
+            List<OverduePdfTableItem> overdueLoans,
+            String outputDirectory,
+            String generatedBy) {
+
+        return newNoticeReport().generateNoticeFiles(overdueLoans, outputDirectory, generatedBy);
+    }
+
+    private OverdueNoticeReport newNoticeReport() {
+        return new OverdueNoticeReport(saveOptions)
+                .setReportListener(reportListener)
+                .setMemoryPolicy(memoryPolicy)
+                .setLayoutProfile(layoutProfile)
+                .setParallelism(noticeParallelism);
+    }
+
+    /**
+     * Wylicza klucz pamięci podręcznej z danych wejściowych raportu i ustawień zapisu.
+     * Numer raportu jest generowany losowo, więc nie wchodzi do klucza; data raportu (dzisiejsza) - tak,
+     * ponieważ od niej zależy liczba dni zaległości. Znaczniki czasu wchodzą do klucza jako daty,
+     * bo z dokładnością do dnia są filtrowane i drukowane.
+     */
+    private ReportCacheKey overdueCacheKey(
+            List<OverduePdfTableItem> overdueLoans,
+            LocalDate startDate,
+            LocalDate endDate,
+            String genre,
+            String publisher,
+            String generatedBy) {
+
+        ReportCacheKey.Builder key = ReportCacheKey.builder("OVERDUE")
+                .add(layoutProfile.toString())
+                .add(saveOptions.toString())
+                .add(LocalDate.now())
+                .add(startDate)
+                .add(endDate)
+                .add(genre)
+                .add(publisher)
+                .add(generatedBy)
+                .add(overdueLoans.size());
+        for (OverduePdfTableItem loan : overdueLoans) {
+            key.add(loan.getLoanId())
+                    .add(loan.getBookId())
+                    .add(loan.getTitle())
+                    .add(loan.getAuthors())
+                    .add(loan.getPublisher())
+                    .add(loan.getGenre())
+                    .add(loan.getUserId())
+                    .add(loan.getUserName())
+                    .add(loan.getUserEmail())
+                    .add(toLocalDate(loan.getBorrowedAt()))
+                    .add(toLocalDate(loan.getDueDate()))
+                    .add(loan.getOverdueDays())
+                    .add(loan.getLibrarianId());
+        }
+        return key.build();
+    }
+
+    private static LocalDate toLocalDate(Instant instant) {
+        return instant != null ? instant.atZone(ZoneId.systemDefault()).toLocalDate() : null;
     }
 
     /**
@@ -54,4 +264,19 @@ public class OverduePdfService {
                 generatedBy
         );
     }
+
+    /**
+     * Szacuje liczbę stron i rozmiar raportu zalegających bez jego renderowania, w profilu układu serwisu
+     */
+    public LayoutPlan planOverdueReport(
+            List<OverduePdfTableItem> overdueLoans,
+            LocalDate startDate,
+            LocalDate endDate,
+            String genre,
+            String publisher) {
+
+        return new OverduePdfReport(saveOptions)
+                .setLayoutProfile(layoutProfile)
+                .planOverdueReport(overdueLoans, startDate, endDate, genre, publisher);
+    }
 }
\ No newline at end of file
@@ -1,9 +1,17 @@
 package com.orange.pdf.report;
 
 import com.orange.pdf.builder.LibraryPdfBuilder;
+import com.orange.pdf.builder.PdfBuilderPool;
 import com.orange.pdf.builder.data.*;
 import com.orange.pdf.callback.PdfCallback;
 import com.orange.pdf.enums.PdfLibraryReportType;
+import com.orange.pdf.layout.LayoutProfile;
+import com.orange.pdf.memory.PdfMemoryPolicy;
+import com.orange.pdf.metrics.ReportGenerationEvent;
+import com.orange.pdf.metrics.ReportListener;
+import com.orange.pdf.metrics.ReportPhase;
+import com.orange.pdf.metrics.ReportStatistics;
+import com.orange.pdf.output.PdfSaveOptions;
 import org.apache.pdfbox.pdmodel.PDDocument;
 
 import java.time.LocalDate;
@@ -21,6 +29,58 @@ public class PopularityPdfReport {
     private static final String DEFAULT_ADDRESS = "ul. Akademicka 16";
     private static final String DEFAULT_CITY = "44-100 Gliwice";
 
+    private final PdfSaveOptions saveOptions;
+    private ReportListener reportListener = ReportListener.NONE;
+    private PdfMemoryPolicy memoryPolicy = PdfMemoryPolicy.defaults();
+    private LayoutProfile layoutProfile = LayoutProfile.standard();
+    private PdfBuilderPool<LibraryPdfBuilder> builderPool;
+
+    public PopularityPdfReport() {
+        this(PdfSaveOptions.defaults());
+    }
+
+    /**
+     * @param saveOptions ustawienia zapisu (kompresji) raportu
+     */
+    public PopularityPdfReport(PdfSaveOptions saveOptions) {
+        this.saveOptions = saveOptions;
+    }
+
+    /**
+     * Ustawia odbiorcę czasów faz i liczników generowanych raportów
+     */
+    public PopularityPdfReport setReportListener(ReportListener reportListener) {
+        this.reportListener = reportListener;
+        return this;
+    }
+
+    /**
+     * Ustawia politykę pamięci buforów generowanych dokumentów
+     */
+    public PopularityPdfReport setMemoryPolicy(PdfMemoryPolicy memoryPolicy) {
+        this.memoryPolicy = memoryPolicy;
+        return this;
+    }
+
+    /**
+     * Ustawia profil układu stron generowanych dokumentów
+     */
+    public PopularityPdfReport setLayoutProfile(LayoutProfile layoutProfile) {
+        this.layoutProfile = layoutProfile;
+        return this;
+    }
+
+    /**
+     * Ustawia pulę builderów raportu popularności; builder jest z niej pobierany i zwracany po zapisie.
+     * Buildery z puli mają politykę pamięci i profil układu nadane przez fabrykę puli.
+     *
+     * @param builderPool pula builderów lub null, aby tworzyć nowy builder dla każdego raportu
+     */
+    public PopularityPdfReport setBuilderPool(PdfBuilderPool<LibraryPdfBuilder> builderPool) {
+        this.builderPool = builderPool;
+        return this;
+    }
+
     /**
      * Generuje raport popularności książek
      *
@@ -43,6 +103,11 @@ public class PopularityPdfReport {
             String outputPath,
             String generatedBy) {
 
+        ReportGenerationEvent event = new ReportGenerationEvent();
+        event.begin();
+        ReportStatistics statistics = new ReportStatistics();
+        long preparationStart = System.nanoTime();
+
         // Filtrowanie książek według podanych parametrów
         List<LibraryPdfTableItem> filteredBooks = books.stream()
                 .filter(book -> (genre == null || genre.isEmpty() || book.getGenre().equalsIgnoreCase(genre)))
@@ -65,6 +130,9 @@ public class PopularityPdfReport {
             popularityBooks.add(PopularityPdfTableItem.fromLibraryPdfTableItem(book, loanCount, rank));
         }
 
+        long aggregationStart = System.nanoTime();
+        statistics.addPhaseNanos(ReportPhase.DATA_PREPARATION, aggregationStart - preparationStart);
+
         // Przygotowanie podsumowań dla gatunków
         Map<String, Integer> genreCounts = new HashMap<>();
         for (PopularityPdfTableItem book : popularityBooks) {
@@ -118,35 +186,46 @@ public class PopularityPdfReport {
                 .sorted(Comparator.<PublisherSummary, Integer>comparing(PublisherSummary::getCount).reversed())
                 .collect(Collectors.toList());
 
+        statistics.addPhaseNanos(ReportPhase.AGGREGATION, System.nanoTime() - aggregationStart);
+
         // Generowanie raportu używając LibraryPdfBuilder
+        LibraryPdfBuilder builder = builderPool != null
+                ? builderPool.acquire()
+                : LibraryPdfBuilder.createLibraryReport(PdfLibraryReportType.POPULARITY, memoryPolicy, layoutProfile);
         try {
-            LibraryPdfBuilder.createLibraryReport(PdfLibraryReportType.POPULARITY)
-                    .buildPopularityReport(
-                            DEFAULT_LIBRARY_NAME,
-                            reportTitleBuilder.toString(),
-                            DEFAULT_ADDRESS,
-                            DEFAULT_CITY,
-                            generateReportNumber("POP"),
-                            LocalDate.now(),
-                            new ArrayList<>(popularityBooks),
-                            statusSummaries,
-                            genreSummaries,
-                            publisherSummaries,
-                            generatedBy
-                    )
-                    .save(outputPath, new PdfCallback<>() {
-                        @Override
-                        public void success(PDDocument document) {
-                            System.out.println("Raport popularności został wygenerowany pomyślnie: " + outputPath);
-                        }
-
-                        @Override
-                        public void error(PDDocument document) {
-                            System.err.println("Błąd podczas generowania raportu popularności!");
-                        }
-                    });
+            builder.setReportListener(reportListener);
+            builder.getStatistics().add(statistics);
+            builder.buildPopularityReport(
+                    DEFAULT_LIBRARY_NAME,
+                    reportTitleBuilder.toString(),
+                    DEFAULT_ADDRESS,
+                    DEFAULT_CITY,
+                    generateReportNumber("POP"),
+                    LocalDate.now(),
+                    new ArrayList<>(popularityBooks),
+                    statusSummaries,
+                    genreSummaries,
+                    publisherSummaries,
+                    generatedBy
+                )
+                .save(outputPath, saveOptions, new PdfCallback<>() {
+                    @Override
+                    public void success(PDDocument document) {
+                        System.out.println("Raport popularności został wygenerowany pomyślnie: " + outputPath);
+                    }
+
+                    @Override
+                    public void error(PDDocument document) {
+                        System.err.println("Błąd podczas generowania raportu popularności!");
+                    }
+                });
+            event.commit(builder.getStatistics());
         } catch (Exception e) {
             throw new RuntimeException("Błąd podczas generowania raportu popularności: " + e.getMessage(), e);
+        } finally {
+            if (builderPool != null) {
+                builderPool.release(builder);
+            }
         }
     }
 
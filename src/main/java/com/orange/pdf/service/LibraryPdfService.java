@@ -1,12 +1,27 @@
 package com.orange.pdf.service;
 
 import com.orange.pdf.builder.LibraryPdfBuilder;
+import com.orange.pdf.builder.PdfBuilderPool;
 import com.orange.pdf.builder.data.*;
+import com.orange.pdf.cache.ReportCache;
+import com.orange.pdf.cache.ReportCacheKey;
 import com.orange.pdf.callback.PdfCallback;
 import com.orange.pdf.enums.PdfLibraryReportType;
+import com.orange.pdf.layout.LayoutPlan;
+import com.orange.pdf.layout.LayoutProfile;
+import com.orange.pdf.layout.TableShard;
+import com.orange.pdf.memory.PdfMemoryPolicy;
+import com.orange.pdf.metrics.ReportGenerationEvent;
+import com.orange.pdf.metrics.ReportListener;
+import com.orange.pdf.metrics.ReportPhase;
+import com.orange.pdf.metrics.ReportStatistics;
+import com.orange.pdf.output.PdfSaveOptions;
 import com.orange.pdf.report.PopularityPdfReport;
 import org.apache.pdfbox.pdmodel.PDDocument;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -22,6 +37,123 @@ public class LibraryPdfService {
     private static final String DEFAULT_ADDRESS = "ul. Akademicka 16";
     private static final String DEFAULT_CITY = "44-100 Gliwice";
 
+    private PdfSaveOptions saveOptions = PdfSaveOptions.defaults();
+    private ReportCache reportCache;
+    private ReportListener reportListener = ReportListener.NONE;
+    private PdfMemoryPolicy memoryPolicy = PdfMemoryPolicy.defaults();
+    private LayoutProfile layoutProfile = LayoutProfile.standard();
+    private final Map<PdfLibraryReportType, PdfMemoryPolicy> memoryPolicies = new EnumMap<>(PdfLibraryReportType.class);
+    private final Map<PdfLibraryReportType, PdfBuilderPool<LibraryPdfBuilder>> builderPools = new EnumMap<>(PdfLibraryReportType.class);
+
+    /**
+     * Ustawia ustawienia zapisu (kompresji) dla generowanych raportów
+     *
+     * @param saveOptions ustawienia zapisu
+     * @return ten sam serwis
+     */
+    public LibraryPdfService setSaveOptions(PdfSaveOptions saveOptions) {
+        this.saveOptions = saveOptions;
+        return this;
+    }
+
+    /**
+     * Ustawia pamięć podręczną raportów; raporty o identycznych danych wejściowych
+     * są wtedy kopiowane z pamięci podręcznej zamiast ponownego renderowania
+     *
+     * @param reportCache pamięć podręczna raportów lub null, aby ją wyłączyć
+     * @return ten sam serwis
+     */
+    public LibraryPdfService setReportCache(ReportCache reportCache) {
+        this.reportCache = reportCache;
+        return this;
+    }
+
+    /**
+     * Ustawia odbiorcę czasów faz i liczników generowanych raportów
+     *
+     * @param reportListener odbiorca statystyk, np. {@link com.orange.pdf.metrics.ReportMetrics}
+     * @return ten sam serwis
+     */
+    public LibraryPdfService setReportListener(ReportListener reportListener) {
+        this.reportListener = reportListener;
+        return this;
+    }
+
+    /**
+     * Ustawia politykę pamięci buforów dokumentów dla raportów bez własnej polityki
+     *
+     * @param memoryPolicy polityka pamięci, np. {@link PdfMemoryPolicy#mixed(long)}
+     * @return ten sam serwis
+     */
+    public LibraryPdfService setMemoryPolicy(PdfMemoryPolicy memoryPolicy) {
+        this.memoryPolicy = memoryPolicy;
+        return this;
+    }
+
+    /**
+     * Ustawia politykę pamięci buforów dokumentów dla jednego typu raportu.
+     * Raport książek wypożyczonych korzysta z polityki raportu inwentaryzacyjnego.
+     *
+     * @param reportType typ raportu
+     * @param memoryPolicy polityka pamięci lub null, aby użyć polityki domyślnej serwisu
+     * @return ten sam serwis
+     */
+    public LibraryPdfService setMemoryPolicy(PdfLibraryReportType reportType, PdfMemoryPolicy memoryPolicy) {
+        if (memoryPolicy != null) {
+            memoryPolicies.put(reportType, memoryPolicy);
+        } else {
+            memoryPolicies.remove(reportType);
+        }
+        return this;
+    }
+
+    private PdfMemoryPolicy memoryPolicyFor(PdfLibraryReportType reportType) {
+        return memoryPolicies.getOrDefault(reportType, memoryPolicy);
+    }
+
+    /**
+     * Ustawia profil układu stron generowanych raportów
+     *
+     * @param layoutProfile profil układu, np. {@link LayoutProfile#dense(org.apache.pdfbox.pdmodel.common.PDRectangle)}
+     * @return ten sam serwis
+     */
+    public LibraryPdfService setLayoutProfile(LayoutProfile layoutProfile) {
+        this.layoutProfile = layoutProfile;
+        return this;
+    }
+
+    /**
+     * Ustawia pulę builderów dla typu buildera: {@link PdfLibraryReportType#INVENTORY} obsługuje raporty
+     * inwentaryzacyjne, wypożyczonych i filtrowane, {@link PdfLibraryReportType#POPULARITY} - raporty popularności.
+     * Buildery z puli mają politykę pamięci i profil układu nadane przez fabrykę puli.
+     *
+     * @param reportType typ buildera
+     * @param builderPool pula builderów tego typu lub null, aby tworzyć nowy builder dla każdego raportu
+     * @return ten sam serwis
+     */
+    public LibraryPdfService setBuilderPool(PdfLibraryReportType reportType, PdfBuilderPool<LibraryPdfBuilder> builderPool) {
+        if (builderPool != null) {
+            builderPools.put(reportType, builderPool);
+        } else {
+            builderPools.remove(reportType);
+        }
+        return this;
+    }
+
+    private LibraryPdfBuilder acquireInventoryBuilder(PdfMemoryPolicy memoryPolicy) {
+        PdfBuilderPool<LibraryPdfBuilder> pool = builderPools.get(PdfLibraryReportType.INVENTORY);
+        return pool != null
+                ? pool.acquire()
+                : LibraryPdfBuilder.createLibraryReport(PdfLibraryReportType.INVENTORY, memoryPolicy, layoutProfile);
+    }
+
+    private void releaseInventoryBuilder(LibraryPdfBuilder builder) {
+        PdfBuilderPool<LibraryPdfBuilder> pool = builderPools.get(PdfLibraryReportType.INVENTORY);
+        if (pool != null) {
+            pool.release(builder);
+        }
+    }
+
     /**
      * Generuje raport inwentaryzacyjny biblioteki z domyślnymi danymi instytucji
      *
@@ -37,22 +169,28 @@ public class LibraryPdfService {
             String generatedBy) {
 
         // Przygotuj mapy gatunków i wydawców z dostępnych książek
+        long aggregationStart = System.nanoTime();
         Map<String, Integer> genreCounts = countBooksByGenre(books);
         Map<String, Integer> publisherCounts = countBooksByPublisher(books);
+        ReportStatistics statistics = new ReportStatistics()
+                .addPhaseNanos(ReportPhase.AGGREGATION, System.nanoTime() - aggregationStart);
 
         generateInventoryReport(
                 DEFAULT_LIBRARY_NAME,
                 DEFAULT_LIBRARY_DESC,
                 DEFAULT_ADDRESS,
                 DEFAULT_CITY,
-                generateReportNumber(),
+                null,
+                "INV",
                 LocalDate.now(),
                 books,
                 statusCounts,
                 genreCounts,
                 publisherCounts,
                 outputPath,
-                generatedBy
+                generatedBy,
+                statistics,
+                memoryPolicyFor(PdfLibraryReportType.INVENTORY)
         );
     }
 
@@ -86,7 +224,55 @@ public class LibraryPdfService {
             String outputPath,
             String generatedBy) {
 
+        generateInventoryReport(libraryName, libraryDesc, address, city, reportNumber, null, reportDate,
+                books, statusCounts, genreCounts, publisherCounts, outputPath, generatedBy, new ReportStatistics(),
+                memoryPolicyFor(PdfLibraryReportType.INVENTORY));
+    }
+
+    /**
+     * Generuje raport inwentaryzacyjny, korzystając z pamięci podręcznej raportów, jeśli jest ustawiona.
+     * Gdy numer raportu nie jest podany, jest generowany z prefiksu dopiero przy renderowaniu,
+     * a klucz pamięci podręcznej obejmuje wtedy tylko prefiks.
+     *
+     * @param statistics czasy faz zmierzone przed wywołaniem (przygotowanie danych, agregacja)
+     * @param memoryPolicy polityka pamięci buforów dokumentu
+     */
+    private void generateInventoryReport(
+            String libraryName,
+            String libraryDesc,
+            String address,
+            String city,
+            String reportNumber,
+            String reportNumberPrefix,
+            LocalDate reportDate,
+            List<LibraryPdfTableItem> books,
+            Map<String, Integer> statusCounts,
+            Map<String, Integer> genreCounts,
+            Map<String, Integer> publisherCounts,
+            String outputPath,
+            String generatedBy,
+            ReportStatistics statistics,
+            PdfMemoryPolicy memoryPolicy) {
+
+        ReportGenerationEvent event = new ReportGenerationEvent();
+        event.begin();
+        ReportCacheKey cacheKey = null;
+        if (reportCache != null) {
+            cacheKey = inventoryCacheKey(libraryName, libraryDesc, address, city,
+                    reportNumber != null ? reportNumber : "auto:" + reportNumberPrefix, reportDate,
+                    books, statusCounts, genreCounts, publisherCounts, generatedBy);
+            long cachedBytes = copyCachedReport(cacheKey, outputPath);
+            if (cachedBytes >= 0) {
+                event.commitCached(PdfLibraryReportType.INVENTORY.name(), cachedBytes);
+                System.out.println("Raport biblioteczny został pobrany z pamięci podręcznej: " + outputPath);
+                return;
+            }
+        }
+
+        String number = reportNumber != null ? reportNumber : generateReportNumber(reportNumberPrefix);
+
         // Konwersja map na listy BookStatusSummary, GenreSummary i PublisherSummary
+        long aggregationStart = System.nanoTime();
         List<BookStatusSummary> statusSummaries = statusCounts.entrySet().stream()
                 .map(entry -> new BookStatusSummary(entry.getKey(), entry.getValue()))
                 .collect(Collectors.toList());
@@ -99,35 +285,445 @@ public class LibraryPdfService {
                 .map(entry -> new PublisherSummary(entry.getKey(), entry.getValue()))
                 .collect(Collectors.toList());
 
+        statistics.addPhaseNanos(ReportPhase.AGGREGATION, System.nanoTime() - aggregationStart);
+
         // Wywołaj buildLibraryInventoryReport z odpowiednimi parametrami
+        LibraryPdfBuilder builder = acquireInventoryBuilder(memoryPolicy);
         try {
-            LibraryPdfBuilder.createLibraryReport(PdfLibraryReportType.INVENTORY)
-                    .buildLibraryInventoryReport(
-                            libraryName,
-                            libraryDesc,
-                            address,
-                            city,
-                            reportNumber,
-                            reportDate,
-                            books,
-                            statusSummaries,
-                            genreSummaries,
-                            publisherSummaries,
-                            generatedBy
-                    )
-                    .save(outputPath, new PdfCallback<>() {
-                        @Override
-                        public void success(PDDocument document) {
-                            System.out.println("Raport biblioteczny został wygenerowany pomyślnie: " + outputPath);
-                        }
-
-                        @Override
-                        public void error(PDDocument document) {
-                            System.err.println("Błąd podczas generowania raportu bibliotecznego!");
-                        }
-                    });
+            builder.setReportListener(reportListener);
+            builder.getStatistics().add(statistics);
+            builder.buildLibraryInventoryReport(
+                    libraryName,
+                    libraryDesc,
+                    address,
+                    city,
+                    number,
+                    reportDate,
+                    books,
+                    statusSummaries,
+                    genreSummaries,
+                    publisherSummaries,
+                    generatedBy
+                )
+                .save(outputPath, saveOptions, new PdfCallback<>() {
+                    @Override
+                    public void success(PDDocument document) {
+                        System.out.println("Raport biblioteczny został wygenerowany pomyślnie: " + outputPath);
+                    }
+
+                    @Override
+                    public void error(PDDocument document) {
+                        System.err.println("Błąd podczas generowania raportu bibliotecznego!");
+                    }
+                });
+            event.commit(builder.getStatistics());
         } catch (Exception e) {
             throw new RuntimeException("Błąd podczas generowania raportu: " + e.getMessage(), e);
+        } finally {
+            releaseInventoryBuilder(builder);
+        }
+
+        if (cacheKey != null) {
+            cacheReport(cacheKey, outputPath);
+        }
+    }
+
+    /**
+     * Generuje raport inwentaryzacyjny ponownie na podstawie jego poprzedniej wersji, renderując tylko
+     * strony, na których zmieniły się wiersze tabeli. Gdy poprzednia wersja nie istnieje, raport jest
+     * generowany w całości.
+     *
+     * @param previousPdfPath ścieżka poprzedniej wersji raportu (może być równa ścieżce wyjściowej)
+     * @param reportNumber numer raportu; jeśli null, używany jest numer poprzedniej wersji
+     * @param reportDate data raportu; jeśli null, używana jest data poprzedniej wersji
+     * @see #generateInventoryReport(String, String, String, String, String, LocalDate, List, Map, Map, Map, String, String)
+     */
+    public void regenerateInventoryReport(
+            String previousPdfPath,
+            String libraryName,
+            String libraryDesc,
+            String address,
+            String city,
+            String reportNumber,
+            LocalDate reportDate,
+            List<LibraryPdfTableItem> books,
+            Map<String, Integer> statusCounts,
+            Map<String, Integer> genreCounts,
+            Map<String, Integer> publisherCounts,
+            String outputPath,
+            String generatedBy) {
+
+        if (!Files.exists(Path.of(previousPdfPath))) {
+            generateInventoryReport(libraryName, libraryDesc, address, city, reportNumber, "INV",
+                    reportDate != null ? reportDate : LocalDate.now(),
+                    books, statusCounts, genreCounts, publisherCounts, outputPath, generatedBy, new ReportStatistics(),
+                    memoryPolicyFor(PdfLibraryReportType.INVENTORY));
+            return;
+        }
+
+        ReportGenerationEvent event = new ReportGenerationEvent();
+        event.begin();
+        long aggregationStart = System.nanoTime();
+        List<BookStatusSummary> statusSummaries = statusCounts.entrySet().stream()
+                .map(entry -> new BookStatusSummary(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+
+        List<GenreSummary> genreSummaries = genreCounts.entrySet().stream()
+                .map(entry -> new GenreSummary(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+
+        List<PublisherSummary> publisherSummaries = publisherCounts.entrySet().stream()
+                .map(entry -> new PublisherSummary(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+
+        long aggregationNanos = System.nanoTime() - aggregationStart;
+
+        LibraryPdfBuilder builder = acquireInventoryBuilder(memoryPolicyFor(PdfLibraryReportType.INVENTORY));
+        try {
+            builder.setReportListener(reportListener);
+            builder.getStatistics().addPhaseNanos(ReportPhase.AGGREGATION, aggregationNanos);
+            builder.rebuildLibraryInventoryReport(
+                    previousPdfPath,
+                    libraryName,
+                    libraryDesc,
+                    address,
+                    city,
+                    reportNumber,
+                    reportDate,
+                    books,
+                    statusSummaries,
+                    genreSummaries,
+                    publisherSummaries,
+                    generatedBy
+                )
+                .save(outputPath, saveOptions, new PdfCallback<>() {
+                    @Override
+                    public void success(PDDocument document) {
+                        System.out.println("Raport biblioteczny został zaktualizowany pomyślnie: " + outputPath);
+                    }
+
+                    @Override
+                    public void error(PDDocument document) {
+                        System.err.println("Błąd podczas aktualizacji raportu bibliotecznego!");
+                    }
+                });
+            event.commit(builder.getStatistics());
+        } finally {
+            releaseInventoryBuilder(builder);
+        }
+    }
+
+    /**
+     * Dzieli raport inwentaryzacyjny na części renderowane osobno, np. w osobnych procesach
+     *
+     * @param books wszystkie książki raportu, w kolejności wierszy tabeli
+     * @param shardCount żądana liczba części; krótki raport jest dzielony na mniej części
+     * @return kolejne części tabeli z zakresami wierszy i stron
+     * @see #generateInventoryShard
+     */
+    public List<TableShard> planInventoryShards(List<LibraryPdfTableItem> books, int shardCount) {
+        LibraryPdfBuilder builder = acquireInventoryBuilder(memoryPolicyFor(PdfLibraryReportType.INVENTORY));
+        try {
+            return builder.planInventoryShards(books, shardCount);
+        } finally {
+            releaseInventoryBuilder(builder);
+        }
+    }
+
+    /**
+     * Generuje część raportu inwentaryzacyjnego: strony tabeli z książkami części, bez podsumowań i podpisu.
+     * Liczebności statusów, gatunków i wydawców książek części są zapisywane w pliku części
+     * i sumowane przy łączeniu części przez {@link #mergeInventoryShards}.
+     *
+     * @param books książki części
+     * @param firstRow indeks pierwszego wiersza części w całym raporcie
+     * @param firstPage indeks pierwszej strony części w całym raporcie
+     * @param outputPath ścieżka pliku części
+     * @see #generateInventoryReport(String, String, String, String, String, LocalDate, List, Map, Map, Map, String, String)
+     */
+    public void generateInventoryShard(
+            String libraryName,
+            String libraryDesc,
+            String address,
+            String city,
+            String reportNumber,
+            LocalDate reportDate,
+            List<LibraryPdfTableItem> books,
+            int firstRow,
+            int firstPage,
+            String outputPath) {
+
+        ReportGenerationEvent event = new ReportGenerationEvent();
+        event.begin();
+        long aggregationStart = System.nanoTime();
+        Map<String, Integer> statusCounts = countBooksByStatus(books);
+        Map<String, Integer> genreCounts = countBooksByGenre(books);
+        Map<String, Integer> publisherCounts = countBooksByPublisher(books);
+        long aggregationNanos = System.nanoTime() - aggregationStart;
+
+        LibraryPdfBuilder builder = acquireInventoryBuilder(memoryPolicyFor(PdfLibraryReportType.INVENTORY));
+        try {
+            builder.setReportListener(reportListener);
+            builder.getStatistics().addPhaseNanos(ReportPhase.AGGREGATION, aggregationNanos);
+            builder.buildInventoryShard(
+                    libraryName,
+                    libraryDesc,
+                    address,
+                    city,
+                    reportNumber,
+                    reportDate,
+                    books,
+                    firstRow,
+                    firstPage,
+                    statusCounts,
+                    genreCounts,
+                    publisherCounts
+                )
+                .save(outputPath, saveOptions, new PdfCallback<>() {
+                    @Override
+                    public void success(PDDocument document) {
+                        System.out.println("Część raportu bibliotecznego została wygenerowana pomyślnie: " + outputPath);
+                    }
+
+                    @Override
+                    public void error(PDDocument document) {
+                        System.err.println("Błąd podczas generowania części raportu bibliotecznego!");
+                    }
+                });
+            event.commit(builder.getStatistics());
+        } finally {
+            releaseInventoryBuilder(builder);
+        }
+    }
+
+    /**
+     * Łączy części raportu inwentaryzacyjnego w jeden raport i dodaje podsumowania całego raportu
+     * policzone z liczebności zapisanych w częściach
+     *
+     * @param shardPaths ścieżki części w kolejności wierszy raportu
+     * @param outputPath ścieżka pliku połączonego raportu
+     * @param generatedBy osoba/użytkownik generujący raport
+     * @param reportDate data raportu, wyświetlana przy podpisie
+     */
+    public void mergeInventoryShards(List<String> shardPaths, String outputPath, String generatedBy, LocalDate reportDate) {
+        ReportGenerationEvent event = new ReportGenerationEvent();
+        event.begin();
+        LibraryPdfBuilder builder = LibraryPdfBuilder.openShardsForMerge(shardPaths,
+                memoryPolicyFor(PdfLibraryReportType.INVENTORY), layoutProfile);
+        builder.setReportListener(reportListener);
+        builder.buildMergedInventoryReport(generatedBy, reportDate)
+                .save(outputPath, saveOptions, new PdfCallback<>() {
+                    @Override
+                    public void success(PDDocument document) {
+                        System.out.println("Części raportu bibliotecznego zostały połączone pomyślnie: " + outputPath);
+                    }
+
+                    @Override
+                    public void error(PDDocument document) {
+                        System.err.println("Błąd podczas łączenia części raportu bibliotecznego!");
+                    }
+                });
+        event.commit(builder.getStatistics());
+    }
+
+    /**
+     * Generuje skonsolidowany raport inwentaryzacyjny sieci bibliotek: sekcję każdej filii z jej tabelą
+     * i podsumowaniami oraz podsumowanie całej sieci. Liczebności filii są liczone równolegle,
+     * a podsumowanie sieci powstaje z sumy podsumowań filii, bez łączenia list książek filii.
+     *
+     * @param networkName nazwa sieci bibliotek
+     * @param networkDesc opis sieci bibliotek
+     * @param address adres sieci - ulica
+     * @param city miasto i kod pocztowy sieci
+     * @param reportNumber numer raportu; jeśli null, jest generowany
+     * @param reportDate data raportu
+     * @param branches dane filii w kolejności sekcji raportu
+     * @param outputPath ścieżka do zapisania pliku PDF
+     * @param generatedBy osoba/użytkownik generujący raport
+     */
+    public void generateConsolidatedInventoryReport(
+            String networkName,
+            String networkDesc,
+            String address,
+            String city,
+            String reportNumber,
+            LocalDate reportDate,
+            List<BranchInventory> branches,
+            String outputPath,
+            String generatedBy) {
+
+        ReportGenerationEvent event = new ReportGenerationEvent();
+        event.begin();
+        long aggregationStart = System.nanoTime();
+        List<BranchInventorySummary> branchSummaries = branches.parallelStream()
+                .map(this::summarizeBranch)
+                .toList();
+        BranchInventorySummary networkSummary = mergeBranchSummaries(networkName, branchSummaries);
+        long aggregationNanos = System.nanoTime() - aggregationStart;
+
+        String number = reportNumber != null ? reportNumber : generateReportNumber("INV");
+        LibraryPdfBuilder builder = acquireInventoryBuilder(memoryPolicyFor(PdfLibraryReportType.INVENTORY));
+        try {
+            builder.setReportListener(reportListener);
+            builder.getStatistics().addPhaseNanos(ReportPhase.AGGREGATION, aggregationNanos);
+            builder.buildConsolidatedInventoryReport(
+                    networkName,
+                    networkDesc,
+                    address,
+                    city,
+                    number,
+                    reportDate,
+                    branches,
+                    branchSummaries,
+                    networkSummary,
+                    generatedBy
+                )
+                .save(outputPath, saveOptions, new PdfCallback<>() {
+                    @Override
+                    public void success(PDDocument document) {
+                        System.out.println("Skonsolidowany raport biblioteczny (" + branches.size()
+                                + " filii) został wygenerowany pomyślnie: " + outputPath);
+                    }
+
+                    @Override
+                    public void error(PDDocument document) {
+                        System.err.println("Błąd podczas generowania skonsolidowanego raportu bibliotecznego!");
+                    }
+                });
+            event.commit(builder.getStatistics());
+        } finally {
+            releaseInventoryBuilder(builder);
+        }
+    }
+
+    /**
+     * Liczy podsumowanie jednej filii; pozycje podsumowań są uporządkowane według nazwy
+     */
+    private BranchInventorySummary summarizeBranch(BranchInventory branch) {
+        List<LibraryPdfTableItem> books = branch.getBooks();
+        return new BranchInventorySummary(
+                branch.getBranchName(),
+                books.size(),
+                new TreeMap<>(countBooksByStatus(books)),
+                new TreeMap<>(countBooksByGenre(books)),
+                new TreeMap<>(countBooksByPublisher(books)));
+    }
+
+    /**
+     * Sumuje podsumowania filii w podsumowanie całej sieci
+     */
+    private static BranchInventorySummary mergeBranchSummaries(String networkName,
+                                                               List<BranchInventorySummary> branchSummaries) {
+        int bookCount = 0;
+        Map<String, Integer> statusCounts = new TreeMap<>();
+        Map<String, Integer> genreCounts = new TreeMap<>();
+        Map<String, Integer> publisherCounts = new TreeMap<>();
+        for (BranchInventorySummary summary : branchSummaries) {
+            bookCount += summary.getBookCount();
+            summary.getStatusCounts().forEach((status, count) -> statusCounts.merge(status, count, Integer::sum));
+            summary.getGenreCounts().forEach((genre, count) -> genreCounts.merge(genre, count, Integer::sum));
+            summary.getPublisherCounts().forEach((publisher, count) -> publisherCounts.merge(publisher, count, Integer::sum));
+        }
+        return new BranchInventorySummary(networkName, bookCount, statusCounts, genreCounts, publisherCounts);
+    }
+
+    /**
+     * Wylicza klucz pamięci podręcznej z wszystkich danych wejściowych raportu inwentaryzacyjnego
+     * oraz ustawień zapisu, od których zależą bajty pliku
+     */
+    private ReportCacheKey inventoryCacheKey(
+            String libraryName,
+            String libraryDesc,
+            String address,
+            String city,
+            String reportNumber,
+            LocalDate reportDate,
+            List<LibraryPdfTableItem> books,
+            Map<String, Integer> statusCounts,
+            Map<String, Integer> genreCounts,
+            Map<String, Integer> publisherCounts,
+            String generatedBy) {
+
+        ReportCacheKey.Builder key = ReportCacheKey.builder(PdfLibraryReportType.INVENTORY.name())
+                .add(layoutProfile.toString())
+                .add(saveOptions.toString())
+                .add(libraryName)
+                .add(libraryDesc)
+                .add(address)
+                .add(city)
+                .add(reportNumber)
+                .add(reportDate)
+                .add(generatedBy)
+                .add(books.size());
+        for (LibraryPdfTableItem book : books) {
+            key.add(book.getBookId())
+                    .add(book.getTitle())
+                    .add(book.getAuthors())
+                    .add(book.getPublisher())
+                    .add(book.getStatus())
+                    .add(book.getGenre())
+                    .add(book.getDescription());
+        }
+        return key.add(statusCounts)
+                .add(genreCounts)
+                .add(publisherCounts)
+                .build();
+    }
+
+    /**
+     * Kopiuje raport z pamięci podręcznej do pliku wyjściowego
+     *
+     * @return rozmiar skopiowanego raportu w bajtach lub -1, jeśli raportu nie było w pamięci podręcznej
+     */
+    private long copyCachedReport(ReportCacheKey cacheKey, String outputPath) {
+        byte[] cached = reportCache.get(cacheKey);
+        if (cached == null) {
+            return -1;
+        }
+        try {
+            Files.write(Path.of(outputPath), cached);
+            return cached.length;
+        } catch (IOException e) {
+            throw new RuntimeException("Błąd podczas zapisu raportu z pamięci podręcznej: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Zapisuje wygenerowany plik raportu w pamięci podręcznej
+     */
+    private void cacheReport(ReportCacheKey cacheKey, String outputPath) {
+        try {
+            reportCache.put(cacheKey, Files.readAllBytes(Path.of(outputPath)));
+        } catch (IOException e) {
+            System.err.println("Nie można zapisać raportu w pamięci podręcznej: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Szacuje liczbę stron i rozmiar raportu inwentaryzacyjnego bez jego renderowania.
+     * Przy zawijaniu komórek wysokości wierszy są mierzone fontami buildera, tak jak przy rysowaniu.
+     *
+     * @param books lista książek do umieszczenia w raporcie
+     * @param statusCounts mapa statusów i ich liczebności
+     * @param genreCounts mapa gatunków i ich liczebności
+     * @param publisherCounts mapa wydawców i ich liczebności
+     * @return plan układu z liczbą stron i szacowanym rozmiarem dokumentu
+     */
+    public LayoutPlan planInventoryReport(
+            List<LibraryPdfTableItem> books,
+            Map<String, Integer> statusCounts,
+            Map<String, Integer> genreCounts,
+            Map<String, Integer> publisherCounts) {
+
+        if (!layoutProfile.isWrapCells()) {
+            return LibraryPdfBuilder.planInventoryLayout(layoutProfile, books.size(), statusCounts.size(),
+                    genreCounts.size(), publisherCounts.size());
+        }
+        LibraryPdfBuilder builder = acquireInventoryBuilder(memoryPolicyFor(PdfLibraryReportType.INVENTORY));
+        try {
+            return builder.planInventoryReport(books, statusCounts.size(), genreCounts.size(), publisherCounts.size());
+        } finally {
+            releaseInventoryBuilder(builder);
         }
     }
 
@@ -144,9 +740,11 @@ public class LibraryPdfService {
             String generatedBy) {
 
         // Filtrowanie tylko książek wypożyczonych
+        long preparationStart = System.nanoTime();
         List<LibraryPdfTableItem> borrowedBooks = books.stream()
                 .filter(book -> "Wypożyczona".equalsIgnoreCase(book.getStatus()))
                 .collect(Collectors.toList());
+        long aggregationStart = System.nanoTime();
 
         // Tworzenie mapy statusów - w tym przypadku tylko jeden status
         Map<String, Integer> statusCounts = Map.of("Wypożyczona", borrowedBooks.size());
@@ -154,20 +752,26 @@ public class LibraryPdfService {
         // Przygotuj mapy gatunków i wydawców
         Map<String, Integer> genreCounts = countBooksByGenre(borrowedBooks);
         Map<String, Integer> publisherCounts = countBooksByPublisher(borrowedBooks);
+        ReportStatistics statistics = new ReportStatistics()
+                .addPhaseNanos(ReportPhase.DATA_PREPARATION, aggregationStart - preparationStart)
+                .addPhaseNanos(ReportPhase.AGGREGATION, System.nanoTime() - aggregationStart);
 
         generateInventoryReport(
                 DEFAULT_LIBRARY_NAME,
                 DEFAULT_LIBRARY_DESC + " - Raport książek wypożyczonych",
                 DEFAULT_ADDRESS,
                 DEFAULT_CITY,
-                generateReportNumber("BR"),
+                null,
+                "BR",
                 LocalDate.now(),
                 borrowedBooks,
                 statusCounts,
                 genreCounts,
                 publisherCounts,
                 outputPath,
-                generatedBy
+                generatedBy,
+                statistics,
+                memoryPolicyFor(PdfLibraryReportType.INVENTORY)
         );
     }
 
@@ -190,16 +794,21 @@ public class LibraryPdfService {
             String generatedBy) {
 
         // Filtrowanie książek według podanych parametrów
+        long preparationStart = System.nanoTime();
         List<LibraryPdfTableItem> filteredBooks = books.stream()
                 .filter(book -> (genre == null || genre.isEmpty() || book.getGenre().equalsIgnoreCase(genre)))
                 .filter(book -> (status == null || status.isEmpty() || book.getStatus().equalsIgnoreCase(status)))
                 .filter(book -> (publisher == null || publisher.isEmpty() || book.getPublisher().equalsIgnoreCase(publisher)))
                 .collect(Collectors.toList());
+        long aggregationStart = System.nanoTime();
 
         // Przygotuj mapy statusów, gatunków i wydawców
         Map<String, Integer> statusCounts = countBooksByStatus(filteredBooks);
         Map<String, Integer> genreCounts = countBooksByGenre(filteredBooks);
         Map<String, Integer> publisherCounts = countBooksByPublisher(filteredBooks);
+        ReportStatistics statistics = new ReportStatistics()
+                .addPhaseNanos(ReportPhase.DATA_PREPARATION, aggregationStart - preparationStart)
+                .addPhaseNanos(ReportPhase.AGGREGATION, System.nanoTime() - aggregationStart);
 
         // Zastosowane filtry do tytułu raportu
         StringBuilder reportTitle = new StringBuilder(DEFAULT_LIBRARY_DESC);
@@ -218,26 +827,20 @@ public class LibraryPdfService {
                 reportTitle.toString(),
                 DEFAULT_ADDRESS,
                 DEFAULT_CITY,
-                generateReportNumber("FR"),
+                null,
+                "FR",
                 LocalDate.now(),
                 filteredBooks,
                 statusCounts,
                 genreCounts,
                 publisherCounts,
                 outputPath,
-                generatedBy
+                generatedBy,
+                statistics,
+                memoryPolicyFor(PdfLibraryReportType.FILTERED)
         );
     }
 
-    /**
-     * Generuje domyślny numer raportu
-     *
-     * @return numer raportu w formacie INV-YYYYMMDD-XXX
-     */
-    private String generateReportNumber() {
-        return generateReportNumber("INV");
-    }
-
     /**
      * Generuje numer raportu z określonym prefiksem
      *
@@ -311,7 +914,11 @@ public class LibraryPdfService {
             String generatedBy) {
 
         // Użycie klasy PopularityPdfReport do generowania raportu
-        PopularityPdfReport popularityReport = new PopularityPdfReport();
+        PopularityPdfReport popularityReport = new PopularityPdfReport(saveOptions)
+                .setReportListener(reportListener)
+                .setMemoryPolicy(memoryPolicyFor(PdfLibraryReportType.POPULARITY))
+                .setLayoutProfile(layoutProfile)
+                .setBuilderPool(builderPools.get(PdfLibraryReportType.POPULARITY));
         popularityReport.generatePopularityReport(
                 books,
                 loanCountMap,
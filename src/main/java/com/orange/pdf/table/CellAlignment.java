@@ -0,0 +1,21 @@
+package com.orange.pdf.table;
+
+/**
+ * Wyrównanie tekstu w komórce tabeli
+ */
+public enum CellAlignment {
+    /**
+     * Do lewej krawędzi kolumny
+     */
+    LEFT,
+
+    /**
+     * Do środka kolumny
+     */
+    CENTER,
+
+    /**
+     * Do prawej krawędzi kolumny
+     */
+    RIGHT
+}
@@ -0,0 +1,10 @@
+package com.orange.pdf.table;
+
+/**
+ * Krój tekstu komórki tabeli, zamieniany przez builder na font osadzony w dokumencie
+ */
+public enum CellFont {
+    REGULAR,
+    BOLD,
+    ITALIC
+}
@@ -0,0 +1,17 @@
+package com.orange.pdf.table;
+
+/**
+ * Wyznacza tekst komórki tabeli dla wiersza danych
+ *
+ * @param <T> typ wiersza danych
+ */
+@FunctionalInterface
+public interface CellValue<T> {
+
+    /**
+     * @param item wiersz danych
+     * @param rowNumber numer wiersza w tabeli (od 1)
+     * @return tekst komórki; null oznacza pustą komórkę
+     */
+    String get(T item, int rowNumber);
+}
@@ -0,0 +1,105 @@
+package com.orange.pdf.table;
+
+import lombok.Getter;
+
+import java.util.function.Function;
+
+/**
+ * Opis kolumny tabeli: nagłówek, źródło tekstu komórek, szerokość, wyrównanie, font i sposób
+ * mieszczenia tekstu. Szerokości i długości tekstu podaje się dla tabeli na stronie A4
+ * ({@link com.orange.pdf.layout.LayoutProfile#REFERENCE_TABLE_WIDTH}) - układ tabeli skaluje je
+ * do szerokości bieżącej tabeli.
+ *
+ * @param <T> typ wiersza danych
+ */
+@Getter
+public class TableColumn<T> {
+
+    // Szerokość kolumny wypełniającej resztę tabeli
+    public static final float FILL = 0f;
+
+    private final String header;
+    private final float width;
+    private final CellValue<T> value;
+    private CellAlignment alignment = CellAlignment.LEFT;
+    private Function<T, CellFont> fontSelector = item -> CellFont.REGULAR;
+    // Największa liczba znaków tekstu dla tabeli A4; 0 - bez skracania
+    private int maxLength;
+    private boolean truncateToWidth;
+    private boolean wrap;
+    private Function<T, String> detail;
+
+    private TableColumn(String header, float width, CellValue<T> value) {
+        this.header = header;
+        this.width = width;
+        this.value = value;
+    }
+
+    /**
+     * Kolumna o stałej szerokości
+     *
+     * @param header tekst nagłówka
+     * @param width szerokość w punktach dla tabeli A4
+     * @param value tekst komórki wiersza
+     */
+    public static <T> TableColumn<T> of(String header, float width, CellValue<T> value) {
+        return new TableColumn<>(header, width, value);
+    }
+
+    /**
+     * Kolumna wypełniająca szerokość tabeli pozostałą po kolumnach o stałej szerokości
+     */
+    public static <T> TableColumn<T> fill(String header, CellValue<T> value) {
+        return new TableColumn<>(header, FILL, value);
+    }
+
+    public TableColumn<T> setAlignment(CellAlignment alignment) {
+        this.alignment = alignment;
+        return this;
+    }
+
+    public TableColumn<T> setFont(CellFont font) {
+        this.fontSelector = item -> font;
+        return this;
+    }
+
+    /**
+     * Ustawia font zależny od wiersza, np. pogrubienie wyróżnionych wartości
+     */
+    public TableColumn<T> setFont(Function<T, CellFont> fontSelector) {
+        this.fontSelector = fontSelector;
+        return this;
+    }
+
+    /**
+     * Skraca tekst dłuższy niż podana liczba znaków (dla tabeli A4), dodając "..."
+     */
+    public TableColumn<T> setMaxLength(int maxLength) {
+        this.maxLength = maxLength;
+        return this;
+    }
+
+    /**
+     * Skraca tekst do liczby znaków wynikającej z szerokości kolumny i średniej szerokości znaku
+     */
+    public TableColumn<T> setTruncateToWidth(boolean truncateToWidth) {
+        this.truncateToWidth = truncateToWidth;
+        return this;
+    }
+
+    /**
+     * Pozwala zawijać tekst kolumny w wiele linii, gdy profil układu włącza zawijanie komórek
+     */
+    public TableColumn<T> setWrap(boolean wrap) {
+        this.wrap = wrap;
+        return this;
+    }
+
+    /**
+     * Ustawia dodatkowy tekst rysowany kursywą pod tekstem zawiniętej komórki (np. opis książki)
+     */
+    public TableColumn<T> setDetail(Function<T, String> detail) {
+        this.detail = detail;
+        return this;
+    }
+}
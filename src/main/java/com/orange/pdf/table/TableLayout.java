@@ -0,0 +1,61 @@
+package com.orange.pdf.table;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Układ tabeli o konkretnej szerokości: położenie i szerokość kolumn oraz długości skracanego tekstu,
+ * wyznaczone raz dla całej tabeli zamiast w każdym wierszu. Położenia kolumn są liczone od lewej
+ * krawędzi tabeli, więc ten sam układ służy np. kilku grupom kolumn podsumowania obok siebie.
+ *
+ * @param <T> typ wiersza danych
+ */
+@Getter
+public class TableLayout<T> {
+
+    private final TableSpec<T> spec;
+    private final float width;
+    private final float[] offsets;
+    private final float[] widths;
+    // Największa liczba znaków tekstu kolumny; 0 - bez skracania
+    private final int[] maxLengths;
+
+    TableLayout(TableSpec<T> spec, float width, float[] offsets, float[] widths, int[] maxLengths) {
+        this.spec = spec;
+        this.width = width;
+        this.offsets = offsets;
+        this.widths = widths;
+        this.maxLengths = maxLengths;
+    }
+
+    public List<TableColumn<T>> getColumns() {
+        return spec.getColumns();
+    }
+
+    public int getColumnCount() {
+        return offsets.length;
+    }
+
+    /**
+     * Zwraca tekst komórki wiersza, skrócony do długości kolumny
+     */
+    public String cellText(int column, T item, int rowNumber) {
+        return truncate(spec.getColumns().get(column).getValue().get(item, rowNumber), maxLengths[column]);
+    }
+
+    /**
+     * Skraca tekst do podanej długości, dodając "..." na końcu jeśli został skrócony
+     *
+     * @param maxLength największa liczba znaków; 0 - bez skracania
+     */
+    private static String truncate(String text, int maxLength) {
+        if (text == null) {
+            return "";
+        }
+        if (maxLength == 0 || text.length() <= maxLength) {
+            return text;
+        }
+        return text.substring(0, maxLength - 3) + "...";
+    }
+}
@@ -0,0 +1,85 @@
+package com.orange.pdf.table;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Deklaratywny opis tabeli raportu: lista kolumn rysowana przez wspólny mechanizm tabel buildera
+ * ({@link com.orange.pdf.builder.PdfBuilder#drawTablePages}). Opis nie zależy od rozmiaru strony,
+ * więc może być utworzony raz i użyty dla wielu dokumentów.
+ *
+ * @param <T> typ wiersza danych
+ */
+@Getter
+public class TableSpec<T> {
+
+    // Średnia szerokość znaku fontu tabeli, z której wynika liczba znaków mieszczących się w kolumnie
+    private static final float AVERAGE_CHAR_WIDTH = 4.5f;
+    // Najkrótszy tekst po skróceniu (razem z "...")
+    private static final int MIN_TRUNCATED_LENGTH = 4;
+
+    private final String name;
+    private final List<TableColumn<T>> columns = new ArrayList<>();
+
+    /**
+     * @param name nazwa tabeli, identyfikująca m.in. nagłówek nagrywany raz jako element strony
+     */
+    public TableSpec(String name) {
+        this.name = name;
+    }
+
+    public TableSpec<T> column(TableColumn<T> column) {
+        columns.add(column);
+        return this;
+    }
+
+    public List<TableColumn<T>> getColumns() {
+        return Collections.unmodifiableList(columns);
+    }
+
+    /**
+     * Wyznacza położenie i szerokość kolumn oraz długości skracanego tekstu dla tabeli o podanej szerokości
+     *
+     * @param tableWidth szerokość tabeli
+     * @param scale skala szerokości dobranych dla tabeli A4 do szerokości bieżącej tabeli
+     * @return układ tabeli, wspólny dla wszystkich jej wierszy
+     */
+    public TableLayout<T> layout(float tableWidth, float scale) {
+        int count = columns.size();
+        float[] widths = new float[count];
+        int fillColumns = 0;
+        float fixedWidth = 0f;
+        for (int i = 0; i < count; i++) {
+            float width = columns.get(i).getWidth();
+            if (width == TableColumn.FILL) {
+                fillColumns++;
+            } else {
+                widths[i] = width * scale;
+                fixedWidth += widths[i];
+            }
+        }
+        float fillWidth = fillColumns > 0 ? (tableWidth - fixedWidth) / fillColumns : 0f;
+
+        float[] offsets = new float[count];
+        int[] maxLengths = new int[count];
+        float offset = 0f;
+        for (int i = 0; i < count; i++) {
+            TableColumn<T> column = columns.get(i);
+            if (column.getWidth() == TableColumn.FILL) {
+                widths[i] = fillWidth;
+            }
+            offsets[i] = offset;
+            offset += widths[i];
+
+            if (column.getMaxLength() > 0) {
+                maxLengths[i] = Math.max(MIN_TRUNCATED_LENGTH, Math.round(column.getMaxLength() * scale));
+            } else if (column.isTruncateToWidth()) {
+                maxLengths[i] = Math.max(MIN_TRUNCATED_LENGTH, (int) (widths[i] / AVERAGE_CHAR_WIDTH));
+            }
+        }
+        return new TableLayout<>(this, tableWidth, offsets, widths, maxLengths);
+    }
+}
@@ -0,0 +1,172 @@
+package com.orange.pdf.service;
+
+import com.orange.pdf.builder.data.LibraryPdfTableItem;
+import com.orange.pdf.layout.LayoutPlan;
+import com.orange.pdf.layout.LayoutProfile;
+import com.orange.pdf.layout.TableShard;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Sprawdza, że raport inwentaryzacyjny złożony z części renderowanych osobno oraz raport wygenerowany
+ * ponownie z przeniesionymi stronami poprzedniej wersji są identyczne z raportem narysowanym w jednym przebiegu:
+ * mają te same podziały stron, numery wierszy, nagłówki kontynuacji, stopki i podsumowania.
+ * Sprawdza też, że plan układu przewiduje liczbę stron narysowanego raportu.
+ */
+class InventoryRenderEquivalenceTest {
+
+    private static final String LIBRARY_NAME = "Biblioteka Testowa";
+    private static final String LIBRARY_DESC = "System Zarządzania Księgozbiorem";
+    private static final String ADDRESS = "ul. Testowa 1";
+    private static final String CITY = "00-001 Warszawa";
+    private static final String REPORT_NUMBER = "INV-20261001-001";
+    private static final LocalDate REPORT_DATE = LocalDate.of(2026, 10, 1);
+    private static final String GENERATED_BY = "Tester";
+    private static final int BOOK_COUNT = 400;
+    private static final int SHARD_COUNT = 3;
+
+    @TempDir
+    Path tempDir;
+
+    @ParameterizedTest(name = "zawijanie komórek: {0}")
+    @ValueSource(booleans = {false, true})
+    void shardedReportMatchesSinglePassReport(boolean wrapCells) throws IOException {
+        LibraryPdfService service = new LibraryPdfService()
+                .setLayoutProfile(LayoutProfile.standard().setWrapCells(wrapCells));
+        List<LibraryPdfTableItem> books = books();
+
+        Path singlePass = tempDir.resolve("single.pdf");
+        generate(service, books, singlePass);
+
+        List<TableShard> shards = service.planInventoryShards(books, SHARD_COUNT);
+        assertEquals(SHARD_COUNT, shards.size(), "liczba części");
+        List<String> shardPaths = new ArrayList<>();
+        for (TableShard shard : shards) {
+            Path shardPath = tempDir.resolve("shard-" + shard.getIndex() + ".pdf");
+            service.generateInventoryShard(LIBRARY_NAME, LIBRARY_DESC, ADDRESS, CITY, REPORT_NUMBER, REPORT_DATE,
+                    books.subList(shard.getFirstRow(), shard.getEndRow()), shard.getFirstRow(), shard.getFirstPage(),
+                    shardPath.toString());
+            shardPaths.add(shardPath.toString());
+        }
+        Path merged = tempDir.resolve("merged.pdf");
+        service.mergeInventoryShards(shardPaths, merged.toString(), GENERATED_BY, REPORT_DATE);
+
+        assertSamePages(pageTexts(singlePass), pageTexts(merged));
+    }
+
+    @ParameterizedTest(name = "zawijanie komórek: {0}")
+    @ValueSource(booleans = {false, true})
+    void rebuiltReportMatchesFreshlyRenderedReport(boolean wrapCells) throws IOException {
+        LibraryPdfService service = new LibraryPdfService()
+                .setLayoutProfile(LayoutProfile.standard().setWrapCells(wrapCells));
+        List<LibraryPdfTableItem> books = books();
+        Path previous = tempDir.resolve("previous.pdf");
+        generate(service, books, previous);
+
+        // Zmiana jednego wiersza w środku tabeli - pozostałe strony tabeli są przenoszone z poprzedniej wersji.
+        // Przy zawijaniu zmienia się tylko opis, wyświetlany pod tytułem.
+        List<LibraryPdfTableItem> changedBooks = new ArrayList<>(books);
+        LibraryPdfTableItem changed = books.get(BOOK_COUNT / 2);
+        changedBooks.set(BOOK_COUNT / 2, wrapCells
+                ? new LibraryPdfTableItem(changed.getBookId(), changed.getTitle(), changed.getAuthors(),
+                        changed.getPublisher(), changed.getStatus(), changed.getGenre(), "Zmieniony opis")
+                : new LibraryPdfTableItem(changed.getBookId(), "Zmieniony tytuł", changed.getAuthors(),
+                        changed.getPublisher(), "Wycofana", changed.getGenre(), changed.getDescription()));
+
+        // Numer i data są przejmowane z poprzedniej wersji raportu
+        Path rebuilt = tempDir.resolve("rebuilt.pdf");
+        service.regenerateInventoryReport(previous.toString(), LIBRARY_NAME, LIBRARY_DESC, ADDRESS, CITY, null, null,
+                changedBooks, counts(changedBooks, LibraryPdfTableItem::getStatus),
+                counts(changedBooks, LibraryPdfTableItem::getGenre), counts(changedBooks, LibraryPdfTableItem::getPublisher),
+                rebuilt.toString(), GENERATED_BY);
+
+        Path fresh = tempDir.resolve("fresh.pdf");
+        generate(service, changedBooks, fresh);
+
+        List<String> freshPages = pageTexts(fresh);
+        assertNotEquals(pageTexts(previous), freshPages, "zmiana wiersza powinna być widoczna w raporcie");
+        assertSamePages(freshPages, pageTexts(rebuilt));
+    }
+
+    @ParameterizedTest(name = "zawijanie komórek: {0}")
+    @ValueSource(booleans = {false, true})
+    void plannedPageCountMatchesRenderedReport(boolean wrapCells) throws IOException {
+        LibraryPdfService service = new LibraryPdfService()
+                .setLayoutProfile(LayoutProfile.standard().setWrapCells(wrapCells));
+        List<LibraryPdfTableItem> books = books();
+        LayoutPlan plan = service.planInventoryReport(books, counts(books, LibraryPdfTableItem::getStatus),
+                counts(books, LibraryPdfTableItem::getGenre), counts(books, LibraryPdfTableItem::getPublisher));
+
+        Path rendered = tempDir.resolve("rendered.pdf");
+        generate(service, books, rendered);
+
+        assertEquals(pageTexts(rendered).size(), plan.getTotalPages(), "liczba stron planu");
+    }
+
+    private static void generate(LibraryPdfService service, List<LibraryPdfTableItem> books, Path outputPath) {
+        service.generateInventoryReport(LIBRARY_NAME, LIBRARY_DESC, ADDRESS, CITY, REPORT_NUMBER, REPORT_DATE, books,
+                counts(books, LibraryPdfTableItem::getStatus), counts(books, LibraryPdfTableItem::getGenre),
+                counts(books, LibraryPdfTableItem::getPublisher), outputPath.toString(), GENERATED_BY);
+    }
+
+    /**
+     * Książki posortowane według ID, z tytułami różnej długości, aby przy zawijaniu wiersze miały różne wysokości
+     */
+    private static List<LibraryPdfTableItem> books() {
+        String[] statuses = {"Dostępna", "Wypożyczona", "Zarezerwowana"};
+        String[] genres = {"Fantasy", "Klasyka", "Sci-Fi", "Thriller", "Reportaż"};
+        List<LibraryPdfTableItem> books = new ArrayList<>();
+        for (int i = 0; i < BOOK_COUNT; i++) {
+            String title = "Tytuł książki " + i + (i % 7 == 0 ? " z bardzo długim podtytułem wymagającym zawinięcia" : "");
+            books.add(new LibraryPdfTableItem(String.valueOf(1000 + i), title, "Autor " + (i % 37),
+                    "Wydawnictwo " + (i % 11), statuses[i % statuses.length], genres[i % genres.length],
+                    i % 5 == 0 ? "Opis książki " + i + " zajmujący więcej niż jedną linię w trybie zawijania komórek" : ""));
+        }
+        return books;
+    }
+
+    private static Map<String, Integer> counts(List<LibraryPdfTableItem> books,
+                                               Function<LibraryPdfTableItem, String> field) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (LibraryPdfTableItem book : books) {
+            counts.merge(field.apply(book), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    private static List<String> pageTexts(Path pdf) throws IOException {
+        try (PDDocument document = Loader.loadPDF(pdf.toFile())) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            List<String> pages = new ArrayList<>();
+            for (int page = 1; page <= document.getNumberOfPages(); page++) {
+                stripper.setStartPage(page);
+                stripper.setEndPage(page);
+                pages.add(stripper.getText(document));
+            }
+            return pages;
+        }
+    }
+
+    private static void assertSamePages(List<String> expected, List<String> actual) {
+        assertEquals(expected.size(), actual.size(), "liczba stron");
+        for (int page = 0; page < expected.size(); page++) {
+            assertEquals(expected.get(page), actual.get(page), "tekst strony " + (page + 1));
+        }
+    }
+}